@@ -730,6 +730,8 @@ public class RDKitStructureNormalizerNodeModel extends AbstractRDKitNodeModel {
 			LOGGER.info(fileTempTransformationConfigFile.getName() + " copied from " + strTransformationConfigurationOriginal);
 			LOGGER.info(fileTempAugmentedAtomsConfigFile.getName() + " copied from " + strAugmentedAtomsConfigurationOriginal);
 
+			// The newer node must not rely anymore on the configuration it initialized StruChk with
+			RDKitStructureNormalizerV2NodeModel.invalidateLoadedCheckerConfiguration();
 			final int iError = RDKFuncs.initCheckMol(strOptions);
 			if (iError != 0) {
 				throw new Exception("Configuring the Structure Normalizer failed with error code #" + iError +
@@ -108,6 +108,12 @@ implements IWorkbenchPreferencePage {
 	/** The preference key for the timeout in seconds to be used. */
 	public static final String PREF_KEY_TIMEOUT = PREFIX + "timeout";
 
+	/** The preference key for the incremental mode option to be used. */
+	public static final String PREF_KEY_INCREMENTAL_MODE = PREFIX + "incrementalMode";
+
+	/** The preference key for the number of molecules to keep for verification in incremental mode. */
+	public static final String PREF_KEY_RESERVOIR_SIZE = PREFIX + "reservoirSize";
+
 	/** The preference key for the threshold to be used. */
 	public static final double DEFAULT_THRESHOLD = 1.0d;
 
@@ -129,6 +135,12 @@ implements IWorkbenchPreferencePage {
 	/** The default timeout in seconds to be used. */
 	public static final int DEFAULT_TIMEOUT = 300;
 
+	/** The default incremental mode option to be used. */
+	public static final boolean DEFAULT_INCREMENTAL_MODE = false;
+
+	/** The default number of molecules to keep for verification in incremental mode. */
+	public static final int DEFAULT_RESERVOIR_SIZE = 100;
+
 	//
 	// Globals
 	//
@@ -164,6 +176,12 @@ implements IWorkbenchPreferencePage {
 	/** The editor for the timeout. */
 	private IntegerFieldEditor m_editorTimeout;
 
+	/** The editor for the incremental mode option. */
+	private BooleanFieldEditor m_editorIncrementalMode;
+
+	/** The editor for the reservoir size. */
+	private IntegerFieldEditor m_editorReservoirSize;
+
 	//
 	// Constructors
 	//
@@ -237,6 +255,16 @@ implements IWorkbenchPreferencePage {
 		m_editorTimeout = new IntegerFieldEditor(PREF_KEY_TIMEOUT, "Timeout (in seconds): ", getFieldEditorParent());
 		m_editorTimeout.setValidRange(1, Integer.MAX_VALUE);;
 		addField(m_editorTimeout);
+
+		m_editorIncrementalMode = new BooleanFieldEditor(PREF_KEY_INCREMENTAL_MODE,
+				"Incremental mode (low memory, approximate MCS, only for threshold 1.0 without ring and valence options)",
+				getFieldEditorParent());
+		addField(m_editorIncrementalMode);
+
+		m_editorReservoirSize = new IntegerFieldEditor(PREF_KEY_RESERVOIR_SIZE,
+				"Molecules kept for verification in incremental mode: ", getFieldEditorParent());
+		m_editorReservoirSize.setValidRange(1, Integer.MAX_VALUE);
+		addField(m_editorReservoirSize);
 	}
 
 	/**
@@ -331,6 +359,8 @@ implements IWorkbenchPreferencePage {
 					prefStore.setDefault(PREF_KEY_ATOM_COMPARISON, DEFAULT_ATOM_COMPARISON.name());
 					prefStore.setDefault(PREF_KEY_BOND_COMPARISON, DEFAULT_BOND_COMPARISON.name());
 					prefStore.setDefault(PREF_KEY_TIMEOUT, DEFAULT_TIMEOUT);
+					prefStore.setDefault(PREF_KEY_INCREMENTAL_MODE, DEFAULT_INCREMENTAL_MODE);
+					prefStore.setDefault(PREF_KEY_RESERVOIR_SIZE, DEFAULT_RESERVOIR_SIZE);
 				}
 			}
 			catch (final Exception exc) {
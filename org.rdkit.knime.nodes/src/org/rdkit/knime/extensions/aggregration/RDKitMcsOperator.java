@@ -48,6 +48,9 @@
  */
 package org.rdkit.knime.extensions.aggregration;
 
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
 import org.RDKit.ROMol;
 import org.RDKit.ROMol_Vect;
 import org.knime.base.data.aggregation.AggregationOperator;
@@ -55,13 +58,16 @@ import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.chem.types.SmartsCell;
+import org.knime.chem.types.SmartsCellFactory;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.def.BooleanCell;
 import org.knime.core.node.NodeLogger;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.nodes.RDKitNodePlugin;
 import org.rdkit.knime.nodes.mcs.AtomComparison;
 import org.rdkit.knime.nodes.mcs.BondComparison;
+import org.rdkit.knime.nodes.mcs.IncrementalMCS;
 import org.rdkit.knime.nodes.mcs.MCSUtils;
 import org.rdkit.knime.types.RDKitMolValue;
 
@@ -78,9 +84,29 @@ public class RDKitMcsOperator extends AggregationOperator {
 	/** The result type of the aggregration. */
 	private static final DataType TYPE = SmartsCell.TYPE;
 
+	/**
+	 * Worker pool for the MCS calculations of all groups, which get aggregated. A GroupBy node
+	 * creates operator instances per group and does not notify them at the end of the execution.
+	 * Hence, the pool is shared and not shut down, but its idle threads die after a while.
+	 * As aggregations cannot be canceled during an MCS calculation, no canceled calculations block it.
+	 */
+	private static ExecutorService g_executor = null;
+
 	/** Intermediate storage for molecules to be aggregrated. */
 	private ROMol_Vect m_mols = null;
 
+	/** Running MCS candidate, if the MCS is calculated incrementally. Null otherwise. */
+	private IncrementalMCS m_incrementalMcs = null;
+
+	/** Random sample of molecules to verify the incremental MCS candidate at the end. */
+	private ROMol[] m_arrReservoir = null;
+
+	/** Number of molecules seen in incremental mode. */
+	private long m_lMolCount = 0;
+
+	/** Random generator for sampling the reservoir. Seeded to get reproducible results. */
+	private Random m_random = null;
+
 	//
 	// Constructor
 	//
@@ -261,6 +287,44 @@ public class RDKitMcsOperator extends AggregationOperator {
 		return iTimeout;
 	}
 
+	/**
+	 * Returns the incremental mode option to be used, which gets retrieved from the preferences.
+	 * If not found it will return a default value.
+	 * 
+	 * @return Incremental mode option.
+	 */
+	public boolean isIncrementalMode() {
+		boolean bOption = RDKitMcsAggregationPreferencePage.DEFAULT_INCREMENTAL_MODE;
+
+		try {
+			bOption = RDKitNodePlugin.getDefault().getPreferenceStore().getBoolean(RDKitMcsAggregationPreferencePage.PREF_KEY_INCREMENTAL_MODE);
+		}
+		catch (final Exception exc) {
+			LOGGER.error("Unable to retrieve preference for MCS Incremental Mode. Using default.", exc);
+		}
+
+		return bOption;
+	}
+
+	/**
+	 * Returns the number of molecules to keep for verification in incremental mode,
+	 * which gets retrieved from the preferences. If not found it will return a default value.
+	 * 
+	 * @return Reservoir size.
+	 */
+	public int getReservoirSize() {
+		int iSize = RDKitMcsAggregationPreferencePage.DEFAULT_RESERVOIR_SIZE;
+
+		try {
+			iSize = RDKitNodePlugin.getDefault().getPreferenceStore().getInt(RDKitMcsAggregationPreferencePage.PREF_KEY_RESERVOIR_SIZE);
+		}
+		catch (final Exception exc) {
+			LOGGER.error("Unable to retrieve preference for MCS Reservoir Size. Using default.", exc);
+		}
+
+		return Math.max(1, iSize);
+	}
+
 	//
 	// Protected Methods
 	//
@@ -270,8 +334,25 @@ public class RDKitMcsOperator extends AggregationOperator {
 	 */
 	@Override
 	protected synchronized boolean computeInternal(final DataCell cell) {
-		if (m_mols == null) {
-			m_mols = new ROMol_Vect();
+		if (m_mols == null && m_incrementalMcs == null) {
+			// Decide about the mode with the first cell of a group
+			if (isIncrementalMode() && IncrementalMCS.isSupported(getThreshold(),
+					getRingMatchesRingOnlyOption(), getCompleteRingsOnlyOption(), getMatchValencesOption())) {
+				m_incrementalMcs = new IncrementalMCS(getAtomComparison(), getBondComparison(), getTimeout());
+				m_arrReservoir = new ROMol[getReservoirSize()];
+				m_lMolCount = 0;
+				m_random = new Random(0);
+			}
+			else {
+				m_mols = new ROMol_Vect();
+			}
+		}
+
+		if (m_incrementalMcs != null) {
+			if (!cell.isMissing()) {
+				computeIncrementally(((RDKitMolValue)cell).readMoleculeValue());
+			}
+			return false;
 		}
 
 		if (m_mols.size() >= getMaxUniqueValues()) {
@@ -309,6 +390,10 @@ public class RDKitMcsOperator extends AggregationOperator {
 	 */
 	@Override
 	protected DataCell getResultInternal() {
+		if (m_incrementalMcs != null) {
+			return getIncrementalResult();
+		}
+
 		DataCell cellResult = DataType.getMissingCell();
 
 		// Get settings from preferences
@@ -323,7 +408,7 @@ public class RDKitMcsOperator extends AggregationOperator {
 		try {
 			final DataCell[] arrResults = MCSUtils.calculateMCS(m_mols, dThreshold,
 					bRingMatchesRingOnly, bCompleteRingsOnly, bMatchValencesOption,
-					atomComparison, bondComparison, iTimeout, null);
+					atomComparison, bondComparison, iTimeout, getExecutor(), null);
 			cellResult = arrResults[MCSUtils.SMARTS_INDEX];
 
 			// Generate warning, if no MCS was found
@@ -352,11 +437,38 @@ public class RDKitMcsOperator extends AggregationOperator {
 		return cellResult;
 	}
 
+	/**
+	 * Returns the worker pool for the MCS calculations of all groups.
+	 * 
+	 * @return Worker pool. Never null.
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (g_executor == null) {
+			g_executor = MCSUtils.createExecutor(AdaptiveParallelism.getDefaultMaxParallelWorkers());
+		}
+
+		return g_executor;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	protected synchronized void resetInternal() {
+		if (m_incrementalMcs != null) {
+			m_incrementalMcs.delete();
+			m_incrementalMcs = null;
+		}
+		if (m_arrReservoir != null) {
+			for (final ROMol mol : m_arrReservoir) {
+				if (mol != null) {
+					mol.delete();
+				}
+			}
+			m_arrReservoir = null;
+		}
+		m_lMolCount = 0;
+		m_random = null;
 		if (m_mols != null) {
 			for (int i = 0; i < m_mols.size(); i++) {
 				final ROMol mol = m_mols.get(i);
@@ -369,6 +481,94 @@ public class RDKitMcsOperator extends AggregationOperator {
 		}
 	}
 
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Refines the running MCS candidate with the passed in molecule and keeps it
+	 * in the reservoir sample (reservoir sampling), which is used to verify the
+	 * candidate at the end. Molecules not kept in the reservoir are freed.
+	 * 
+	 * @param mol Molecule to aggregate. Must not be null.
+	 */
+	private void computeIncrementally(final ROMol mol) {
+		boolean bKeep = false;
+
+		try {
+			final int iReservoirSize = m_arrReservoir.length;
+			if (m_lMolCount < iReservoirSize) {
+				m_arrReservoir[(int)m_lMolCount] = mol;
+				bKeep = true;
+			}
+			else {
+				final long lIndex = (long)(m_random.nextDouble() * (m_lMolCount + 1));
+				if (lIndex < iReservoirSize) {
+					m_arrReservoir[(int)lIndex].delete();
+					m_arrReservoir[(int)lIndex] = mol;
+					bKeep = true;
+				}
+			}
+			m_lMolCount++;
+
+			m_incrementalMcs.add(mol);
+		}
+		finally {
+			if (!bKeep) {
+				mol.delete();
+			}
+		}
+	}
+
+	/**
+	 * Verifies the running MCS candidate against all molecules of the reservoir sample
+	 * until it does not change anymore and creates the result cell.
+	 * 
+	 * @return SMARTS cell with the MCS or missing cell, if no MCS was found.
+	 */
+	private DataCell getIncrementalResult() {
+		DataCell cellResult = DataType.getMissingCell();
+
+		try {
+			boolean bChanged = true;
+			while (bChanged && !m_incrementalMcs.isEmpty()) {
+				bChanged = false;
+				for (final ROMol mol : m_arrReservoir) {
+					if (mol != null) {
+						bChanged |= m_incrementalMcs.add(mol);
+					}
+				}
+			}
+
+			final String strSmarts = m_incrementalMcs.getSmarts();
+
+			// Generate warning, if no MCS was found
+			if (strSmarts == null) {
+				if (m_lMolCount > 0) {
+					LOGGER.warn("RDKit MCS Aggregation: No MCS found - Created empty cell.");
+				}
+				else {
+					LOGGER.warn("RDKit MCS Aggregation: No input molecules found - Created empty cell.");
+				}
+			}
+			else {
+				cellResult = SmartsCellFactory.create(strSmarts);
+				if (m_incrementalMcs.isTimedOut()) {
+					LOGGER.warn("RDKit MCS Aggregation: The MCS calculation timed out.");
+				}
+			}
+		}
+		catch (final Exception exc) {
+			LOGGER.error("RDKit MCS Aggregation: An error occurred - Created empty cell.", exc);
+		}
+		finally {
+			// Cleanup the candidate and all kept molecules
+			resetInternal();
+		}
+
+		return cellResult;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -48,9 +48,15 @@
  */
 package org.rdkit.knime.internals;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.swing.tree.TreeNode;
 
@@ -62,22 +68,28 @@ import org.rdkit.knime.util.WarningConsolidator;
 /**
  * This class implements RDKitInternals functionality like loading, saving and merging
  * for the context statistics map which is required to generate meaningful warning
- * messages.
+ * messages. Counters are kept in {@link LongAdder} objects, so that counting items
+ * from multiple threads is free of contention and does not allocate new objects
+ * once a context is known. Reading the map returns the current counter sums.
  * 
  * @author Manuel Schwarze
  */
-public class ContextStatistics extends HashMap<String, Long> implements RDKitInternals<ContextStatistics> {
+public class ContextStatistics extends AbstractMap<String, Long> implements RDKitInternals<ContextStatistics> {
 
    //
    // Constants
    //
    
-   /** Serial number. */
-   private static final long serialVersionUID = 3891455721182535803L;
-   
    /** The logging instance. */
    private static final NodeLogger LOGGER = NodeLogger.getLogger(WarningConsolidator.class);
 
+   //
+   // Members
+   //
+   
+   /** Maps context ids to their counters. */
+   private final ConcurrentHashMap<String, LongAdder> m_mapCounters = new ConcurrentHashMap<>();
+
    //
    // Constructor
    //
@@ -95,17 +107,83 @@ public class ContextStatistics extends HashMap<String, Long> implements RDKitInt
     * 
     * @param context Context to be increase the counter for. Can be null to do nothing.
     */
-   public synchronized void countItem(String context) {
+   public void countItem(String context) {
       if (context != null) {
-         if (containsKey(context)) {
-            put(context, get(context).longValue() + 1l);
-         }
-         else {
-            put(context, 1l);
+         LongAdder counter = m_mapCounters.get(context);
+         if (counter == null) {
+            counter = m_mapCounters.computeIfAbsent(context, key -> new LongAdder());
          }
+         counter.increment();
       }
    }
    
+   @Override
+   public Long get(Object context) {
+      final LongAdder counter = m_mapCounters.get(context);
+      return (counter == null ? null : counter.sum());
+   }
+   
+   @Override
+   public boolean containsKey(Object context) {
+      return m_mapCounters.containsKey(context);
+   }
+   
+   @Override
+   public Long put(String context, Long count) {
+      final LongAdder counter = new LongAdder();
+      counter.add(count);
+      final LongAdder counterOld = m_mapCounters.put(context, counter);
+      return (counterOld == null ? null : counterOld.sum());
+   }
+   
+   @Override
+   public Long remove(Object context) {
+      final LongAdder counterOld = m_mapCounters.remove(context);
+      return (counterOld == null ? null : counterOld.sum());
+   }
+   
+   @Override
+   public void clear() {
+      m_mapCounters.clear();
+   }
+   
+   @Override
+   public int size() {
+      return m_mapCounters.size();
+   }
+   
+   @Override
+   public Set<Map.Entry<String, Long>> entrySet() {
+      return new AbstractSet<Map.Entry<String, Long>>() {
+         @Override
+         public Iterator<Map.Entry<String, Long>> iterator() {
+            final Iterator<Map.Entry<String, LongAdder>> iterator = m_mapCounters.entrySet().iterator();
+            return new Iterator<Map.Entry<String, Long>>() {
+               @Override
+               public boolean hasNext() {
+                  return iterator.hasNext();
+               }
+
+               @Override
+               public Map.Entry<String, Long> next() {
+                  final Map.Entry<String, LongAdder> entry = iterator.next();
+                  return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum());
+               }
+
+               @Override
+               public void remove() {
+                  iterator.remove();
+               }
+            };
+         }
+
+         @Override
+         public int size() {
+            return m_mapCounters.size();
+         }
+      };
+   }
+   
    @Override
    public synchronized void load(Config settings) {
       clear();
@@ -140,14 +218,9 @@ public class ContextStatistics extends HashMap<String, Long> implements RDKitInt
 
       if (internals != null) {
          for (ContextStatistics item : internals) {
-            for (String context : item.keySet()) {
-               long lCount =  item.get(context);
-               if (merged.containsKey(context)) {
-                  merged.put(context, merged.get(context).longValue() + lCount);
-               }
-               else {
-                  merged.put(context, lCount);
-               }
+            for (Map.Entry<String, LongAdder> entry : item.m_mapCounters.entrySet()) {
+               merged.m_mapCounters.computeIfAbsent(entry.getKey(), key -> new LongAdder())
+                  .add(entry.getValue().sum());
             }
          }
       }
@@ -53,19 +53,30 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellTypeConverter;
@@ -101,12 +112,19 @@ import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.context.ports.PortsConfiguration;
 import org.knime.core.node.defaultnodesettings.SettingsModel;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.property.hilite.HiLiteHandler;
+import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.streamable.InputPortRole;
 import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
 import org.knime.core.node.tableview.TableContentModel;
 import org.knime.core.util.MultiThreadWorker;
 import org.rdkit.knime.RDKitTypesPluginActivator;
@@ -147,7 +165,12 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	// Constants
 	//
 
-	/** Time in milliseconds we will wait until we cleanup RDKit Objects, which are marked for delayed cleanup. */
+	/** 
+	 * Default time in milliseconds we will wait until we cleanup RDKit Objects, which are marked for delayed cleanup. 
+	 * The time used can be changed in the preferences.
+	 * 
+	 * @see RDKitObjectQuarantine#getCleanupDelay()
+	 */
 	public static final long RDKIT_OBJECT_CLEANUP_DELAY_FOR_QUARANTINE = 60000; // 60 seconds
 
 	/** The logger instance. */
@@ -163,6 +186,12 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	/** Identifier for internal spec table with information about conserved internal tables. */
 	private static final String OUTPUT_TABLE_ID = "Output";
 
+	/** File name in the node internals for the parallel processing summary of the last execution. */
+	private static final String PARALLEL_PROCESSING_INFO_FILE = "parallelProcessing.txt";
+
+	/** File name in the node internals for the quarantine summary of the last execution. */
+	private static final String QUARANTINE_INFO_FILE = "quarantine.txt";
+
 	//
 	// Statics
 	//
@@ -198,6 +227,12 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	/** List to register RDKit objects for cleanup. It's important to initialize this first. */
 	private final RDKitCleanupTracker m_rdkitCleanupTracker = new RDKitCleanupTracker();
 
+	/** 
+	 * Worker computations of this node, which are running right now. Quarantined RDKit objects
+	 * of a wave are only released, when the workers, which may still use them, have finished.
+	 */
+	private final Set<WorkerComputation> m_setActiveWorkers = ConcurrentHashMap.newKeySet();
+
 	/** Tracks warnings during execution and consolidates them. */
 	private WarningConsolidator m_warnings;
 
@@ -232,6 +267,28 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	 * Timestamp when execution started.
 	 */
 	private long m_lExecutionStartTs;
+
+	/** Parallelism controllers of all parallel processors used during the current execution. */
+	private final List<AdaptiveParallelism> m_listParallelism =
+			Collections.synchronizedList(new ArrayList<AdaptiveParallelism>());
+
+	/**
+	 * Summary of the parallelism chosen and the stall time measured during the last execution.
+	 * Null, if no parallel processing took place.
+	 */
+	private String m_strParallelProcessingInfo;
+
+	/**
+	 * Settings model for the maximum number of parallel workers of this node, which overrides
+	 * the preference, if > 0. Null, if the node does not offer this setting.
+	 */
+	private SettingsModelIntegerBounded m_modelMaxParallelWorkers = null;
+
+	/**
+	 * Summary of the RDKit objects, which had to be quarantined at the end of the last execution,
+	 * and of the quarantine counters at that time. Null, if nothing was quarantined.
+	 */
+	private String m_strQuarantineInfo;
    
    /** Defines input port roles to express distribution and streaming capabilities, if set. */
    private InputPortRole[] m_arrInputPortRoles = null;
@@ -336,6 +393,7 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	/**
 	 * Creates a new wave id. This id must be unique in the context of the overall runtime
 	 * of the Java VM, at least in the context of the same class loader and memory area.
+	 * If called from a worker computation, the wave must only be used by this computation.
 	 *
 	 * @return Unique wave id.
 	 */
@@ -347,6 +405,10 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		   g_nextUniqueWaveId.set(Long.MIN_VALUE);
 		}
 		
+		// A wave created by a worker computation belongs to it and can be released from 
+		// quarantine as soon as this computation has finished
+		m_rdkitCleanupTracker.registerWave(waveId);
+		
 		return waveId;
 	}
 
@@ -476,7 +538,67 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	 * process. It basically moves the objects of interest into quarantine.
 	 */
 	public void quarantineAndCleanupMarkedObjects() {
-		m_rdkitCleanupTracker.quarantineAndCleanupMarkedObjects();
+		final long lObjectCount = m_rdkitCleanupTracker.getObjectCount();
+		final int iWaveCount = m_rdkitCleanupTracker.size();
+
+		// Objects of waves, which were not created by a worker computation, may be used by all 
+		// workers, which are running right now - they are released after all of them have finished
+		final List<WorkerComputation> listRunningWorkers = new ArrayList<WorkerComputation>(m_setActiveWorkers);
+		m_rdkitCleanupTracker.quarantineAndCleanupMarkedObjects(() -> {
+			for (final WorkerComputation worker : listRunningWorkers) {
+				if (!worker.isFinished()) {
+					return false;
+				}
+			}
+			return true;
+		});
+
+		if (lObjectCount > 0) {
+			m_strQuarantineInfo = new StringBuilder("Quarantined ").append(lObjectCount)
+					.append(" RDKit objects of ").append(iWaveCount).append(" waves, while ")
+					.append(listRunningWorkers.size()).append(" workers were still running.\n")
+					.append(RDKitObjectQuarantine.getSummary()).append('\n').toString();
+			LOGGER.info(getClass().getSimpleName() + ": " + m_strQuarantineInfo.trim());
+		}
+	}
+
+	/**
+	 * Registers the start of a worker computation, which uses RDKit objects registered 
+	 * for cleanup. Every call must be followed by a call of {@link #workerFinished(WorkerComputation)}, 
+	 * when the computation ends, no matter if it succeeded, failed or got canceled.
+	 * This is done by the {@link ParallelWorker} for every computation.
+	 *
+	 * @return The started computation. Never null.
+	 */
+	private WorkerComputation workerStarted() {
+		final WorkerComputation worker = new WorkerComputation();
+		m_setActiveWorkers.add(worker);
+		WorkerComputation.CURRENT.set(worker);
+		return worker;
+	}
+
+	/**
+	 * Registers the end of a worker computation, which was started with
+	 * {@link #workerStarted()}. Quarantined RDKit objects of waves, which were created
+	 * by this computation, can be released afterwards.
+	 *
+	 * @param worker The finished computation. Must not be null.
+	 */
+	private void workerFinished(final WorkerComputation worker) {
+		worker.m_bFinished = true;
+		m_setActiveWorkers.remove(worker);
+		WorkerComputation.CURRENT.remove();
+	}
+
+	/**
+	 * Determines, if all worker computations of this node have finished. After a 
+	 * cancellation this may take longer than the execution itself, because 
+	 * native code cannot be interrupted.
+	 *
+	 * @return True, if no worker computation is running. False otherwise.
+	 */
+	public boolean hasStoppedWorkers() {
+		return m_setActiveWorkers.isEmpty();
 	}
 
 	// The following methods are pre-requisites for the interactive view implementation
@@ -665,6 +787,153 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
    public OutputPortRole[] getOutputPortRoles() {
       return m_arrOutputPortRoles == null ? super.getOutputPortRoles() : m_arrOutputPortRoles;
    }
+
+	/**
+	 * Executes the node in streaming mode and should be called from the streamable operator
+	 * of a node. It mirrors {@link #execute(PortObject[], ExecutionContext)}: It resets the
+	 * execution state, checks table size limitations, converts the input tables, calls
+	 * {@link #preProcessing(PortObject[], InputDataInfo[][], ExecutionContext)} and
+	 * {@link #processingStreamed(RowInput[], PortObject[], InputDataInfo[][], PortOutput[], ExecutionContext)}
+	 * and generates warnings. At the end {@link #finishExecution()} gets called, also if the
+	 * processing failed or was canceled. In that case RDKit objects are quarantined, because
+	 * workers may still use them. Row inputs are streamed, unless they need to be read
+	 * completely into a table as determined by {@link #isCompleteStreamedInputRequired(int, InputDataInfo[][])}.
+	 * All other inputs must be port object inputs. Row outputs get closed after the processing.
+	 *
+	 * @param inputs Inputs of the streamable operator. Must not be null.
+	 * @param outputs Outputs of the streamable operator. Must not be null.
+	 * @param exec Execution context for progress and cancellation. Must not be null.
+	 *
+	 * @throws Exception Thrown, if the processing failed or was canceled.
+	 */
+	protected void executeStreamed(final PortInput[] inputs, final PortOutput[] outputs,
+			final ExecutionContext exec) throws Exception {
+		m_lExecutionStartTs = System.currentTimeMillis();
+		m_listParallelism.clear();
+		m_strParallelProcessingInfo = null;
+		m_strQuarantineInfo = null;
+		m_excEncountered = null;
+
+		try {
+			// We use a nested try / catch block here as a trick to know about the
+			// exception in the finally block
+			try {
+				// Reset warning and error tracker
+				getWarningConsolidator().clear();
+
+				// Separate streamed inputs from completely available inputs
+				final RowInput[] arrRowInputs = new RowInput[inputs.length];
+				final PortObject[] arrObjects = new PortObject[inputs.length];
+				for (int i = 0; i < inputs.length; i++) {
+					if (inputs[i] instanceof RowInput rowInput) {
+						arrRowInputs[i] = rowInput;
+					}
+					else if (inputs[i] instanceof PortObjectInput portObjectInput) {
+						arrObjects[i] = portObjectInput.getPortObject();
+					}
+				}
+				InputDataInfo[][] arrInputDataInfo = createInputDataInfos(getStreamedInputTableSpecs(arrRowInputs, arrObjects));
+
+				// Read streamed inputs completely, if required
+				for (int i = 0; i < arrRowInputs.length; i++) {
+					if (arrRowInputs[i] != null && isCompleteStreamedInputRequired(i, arrInputDataInfo)) {
+						arrObjects[i] = readStreamedInput(arrRowInputs[i], exec);
+						arrRowInputs[i] = null;
+					}
+				}
+
+				// Check table size limitations
+				checkInputTableSizes(arrObjects);
+
+				// Conversion of input data to adapter cells if required and recreate input data info afterwards
+				final PortObject[] arrConvertedObjects = convertInputTables(arrObjects, arrInputDataInfo,
+						exec.createSubExecutionContext(0.0d));
+				for (int i = 0; i < inputs.length; i++) {
+					if (inputs[i] instanceof RowInput && arrRowInputs[i] == null &&
+							arrConvertedObjects[i] instanceof BufferedDataTable table) {
+						arrRowInputs[i] = new DataTableRowInput(table);
+					}
+				}
+				arrInputDataInfo = createInputDataInfos(getStreamedInputTableSpecs(arrRowInputs, arrConvertedObjects));
+
+				// Pre-processing
+				preProcessing(arrConvertedObjects, arrInputDataInfo, exec.createSubExecutionContext(0.0d));
+
+				// Core-processing
+				final Map<String, Long> mapContextOccurrences = processingStreamed(arrRowInputs,
+						arrConvertedObjects, arrInputDataInfo, outputs, exec);
+				for (final PortOutput output : outputs) {
+					if (output instanceof RowOutput rowOutput) {
+						rowOutput.close();
+					}
+				}
+
+				// Show a warning, if errors were encountered
+				generateWarnings(mapContextOccurrences);
+			}
+			catch (final Throwable exc) {
+				m_excEncountered = exc;
+			}
+		}
+		finally {
+			finishExecution();
+		}
+	}
+
+	/**
+	 * This method gets called from the method
+	 * {@link #executeStreamed(PortInput[], PortOutput[], ExecutionContext)} to perform
+	 * the main work of the node in streaming mode. It is the streaming equivalent of
+	 * {@link #processing(PortObject[], InputDataInfo[][], ExecutionContext)} and needs to be 
+	 * overridden by nodes, which support streaming. Row outputs do not need to be closed.
+	 *
+	 * @param arrRowInputs Row inputs of all streamed input ports. Streamed inputs, which
+	 * 		have been read completely, are delivered as row input of the (converted) table.
+	 * 		Null for all other input ports.
+	 * @param inObjects The completely available (converted) input port objects of the node.
+	 * 		This includes streamed inputs, which have been read completely. Null for
+	 * 		all streamed inputs.
+	 * @param arrInputDataInfo Information about all columns of the input tables.
+	 * @param outputs Outputs of the streamable operator.
+	 * @param exec The execution context. Track the progress from 0..1.
+	 *
+	 * @return Map with number of occurrences of different contexts, e.g. encountered rows during
+	 * 		processing, which is used to generate warnings.
+	 *
+	 * @throws Exception Thrown, if processing fails.
+	 *
+	 * @see #createWarningContextOccurrencesMap(PortObject[], InputDataInfo[][], PortObject[])
+	 */
+	protected Map<String, Long> processingStreamed(final RowInput[] arrRowInputs, final PortObject[] inObjects,
+			final InputDataInfo[][] arrInputDataInfo, final PortOutput[] outputs, final ExecutionContext exec)
+					throws Exception {
+		throw new UnsupportedOperationException("Streaming is not supported by " + getClass().getSimpleName() + ".");
+	}
+
+	/**
+	 * Determines, if a streamed input needs to be read completely into a table before
+	 * the processing starts. By default this is the case, if one of its input columns
+	 * needs to be converted into adapter cells, because the conversion works on tables.
+	 *
+	 * @param iInPort Index of the streamed input port.
+	 * @param arrInputDataInfo Information about all columns of the input tables.
+	 *
+	 * @return True to read the input completely, false to stream it.
+	 */
+	protected boolean isCompleteStreamedInputRequired(final int iInPort, final InputDataInfo[][] arrInputDataInfo) {
+		boolean bRequired = false;
+
+		if (arrInputDataInfo != null && iInPort < arrInputDataInfo.length && arrInputDataInfo[iInPort] != null) {
+			for (final InputDataInfo inputDataInfo : arrInputDataInfo[iInPort]) {
+				if (inputDataInfo != null && inputDataInfo.needsConversion()) {
+					bRequired = true;
+					break;
+				}
+			}
+		}
+
+		return bRequired;
+	}
    
 	//
 	// Protected Methods
@@ -823,6 +1092,10 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	 */
 	@Override
 	protected void reset() {
+		m_listParallelism.clear();
+		m_strParallelProcessingInfo = null;
+		m_strQuarantineInfo = null;
+
 		if (this instanceof BufferedDataTableHolder) {
 			// Reset input models to have empty content and no hiliting handler attached
 			for (int i = 0; i < m_arrInContModel.length; i++) {
@@ -881,22 +1154,13 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	@Override
 	protected PortObject[] execute(final PortObject[] inObjects,
 								   final ExecutionContext exec) throws Exception {
-	   // Check table size limitations
-	   if (inObjects != null) {
-   	   for (int i = 0; i < m_arrInputTableIndexesWithSizeLimit.length; i++) {
-   	      if (m_arrInputTableIndexesWithSizeLimit[i] < inObjects.length) {
-   	         if (inObjects[m_arrInputTableIndexesWithSizeLimit[i]] != null &&
-   	               inObjects[m_arrInputTableIndexesWithSizeLimit[i]] instanceof BufferedDataTable dataTable &&
-   	               dataTable.size() > Integer.MAX_VALUE) {
-   	            throw new UnsupportedOperationException(
-   	                "This RDKit Node does not support more than " + Integer.MAX_VALUE + " rows for the "
-   	                   + (m_arrInputTableIndexesWithSizeLimit[i] + 1) + ". input table.");
-   	         }
-   	      }
-   	   }
-	   }
-	   
+		// Check table size limitations
+		checkInputTableSizes(inObjects);
+
 		m_lExecutionStartTs = System.currentTimeMillis();
+		m_listParallelism.clear();
+		m_strParallelProcessingInfo = null;
+		m_strQuarantineInfo = null;
 		PortObject[] arrConvertedObjects = null;
 		PortObject[] arrResultObjects = null;
 		m_excEncountered = null;
@@ -951,6 +1215,84 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		return arrResultObjects;
 	}
 
+	/**
+	 * Checks the sizes of all input tables, which have been registered with
+	 * {@link #registerInputTablesWithSizeLimits(int...)}.
+	 *
+	 * @param inObjects The input port objects of the node. Can be null.
+	 *
+	 * @throws UnsupportedOperationException Thrown, if a registered input table has more
+	 * 		than Integer.MAX_VALUE rows.
+	 */
+	private void checkInputTableSizes(final PortObject[] inObjects) {
+	   if (inObjects != null) {
+   	   for (int i = 0; i < m_arrInputTableIndexesWithSizeLimit.length; i++) {
+   	      if (m_arrInputTableIndexesWithSizeLimit[i] < inObjects.length) {
+   	         if (inObjects[m_arrInputTableIndexesWithSizeLimit[i]] != null &&
+   	               inObjects[m_arrInputTableIndexesWithSizeLimit[i]] instanceof BufferedDataTable dataTable &&
+   	               dataTable.size() > Integer.MAX_VALUE) {
+   	            throw new UnsupportedOperationException(
+   	                "This RDKit Node does not support more than " + Integer.MAX_VALUE + " rows for the "
+   	                   + (m_arrInputTableIndexesWithSizeLimit[i] + 1) + ". input table.");
+   	         }
+   	      }
+   	   }
+	   }
+	}
+
+	/**
+	 * Determines the table specs of streamed and completely available inputs.
+	 *
+	 * @param arrRowInputs Row inputs of streamed input ports or null for other ports.
+	 * @param inObjects Port objects of completely available input ports or null for other ports.
+	 *
+	 * @return Table specs of all input ports. Null for ports without table.
+	 */
+	private DataTableSpec[] getStreamedInputTableSpecs(final RowInput[] arrRowInputs, final PortObject[] inObjects) {
+		final DataTableSpec[] arrSpecs = new DataTableSpec[arrRowInputs.length];
+
+		for (int i = 0; i < arrSpecs.length; i++) {
+			if (arrRowInputs[i] != null) {
+				arrSpecs[i] = arrRowInputs[i].getDataTableSpec();
+			}
+			else if (inObjects[i] instanceof BufferedDataTable table) {
+				arrSpecs[i] = table.getDataTableSpec();
+			}
+		}
+
+		return arrSpecs;
+	}
+
+	/**
+	 * Reads all rows of a streamed input into a table and closes the input.
+	 *
+	 * @param rowInput Streamed input. Must not be null.
+	 * @param exec Execution context to create the table and to check for cancellation. Must not be null.
+	 *
+	 * @return Table with all rows of the input.
+	 *
+	 * @throws Exception Thrown, if reading failed or was canceled.
+	 */
+	private BufferedDataTable readStreamedInput(final RowInput rowInput, final ExecutionContext exec)
+			throws Exception {
+		exec.setMessage("Reading input rows");
+		final BufferedDataContainer table = exec.createDataContainer(rowInput.getDataTableSpec());
+
+		try {
+			DataRow row;
+			while ((row = rowInput.poll()) != null) {
+				table.addRowToTable(row);
+				exec.checkCanceled();
+			}
+		}
+		finally {
+			rowInput.close();
+			table.close();
+		}
+
+		return table.getTable();
+	}
+
 	/**
 	 * This method gets called from the method {@link #getOutputTableSpecs(DataTableSpec[])}, which is
 	 * usually called at the end of the {@link #configure(DataTableSpec[])} method. It converts adaptable
@@ -1276,6 +1618,19 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		final long lEnd = System.currentTimeMillis();
 		LOGGER.info("Execution of " + getClass().getSimpleName() + " took " + (lEnd - m_lExecutionStartTs) + "ms.");
 
+		// Keep the chosen parallelism and stall times for the node internals
+		synchronized (m_listParallelism) {
+			if (!m_listParallelism.isEmpty()) {
+				final StringBuilder sb = new StringBuilder();
+				for (final AdaptiveParallelism parallelism : m_listParallelism) {
+					sb.append(parallelism).append('\n');
+				}
+				m_strParallelProcessingInfo = sb.toString();
+				m_listParallelism.clear();
+				LOGGER.info(getClass().getSimpleName() + ": " + m_strParallelProcessingInfo.trim());
+			}
+		}
+
 		if (m_excEncountered != null) {
 			if (m_excEncountered instanceof Exception) {
 				// E.g. CanceledExecutionException
@@ -1371,24 +1726,114 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 
 	/**
 	 * {@inheritDoc}
-	 * This method does not do anything in this implementation.
+	 * This implementation loads the parallel processing and quarantine summaries of the 
+	 * last execution, if available.
 	 */
 	@Override
 	protected void loadInternals(final File nodeInternDir,
 			final ExecutionMonitor exec) throws IOException,
 			CanceledExecutionException {
-		// Nothing to load
+		m_strParallelProcessingInfo = loadInternalInfo(nodeInternDir, PARALLEL_PROCESSING_INFO_FILE);
+		m_strQuarantineInfo = loadInternalInfo(nodeInternDir, QUARANTINE_INFO_FILE);
 	}
 
 	/**
 	 * {@inheritDoc}
-	 * This method does not do anything in this implementation.
+	 * This implementation saves the parallel processing and quarantine summaries of the 
+	 * last execution, if available.
 	 */
 	@Override
 	protected void saveInternals(final File nodeInternDir,
 			final ExecutionMonitor exec) throws IOException,
 			CanceledExecutionException {
-		// Nothing to save
+		saveInternalInfo(nodeInternDir, PARALLEL_PROCESSING_INFO_FILE, m_strParallelProcessingInfo);
+		saveInternalInfo(nodeInternDir, QUARANTINE_INFO_FILE, m_strQuarantineInfo);
+	}
+
+	/**
+	 * Loads a summary text from the node internals.
+	 *
+	 * @param nodeInternDir Directory of the node internals. Must not be null.
+	 * @param strFileName Name of the file. Must not be null.
+	 *
+	 * @return Summary text or null, if not available.
+	 *
+	 * @throws IOException Thrown, if the file could not be read.
+	 */
+	private static String loadInternalInfo(final File nodeInternDir, final String strFileName) throws IOException {
+		final File file = new File(nodeInternDir, strFileName);
+		return (file.isFile() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : null);
+	}
+
+	/**
+	 * Saves a summary text in the node internals.
+	 *
+	 * @param nodeInternDir Directory of the node internals. Must not be null.
+	 * @param strFileName Name of the file. Must not be null.
+	 * @param strInfo Summary text. Nothing is saved, if null.
+	 *
+	 * @throws IOException Thrown, if the file could not be written.
+	 */
+	private static void saveInternalInfo(final File nodeInternDir, final String strFileName,
+			final String strInfo) throws IOException {
+		if (strInfo != null) {
+			Files.write(new File(nodeInternDir, strFileName).toPath(), strInfo.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Registers the setting for the maximum number of parallel workers of this node. A node,
+	 * which offers this setting in its dialog, calls this method once when creating its
+	 * settings models. The setting is optional when loading, because it was added later.
+	 *
+	 * @return The registered settings model. 0 means to use the RDKit preferences.
+	 *
+	 * @see #getMaxParallelWorkers()
+	 */
+	protected SettingsModelIntegerBounded registerMaxParallelWorkersSettings() {
+		m_modelMaxParallelWorkers = registerSettings(AdaptiveParallelism.createMaxParallelWorkersModel(), true);
+		return m_modelMaxParallelWorkers;
+	}
+
+	/**
+	 * Returns the maximum number of parallel workers to be used by parallel processing
+	 * of this node. Override this method to limit the parallelism of a specific node,
+	 * e.g. because of its memory consumption per row.
+	 *
+	 * @return Maximum number of parallel workers. It is taken from the node setting, if registered
+	 * 		and set, otherwise from the RDKit preferences.
+	 *
+	 * @see #registerMaxParallelWorkersSettings()
+	 * @see AdaptiveParallelism#getDefaultMaxParallelWorkers()
+	 */
+	protected int getMaxParallelWorkers() {
+		if (m_modelMaxParallelWorkers != null && m_modelMaxParallelWorkers.getIntValue() > 0) {
+			return m_modelMaxParallelWorkers.getIntValue();
+		}
+
+		return AdaptiveParallelism.getDefaultMaxParallelWorkers();
+	}
+
+	/**
+	 * Returns a summary of the parallelism chosen and the stall time measured during the last execution.
+	 *
+	 * @return Parallel processing summary or null, if no parallel processing took place.
+	 */
+	public String getParallelProcessingInfo() {
+		return m_strParallelProcessingInfo;
+	}
+
+	/**
+	 * Returns a summary of the RDKit objects, which had to be quarantined at the end of the last 
+	 * execution (e.g. because it was canceled while workers were still running), together with
+	 * the quarantine counters of the plugin at that time.
+	 *
+	 * @return Quarantine summary or null, if nothing was quarantined.
+	 *
+	 * @see RDKitObjectQuarantine#getSummary()
+	 */
+	public String getQuarantineInfo() {
+		return m_strQuarantineInfo;
 	}
 
 	/**
@@ -2250,6 +2695,209 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		void processResults(long rowIndex, DataRow row, DataCell[] arrResults);
 	}
 
+	/**
+	 * The ParallelWorker is the base class of all parallel processing of RDKit nodes,
+	 * which is based on the MultiThreadWorker. Every computation gets registered at the 
+	 * node model, so that quarantined RDKit objects of a wave are only released after the 
+	 * computation, which created the wave, has finished. Input is handed out to the workers
+	 * only as far as an {@link AdaptiveParallelism} controller allows it, which gets 
+	 * listed in the parallel processing summary of the node.
+	 * Implement {@link #calculate(Object, long)} and {@link #processResult(ComputationTask)}
+	 * and start the processing with {@link #process(Iterable)}.
+	 *
+	 * @param <In> Type of the input of a computation.
+	 * @param <Out> Type of the result of a computation.
+	 */
+	static public abstract class ParallelWorker<In, Out> extends MultiThreadWorker<In, Out> {
+
+		//
+		// Members
+		//
+
+		/**
+		 * The node model the computations belong to. It gets informed about running
+		 * computations. Can be null.
+		 */
+		private final AbstractRDKitGenericNodeModel m_nodeModel;
+
+		/** Execution monitor used for cancellation checks. Can be null. */
+		private final ExecutionMonitor m_execCancel;
+
+		/**
+		 * Controls the number of workers and inputs in flight within the limits
+		 * of this multi thread worker.
+		 */
+		private final AdaptiveParallelism m_parallelism;
+
+		/**
+		 * Flag to tell that the processing was stopped because of a cancellation or failure.
+		 * Input is not throttled anymore afterwards.
+		 */
+		private volatile boolean m_bStopped = false;
+
+		//
+		// Constructor
+		//
+
+		/**
+		 * Creates a new parallel worker.
+		 *
+		 * @param nodeModel The node model the computations belong to. Can be null.
+		 * @param iMaxInFlight Maximum number of inputs in flight, which is also the maximum
+		 * 		queue size of the worker. Must be >= iMaxParallelWorkers.
+		 * @param iMaxParallelWorkers Maximum number of parallel workers. Must be > 0.
+		 * @param exec Execution monitor used for cancellation checks. Can be null.
+		 */
+		protected ParallelWorker(final AbstractRDKitGenericNodeModel nodeModel, final int iMaxInFlight,
+				final int iMaxParallelWorkers, final ExecutionMonitor exec) {
+			super(iMaxInFlight, iMaxParallelWorkers);
+
+			m_nodeModel = nodeModel;
+			m_execCancel = exec;
+			m_parallelism = new AdaptiveParallelism(iMaxParallelWorkers, iMaxInFlight,
+					AdaptiveParallelism.isAdaptiveByDefault());
+
+			// Register the controller to make the chosen parallelism available in the node internals
+			if (m_nodeModel != null) {
+				m_nodeModel.m_listParallelism.add(m_parallelism);
+			}
+		}
+
+		//
+		// Public Methods
+		//
+
+		/**
+		 * Returns the controller of the number of workers and inputs in flight.
+		 *
+		 * @return Parallelism controller. Never null.
+		 */
+		public AdaptiveParallelism getParallelism() {
+			return m_parallelism;
+		}
+
+		/**
+		 * Processes the passed in input in parallel. Input is handed out to the workers only as far
+		 * as the current limits of the parallelism controller allow. Use this method instead
+		 * of {@link #run(Iterable)}, which does not apply these limits.
+		 *
+		 * @param input Input to be processed. Must not be null.
+		 *
+		 * @throws InterruptedException Thrown, if the processing was interrupted.
+		 * @throws ExecutionException Thrown, if the processing of an input failed.
+		 * @throws CancellationException Thrown, if the processing was canceled.
+		 */
+		public void process(final Iterable<In> input) throws InterruptedException, ExecutionException,
+				CancellationException {
+			run(m_parallelism.throttle(input, this::isStopped));
+		}
+
+		//
+		// Protected Methods
+		//
+
+		/**
+		 * Calculates the result of an input. This method gets called by multiple threads
+		 * at the same time.
+		 *
+		 * @param input Input to be processed.
+		 * @param lIndex Index of the input.
+		 *
+		 * @return Result of the calculation.
+		 *
+		 * @throws Exception Thrown, if the calculation failed.
+		 */
+		protected abstract Out calculate(In input, long lIndex) throws Exception;
+
+		/**
+		 * Processes the result of a finished computation. Results are processed one after
+		 * the other in the order of the input.
+		 *
+		 * @param task The finished computation task. Must not be null.
+		 *
+		 * @throws ExecutionException Thrown, if the computation failed.
+		 * @throws CancellationException Thrown, if the computation was canceled.
+		 * @throws InterruptedException Thrown, if the processing was interrupted.
+		 */
+		protected abstract void processResult(ComputationTask task) throws ExecutionException,
+				CancellationException, InterruptedException;
+
+		/**
+		 * Stops the processing, e.g. because the user canceled the execution or because
+		 * a result could not be processed. Running computations get interrupted.
+		 */
+		protected void stopProcessing() {
+			m_bStopped = true;
+			cancel(true);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * This implementation registers the computation at the node model and measures it
+		 * for the parallelism controller around the call of {@link #calculate(Object, long)}.
+		 */
+		@Override
+		protected final Out compute(final In input, final long lIndex) throws Exception {
+			m_parallelism.beforeCalculation();
+			final long lStart = System.nanoTime();
+			final WorkerComputation worker = (m_nodeModel != null ? m_nodeModel.workerStarted() : null);
+
+			try {
+				return calculate(input, lIndex);
+			}
+			finally {
+				if (worker != null) {
+					m_nodeModel.workerFinished(worker);
+				}
+				m_parallelism.afterCalculation(System.nanoTime() - lStart);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * This implementation calls {@link #processResult(ComputationTask)} and measures it
+		 * for the parallelism controller. If it fails, the processing gets stopped.
+		 */
+		@Override
+		protected final void processFinished(final ComputationTask task) throws ExecutionException,
+				CancellationException, InterruptedException {
+			final long lStart = System.nanoTime();
+
+			try {
+				processResult(task);
+			}
+			catch (final Exception exc) {
+				m_bStopped = true;
+				throw exc;
+			}
+
+			m_parallelism.afterProcessing(task.getIndex(), getFinishedTaskCount(), System.nanoTime() - lStart);
+		}
+
+		//
+		// Private Methods
+		//
+
+		/**
+		 * Determines, if the processing was stopped, because the user canceled it or
+		 * because it failed.
+		 *
+		 * @return True, if stopped. False otherwise.
+		 */
+		private boolean isStopped() {
+			if (!m_bStopped && m_execCancel != null) {
+				try {
+					m_execCancel.checkCanceled();
+				}
+				catch (final CanceledExecutionException exc) {
+					m_bStopped = true;
+				}
+			}
+
+			return m_bStopped;
+		}
+	}
+
 	/**
 	 * The ParallelProcessor implements a default configuration to use the
 	 * the MultiThreadWorker for parallel processing. It uses a passed in
@@ -2261,25 +2909,50 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 	 *
 	 * @author Manuel Schwarze
 	 */
-	static public class ParallelProcessor extends MultiThreadWorker<DataRow, DataCell[]> {
+	static public class ParallelProcessor extends ParallelWorker<DataRow, DataCell[]> {
 
 		/**
-		 * Determines the queue size considering also the currently available CPU count.
+		 * Determines the queue size considering also the maximum number of workers.
+		 *
+		 * @param iMaxParallelWorkers Maximum number of parallel workers.
 		 *
 		 * @return Queue size to be used for parallel processing.
 		 */
-		private static int getQueueSize() {
-			return 10 * getMaxParallelWorkers();
+		private static int getQueueSize(final int iMaxParallelWorkers) {
+			return AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
 		}
 
 		/**
-		 * Determines the CPU count to be used for parallel processing.
+		 * Determines the maximum number of workers to be used for parallel processing.
+		 * If the factories belong to an RDKit node model, it is asked, otherwise the
+		 * default is used.
+		 *
+		 * @param arrFactory Factories of the parallel processing. Can be null.
+		 *
+		 * @return Maximum number of parallel workers. By default the number of available
+		 * 		processors + 50%. This calculation was found in a MultiThreadWorker implementation of KNIME.
+		 */
+		private static int getMaxParallelWorkers(final AbstractRDKitCellFactory[] arrFactory) {
+			final AbstractRDKitGenericNodeModel nodeModel = getNodeModel(arrFactory);
+			return Math.max(1, nodeModel != null ? nodeModel.getMaxParallelWorkers() :
+				AdaptiveParallelism.getDefaultMaxParallelWorkers());
+		}
+
+		/**
+		 * Determines the node model the factories belong to. The node model is
+		 * the RDKit object cleaner of the factories.
+		 *
+		 * @param arrFactory Factories of the parallel processing. Can be null.
 		 *
-		 * @return Number of available processors + 50%. This calculation was found
-		 * 		in a MultiThreadWorker implementation of KNIME.
+		 * @return Node model or null, if not found.
 		 */
-		private static int getMaxParallelWorkers() {
-			return (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
+		private static AbstractRDKitGenericNodeModel getNodeModel(final AbstractRDKitCellFactory[] arrFactory) {
+			if (arrFactory != null && arrFactory.length > 0 && arrFactory[0] != null &&
+					arrFactory[0].getRDKitObjectCleaner() instanceof AbstractRDKitGenericNodeModel nodeModel) {
+				return nodeModel;
+			}
+
+			return null;
 		}
 
 		//
@@ -2352,7 +3025,7 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * @param resultProcessor The result processor implementation, which could distribute the results
 		 * 		to different tables, if desired. Must not be null.
 		 * @param lRowCount Row count of the input table in focus of this parallel processing. This
-		 * 		value is used to determine the correct progress percentage.
+		 * 		value is used to determine the correct progress percentage. -1, if unknown (streaming).
 		 * @param warningConsolidator Warning consolidator to be used to save warning messages and
 		 * 		its statistics (how often they occurred). Must not be null.
 		 * @param exec Execution context to check for user cancellation and to report progress. Must not be null.
@@ -2379,7 +3052,7 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * @param resultProcessor The result processor implementation, which could distribute the results
 		 * 		to different tables, if desired. Must not be null.
 		 * @param lRowCount Row count of the input table in focus of this parallel processing. This
-		 * 		value is used to determine the correct progress percentage.
+		 * 		value is used to determine the correct progress percentage. -1, if unknown (streaming).
 		 * @param warningConsolidator Warning consolidator to be used to save warning messages and
 		 * 		its statistics (how often they occurred). Must not be null.
 		 * @param exec Execution context to check for user cancellation and to report progress. Must not be null.
@@ -2389,7 +3062,26 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 				final ResultProcessor resultProcessor, final long lRowCount,
 				final WarningConsolidator warningConsolidator, final ExecutionContext exec) {
 
-			super(getQueueSize(), getMaxParallelWorkers());
+			this(arrFactory, resultProcessor, lRowCount, warningConsolidator, exec,
+					getMaxParallelWorkers(arrFactory));
+		}
+
+		/**
+		 * Creates a new parallel processor object with the specified maximum number of workers.
+		 *
+		 * @param arrFactory Multiple factory implementations to perform the calculations. Must not be null.
+		 * @param resultProcessor The result processor implementation. Must not be null.
+		 * @param lRowCount Row count of the input table or -1, if unknown (streaming).
+		 * @param warningConsolidator Warning consolidator. Must not be null.
+		 * @param exec Execution context. Must not be null.
+		 * @param iMaxParallelWorkers Maximum number of parallel workers. Must be > 0.
+		 */
+		private ParallelProcessor(final AbstractRDKitCellFactory[] arrFactory,
+				final ResultProcessor resultProcessor, final long lRowCount,
+				final WarningConsolidator warningConsolidator, final ExecutionContext exec,
+				final int iMaxParallelWorkers) {
+
+			super(getNodeModel(arrFactory), getQueueSize(iMaxParallelWorkers), iMaxParallelWorkers, exec);
 
 			// Pre-checks
 			if (arrFactory == null || arrFactory.length == 0) {
@@ -2518,10 +3210,10 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * calls the factory method getCells(row) to actually perform the concrete calculation work.
 		 *
 		 * @param row Input row from an input table.
-		 * @param index Index of the row. Not used in this implementation.
+		 * @param index Index of the row.
 		 */
 		@Override
-		public DataCell[] compute(final DataRow row, final long index) {
+		protected DataCell[] calculate(final DataRow row, final long index) {
 			DataCell[] arrTotalResults;
 
 			// For performance reasons we check for single vs. multi factories here
@@ -2552,7 +3244,7 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * @param task The computation task from the MultiThreadWorker. Must not be null.
 		 */
 		@Override
-		public void processFinished(final ComputationTask task) {
+		protected void processResult(final ComputationTask task) {
 			// Pre-check
 			if (task == null) {
 				throw new IllegalArgumentException("Computation task must not be null.");
@@ -2589,13 +3281,22 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 			// Update the progress only every 20 rows
 			if (rowIndex % 20 == 0) {
 				try {
-					AbstractRDKitGenericNodeModel.reportProgress(m_exec, (int)rowIndex,
-							m_lTotalRowCount, row,
-							new StringBuilder(" [").append(getActiveCount()).append(" active, ")
-							.append(getFinishedTaskCount()).append(" pending]").toString());
+					if (m_lTotalRowCount < 0) {
+						// Row count is unknown when streaming, so we can only report the processed rows
+						m_exec.checkCanceled();
+						m_exec.setMessage(new StringBuilder("Processed row ").append(rowIndex)
+								.append(" (\"").append(row.getKey()).append("\") [").append(getActiveCount())
+								.append(" active, ").append(getFinishedTaskCount()).append(" pending]").toString());
+					}
+					else {
+						AbstractRDKitGenericNodeModel.reportProgress(m_exec, (int)rowIndex,
+								m_lTotalRowCount, row,
+								new StringBuilder(" [").append(getActiveCount()).append(" active, ")
+								.append(getFinishedTaskCount()).append(" pending]").toString());
+					}
 				}
 				catch (final CanceledExecutionException e) {
-					cancel(true);
+					stopProcessing();
 				}
 			}
 
@@ -2603,13 +3304,51 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		};
 	}
 
+	/**
+	 * A running worker computation of a node, which gets registered by the {@link ParallelWorker}.
+	 * Quarantined RDKit objects of a wave, which was created by a worker computation,
+	 * are released as soon as this computation has finished.
+	 */
+	static final class WorkerComputation {
+
+		/** The worker computation, which runs in the current thread, if any. */
+		private static final ThreadLocal<WorkerComputation> CURRENT = new ThreadLocal<WorkerComputation>();
+
+		/** Flag to tell that the computation has finished. */
+		private volatile boolean m_bFinished = false;
+
+		/**
+		 * Returns the worker computation, which runs in the current thread.
+		 *
+		 * @return Worker computation or null, if the current thread does not run a worker computation.
+		 */
+		static WorkerComputation getCurrent() {
+			return CURRENT.get();
+		}
+
+		/**
+		 * Determines, if the computation has finished.
+		 *
+		 * @return True, if finished. False, if still running.
+		 */
+		boolean isFinished() {
+			return m_bFinished;
+		}
+	}
+
 	/**
 	 * This class keeps track of RDKit objects which require cleanup when not needed
-	 * anymore.
+	 * anymore. Objects are tracked per wave in a concurrent map, so that worker threads
+	 * registering and cleaning up objects of their own waves do not block each other.
+	 * The objects of a wave are kept in a plain hash set, which is only changed within
+	 * compute() calls of the map for this wave, as the map serializes them already.
+	 * The delete() methods are called through method handles, which are cached per class.
+	 * For waves created by a worker computation the tracker remembers the computation, 
+	 * so that the wave can be released from quarantine as soon as the computation has finished.
 	 *
 	 * @author Manuel Schwarze
 	 */
-	static class RDKitCleanupTracker extends HashMap<Long, HashSet<Object>> {
+	static class RDKitCleanupTracker extends ConcurrentHashMap<Long, Set<Object>> {
 
 		//
 		// Constants
@@ -2622,6 +3361,46 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		protected static final NodeLogger LOGGER = NodeLogger
 				.getLogger(RDKitCleanupTracker.class);
 
+		/** 
+		 * Cache of method handles to call the delete() method of a class. It contains
+		 * null for classes, which do not provide an accessible delete() method.
+		 */
+		private static final ClassValue<MethodHandle> DELETE_METHODS = new ClassValue<MethodHandle>() {
+			@Override
+			protected MethodHandle computeValue(final Class<?> clazz) {
+				MethodHandle handle = null;
+
+				try {
+					final Method method = clazz.getMethod("delete");
+					handle = MethodHandles.publicLookup().unreflect(method)
+							.asType(MethodType.methodType(void.class, Object.class));
+				}
+				catch (final NoSuchMethodException excNoSuchMethod) {
+					LOGGER.error("An object had been registered for cleanup (delete() call), " +
+							"which does not provide a delete() method. It's of class " + 
+							clazz.getName() + ".");
+				}
+				catch (final SecurityException | IllegalAccessException excSecurity) {
+					LOGGER.error("An object had been registered for cleanup (delete() call), " +
+							"which is not accessible for security reasons. It's of class " + 
+							clazz.getName() + ".", excSecurity);
+				}
+
+				return handle;
+			}
+		};
+
+		//
+		// Members
+		//
+
+		/** 
+		 * Worker computations, which created waves. Waves, which were created outside of a worker 
+		 * computation, are not contained and may be used by all workers of the node. 
+		 */
+		private final transient Map<Long, WorkerComputation> m_mapWaveCreators = 
+				new ConcurrentHashMap<Long, WorkerComputation>();
+
 		//
 		// Constructors
 		//
@@ -2652,18 +3431,24 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 			super(initialCapacity);
 		}
 
+		//
+		// Public Methods
+		//
+
 		/**
-		 * Creates a copy of an existing RDKitCleanupTracker object.
+		 * Remembers the worker computation, which runs in the current thread, as creator of 
+		 * the specified wave. Nothing happens, if the current thread does not run a worker computation.
+		 * The registration ends, when the wave gets cleaned up.
 		 *
-		 * @param existing The existing object. Must not be null.
+		 * @param wave A newly created wave id.
 		 */
-		private RDKitCleanupTracker(final RDKitCleanupTracker existing) {
-			super(existing);
-		}
+		public void registerWave(final long wave) {
+			final WorkerComputation worker = WorkerComputation.getCurrent();
 
-		//
-		// Public Methods
-		//
+			if (worker != null) {
+				m_mapWaveCreators.put(wave, worker);
+			}
+		}
 
 		/**
 		 * Registers an RDKit based object that is used within a certain block (wave). $
@@ -2688,33 +3473,29 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 *
 		 * @return The same object that was passed in. Null, if null was passed in.
 		 */
-		public synchronized <T extends Object> T markForCleanup(final T rdkitObject, final long wave, final boolean bRemoveFromOtherWave) {
+		public <T extends Object> T markForCleanup(final T rdkitObject, final long wave, final boolean bRemoveFromOtherWave) {
 			if (rdkitObject != null)  {
 
 				// Remove object from any other list, if desired (cost performance!)
 				if (bRemoveFromOtherWave) {
 
-					// Loop through all waves to find the rdkitObject - we create a copy here, because
-					// we may remove empty wave lists which may blow up our iterator
-					for (final long waveExisting : new HashSet<Long>(keySet())) {
-						final HashSet<Object> list = get(waveExisting);
-						if (list.remove(rdkitObject) && list.isEmpty()) {
-							remove(waveExisting);
-						}
+					// Loop through all waves to find the rdkitObject and remove empty wave lists
+					// - the wave sets are only changed within compute() calls
+					for (final Long waveExisting : keySet()) {
+						computeIfPresent(waveExisting, (key, set) -> 
+							(set.remove(rdkitObject) && set.isEmpty() ? null : set));
 					}
 				}
 
-				// Get the list of the target wave
-				HashSet<Object> set = get(wave);
-
-				// Create a wave list, if not found yet
-				if (set == null) {
-					set = new HashSet<Object>();
-					put(wave, set);
-				}
-
-				// Add the object (only once, since it is a set)
-				set.add(rdkitObject);
+				// Get the list of the target wave (create it, if not found yet) and 
+				// add the object (only once, since it is a set) - this happens atomically
+				// with the removal of the wave list in cleanupMarkedObjects(), so that an 
+				// object never ends up in a wave list that has been taken out already
+				compute(wave, (key, set) -> {
+					final Set<Object> setWave = (set == null ? new HashSet<Object>() : set);
+					setWave.add(rdkitObject);
+					return setWave;
+				});
 			}
 
 			return rdkitObject;
@@ -2724,12 +3505,14 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * Frees resources for all objects that have been registered prior to this last
 		 * call using the method {@link #cleanupMarkedObjects()}.
 		 */
-		public synchronized void cleanupMarkedObjects() {
-			// Loop through all waves for cleanup - we create a copy here, because
-			// the cleanupMarkedObjects method will remove items from our map
-			for (final long wave : new HashSet<Long>(keySet())) {
+		public void cleanupMarkedObjects() {
+			// Loop through all waves for cleanup - the iterator of the concurrent map
+			// tolerates the removal of waves during the iteration
+			for (final Long wave : keySet()) {
 				cleanupMarkedObjects(wave);
 			}
+
+			m_mapWaveCreators.clear();
 		}
 
 		/**
@@ -2737,70 +3520,115 @@ public abstract class AbstractRDKitGenericNodeModel extends NodeModel implements
 		 * call for a certain wave using the method {@link #cleanupMarkedObjects(int)}.
 		 *
 		 * @param wave A number that identifies objects registered for a certain "wave".
+		 *
+		 * @return Number of objects, which were cleaned up.
 		 */
-		public synchronized void cleanupMarkedObjects(final long wave) {
-			// Find the right wave list, if not found yet
-			final HashSet<Object> set = get(wave);
+		public int cleanupMarkedObjects(final long wave) {
+			int iCount = 0;
+
+			// Find the right wave list and take it out of the tracker
+			final Set<Object> set = remove(wave);
+			m_mapWaveCreators.remove(wave);
 
 			// If wave list was found, free all objects in it
 			if (set != null) {
 				for (final Object objForCleanup : set) {
-					Class<?> clazz = null;
-
-					try {
-						clazz = objForCleanup.getClass();
-						final Method method = clazz.getMethod("delete");
-						method.invoke(objForCleanup);
-					}
-					catch (final NoSuchMethodException excNoSuchMethod) {
-						LOGGER.error("An object had been registered for cleanup (delete() call), " +
-								"which does not provide a delete() method." +
-								(clazz == null ? "" : " It's of class " + clazz.getName() + "."),
-								excNoSuchMethod.getCause());
-					}
-					catch (final SecurityException excSecurity) {
-						LOGGER.error("An object had been registered for cleanup (delete() call), " +
-								"which is not accessible for security reasons." +
-								(clazz == null ? "" : " It's of class " + clazz.getName() + "."),
-								excSecurity.getCause());
-					}
-					catch (final Exception exc) {
-						LOGGER.error("Cleaning up a registered object (via delete() call) failed." +
-								(clazz == null ? "" : " It's of class " + clazz.getName() + "."),
-								exc.getCause());
-					}
+					delete(objForCleanup);
+					iCount++;
 				}
 
 				set.clear();
-				remove(wave);
 			}
+
+			return iCount;
 		}
 
 		/**
 		 * Removes all resources for all objects that have been registered prior to this last
 		 * call using the method {@link #cleanupMarkedObjects()}, but delays the cleanup
-		 * process. It basically moves the objects of interest into quarantine.
+		 * process. It basically moves the objects of interest into quarantine, which
+		 * is managed by the {@link RDKitObjectQuarantine}.
+		 *
+		 * @param workersStopped Tells, if all workers, which may still use objects of waves
+		 * 		that were not created by a worker computation, have stopped. Such objects are 
+		 * 		not released before. Objects of a wave created by a worker computation are
+		 * 		released after this computation has finished. Must not be null.
 		 */
-		public synchronized void quarantineAndCleanupMarkedObjects() {
-			final RDKitCleanupTracker quarantineRDKitObjects = new RDKitCleanupTracker(this);
-			clear();
+		public void quarantineAndCleanupMarkedObjects(final BooleanSupplier workersStopped) {
+			final RDKitCleanupTracker quarantineRDKitObjects = new RDKitCleanupTracker();
+
+			// Move all waves into quarantine together with their creators
+			for (final Long wave : keySet()) {
+				final Set<Object> set = remove(wave);
+				final WorkerComputation creator = m_mapWaveCreators.remove(wave);
+				if (set != null) {
+					quarantineRDKitObjects.put(wave, set);
+					if (creator != null) {
+						quarantineRDKitObjects.m_mapWaveCreators.put(wave, creator);
+					}
+				}
+			}
+
+			// Creators of waves without objects are not needed anymore
+			m_mapWaveCreators.clear();
 
 			if (!quarantineRDKitObjects.isEmpty()) {
-				// Create the future cleanup task
-				final TimerTask futureCleanupTask = new TimerTask() {
-
-					/**
-					 * Cleans up all marked objects, which are put into quarantine for now.
-					 */
-					@Override
-					public void run() {
-						quarantineRDKitObjects.cleanupMarkedObjects();
-					}
-				};
+				// Schedule the cleanup for later
+				RDKitObjectQuarantine.quarantine(quarantineRDKitObjects, workersStopped);
+			}
+		}
+
+		/**
+		 * Returns the number of objects, which are currently registered for cleanup.
+		 * While workers are registering objects, the number is only approximate.
+		 *
+		 * @return Number of registered objects.
+		 */
+		public long getObjectCount() {
+			long lCount = 0;
+
+			for (final Set<Object> set : values()) {
+				lCount += set.size();
+			}
+
+			return lCount;
+		}
+
+		/**
+		 * Determines, if the objects of a wave can be released, because the workers, 
+		 * which may still use them, have finished.
+		 *
+		 * @param wave A number that identifies objects registered for a certain "wave".
+		 * @param workersStopped Tells, if all workers have stopped, which may use objects of 
+		 * 		waves that were not created by a worker computation. Must not be null.
+		 *
+		 * @return True, if the objects of the wave can be released. False otherwise.
+		 */
+		public boolean isWaveReleasable(final long wave, final BooleanSupplier workersStopped) {
+			final WorkerComputation creator = m_mapWaveCreators.get(wave);
+			return (creator != null ? creator.isFinished() : workersStopped.getAsBoolean());
+		}
 
-				// Schedule the cleanup task for later
-				final Timer timer = new Timer("Quarantine RDKit Object Cleanup", false);
-				timer.schedule(futureCleanupTask, RDKIT_OBJECT_CLEANUP_DELAY_FOR_QUARANTINE);
+		//
+		// Private Methods
+		//
+
+		/**
+		 * Calls the delete() method of the passed in object. Errors are logged.
+		 *
+		 * @param objForCleanup Object to be cleaned up. Must not be null.
+		 */
+		private static void delete(final Object objForCleanup) {
+			final MethodHandle handle = DELETE_METHODS.get(objForCleanup.getClass());
+
+			if (handle != null) {
+				try {
+					handle.invokeExact(objForCleanup);
+				}
+				catch (final Throwable exc) {
+					LOGGER.error("Cleaning up a registered object (via delete() call) failed." +
+							" It's of class " + objForCleanup.getClass().getName() + ".", exc);
+				}
 			}
 		}
 	}
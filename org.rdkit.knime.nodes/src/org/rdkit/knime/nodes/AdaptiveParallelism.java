@@ -0,0 +1,541 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes;
+
+import java.util.Iterator;
+import java.util.function.BooleanSupplier;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.rdkit.knime.nodes.preferences.RDKitNodesPreferencePage;
+
+/**
+ * This class controls how many rows are processed in parallel by a {@link AbstractRDKitGenericNodeModel.ParallelWorker}.
+ * The underlying worker gets created with upper bounds for the number of workers and rows in flight.
+ * Within these bounds the concurrency and the in-flight limit are adapted based on the measured
+ * per-row latency and on the pressure in the result queue:
+ * <ul>
+ * <li>The number of workers is limited to what the (single threaded) result processing can consume.
+ * 		If processing a result takes 1 ms and calculating it takes 4 ms, more than 5 workers will only
+ * 		fill the result queue.</li>
+ * <li>Cheap rows need many rows in flight per worker to keep the workers busy, expensive rows only a few,
+ * 		which keeps the memory for pending results low and lets cancellations take effect faster.
+ * 		If many finished results are waiting for a slow row before them, the in-flight limit gets raised.</li>
+ * </ul>
+ * The limits are applied when rows are handed out to the worker: Its input gets wrapped with
+ * {@link #throttle(Iterable, BooleanSupplier)}, which blocks the submission of the next row while a
+ * limit is reached. Hence, rows waiting for their turn do neither occupy a thread of the worker pool
+ * nor a slot in its queue. The time the submission waits is recorded as stall time.
+ * Instances are thread-safe.
+ */
+public class AdaptiveParallelism {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(AdaptiveParallelism.class);
+
+	/** Number of processed rows after which the limits get adapted. */
+	private static final int ADJUSTMENT_INTERVAL = 64;
+
+	/** Per-row latency in nanoseconds up to which rows are considered cheap. */
+	private static final double CHEAP_ROW_LATENCY = 1e6d;
+
+	/** Per-row latency in nanoseconds from which rows are considered expensive. */
+	private static final double EXPENSIVE_ROW_LATENCY = 1e8d;
+
+	/** Rows in flight per worker for cheap rows. */
+	private static final int MAX_ROWS_PER_WORKER = 10;
+
+	/** Rows in flight per worker for expensive rows. */
+	private static final int MIN_ROWS_PER_WORKER = 2;
+
+	/**
+	 * Factor between the upper bound of rows in flight and the in-flight limit chosen for cheap rows
+	 * (or chunks). It leaves room to raise the limit, when slow rows block the results after them.
+	 */
+	private static final int IN_FLIGHT_HEADROOM = 2;
+
+	/** The setting key of the per-node maximum number of parallel workers. */
+	private static final String SETTING_KEY_MAX_PARALLEL_WORKERS = "maxParallelWorkers";
+
+	/** The highest per-node maximum number of parallel workers, same as in the preferences. */
+	private static final int MAX_PARALLEL_WORKERS_LIMIT = 1024;
+
+	/** Interval in milliseconds, in which a waiting submission checks, if the processing was stopped. */
+	private static final long STOP_CHECK_INTERVAL = 200;
+
+	/** Weight of a new measurement in the moving averages. */
+	private static final double AVERAGE_WEIGHT = 0.05d;
+
+	//
+	// Members
+	//
+
+	/** Upper bound of the number of workers. */
+	private final int m_iMaxWorkers;
+
+	/** Upper bound of the number of rows in flight. */
+	private final int m_iMaxInFlight;
+
+	/** Flag to tell, if limits get adapted. If false, the upper bounds are used. */
+	private final boolean m_bAdaptive;
+
+	/** Current limit of rows, which are calculated at the same time. */
+	private int m_iWorkers;
+
+	/** Current limit of rows in flight, counted from the next row to be processed. */
+	private int m_iInFlight;
+
+	/** Highest number of rows, which were calculated at the same time. */
+	private int m_iPeakWorkers = 0;
+
+	/** Number of rows, which are calculated right now. */
+	private int m_iActive = 0;
+
+	/** Number of rows, which were handed out to the worker, but whose calculation has not finished yet. */
+	private int m_iSubmitted = 0;
+
+	/** Index of the next row, whose result will be processed. */
+	private long m_lNextIndex = 0;
+
+	/** Moving average of the calculation time of a row in nanoseconds. -1, if not measured yet. */
+	private double m_dAvgLatency = -1d;
+
+	/** Moving average of the result processing time of a row in nanoseconds. -1, if not measured yet. */
+	private double m_dAvgConsumerTime = -1d;
+
+	/** Sum of finished results waiting to be processed since the last adjustment. */
+	private long m_lPendingSum = 0;
+
+	/** Number of processed rows since the last adjustment. */
+	private int m_iProcessedSinceAdjustment = 0;
+
+	/** Total time in nanoseconds the submission of rows waited for the limits. */
+	private long m_lStallTime = 0;
+
+	/** Number of processed rows. */
+	private long m_lProcessedRows = 0;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new controller for the specified upper bounds.
+	 *
+	 * @param iMaxWorkers Maximum number of workers. Must be > 0.
+	 * @param iMaxInFlight Maximum number of rows in flight. Must be >= iMaxWorkers.
+	 * @param bAdaptive True to adapt the limits, false to use always the upper bounds.
+	 */
+	public AdaptiveParallelism(final int iMaxWorkers, final int iMaxInFlight, final boolean bAdaptive) {
+		if (iMaxWorkers <= 0) {
+			throw new IllegalArgumentException("Maximum number of workers must be > 0.");
+		}
+		if (iMaxInFlight < iMaxWorkers) {
+			throw new IllegalArgumentException("Maximum number of rows in flight must not be lower than the number of workers.");
+		}
+
+		m_iMaxWorkers = iMaxWorkers;
+		m_iMaxInFlight = iMaxInFlight;
+		m_bAdaptive = bAdaptive;
+		m_iWorkers = iMaxWorkers;
+		m_iInFlight = iMaxInFlight;
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Wraps the input of a worker, so that the next row is only handed out, when the
+	 * concurrency and the in-flight limit allow it. Retrieving the next row blocks otherwise.
+	 * Rows must be processed in the order of the input, which gets iterated only once.
+	 *
+	 * @param <T> Type of the input rows.
+	 * @param input Input of the worker. Must not be null.
+	 * @param stopped Tells, if the processing was stopped, e.g. canceled. Rows are not
+	 * 		throttled anymore afterwards, so that the worker can finish. Must not be null.
+	 *
+	 * @return Throttled input. Never null.
+	 */
+	public <T> Iterable<T> throttle(final Iterable<T> input, final BooleanSupplier stopped) {
+		return () -> new Iterator<T>() {
+
+			/** The iterator of the input. */
+			private final Iterator<T> m_iterator = input.iterator();
+
+			/** Index of the next row. */
+			private long m_lIndex = 0;
+
+			@Override
+			public boolean hasNext() {
+				return m_iterator.hasNext();
+			}
+
+			@Override
+			public T next() {
+				final T next = m_iterator.next();
+				beforeSubmission(m_lIndex++, stopped);
+				return next;
+			}
+		};
+	}
+
+	/**
+	 * Needs to be called by a worker before it starts the calculation of a row.
+	 */
+	public synchronized void beforeCalculation() {
+		m_iActive++;
+		m_iPeakWorkers = Math.max(m_iPeakWorkers, m_iActive);
+	}
+
+	/**
+	 * Needs to be called by a worker after it finished the calculation of a row,
+	 * also if the calculation failed.
+	 *
+	 * @param lLatency Calculation time of the row in nanoseconds.
+	 */
+	public synchronized void afterCalculation(final long lLatency) {
+		m_iActive--;
+		m_iSubmitted = Math.max(0, m_iSubmitted - 1);
+		m_dAvgLatency = updateAverage(m_dAvgLatency, lLatency);
+		notifyAll();
+	}
+
+	/**
+	 * Needs to be called after the result of a row has been processed. Results are processed
+	 * in the order of the rows. From time to time the limits get adapted here.
+	 *
+	 * @param lIndex Index of the row.
+	 * @param iPendingResults Number of finished results, which are still waiting to be processed.
+	 * @param lConsumerTime Processing time of the result in nanoseconds.
+	 */
+	public synchronized void afterProcessing(final long lIndex, final int iPendingResults, final long lConsumerTime) {
+		m_lNextIndex = lIndex + 1;
+		m_lProcessedRows++;
+		m_dAvgConsumerTime = updateAverage(m_dAvgConsumerTime, lConsumerTime);
+		m_lPendingSum += Math.max(0, iPendingResults);
+
+		if (++m_iProcessedSinceAdjustment >= ADJUSTMENT_INTERVAL) {
+			if (m_bAdaptive) {
+				adjust((double)m_lPendingSum / m_iProcessedSinceAdjustment);
+			}
+			m_lPendingSum = 0;
+			m_iProcessedSinceAdjustment = 0;
+		}
+
+		notifyAll();
+	}
+
+	/**
+	 * Returns the maximum number of workers.
+	 *
+	 * @return Upper bound of workers.
+	 */
+	public int getMaxParallelism() {
+		return m_iMaxWorkers;
+	}
+
+	/**
+	 * Returns the currently chosen number of workers.
+	 *
+	 * @return Concurrency limit.
+	 */
+	public synchronized int getParallelism() {
+		return m_iWorkers;
+	}
+
+	/**
+	 * Returns the highest number of rows, which were calculated at the same time.
+	 *
+	 * @return Peak concurrency.
+	 */
+	public synchronized int getPeakParallelism() {
+		return m_iPeakWorkers;
+	}
+
+	/**
+	 * Returns the currently chosen number of rows in flight.
+	 *
+	 * @return In-flight limit.
+	 */
+	public synchronized int getInFlightLimit() {
+		return m_iInFlight;
+	}
+
+	/**
+	 * Returns the total time the submission of rows waited for the limits.
+	 *
+	 * @return Stall time in milliseconds.
+	 */
+	public synchronized long getStallTime() {
+		return m_lStallTime / 1000000l;
+	}
+
+	/**
+	 * Returns the average calculation time of a row.
+	 *
+	 * @return Average latency in microseconds or -1, if not measured yet.
+	 */
+	public synchronized long getAverageRowLatency() {
+		return (m_dAvgLatency < 0 ? -1 : (long)(m_dAvgLatency / 1000d));
+	}
+
+	/**
+	 * Returns a summary of the chosen parallelism and the measured times.
+	 *
+	 * @return Summary. Never null.
+	 */
+	@Override
+	public synchronized String toString() {
+		return new StringBuilder(m_bAdaptive ? "Adaptive" : "Fixed").append(" parallel processing of ")
+				.append(m_lProcessedRows).append(" rows: ")
+				.append(m_iWorkers).append(" of max. ").append(m_iMaxWorkers).append(" workers (peak ")
+				.append(m_iPeakWorkers).append("), ")
+				.append(m_iInFlight).append(" of max. ").append(m_iMaxInFlight).append(" rows in flight, ")
+				.append("avg. row latency ").append(getAverageRowLatency()).append(" us, ")
+				.append("stall time ").append(getStallTime()).append(" ms").toString();
+	}
+
+	//
+	// Public Static Methods
+	//
+
+	/**
+	 * Returns the default maximum number of parallel workers. It is taken from the preferences,
+	 * if set there. Otherwise it is the number of available processors + 50%, which considers
+	 * the CPU quota of a container, limited by the maximum number of threads of KNIME's global
+	 * thread pool.
+	 *
+	 * @return Maximum number of parallel workers. At least 1.
+	 */
+	public static int getDefaultMaxParallelWorkers() {
+		int iMaxWorkers = 0;
+
+		try {
+			iMaxWorkers = RDKitNodePlugin.getDefault().getPreferenceStore().getInt(
+					RDKitNodesPreferencePage.PREF_KEY_MAX_PARALLEL_WORKERS);
+		}
+		catch (final Exception exc) {
+			LOGGER.debug("Unable to retrieve preference for maximum number of parallel workers. Using default.", exc);
+		}
+
+		if (iMaxWorkers <= 0) {
+			iMaxWorkers = (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
+
+			try {
+				final int iMaxThreads = KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads();
+				if (iMaxThreads > 0) {
+					iMaxWorkers = Math.min(iMaxWorkers, iMaxThreads);
+				}
+			}
+			catch (final Exception exc) {
+				LOGGER.debug("Unable to determine the size of the global thread pool.", exc);
+			}
+		}
+
+		return Math.max(1, iMaxWorkers);
+	}
+
+	/**
+	 * Returns the upper bound of rows in flight for a worker, which calculates single rows.
+	 * The adaptive in-flight limit stays within this bound. If parallelism is not adaptive,
+	 * this is the fixed number of rows in flight.
+	 *
+	 * @param iMaxWorkers Maximum number of workers.
+	 *
+	 * @return Maximum number of rows in flight. At least 1.
+	 */
+	public static int getMaxRowsInFlight(final int iMaxWorkers) {
+		return Math.max(1, iMaxWorkers) * MAX_ROWS_PER_WORKER * IN_FLIGHT_HEADROOM;
+	}
+
+	/**
+	 * Returns the upper bound of inputs in flight for a worker, which calculates chunks of many rows
+	 * as one input. Chunks are expensive to calculate and to keep in memory, so that only a few
+	 * are in flight per worker, like for expensive rows.
+	 *
+	 * @param iMaxWorkers Maximum number of workers.
+	 *
+	 * @return Maximum number of chunks in flight. At least 1.
+	 */
+	public static int getMaxChunksInFlight(final int iMaxWorkers) {
+		return Math.max(1, iMaxWorkers) * MIN_ROWS_PER_WORKER * IN_FLIGHT_HEADROOM;
+	}
+
+	/**
+	 * Creates the settings model for the maximum number of parallel workers of a single node.
+	 * It overrides the preference for this node, unless it is 0.
+	 *
+	 * @return Settings model for the maximum number of parallel workers of a node.
+	 *
+	 * @see #getDefaultMaxParallelWorkers()
+	 */
+	public static SettingsModelIntegerBounded createMaxParallelWorkersModel() {
+		return new SettingsModelIntegerBounded(SETTING_KEY_MAX_PARALLEL_WORKERS, 0, 0, MAX_PARALLEL_WORKERS_LIMIT);
+	}
+
+	/**
+	 * Returns the preference, if parallel processing shall adapt to the measured per-row
+	 * latency and result queue pressure.
+	 *
+	 * @return True, if adaptive. Default is true.
+	 */
+	public static boolean isAdaptiveByDefault() {
+		boolean bAdaptive = RDKitNodesPreferencePage.DEFAULT_ADAPTIVE_PARALLELISM;
+
+		try {
+			bAdaptive = RDKitNodePlugin.getDefault().getPreferenceStore().getBoolean(
+					RDKitNodesPreferencePage.PREF_KEY_ADAPTIVE_PARALLELISM);
+		}
+		catch (final Exception exc) {
+			LOGGER.debug("Unable to retrieve preference for adaptive parallelism. Using default.", exc);
+		}
+
+		return bAdaptive;
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Called before a row gets handed out to the worker. It waits, while the concurrency
+	 * or in-flight limit is reached and the processing was not stopped.
+	 *
+	 * @param lIndex Index of the row.
+	 * @param stopped Tells, if the processing was stopped. Must not be null.
+	 */
+	private synchronized void beforeSubmission(final long lIndex, final BooleanSupplier stopped) {
+		if (m_bAdaptive && isLimitReached(lIndex)) {
+			final long lStart = System.nanoTime();
+
+			try {
+				while (isLimitReached(lIndex) && !stopped.getAsBoolean()) {
+					wait(STOP_CHECK_INTERVAL);
+				}
+			}
+			catch (final InterruptedException exc) {
+				// Let the worker handle the interruption
+				Thread.currentThread().interrupt();
+			}
+
+			m_lStallTime += System.nanoTime() - lStart;
+		}
+
+		m_iSubmitted++;
+	}
+
+	/**
+	 * Determines, if the submission of the specified row has to wait.
+	 *
+	 * @param lIndex Index of the row.
+	 *
+	 * @return True, if the concurrency or in-flight limit is reached.
+	 */
+	private boolean isLimitReached(final long lIndex) {
+		return m_iSubmitted >= m_iWorkers || lIndex >= m_lNextIndex + m_iInFlight;
+	}
+
+	/**
+	 * Adapts the concurrency and in-flight limit to the measured times.
+	 *
+	 * @param dAvgPending Average number of finished results waiting to be processed.
+	 */
+	private void adjust(final double dAvgPending) {
+		if (m_dAvgLatency < 0 || m_dAvgConsumerTime < 0) {
+			return;
+		}
+
+		// More workers than the result processing can consume would only fill the result queue
+		final double dUsefulWorkers = Math.ceil(m_dAvgLatency / Math.max(1d, m_dAvgConsumerTime)) + 1;
+		final int iWorkers = (int)Math.max(1, Math.min(m_iMaxWorkers, dUsefulWorkers));
+
+		// Rows in flight per worker: interpolated logarithmically between cheap and expensive rows
+		final double dPosition = Math.max(0d, Math.min(1d, Math.log(m_dAvgLatency / CHEAP_ROW_LATENCY) /
+				Math.log(EXPENSIVE_ROW_LATENCY / CHEAP_ROW_LATENCY)));
+		final double dRowsPerWorker = MAX_ROWS_PER_WORKER - dPosition * (MAX_ROWS_PER_WORKER - MIN_ROWS_PER_WORKER);
+		int iInFlight = (int)Math.ceil(iWorkers * dRowsPerWorker);
+
+		// Many waiting results mean that slow rows block the results after them - allow more rows in flight
+		if (dAvgPending >= 0.75d * m_iInFlight) {
+			iInFlight = Math.max(iInFlight, 2 * m_iInFlight);
+		}
+
+		iInFlight = Math.max(iWorkers, Math.min(m_iMaxInFlight, iInFlight));
+
+		if (iWorkers != m_iWorkers || iInFlight != m_iInFlight) {
+			LOGGER.debug("Adapting parallel processing to " + iWorkers + " workers and " + iInFlight +
+					" rows in flight (avg. row latency " + (long)(m_dAvgLatency / 1000d) + " us, avg. result processing " +
+					(long)(m_dAvgConsumerTime / 1000d) + " us, avg. pending results " + (long)dAvgPending + ")");
+			m_iWorkers = iWorkers;
+			m_iInFlight = iInFlight;
+		}
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Updates an exponential moving average.
+	 *
+	 * @param dAverage Current average or a negative value, if there is none yet.
+	 * @param lValue New measurement.
+	 *
+	 * @return New average.
+	 */
+	private static double updateAverage(final double dAverage, final long lValue) {
+		return (dAverage < 0 ? lValue : dAverage + AVERAGE_WEIGHT * (lValue - dAverage));
+	}
+}
@@ -117,6 +117,7 @@ public class RDKitNodePlugin extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		RDKitObjectQuarantine.shutdown();
 		super.stop(context);
 		g_instance = null;
 	}
@@ -0,0 +1,403 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.knime.core.node.NodeLogger;
+import org.rdkit.knime.nodes.AbstractRDKitGenericNodeModel.RDKitCleanupTracker;
+import org.rdkit.knime.nodes.preferences.RDKitNodesPreferencePage;
+
+/**
+ * This class manages RDKit objects, which have been put into quarantine, because
+ * they could not be cleaned up safely when a node finished its execution (e.g. because
+ * worker threads may still use them after a cancellation). All quarantined objects
+ * of the plugin are released by one shared scheduler thread after a configurable delay.
+ * If the number of pending quarantined objects exceeds a configurable high-water mark,
+ * the oldest quarantined objects are released earlier. In any case objects are only released
+ * after the workers, which may still use them, have stopped. This is decided per wave: 
+ * Objects of a wave, which was created by a worker computation, are released as soon as 
+ * this computation has finished, all other objects after all workers have finished, which 
+ * were running when the objects were quarantined.
+ */
+public final class RDKitObjectQuarantine {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(RDKitObjectQuarantine.class);
+
+	/** Time in milliseconds to wait before checking again, if workers have stopped, which were still running. */
+	private static final long WORKER_STOP_CHECK_INTERVAL = 1000;
+
+	//
+	// Globals
+	//
+
+	/** The scheduler used for delayed cleanup. Created lazily. */
+	private static ScheduledThreadPoolExecutor g_scheduler = null;
+
+	/** All quarantined batches that have not been released yet, oldest first. */
+	private static final Deque<QuarantinedBatch> g_queuePendingBatches = new ConcurrentLinkedDeque<>();
+
+	/** Number of objects in quarantine, which have not been released yet. */
+	private static final AtomicLong g_lPendingObjects = new AtomicLong();
+
+	/** Number of objects, which have been released from quarantine. */
+	private static final AtomicLong g_lReleasedObjects = new AtomicLong();
+
+	/** Number of objects, which have been released from quarantine earlier because of the high-water mark. */
+	private static final AtomicLong g_lEarlyReleasedObjects = new AtomicLong();
+
+	/** Highest number of objects, which were in quarantine at the same time. */
+	private static final AtomicLong g_lPeakPendingObjects = new AtomicLong();
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * This constructor serves only the purpose to avoid instantiation of this class.
+	 */
+	private RDKitObjectQuarantine() {
+		// To avoid instantiation of this class.
+	}
+
+	//
+	// Public Static Methods
+	//
+
+	/**
+	 * Returns the number of objects in quarantine, which are waiting for cleanup.
+	 *
+	 * @return Number of pending quarantined objects.
+	 */
+	public static long getPendingObjectCount() {
+		return g_lPendingObjects.get();
+	}
+
+	/**
+	 * Returns the number of quarantined batches (one per node execution), which are waiting for cleanup.
+	 *
+	 * @return Number of pending quarantined batches.
+	 */
+	public static int getPendingBatchCount() {
+		return g_queuePendingBatches.size();
+	}
+
+	/**
+	 * Returns the number of objects, which have been released from quarantine so far.
+	 *
+	 * @return Number of released objects.
+	 */
+	public static long getReleasedObjectCount() {
+		return g_lReleasedObjects.get();
+	}
+
+	/**
+	 * Returns the number of objects, which have been released from quarantine so far
+	 * before the delay was over, because the high-water mark was exceeded.
+	 *
+	 * @return Number of objects released earlier.
+	 */
+	public static long getEarlyReleasedObjectCount() {
+		return g_lEarlyReleasedObjects.get();
+	}
+
+	/**
+	 * Returns the highest number of objects, which were in quarantine at the same time so far.
+	 *
+	 * @return Peak number of pending quarantined objects.
+	 */
+	public static long getPeakPendingObjectCount() {
+		return g_lPeakPendingObjects.get();
+	}
+
+	/**
+	 * Returns a summary of the current quarantine counters of the plugin, 
+	 * which is meant for logging and the node internals.
+	 *
+	 * @return Summary. Never null.
+	 */
+	public static String getSummary() {
+		return new StringBuilder("RDKit object quarantine: ")
+				.append(getPendingObjectCount()).append(" objects pending in ")
+				.append(getPendingBatchCount()).append(" batches (peak ")
+				.append(getPeakPendingObjectCount()).append(", high-water mark ")
+				.append(getHighWaterMark()).append("), ")
+				.append(getReleasedObjectCount()).append(" released (")
+				.append(getEarlyReleasedObjectCount()).append(" of them early), cleanup delay ")
+				.append(getCleanupDelay()).append(" ms").toString();
+	}
+
+	/**
+	 * Returns the delay to be used before quarantined objects get cleaned up, 
+	 * which gets retrieved from the preferences. If not found it will return a default value.
+	 *
+	 * @return Delay in milliseconds.
+	 */
+	public static long getCleanupDelay() {
+		long lDelay = AbstractRDKitGenericNodeModel.RDKIT_OBJECT_CLEANUP_DELAY_FOR_QUARANTINE;
+
+		try {
+			lDelay = RDKitNodePlugin.getDefault().getPreferenceStore().getInt(
+					RDKitNodesPreferencePage.PREF_KEY_QUARANTINE_CLEANUP_DELAY) * 1000l;
+		}
+		catch (final Exception exc) {
+			LOGGER.debug("Unable to retrieve preference for quarantine cleanup delay. Using default.", exc);
+		}
+
+		return lDelay;
+	}
+
+	/**
+	 * Returns the maximum number of objects that may be kept in quarantine, 
+	 * which gets retrieved from the preferences. If not found it will return a default value.
+	 *
+	 * @return High-water mark. 0 or less, if there is no limit.
+	 */
+	public static int getHighWaterMark() {
+		int iHighWaterMark = RDKitNodesPreferencePage.DEFAULT_QUARANTINE_HIGH_WATER_MARK;
+
+		try {
+			iHighWaterMark = RDKitNodePlugin.getDefault().getPreferenceStore().getInt(
+					RDKitNodesPreferencePage.PREF_KEY_QUARANTINE_HIGH_WATER_MARK);
+		}
+		catch (final Exception exc) {
+			LOGGER.debug("Unable to retrieve preference for quarantine high-water mark. Using default.", exc);
+		}
+
+		return iHighWaterMark;
+	}
+
+	/**
+	 * Stops the scheduler. Objects in quarantine, which have not been released yet,
+	 * will not be released anymore. This should only be called when the plugin is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (g_scheduler != null) {
+			g_scheduler.shutdownNow();
+			g_scheduler = null;
+		}
+	}
+
+	//
+	// Package Static Methods
+	//
+
+	/**
+	 * Takes over all objects of the passed in tracker into quarantine and schedules
+	 * their cleanup.
+	 *
+	 * @param tracker Tracker with all objects to be quarantined. Must not be null. It must 
+	 * 		not be used by the caller anymore afterwards.
+	 * @param workersStopped Tells, if all workers, which may still use quarantined objects
+	 * 		of waves that were not created by a worker computation, have stopped. Such objects 
+	 * 		are not released before, neither after the delay nor because of the high-water mark.
+	 * 		Must not be null.
+	 */
+	static void quarantine(final RDKitCleanupTracker tracker, final BooleanSupplier workersStopped) {
+		final QuarantinedBatch batch = new QuarantinedBatch(tracker, workersStopped);
+		final long lObjectCount = tracker.getObjectCount();
+		g_queuePendingBatches.add(batch);
+		g_lPeakPendingObjects.accumulateAndGet(g_lPendingObjects.addAndGet(lObjectCount), Math::max);
+		batch.schedule(getCleanupDelay());
+
+		LOGGER.debug("Quarantined " + lObjectCount + " RDKit objects for later cleanup. " +
+				"Pending quarantined objects: " + g_lPendingObjects.get());
+
+		// Release the oldest objects, if we keep too many in quarantine - but only those,
+		// whose workers have stopped already
+		final int iHighWaterMark = getHighWaterMark();
+		if (iHighWaterMark > 0) {
+			for (final QuarantinedBatch batchOldest : g_queuePendingBatches) {
+				if (g_lPendingObjects.get() <= iHighWaterMark) {
+					break;
+				}
+				g_lEarlyReleasedObjects.addAndGet(batchOldest.releaseFinishedWaves());
+			}
+		}
+	}
+
+	//
+	// Private Static Methods
+	//
+
+	/**
+	 * Returns the shared scheduler, which gets created if necessary.
+	 *
+	 * @return Scheduler. Never null.
+	 */
+	private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+		if (g_scheduler == null) {
+			g_scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+				final Thread thread = new Thread(runnable, "Quarantine RDKit Object Cleanup");
+				thread.setDaemon(true);
+				return thread;
+			});
+			g_scheduler.setRemoveOnCancelPolicy(true);
+		}
+
+		return g_scheduler;
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * Objects, which have been put into quarantine together at the end of a node execution.
+	 * The objects of a wave are released as soon as the workers, which may still use them,
+	 * have finished.
+	 */
+	private static class QuarantinedBatch {
+
+		/** The tracker with all quarantined objects, which have not been released yet. */
+		private final RDKitCleanupTracker m_tracker;
+
+		/** 
+		 * Tells, if all workers, which may still use quarantined objects of waves that
+		 * were not created by a worker computation, have stopped. 
+		 */
+		private final BooleanSupplier m_workersStopped;
+
+		/**
+		 * Creates a new batch of quarantined objects.
+		 *
+		 * @param tracker Tracker with all quarantined objects. Must not be null.
+		 * @param workersStopped Tells, if all workers, which may still use quarantined objects 
+		 * 		of waves that were not created by a worker computation, have stopped. Must not be null.
+		 */
+		private QuarantinedBatch(final RDKitCleanupTracker tracker, final BooleanSupplier workersStopped) {
+			m_tracker = tracker;
+			m_workersStopped = workersStopped;
+		}
+
+		/**
+		 * Schedules the release of this batch.
+		 *
+		 * @param lDelay Delay in milliseconds.
+		 */
+		private void schedule(final long lDelay) {
+			getScheduler().schedule(this::releaseWhenWorkersStopped, lDelay, TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * Determines, if the objects of a wave can be released, because the workers
+		 * that may still use them have stopped.
+		 *
+		 * @param wave The wave of interest.
+		 *
+		 * @return True, if the wave can be released.
+		 */
+		private boolean isReleasable(final long wave) {
+			try {
+				return m_tracker.isWaveReleasable(wave, m_workersStopped);
+			}
+			catch (final Exception exc) {
+				LOGGER.debug("Unable to determine, if workers have stopped. Keeping objects in quarantine.", exc);
+				return false;
+			}
+		}
+
+		/**
+		 * Cleans up the objects of all waves, whose workers have stopped. The release of 
+		 * the remaining waves gets rescheduled.
+		 */
+		private void releaseWhenWorkersStopped() {
+			releaseFinishedWaves();
+
+			if (!m_tracker.isEmpty()) {
+				LOGGER.debug("Workers are still running. Delaying the cleanup of " + m_tracker.getObjectCount() + 
+						" quarantined RDKit objects.");
+				schedule(WORKER_STOP_CHECK_INTERVAL);
+			}
+		}
+
+		/**
+		 * Cleans up the objects of all waves of this batch, whose workers have stopped. 
+		 * Every wave gets cleaned up only once, also if this method is called concurrently.
+		 *
+		 * @return Number of objects, which were cleaned up.
+		 */
+		private long releaseFinishedWaves() {
+			long lReleased = 0;
+
+			for (final Long wave : m_tracker.keySet()) {
+				if (isReleasable(wave)) {
+					try {
+						lReleased += m_tracker.cleanupMarkedObjects(wave);
+					}
+					catch (final Exception exc) {
+						LOGGER.warn("Cleanup of quarantined RDKit objects failed. " + exc.getMessage());
+						LOGGER.debug("Cleanup up failure stacktrace", exc);
+					}
+				}
+			}
+
+			if (lReleased > 0) {
+				g_lPendingObjects.addAndGet(-lReleased);
+				g_lReleasedObjects.addAndGet(lReleased);
+			}
+
+			if (m_tracker.isEmpty()) {
+				g_queuePendingBatches.remove(this);
+			}
+
+			return lReleased;
+		}
+	}
+}
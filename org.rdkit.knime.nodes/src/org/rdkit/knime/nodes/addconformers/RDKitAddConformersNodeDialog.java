@@ -64,6 +64,7 @@ import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
 import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
 
@@ -212,6 +213,10 @@ public class RDKitAddConformersNodeDialog extends DefaultNodeSettingsPane {
 				createBoxSizeMultiplierModel(), "Multiplier for the size of the box for random coordinates: ", 10));
 		super.addDialogComponent(new DialogComponentBoolean(
 				createCleanupWithUffOptionModel(), "Perform a cleanup using UFF (Universal force field) after calculation"));
+
+		createNewGroup("Parallel Processing");
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
 	}
 
 	//
@@ -83,8 +83,8 @@ import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
 import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
-import org.knime.core.util.MultiThreadWorker;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitAdapterCell;
 import org.rdkit.knime.types.RDKitMolCellFactory;
 import org.rdkit.knime.types.RDKitMolValue;
@@ -208,6 +208,7 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
     */
    RDKitAddConformersNodeModel() {
       super(1, 1);
+      registerMaxParallelWorkersSettings();
    }
 
    //
@@ -450,12 +451,12 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
       
       if (lTotalRowCount > 0) {
          // Get settings and define data specific behavior
-         final int iMaxParallelWorkers = (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
-         final int iQueueSize = 10 * iMaxParallelWorkers;
+         final int iMaxParallelWorkers = getMaxParallelWorkers();
+         final int iQueueSize = AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
          final AtomicLong rowOutputIndex = new AtomicLong(0);
          
          // Calculate conformers
-         new MultiThreadWorker<DataRow, DataRow[]>(iQueueSize, iMaxParallelWorkers) {
+         new ParallelWorker<DataRow, DataRow[]>(this, iQueueSize, iMaxParallelWorkers, exec) {
 
             /**
              * Computes the conformers.
@@ -468,7 +469,7 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
              *       we have a valid conformer to be added to the result table.
              */
             @Override
-            protected DataRow[] compute(final DataRow row, final long index) throws Exception {
+            protected DataRow[] calculate(final DataRow row, final long index) throws Exception {
                List<DataRow> listNewRows = null;
 
                // Get a unique wave id to mark RDKit Objects for cleanup
@@ -510,7 +511,7 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
                               molCell = RDKitMolCellFactory.createRDKitAdapterCell(output);
                               final DataRow rowNew = new DefaultRow(RowKey.createRowKey((long)indexTarget),
                                     new DataCell[] { molCell, refCell });
-                              
+                           
                               if (listNewRows == null) {
                                  listNewRows = new ArrayList<>(5);
                               }
@@ -541,7 +542,7 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
              * @param task Processing result for a row.
              */
             @Override
-            protected void processFinished(final ComputationTask task)
+            protected void processResult(final ComputationTask task)
                   throws ExecutionException, CancellationException, InterruptedException {
                // Null, if an empty input cell was encountered.
                // Empty, if we should ignore the row (e.g. if randomization is used and the conformer is not calculated).
@@ -567,11 +568,11 @@ public class RDKitAddConformersNodeModel extends AbstractRDKitNodeModel {
                            .append(getFinishedTaskCount()).append(" pending]").toString());
                   }
                   catch (final CanceledExecutionException e) {
-                     cancel(true);
+                     stopProcessing();
                   }
                }
             };
-         }.run(inData[0]);
+         }.process(inData[0]);
       }
 
       exec.checkCanceled();
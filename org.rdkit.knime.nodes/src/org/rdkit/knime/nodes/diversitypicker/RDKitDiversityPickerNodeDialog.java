@@ -59,6 +59,7 @@ import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
 import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
 
@@ -127,6 +128,8 @@ public class RDKitDiversityPickerNodeDialog extends DefaultNodeSettingsPane {
 				"Number to pick: ", 1));
 		super.addDialogComponent(new DialogComponentNumberEdit(createRandomSeedModel(),
 				"Random seed: ", 10));
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
 	}
 
 	//
@@ -76,9 +76,9 @@ import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
-import org.knime.core.util.MultiThreadWorker;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
 import org.rdkit.knime.nodes.AbstractRDKitSplitterNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.nodes.rdkfingerprint.DefaultFingerprintSettings;
 import org.rdkit.knime.nodes.rdkfingerprint.FingerprintSettings;
 import org.rdkit.knime.nodes.rdkfingerprint.FingerprintType;
@@ -170,6 +170,7 @@ public class RDKitDiversityPickerNodeModel extends AbstractRDKitSplitterNodeMode
 
 		registerInputTablesWithSizeLimits(0, 1); // As we pre-calculate fingerprints and store them in a collection we cannot support large tables
 		getWarningConsolidator().registerContext(ROW_CONTEXT_TABLE_2);
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -561,12 +562,12 @@ public class RDKitDiversityPickerNodeModel extends AbstractRDKitSplitterNodeMode
 			final WarningConsolidator warnings, final ExecutionContext subExecReadingFingerprints) throws Exception {
         
         // Get settings and define data specific behavior
-        final int iMaxParallelWorkers = (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
-        final int iQueueSize = 1000 * iMaxParallelWorkers;
+        final int iMaxParallelWorkers = getMaxParallelWorkers();
+        final int iQueueSize = AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
         final long lTotalRowCount = inData.size();
         
 		// Calculate RDKit Fingerprints from molecule, or convert them from KNIME Fingerprints
-		new MultiThreadWorker<DataRow, ExplicitBitVect>(iQueueSize, iMaxParallelWorkers) {
+		new ParallelWorker<DataRow, ExplicitBitVect>(this, iQueueSize, iMaxParallelWorkers, subExecReadingFingerprints) {
 
 			/**
 			 * Prepares a fingerprint from first table.
@@ -579,7 +580,7 @@ public class RDKitDiversityPickerNodeModel extends AbstractRDKitSplitterNodeMode
 			 *         to be used for diversity picking.
 			 */
 			@Override
-			protected ExplicitBitVect compute(final DataRow row, final long index) throws Exception {
+			protected ExplicitBitVect calculate(final DataRow row, final long index) throws Exception {
 				ExplicitBitVect expBitVector = null;
 
 				if (bNeedsCalculation) {
@@ -620,7 +621,7 @@ public class RDKitDiversityPickerNodeModel extends AbstractRDKitSplitterNodeMode
 			 * @param task Processing result for a row.
 			 */
 			@Override
-			protected void processFinished(final ComputationTask task)
+			protected void processResult(final ComputationTask task)
 					throws ExecutionException, CancellationException, InterruptedException {
 				final ExplicitBitVect expBitVector = task.get();
 				final long lRowIndex = task.getIndex();
@@ -649,11 +650,11 @@ public class RDKitDiversityPickerNodeModel extends AbstractRDKitSplitterNodeMode
 						AbstractRDKitNodeModel.reportProgress(subExecReadingFingerprints, lRowIndex, lTotalRowCount, null, 
 								" - " + (bNeedsCalculation ? "Calculating" : "Reading") + " fingerprints");
 					} catch (final CanceledExecutionException e) {
-						cancel(true);
+						stopProcessing();
 					}
 				}
 			};
-		}.run(inData);		
+		}.process(inData);		
 	}
 
 	/**
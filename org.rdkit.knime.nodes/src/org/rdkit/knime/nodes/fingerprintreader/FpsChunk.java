@@ -0,0 +1,458 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.fingerprintreader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.vector.bitvector.DenseBitVector;
+
+/**
+ * A chunk of complete lines of an FPS file
+ * (see <a href="http://code.google.com/p/chem-fingerprints/wiki/FPS">FPS.wiki</a>).
+ * Parsing a chunk does not depend on any other chunk, so that chunks can be parsed in parallel.
+ * The interpretation of header lines and the check of fingerprint sizes is left to the
+ * caller, which has to process the lines of all chunks in order. Hex fingerprints are decoded
+ * with a lookup table directly into the 64 bit words of a {@link DenseBitVector}.
+ */
+public class FpsChunk {
+
+	//
+	// Constants
+	//
+
+	/**
+	 * Lookup table for hex characters. It contains for each character the bit-reversed
+	 * value of the hex digit or -1, if it is not a hex digit. Bit-reversed values are
+	 * used, because the first bit of an FPS fingerprint becomes the last bit of the bit vector.
+	 */
+	private static final byte[] REVERSED_HEX_DIGITS = new byte[256];
+
+	static {
+		final String strHexDigits = "0123456789ABCDEF";
+		for (int i = 0; i < REVERSED_HEX_DIGITS.length; i++) {
+			REVERSED_HEX_DIGITS[i] = -1;
+		}
+		for (int i = 0; i < strHexDigits.length(); i++) {
+			final byte byReversed = (byte)(Integer.reverse(i) >>> 28);
+			REVERSED_HEX_DIGITS[strHexDigits.charAt(i)] = byReversed;
+			REVERSED_HEX_DIGITS[Character.toLowerCase(strHexDigits.charAt(i))] = byReversed;
+		}
+	}
+
+	//
+	// Members
+	//
+
+	/** The raw lines of the chunk. Null after parsing. */
+	private ByteBuffer m_buffer;
+
+	/** The position in the file (for progress reporting) at the end of this chunk. */
+	private final long m_lEndPosition;
+
+	/** The number of lines in this chunk including empty lines. */
+	private int m_iLineCount = 0;
+
+	/** The non-empty lines of the chunk. Null before parsing. */
+	private List<Line> m_listLines = null;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new chunk.
+	 * 
+	 * @param buffer Complete lines of an FPS file from the position to the limit of the buffer.
+	 * 		Must not be null.
+	 * @param lEndPosition The position in the file at the end of the chunk.
+	 */
+	public FpsChunk(final ByteBuffer buffer, final long lEndPosition) {
+		m_buffer = buffer;
+		m_lEndPosition = lEndPosition;
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Parses all lines of the chunk. Afterwards the raw lines are released.
+	 * This method does nothing, if the chunk was parsed already.
+	 */
+	public synchronized void parse() {
+		if (m_listLines != null) {
+			return;
+		}
+
+		final ByteBuffer buffer = m_buffer;
+		final List<Line> listLines = new ArrayList<>();
+		final int iLimit = buffer.limit();
+		int iLineStart = buffer.position();
+
+		while (iLineStart < iLimit) {
+			int iLineEnd = iLineStart;
+			while (iLineEnd < iLimit && buffer.get(iLineEnd) != '\n') {
+				iLineEnd++;
+			}
+
+			final Line line = parseLine(buffer, iLineStart, iLineEnd, m_iLineCount);
+			if (line != null) {
+				listLines.add(line);
+			}
+
+			m_iLineCount++;
+			iLineStart = iLineEnd + 1;
+		}
+
+		m_listLines = listLines;
+		m_buffer = null;
+	}
+
+	/**
+	 * Returns the position in the file at the end of the chunk.
+	 * 
+	 * @return File position.
+	 */
+	public long getEndPosition() {
+		return m_lEndPosition;
+	}
+
+	/**
+	 * Returns the number of lines in this chunk including empty lines.
+	 * 
+	 * @return Number of lines. 0 before parsing.
+	 */
+	public int getLineCount() {
+		return m_iLineCount;
+	}
+
+	/**
+	 * Returns the non-empty lines of this chunk.
+	 * 
+	 * @return Parsed lines in file order. Null before parsing.
+	 */
+	public List<Line> getLines() {
+		return m_listLines;
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Decodes an FPS hex fingerprint into the words of a bit vector. The first bit of the
+	 * FPS fingerprint becomes the last bit of the bit vector.
+	 * 
+	 * @param buffer Buffer with the hex characters. Must not be null.
+	 * @param iStart Start index of the fingerprint (inclusive).
+	 * @param iEnd End index of the fingerprint (exclusive).
+	 * 
+	 * @return Words of the bit vector, which has 4 bits per hex character.
+	 * 
+	 * @throws IllegalArgumentException Thrown, if the number of characters is odd
+	 * 		or if a character is not a hex digit.
+	 * 
+	 * @see DenseBitVector#DenseBitVector(long[], long)
+	 */
+	public static long[] decodeHex(final ByteBuffer buffer, final int iStart, final int iEnd)
+			throws IllegalArgumentException {
+		final int iLength = iEnd - iStart;
+		if ((iLength & 1) != 0) {
+			throw new IllegalArgumentException("Invalid fingerprint with odd number of hex characters encountered and ignored.");
+		}
+
+		final int iBytes = iLength >>> 1;
+		final long[] arrWords = new long[(iBytes + 7) >>> 3];
+
+		// Byte m of the bit vector is the bit-reversed byte (iBytes - 1 - m) of the hex string
+		for (int m = 0, iPos = iEnd - 2; m < iBytes; m++, iPos -= 2) {
+			final int iHigh = REVERSED_HEX_DIGITS[buffer.get(iPos) & 0xFF];
+			final int iLow = REVERSED_HEX_DIGITS[buffer.get(iPos + 1) & 0xFF];
+			if ((iHigh | iLow) < 0) {
+				final char ch = (char)(buffer.get(iHigh < 0 ? iPos : iPos + 1) & 0xFF);
+				throw new IllegalArgumentException("Invalid fingerprint character encountered and ignored: '" +
+						ch + "' instead of 0..F.");
+			}
+			arrWords[m >>> 3] |= (long)((iLow << 4) | iHigh) << ((m & 7) << 3);
+		}
+
+		return arrWords;
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Parses a single line.
+	 * 
+	 * @param buffer Buffer with the line. Must not be null.
+	 * @param iStart Start index of the line (inclusive).
+	 * @param iEnd End index of the line (exclusive, without line feed).
+	 * @param iLineIndex Index of the line in the chunk.
+	 * 
+	 * @return Parsed line or null, if the line is empty.
+	 */
+	private static Line parseLine(final ByteBuffer buffer, final int iStart, final int iEnd, final int iLineIndex) {
+		final int iLineStart = skipWhitespaces(buffer, iStart, iEnd);
+		final int iLineEnd = trimWhitespaces(buffer, iLineStart, iEnd);
+
+		// Skip empty lines
+		if (iLineStart == iLineEnd) {
+			return null;
+		}
+
+		// Header line
+		if (buffer.get(iLineStart) == '#') {
+			return new Line(iLineIndex, toString(buffer, iLineStart + 1, iLineEnd));
+		}
+
+		// Fingerprint line: The fingerprint and the identifier are the first two tab separated tokens
+		final int iFpEnd = indexOf(buffer, '\t', iLineStart, iLineEnd);
+		int iIdStart = iFpEnd;
+		while (iIdStart < iLineEnd && buffer.get(iIdStart) == '\t') {
+			iIdStart++;
+		}
+		if (iIdStart == iLineEnd) {
+			return new Line(iLineIndex, null, 0, null, null);
+		}
+		final int iIdEnd = indexOf(buffer, '\t', iIdStart, iLineEnd);
+		final int iIdTrimmedStart = skipWhitespaces(buffer, iIdStart, iIdEnd);
+		final String strId = toString(buffer, iIdTrimmedStart, trimWhitespaces(buffer, iIdTrimmedStart, iIdEnd));
+
+		final int iFpStart = iLineStart;
+		final int iFpTrimmedEnd = trimWhitespaces(buffer, iFpStart, iFpEnd);
+		try {
+			final long[] arrWords = decodeHex(buffer, iFpStart, iFpTrimmedEnd);
+			return new Line(iLineIndex, arrWords, (iFpTrimmedEnd - iFpStart) * 4, strId, null);
+		}
+		catch (final IllegalArgumentException exc) {
+			return new Line(iLineIndex, null, 0, strId, exc.getMessage());
+		}
+	}
+
+	/**
+	 * Skips leading whitespaces (all characters up to the space character).
+	 * 
+	 * @return Index of the first non-whitespace character or iEnd.
+	 */
+	private static int skipWhitespaces(final ByteBuffer buffer, final int iStart, final int iEnd) {
+		int i = iStart;
+		while (i < iEnd && (buffer.get(i) & 0xFF) <= ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Trims trailing whitespaces (all characters up to the space character).
+	 * 
+	 * @return Index after the last non-whitespace character or iStart.
+	 */
+	private static int trimWhitespaces(final ByteBuffer buffer, final int iStart, final int iEnd) {
+		int i = iEnd;
+		while (i > iStart && (buffer.get(i - 1) & 0xFF) <= ' ') {
+			i--;
+		}
+		return i;
+	}
+
+	/**
+	 * Finds a character.
+	 * 
+	 * @return Index of the character or iEnd, if not found.
+	 */
+	private static int indexOf(final ByteBuffer buffer, final char ch, final int iStart, final int iEnd) {
+		int i = iStart;
+		while (i < iEnd && buffer.get(i) != ch) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Decodes UTF-8 characters of the buffer.
+	 * 
+	 * @return String.
+	 */
+	private static String toString(final ByteBuffer buffer, final int iStart, final int iEnd) {
+		final byte[] arrBytes = new byte[iEnd - iStart];
+		buffer.get(iStart, arrBytes);
+		return new String(arrBytes, StandardCharsets.UTF_8);
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * A non-empty line of an FPS file, which is either a header line or a fingerprint line.
+	 */
+	public static class Line {
+
+		/** Index of the line in the chunk. */
+		private final int m_iLineIndex;
+
+		/** Header without leading #. Null, if it is a fingerprint line. */
+		private final String m_strHeader;
+
+		/** Fingerprint words. Null, if invalid or a header line. */
+		private final long[] m_arrWords;
+
+		/** Number of fingerprint bits. */
+		private final int m_iNumBits;
+
+		/** Identifier of the fingerprint. Null, if missing or a header line. */
+		private final String m_strId;
+
+		/** Message, why the fingerprint is invalid. Null, if valid. */
+		private final String m_strError;
+
+		/**
+		 * Creates a header line.
+		 */
+		private Line(final int iLineIndex, final String strHeader) {
+			this(iLineIndex, strHeader, null, 0, null, null);
+		}
+
+		/**
+		 * Creates a fingerprint line.
+		 */
+		private Line(final int iLineIndex, final long[] arrWords, final int iNumBits,
+				final String strId, final String strError) {
+			this(iLineIndex, null, arrWords, iNumBits, strId, strError);
+		}
+
+		private Line(final int iLineIndex, final String strHeader, final long[] arrWords, final int iNumBits,
+				final String strId, final String strError) {
+			m_iLineIndex = iLineIndex;
+			m_strHeader = strHeader;
+			m_arrWords = arrWords;
+			m_iNumBits = iNumBits;
+			m_strId = strId;
+			m_strError = strError;
+		}
+
+		/**
+		 * Returns the index of the line in the chunk (counting empty lines).
+		 * 
+		 * @return Zero-based line index.
+		 */
+		public int getLineIndex() {
+			return m_iLineIndex;
+		}
+
+		/**
+		 * Determines, if this is a header line.
+		 * 
+		 * @return True, if header line. False, if fingerprint line.
+		 */
+		public boolean isHeader() {
+			return m_strHeader != null;
+		}
+
+		/**
+		 * Returns the header.
+		 * 
+		 * @return Header without leading #. Null, if it is a fingerprint line.
+		 */
+		public String getHeader() {
+			return m_strHeader;
+		}
+
+		/**
+		 * Returns the identifier of the fingerprint.
+		 * 
+		 * @return Identifier. Null, if missing.
+		 */
+		public String getId() {
+			return m_strId;
+		}
+
+		/**
+		 * Returns the message, why the fingerprint could not be decoded.
+		 * 
+		 * @return Error message. Null, if the fingerprint is valid.
+		 */
+		public String getError() {
+			return m_strError;
+		}
+
+		/**
+		 * Returns the number of fingerprint bits.
+		 * 
+		 * @return Number of bits, which is 4 times the number of hex characters.
+		 */
+		public int getNumBits() {
+			return m_iNumBits;
+		}
+
+		/**
+		 * Returns the words of the fingerprint.
+		 * 
+		 * @return Words, which can be passed to {@link DenseBitVector#DenseBitVector(long[], long)}.
+		 * 		Null, if invalid.
+		 */
+		public long[] getWords() {
+			return m_arrWords;
+		}
+
+		/**
+		 * Creates a bit vector of the fingerprint.
+		 * 
+		 * @return Bit vector. Null, if invalid.
+		 */
+		public DenseBitVector createBitVector() {
+			return (m_arrWords == null ? null : new DenseBitVector(m_arrWords, m_iNumBits));
+		}
+	}
+}
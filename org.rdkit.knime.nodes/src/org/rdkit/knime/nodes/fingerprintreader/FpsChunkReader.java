@@ -0,0 +1,389 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.fingerprintreader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Splits an FPS file into chunks of complete lines, which can be parsed independently
+ * and in parallel (see {@link FpsChunk#parse()}). Uncompressed files are memory-mapped
+ * chunk by chunk, if the file system supports it. Gzipped files and files, which
+ * cannot be mapped, are read as stream. A gzip stream cannot be split without
+ * inflating it, hence inflating happens in the thread, which iterates over the chunks.
+ * The iterator throws an {@link UncheckedIOException}, if reading fails.
+ */
+public class FpsChunkReader implements Iterator<FpsChunk>, Closeable {
+
+	//
+	// Constants
+	//
+
+	/** The default size of a chunk in bytes. */
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/** The maximal size of a chunk in bytes, which limits also the length of a single line. */
+	private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 16;
+
+	//
+	// Members
+	//
+
+	/** The requested size of a chunk in bytes. */
+	private final int m_iChunkSize;
+
+	/** Channel of a memory-mapped file. Null, if reading a stream. */
+	private final FileChannel m_channel;
+
+	/** Stream to read from. Null, if reading a memory-mapped file. */
+	private final InputStream m_in;
+
+	/** Size of the file in bytes. For gzipped files the compressed size. */
+	private final long m_lFileSize;
+
+	/** The position in the file, which has been read up to. For gzipped files the compressed position. */
+	private volatile long m_lPosition;
+
+	/** Bytes read from the stream, which belong to the next chunk. */
+	private byte[] m_arrCarryOver = new byte[0];
+
+	/** The next chunk to be delivered. Null, if not read yet. */
+	private FpsChunk m_nextChunk = null;
+
+	/** Flag to tell that the end of the file was reached. */
+	private boolean m_bEndOfFile = false;
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * Creates a new chunk reader for the specified FPS file.
+	 * 
+	 * @param pathFps Path of an FPS file. Must not be null. If the file name ends with .gz,
+	 * 		it is read as gzipped file.
+	 * @param iChunkSize The size of chunks in bytes. Chunks are extended to the end of the
+	 * 		last line, if necessary.
+	 * 
+	 * @throws IOException Thrown, if the file could not be opened.
+	 */
+	public FpsChunkReader(final Path pathFps, final int iChunkSize) throws IOException {
+		m_iChunkSize = Math.max(1024, Math.min(iChunkSize, MAX_CHUNK_SIZE));
+		m_lFileSize = Files.size(pathFps);
+		m_lPosition = 0;
+
+		final Path pathFileName = pathFps.getFileName();
+		final boolean bGzipped = (pathFileName != null &&
+				pathFileName.toString().toLowerCase().endsWith(".gz"));
+
+		if (bGzipped) {
+			m_channel = null;
+			m_in = new GZIPInputStream(new CountingInputStream(Files.newInputStream(pathFps)), 64 * 1024);
+		}
+		else {
+			m_channel = openMappableChannel(pathFps);
+			m_in = (m_channel == null ? new CountingInputStream(Files.newInputStream(pathFps)) : null);
+		}
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Returns the size of the file.
+	 * 
+	 * @return Size in bytes. For gzipped files the compressed size.
+	 */
+	public long getFileSize() {
+		return m_lFileSize;
+	}
+
+	/**
+	 * Determines, if the file gets memory-mapped.
+	 * 
+	 * @return True, if memory-mapped. False, if read as stream.
+	 */
+	public boolean isMemoryMapped() {
+		return m_channel != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws UncheckedIOException Thrown, if reading failed.
+	 */
+	@Override
+	public boolean hasNext() {
+		if (m_nextChunk == null && !m_bEndOfFile) {
+			try {
+				m_nextChunk = (m_channel != null ? readMappedChunk() : readStreamChunk());
+			}
+			catch (final IOException exc) {
+				throw new UncheckedIOException(exc);
+			}
+		}
+
+		return m_nextChunk != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws UncheckedIOException Thrown, if reading failed.
+	 */
+	@Override
+	public FpsChunk next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		final FpsChunk chunk = m_nextChunk;
+		m_nextChunk = null;
+
+		return chunk;
+	}
+
+	/**
+	 * Closes the underlying file. Chunks, which were delivered already, remain valid.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (m_channel != null) {
+			m_channel.close();
+		}
+		if (m_in != null) {
+			m_in.close();
+		}
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Maps the next chunk of the file into memory.
+	 * 
+	 * @return The next chunk or null, if the end of the file was reached.
+	 * 
+	 * @throws IOException Thrown, if mapping failed.
+	 */
+	private FpsChunk readMappedChunk() throws IOException {
+		final long lRemaining = m_lFileSize - m_lPosition;
+		if (lRemaining <= 0) {
+			m_bEndOfFile = true;
+			return null;
+		}
+
+		// Extend the chunk until it ends with a complete line
+		long lSize = Math.min(m_iChunkSize, lRemaining);
+		ByteBuffer buffer = m_channel.map(FileChannel.MapMode.READ_ONLY, m_lPosition, lSize);
+		int iEnd = (lSize == lRemaining ? (int)lSize : lastIndexOfLineEnd(buffer, (int)lSize) + 1);
+		while (iEnd == 0) {
+			if (lSize >= MAX_CHUNK_SIZE) {
+				throw new IOException("The fingerprint file contains a line with more than " + MAX_CHUNK_SIZE + " characters.");
+			}
+			lSize = Math.min(Math.min(2 * lSize, MAX_CHUNK_SIZE), lRemaining);
+			buffer = m_channel.map(FileChannel.MapMode.READ_ONLY, m_lPosition, lSize);
+			iEnd = (lSize == lRemaining ? (int)lSize : lastIndexOfLineEnd(buffer, (int)lSize) + 1);
+		}
+
+		m_lPosition += iEnd;
+		return new FpsChunk(buffer.limit(iEnd), m_lPosition);
+	}
+
+	/**
+	 * Reads the next chunk from the stream.
+	 * 
+	 * @return The next chunk or null, if the end of the file was reached.
+	 * 
+	 * @throws IOException Thrown, if reading failed.
+	 */
+	private FpsChunk readStreamChunk() throws IOException {
+		byte[] arrChunk = new byte[Math.max(m_iChunkSize, m_arrCarryOver.length + 1024)];
+		System.arraycopy(m_arrCarryOver, 0, arrChunk, 0, m_arrCarryOver.length);
+		int iLength = m_arrCarryOver.length;
+		int iEnd = 0;
+		boolean bEndOfStream = false;
+
+		// Fill the chunk until it contains at least one complete line
+		while (iEnd == 0 && !bEndOfStream) {
+			if (iLength == arrChunk.length) {
+				if (arrChunk.length >= MAX_CHUNK_SIZE) {
+					throw new IOException("The fingerprint file contains a line with more than " + MAX_CHUNK_SIZE + " characters.");
+				}
+				final byte[] arrLarger = new byte[(int)Math.min(2L * arrChunk.length, MAX_CHUNK_SIZE)];
+				System.arraycopy(arrChunk, 0, arrLarger, 0, iLength);
+				arrChunk = arrLarger;
+			}
+			final int iRead = m_in.readNBytes(arrChunk, iLength, arrChunk.length - iLength);
+			bEndOfStream = (iLength + iRead < arrChunk.length);
+			iLength += iRead;
+			iEnd = (bEndOfStream ? iLength : lastIndexOfLineEnd(ByteBuffer.wrap(arrChunk), iLength) + 1);
+		}
+
+		if (iEnd == 0) {
+			m_bEndOfFile = true;
+			return null;
+		}
+
+		m_arrCarryOver = new byte[iLength - iEnd];
+		System.arraycopy(arrChunk, iEnd, m_arrCarryOver, 0, m_arrCarryOver.length);
+		m_bEndOfFile = bEndOfStream && m_arrCarryOver.length == 0;
+
+		return new FpsChunk(ByteBuffer.wrap(arrChunk, 0, iEnd), m_lPosition);
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Opens a file channel, which can be memory-mapped.
+	 * 
+	 * @param pathFps Path of the file. Must not be null.
+	 * 
+	 * @return File channel or null, if the file system of the path does not support mapping.
+	 */
+	private static FileChannel openMappableChannel(final Path pathFps) {
+		FileChannel channel = null;
+
+		try {
+			channel = FileChannel.open(pathFps, StandardOpenOption.READ);
+			channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(1, channel.size()));
+		}
+		catch (final IOException | UnsupportedOperationException exc) {
+			// Fall back to reading a stream
+			if (channel != null) {
+				try {
+					channel.close();
+				}
+				catch (final IOException excClose) {
+					// Ignored
+				}
+			}
+			channel = null;
+		}
+
+		return channel;
+	}
+
+	/**
+	 * Determines the last line feed in the passed in buffer.
+	 * 
+	 * @param buffer Buffer to search. Must not be null.
+	 * @param iLength Number of bytes to search from the start of the buffer.
+	 * 
+	 * @return Index of the last line feed or -1, if not found.
+	 */
+	private static int lastIndexOfLineEnd(final ByteBuffer buffer, final int iLength) {
+		for (int i = iLength - 1; i >= 0; i--) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * Input stream, which keeps track of the read position of the file for progress reporting.
+	 */
+	private class CountingInputStream extends InputStream {
+
+		/** The underlying stream. */
+		private final InputStream m_inner;
+
+		/**
+		 * Creates a new counting stream.
+		 * 
+		 * @param in The underlying stream. Must not be null.
+		 */
+		private CountingInputStream(final InputStream in) {
+			m_inner = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int iByte = m_inner.read();
+			if (iByte >= 0) {
+				m_lPosition++;
+			}
+			return iByte;
+		}
+
+		@Override
+		public int read(final byte[] arrBuffer, final int iOffset, final int iLength) throws IOException {
+			final int iRead = m_inner.read(arrBuffer, iOffset, iLength);
+			if (iRead > 0) {
+				m_lPosition += iRead;
+			}
+			return iRead;
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_inner.close();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.fingerprintreader;
+
+import org.knime.core.node.NodeLogger;
+import org.rdkit.knime.util.WarningConsolidator;
+
+/**
+ * Interprets the parsed lines of an FPS file, which are passed in chunk by chunk in file order.
+ * Header lines define the number of fingerprint bits (num_bits), all other header information
+ * is skipped. Fingerprints without identifier, invalid fingerprints and fingerprints of a
+ * different size are skipped with a warning. If there is no num_bits header, the first valid
+ * fingerprint determines the number of bits. All other fingerprints are passed on to
+ * {@link #addFingerprint(FpsChunk.Line, long)}. Objects of this class are not thread-safe.
+ */
+public abstract class FpsLineProcessor {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(FpsLineProcessor.class);
+
+	//
+	// Members
+	//
+
+	/** Description of the file used in error messages, e.g. "fingerprint file". */
+	private final String m_strFileDescription;
+
+	/** Warning consolidator to save warnings about skipped fingerprints. */
+	private final WarningConsolidator m_warnings;
+
+	/** Id of the warning context for fingerprints. */
+	private final String m_strContextId;
+
+	/** Number of fingerprint bits. -1, if still undefined. */
+	private int m_iNumberOfBits = -1;
+
+	/** Number of lines of all chunks processed so far. */
+	private long m_lLineCount = 0;
+
+	/** Number of fingerprint lines processed so far. */
+	private long m_lFingerprintLineCount = 0;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new line processor.
+	 * 
+	 * @param strFileDescription Description of the file used in error messages, e.g. "fingerprint file".
+	 * 		Must not be null.
+	 * @param warnings Warning consolidator to save warnings about skipped fingerprints. Must not be null.
+	 * @param strContextId Id of the warning context for fingerprints. Must not be null.
+	 */
+	public FpsLineProcessor(final String strFileDescription, final WarningConsolidator warnings,
+			final String strContextId) {
+		m_strFileDescription = strFileDescription;
+		m_warnings = warnings;
+		m_strContextId = strContextId;
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Processes all lines of the passed in chunk. Chunks must be passed in file order.
+	 * 
+	 * @param chunk Parsed chunk. Must not be null.
+	 * 
+	 * @throws RuntimeException Thrown, if the num_bits header is invalid or exists multiple times.
+	 */
+	public void processChunk(final FpsChunk chunk) {
+		for (final FpsChunk.Line line : chunk.getLines()) {
+			processLine(line, m_lLineCount + line.getLineIndex() + 1);
+		}
+
+		m_lLineCount += chunk.getLineCount();
+	}
+
+	/**
+	 * Returns the number of fingerprint bits.
+	 * 
+	 * @return Number of bits. -1, if still undefined.
+	 */
+	public int getNumberOfBits() {
+		return m_iNumberOfBits;
+	}
+
+	/**
+	 * Returns the number of fingerprint lines processed so far, including skipped ones.
+	 * 
+	 * @return Number of fingerprint lines.
+	 */
+	public long getFingerprintLineCount() {
+		return m_lFingerprintLineCount;
+	}
+
+	//
+	// Protected Methods
+	//
+
+	/**
+	 * Called for every valid fingerprint line in file order.
+	 * 
+	 * @param line Fingerprint line with identifier and the expected number of bits.
+	 * @param lLineNumber Line number in the file.
+	 */
+	protected abstract void addFingerprint(FpsChunk.Line line, long lLineNumber);
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Interprets a header line or checks a fingerprint line and passes it on, if it is valid.
+	 * 
+	 * @param line Parsed line.
+	 * @param lLineNumber Line number in the file.
+	 */
+	private void processLine(final FpsChunk.Line line, final long lLineNumber) {
+		// Process a header line
+		if (line.isHeader()) {
+			final String[] keyValue = line.getHeader().split("=");
+
+			// Read number of fingerprint bit, skip all other information
+			if (keyValue.length == 2 && "num_bits".equals(keyValue[0])) {
+				if (m_iNumberOfBits != -1) {
+					throw new RuntimeException(
+							"The header num_bits of the " + m_strFileDescription + " exists multiple times.");
+				}
+				try {
+					m_iNumberOfBits = Integer.parseInt(keyValue[1]);
+				} catch (final NumberFormatException excParse) {
+					throw new NumberFormatException(
+							"The header num_bits of the " + m_strFileDescription + " contains " +
+							"an invalid number.");
+				}
+			}
+		}
+
+		// Read normal line and pass it on
+		else {
+			m_lFingerprintLineCount++;
+
+			if (line.getId() == null) {
+				m_warnings.saveWarning(m_strContextId,
+						"Encountered an fingerprint without identifier - skipping it.");
+			}
+			else if (line.getError() != null) {
+				LOGGER.warn(line.getError() + " (Line " + lLineNumber + ")");
+				m_warnings.saveWarning(m_strContextId,
+						"Encountered an invalid fingerprint. Skipping this fingerprint.");
+			}
+			else if (m_iNumberOfBits > 0 && line.getNumBits() != m_iNumberOfBits) {
+				LOGGER.warn("Invalid fingerprint size encountered and ignored: " +
+						line.getNumBits() + " instead of " + m_iNumberOfBits + ". (Line " + lLineNumber + ")");
+				m_warnings.saveWarning(m_strContextId,
+						"Encountered an invalid fingerprint size. Skipping this fingerprint.");
+			}
+			else {
+				// If there was no num_bits header defined, we take
+				// that information from the first fingerprint
+				if (m_iNumberOfBits == -1) {
+					m_iNumberOfBits = line.getNumBits();
+				}
+
+				addFingerprint(line, lLineNumber);
+			}
+		}
+	}
+}
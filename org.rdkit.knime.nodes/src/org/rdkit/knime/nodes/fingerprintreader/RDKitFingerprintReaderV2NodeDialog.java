@@ -57,6 +57,7 @@ import javax.swing.JPanel;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.filehandling.core.connections.FSLocationUtil;
 import org.knime.filehandling.core.data.location.variable.FSLocationVariableType;
@@ -64,6 +65,7 @@ import org.knime.filehandling.core.defaultnodesettings.EnumConfig;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.DialogComponentReaderFileChooser;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.SettingsModelReaderFileChooser;
 import org.knime.filehandling.core.defaultnodesettings.filtermode.SettingsModelFilterMode;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 
 /**
  * {@code NodeDialog} for the "RDKitFingerprintReader" Node.
@@ -107,10 +109,12 @@ public class RDKitFingerprintReaderV2NodeDialog extends DefaultNodeSettingsPane
 		super.addDialogComponent(new DialogComponentBoolean(
 				createUseIdsFromFileAsRowIdsModel(),
 				"Use IDs from file as row IDs (Requires unique IDs!)"));
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
 
 		final JPanel panelOptions = (JPanel) super.getTab("Options");
 		panelOptions.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-		panelOptions.setPreferredSize(new Dimension(790, 190));
+		panelOptions.setPreferredSize(new Dimension(790, 220));
 	}
 
 	//
@@ -49,15 +49,17 @@
 
 package org.rdkit.knime.nodes.fingerprintreader;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.StringTokenizer;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
@@ -70,6 +72,7 @@ import org.knime.core.data.vector.bitvector.DenseBitVectorCell;
 import org.knime.core.data.vector.bitvector.DenseBitVectorCellFactory;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
@@ -81,6 +84,7 @@ import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.Settin
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage;
 import org.knime.filehandling.core.node.table.reader.preview.dialog.GenericItemAccessor;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.util.InputDataInfo;
 import org.rdkit.knime.util.WarningConsolidator;
 
@@ -146,6 +150,7 @@ public class RDKitFingerprintReaderV2NodeModel extends AbstractRDKitNodeModel {
 				RDKitFingerprintReaderV2NodeDialog.createInputPathModel(nodeCreationConfig));
 
 		getWarningConsolidator().registerContext(FP_CONTEXT);
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -244,118 +249,123 @@ public class RDKitFingerprintReaderV2NodeModel extends AbstractRDKitNodeModel {
 		// Contains the rows with the result column
 		final BufferedDataContainer newTableData = exec.createDataContainer(arrOutSpecs[m_iOutputTablePortIdx]);
 
-		// Input file can either be a text file or a zipped text file
 		try (final GenericItemAccessor<FSPath> pathFpsAccessor = m_modelFilePath.createItemAccessor()) {
 			// Prepare all settings and pre-requisites
 			final Path pathFps = pathFpsAccessor.getRootItem(this::onStatusMessage);
 			final boolean bUseFileIds = m_modelUseIdsFromFileAsRowIds.getBooleanValue();
-
-			// Read from input file
-			final long iFileLength = Files.size(pathFps);
 			m_lReadFingerprintLines = 0;
 
-			// Input file can either be a text file or a zipped text file
-			try (final BufferedReader reader = pathFps.endsWith(".gz")
-					? new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(pathFps))))
-					: Files.newBufferedReader(pathFps)
-			) {
-				int iNumberOfBits = -1; // Undefined
-				int iLineNumber = 0;
-				int iAddedFingerprints = 0;
-				String strLine;
-
-				// Process the file line by line
-				while ((strLine = reader.readLine()) != null) {
-					iLineNumber++;
-					strLine = strLine.trim();
-
-					// Skip empty lines
-					if (strLine.isEmpty()) {
-						continue;
+			// Input file can either be a text file or a zipped text file, which is split into
+			// chunks of lines that get parsed in parallel and added to the table in file order
+			try (final FpsChunkReader reader = new FpsChunkReader(pathFps, FpsChunkReader.DEFAULT_CHUNK_SIZE)) {
+				final long lFileSize = reader.getFileSize();
+				final int iMaxParallelWorkers = getMaxParallelWorkers();
+				final int iQueueSize = AdaptiveParallelism.getMaxChunksInFlight(iMaxParallelWorkers);
+				final AtomicReference<Exception> refFailure = new AtomicReference<>();
+
+				LOGGER.debug("Reading fingerprint file " + (reader.isMemoryMapped() ? "memory-mapped" : "as stream") +
+						" with up to " + iMaxParallelWorkers + " parallel workers");
+
+				// Header lines and fingerprints are interpreted in file order
+				final FpsLineProcessor lineProcessor = new FpsLineProcessor("fingerprint file",
+						getWarningConsolidator(), FP_CONTEXT.getId()) {
+
+					/**
+					 * Adds the fingerprint of a valid fingerprint line to the table.
+					 * 
+					 * @param line Fingerprint line.
+					 * @param lLineNumber Line number in the file.
+					 */
+					@Override
+					protected void addFingerprint(final FpsChunk.Line line, final long lLineNumber) {
+						// Create row id
+						final String strId = line.getId();
+						final RowKey rowKey = (bUseFileIds ?
+								new RowKey(strId) :
+								new RowKey("Row" + newTableData.size()));
+
+						final DataRow row = new DefaultRow(rowKey,
+								new DenseBitVectorCellFactory(line.createBitVector()).createDataCell(),
+								new StringCell(strId));
+
+						try {
+							newTableData.addRowToTable(row);
+						} catch (final Exception exc) {
+							// If the unique row id exists already it will fail here
+							LOGGER.warn("Fingerprint in line " + lLineNumber + " has a duplicated identifier - skipping it.");
+							getWarningConsolidator().saveWarning(FP_CONTEXT.getId(),
+									"Skipped fingerprint with duplicated identifier. Consider turning off the option to use it as row ID.");
+						}
+					}
+				};
+
+				final ParallelWorker<FpsChunk, FpsChunk> multiWorker =
+						new ParallelWorker<FpsChunk, FpsChunk>(this, iQueueSize, iMaxParallelWorkers, exec) {
+
+					/**
+					 * Parses all lines of a chunk.
+					 * 
+					 * @param chunk Chunk of the fingerprint file.
+					 * @param lIndex Index of the chunk.
+					 * 
+					 * @return The parsed chunk.
+					 */
+					@Override
+					protected FpsChunk calculate(final FpsChunk chunk, final long lIndex) throws Exception {
+						chunk.parse();
+						return chunk;
 					}
 
-					// Process a header line
-					if (strLine.startsWith("#")) {
-						strLine = strLine.substring(1);
-						final String[] keyValue = strLine.split("=");
-
-						// Read number of fingerprint bit, skip all other information
-						if (keyValue.length == 2 && "num_bits".equals(keyValue[0])) {
-							if (iNumberOfBits != -1) {
-								throw new RuntimeException(
-										"The header num_bits of the fingerprint file exists multiple times.");
-							}
-							try {
-								iNumberOfBits = Integer.parseInt(keyValue[1]);
-							} catch (final NumberFormatException excParse) {
-								throw new NumberFormatException(
-										"The header num_bits of the fingerprint file contains " +
-												"an invalid number.");
-							}
+					/**
+					 * Interprets the header lines and adds the fingerprints of a parsed chunk to the table.
+					 * 
+					 * @param task Parsing result for a chunk.
+					 */
+					@Override
+					protected void processResult(final ComputationTask task)
+							throws ExecutionException, CancellationException, InterruptedException {
+						final FpsChunk chunk = task.get();
+
+						try {
+							lineProcessor.processChunk(chunk);
+						}
+						catch (final RuntimeException exc) {
+							refFailure.set(exc);
+							stopProcessing();
+							return;
 						}
-					}
 
-					// Read normal line and add it to the table
-					else {
-						m_lReadFingerprintLines++;
-						final StringTokenizer st = new StringTokenizer(strLine, "\t", false);
-
-						if (st.countTokens() > 1) {
-							final String strFingerprint = st.nextToken().trim();
-							final String strId = st.nextToken().trim();
-
-							try {
-								final DenseBitVector dbvFingerprint = convertFromFpsFormat(strFingerprint, iNumberOfBits);
-
-								// If there was no num_bits header defined, we take
-								// that information from the first fingerprint
-								if (iNumberOfBits == -1) {
-									iNumberOfBits = (int) dbvFingerprint.length();
-								}
-
-								// Create row id
-								final RowKey rowKey = (bUseFileIds ?
-										new RowKey(strId) :
-										new RowKey("Row" + iAddedFingerprints));
-
-								final DataRow row = new DefaultRow(rowKey,
-										new DenseBitVectorCellFactory(dbvFingerprint).createDataCell(),
-										new StringCell(strId));
-
-								try {
-									newTableData.addRowToTable(row);
-									iAddedFingerprints++;
-								} catch (final Exception exc) {
-									// If the unique row id exists already it will fail here
-									LOGGER.warn("Fingerprint in line " + iLineNumber + " has a duplicated identifier - skipping it.");
-									getWarningConsolidator().saveWarning(FP_CONTEXT.getId(),
-											"Skipped fingerprint with duplicated identifier. Consider turning off the option to use it as row ID.");
-								}
-							} catch (final NumberFormatException excFormat) {
-								LOGGER.warn(excFormat.getMessage() + " (Line " + iLineNumber + ")");
-								getWarningConsolidator().saveWarning(FP_CONTEXT.getId(),
-										"Encountered an invalid fingerprint size. Skipping this fingerprint.");
-							} catch (final Exception exc) {
-								LOGGER.warn("Invalid fingerprint encountered in line " + iLineNumber);
-								getWarningConsolidator().saveWarning(FP_CONTEXT.getId(),
-										"Encountered an invalid fingerprint. Skipping this fingerprint.");
-							}
-
-							// Check, if user cancelled and report progress every 20 lines
-							if (iLineNumber % 20 == 0) {
-								exec.checkCanceled();
-
-								final String sbMsg = "Processed " + m_lReadFingerprintLines + " fingerprints " +
-										"('" + (iAddedFingerprints - m_lReadFingerprintLines) + " of them are invalid)";
-
-								exec.setProgress(iLineNumber / (double) iFileLength / strLine.length(),
-										sbMsg);
-							}
-						} else {
-							getWarningConsolidator().saveWarning(FP_CONTEXT.getId(),
-									"Encountered an fingerprint without identifier - skipping it.");
+						m_lReadFingerprintLines = lineProcessor.getFingerprintLineCount();
+
+						// Check, if user cancelled and report progress
+						try {
+							exec.checkCanceled();
+							exec.setProgress(lFileSize == 0 ? 1.0d : Math.min(1.0d, chunk.getEndPosition() / (double)lFileSize),
+									"Processed " + m_lReadFingerprintLines + " fingerprints (" +
+									(m_lReadFingerprintLines - newTableData.size()) + " of them are invalid)");
+						}
+						catch (final CanceledExecutionException e) {
+							stopProcessing();
 						}
 					}
+				};
+
+				try {
+					multiWorker.process(() -> reader);
+				}
+				catch (final UncheckedIOException exc) {
+					throw exc.getCause();
+				}
+				catch (final CancellationException exc) {
+					if (refFailure.get() != null) {
+						throw refFailure.get();
+					}
+					exec.checkCanceled();
+					throw exc;
+				}
+
+				if (refFailure.get() != null) {
+					throw refFailure.get();
 				}
 			}
 		}
@@ -406,18 +416,13 @@ public class RDKitFingerprintReaderV2NodeModel extends AbstractRDKitNodeModel {
 	 * @return Dense bit vector.
 	 * 
 	 * @throws NumberFormatException Thrown, if the bit length is not
-	 * 		equal to the passed in parameter (only if set to > 0).
+	 * 		equal to the passed in parameter (only if set to > 0) or if the
+	 * 		hex string contains invalid characters.
 	 */
 	public static DenseBitVector convertFromFpsFormat(final String strHexFpsFormat,
 			final int iForceBitLength) throws NumberFormatException {
-		String strHexFingerprint = strHexFpsFormat.trim().toUpperCase();
-		final int iLen = strHexFingerprint.length();
-		final int iNumBits = iLen * 4;
-		int iCount = 0;
-
-		// Add a "4 bits" to ensure that we can read enough bits
-		// (since we read byte as pairs of 2 x 4 bits)
-		strHexFingerprint += "0";
+		final byte[] arrHexFingerprint = strHexFpsFormat.trim().getBytes(StandardCharsets.ISO_8859_1);
+		final int iNumBits = arrHexFingerprint.length * 4;
 
 		// Check fingerprint size
 		if (iForceBitLength > 0 && iNumBits != iForceBitLength) {
@@ -425,34 +430,13 @@ public class RDKitFingerprintReaderV2NodeModel extends AbstractRDKitNodeModel {
 					iNumBits + " instead of " + iForceBitLength + ".");
 		}
 
-		final DenseBitVector bitVector = new DenseBitVector(iNumBits);
-
-		// Traverse through each character of Fingerprint, processing 2 char at
-		// a time, convert to byte value for each character and generate 4 binary
-		// bits per character
-		for (int i = 0; i < iLen; i = i + 2) {
-			for (int n = 1; n >= 0; n--) {
-				char ch = strHexFingerprint.charAt(i + n);
-
-				if (ch >= '0' && ch <= '9') {
-					ch -= '0';
-				}
-				else if (ch >= 'A' && ch <= 'F') {
-					ch -= 'A' - 10;
-				}
-				else {
-					throw new NumberFormatException(
-							"Invalid fingerprint character encountered and ignored: '" +
-									ch + "' instead of 0..F.");
-				}
-
-				for (int bit = 1; bit < 16; bit = bit << 1) {
-					bitVector.set(iNumBits - iCount - 1, (ch & bit) == bit);
-					iCount++;
-				}
-			}
+		// Decode the hex characters with a lookup table directly into the words of the bit vector
+		try {
+			return new DenseBitVector(FpsChunk.decodeHex(ByteBuffer.wrap(arrHexFingerprint),
+					0, arrHexFingerprint.length), iNumBits);
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new NumberFormatException(exc.getMessage());
 		}
-
-		return bitVector;
 	}
 }
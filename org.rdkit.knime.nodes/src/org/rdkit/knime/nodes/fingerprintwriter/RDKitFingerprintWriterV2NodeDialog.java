@@ -56,8 +56,10 @@ import org.knime.core.data.StringValue;
 import org.knime.core.data.vector.bitvector.BitVectorValue;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelColumnName;
 import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.filehandling.core.connections.FSLocationUtil;
 import org.knime.filehandling.core.data.location.variable.FSLocationVariableType;
@@ -66,6 +68,7 @@ import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.Dialog
 import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.FileOverwritePolicy;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.SettingsModelWriterFileChooser;
 import org.knime.filehandling.core.defaultnodesettings.filtermode.SettingsModelFilterMode;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
 import org.rdkit.knime.util.HiddenSettingComponent;
 
@@ -119,9 +122,17 @@ public class RDKitFingerprintWriterV2NodeDialog extends DefaultNodeSettingsPane
 				StringValue.class));
 		super.addDialogComponent(new HiddenSettingComponent(createSuppressTimeOptionModel()));
 
+		super.createNewGroup("Compression");
+		super.addDialogComponent(new DialogComponentNumber(
+				createCompressionLevelModel(), "Gzip compression level for .gz files (1 = fastest, 9 = smallest): ", 1));
+
+		super.createNewGroup("Parallel Processing");
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
+
 		final JPanel panelOptions = (JPanel) super.getTab("Options");
 		panelOptions.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-		panelOptions.setPreferredSize(new Dimension(790, 290));
+		panelOptions.setPreferredSize(new Dimension(790, 410));
 	}
 
 	//
@@ -193,4 +204,14 @@ public class RDKitFingerprintWriterV2NodeDialog extends DefaultNodeSettingsPane
 	static SettingsModelInteger createSuppressTimeOptionModel() {
 		return new SettingsModelInteger("suppress_time", 0);
 	}
+
+	/**
+	 * Creates the settings model for the compression level, which is used
+	 * when writing a gzipped FPS file (file name ending with .gz).
+	 * 
+	 * @return Settings model for the gzip compression level.
+	 */
+	static SettingsModelIntegerBounded createCompressionLevelModel() {
+		return new SettingsModelIntegerBounded("gzip_compression_level", 6, 1, 9);
+	}
 }
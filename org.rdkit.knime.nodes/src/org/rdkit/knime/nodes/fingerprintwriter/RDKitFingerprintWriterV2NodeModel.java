@@ -49,9 +49,10 @@
 
 package org.rdkit.knime.nodes.fingerprintwriter;
 
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DateFormat;
@@ -59,15 +60,21 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPOutputStream;
 
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.StringValue;
-import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.vector.bitvector.BitVectorValue;
 import org.knime.core.data.vector.bitvector.DenseBitVector;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.KNIMEConstants;
@@ -75,6 +82,7 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.defaultnodesettings.SettingsModelColumnName;
 import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.FileOverwritePolicy;
@@ -82,7 +90,9 @@ import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.Settin
 import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.WritePathAccessor;
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.util.InputDataInfo;
+import org.rdkit.knime.util.RowChunkIterable;
 import org.rdkit.knime.util.SettingsUtils;
 import org.rdkit.knime.util.WarningConsolidator;
 
@@ -113,6 +123,27 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 	/** Define hex values. */
 	protected static final char[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
 
+	/**
+	 * Lookup table with the two FPS hex characters for each of the 256 values of a bit vector byte.
+	 * The bits of a byte are reversed, because the last bit of the bit vector becomes the first bit
+	 * of an FPS fingerprint.
+	 */
+	private static final byte[] FPS_HEX_PAIRS = new byte[2 * 256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			final int iReversed = Integer.reverse(i) >>> 24;
+			FPS_HEX_PAIRS[2 * i] = (byte)HEX[iReversed >>> 4];
+			FPS_HEX_PAIRS[2 * i + 1] = (byte)HEX[iReversed & 0x0F];
+		}
+	}
+
+	/** Number of rows, which are encoded together by a worker. */
+	private static final int ENCODING_CHUNK_SIZE = 1000;
+
+	/** Size of the buffer for writing the output file. */
+	private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+
 	/** Formatting the date/time using a custom FPS format: yyyy-MM-dd'T'HH:mm:ss */
 	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneId.of("GMT"));
 
@@ -141,6 +172,10 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 	private final SettingsModelInteger m_modelSuppressTimeOption=
 			registerSettings(RDKitFingerprintWriterV2NodeDialog.createSuppressTimeOptionModel(), true);
 
+	/** Settings model for the compression level of gzipped output files. */
+	private final SettingsModelIntegerBounded m_modelCompressionLevel =
+			registerSettings(RDKitFingerprintWriterV2NodeDialog.createCompressionLevelModel(), true);
+
 	//
 	// Constructor
 	//
@@ -160,6 +195,7 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 
 		m_modelFilePath = registerSettings(
 				RDKitFingerprintWriterV2NodeDialog.createOutputPathModel(nodeCreationConfig));
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -314,7 +350,6 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 			final boolean bUseRowIds = m_modelIdColumnName.useRowID();
 			final boolean bSuppressTime = m_modelSuppressTimeOption.getIntValue() != 0;
 			final long lTotalRowCount = inData[m_iInputTablePortIdx].size();
-			int iDefinedNumBits = -1; // Undefined
 
 			// Last override check (has been checked already in configure() method)
 			if (Files.exists(pathFps)) {
@@ -338,91 +373,139 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 
 			// Create the output file (override existing file)
 			// Output file can either be a text file or a zipped text file
-			try (final BufferedWriter writer = pathFps.endsWith(".gz")
-					? new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(pathFps))))
-					: Files.newBufferedWriter(pathFps);
-				 final CloseableRowIterator i = inData[m_iInputTablePortIdx].iterator()
-			) {
-				// Iterate through all input rows and write out fingerprints
-				long lWrittenFingerprints = 0;
-
-				for (long rowIndex = 0; i.hasNext(); rowIndex++) {
-					final DataRow row = i.next();
-
-					// Get fingerprint
-					final DenseBitVector dbvFingerprint = arrInputDataInfo[m_iInputTablePortIdx][INPUT_COLUMN_FPS].getDenseBitVector(row);
-
-					if (dbvFingerprint == null) {
-						getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
-								"Encountered empty fingerprint, which will be ignored.");
-					}
-					else {
-						// Process id
-						String strId = (bUseRowIds ?
-								row.getKey().getString() :
-								arrInputDataInfo[m_iInputTablePortIdx][INPUT_COLUMN_ID].getString(row));
-
-						// Assign an artificial ID, if missing cell was encountered
-						if (strId == null) {
-							getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
-									"Encountered empty ID. Generated unique ID (MissingIdXXX) on the fly.");
-							strId = "MissingId" + rowIndex;
+			final Path pathFileName = pathFps.getFileName();
+			final boolean bGzipped = (pathFileName != null &&
+					pathFileName.toString().toLowerCase().endsWith(".gz"));
+			final byte[] arrLineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+			final int iMaxParallelWorkers = getMaxParallelWorkers();
+			final int iQueueSize = AdaptiveParallelism.getMaxChunksInFlight(iMaxParallelWorkers);
+			final AtomicReference<Exception> refFailure = new AtomicReference<>();
+
+			// Encoding buffers, which are reused after their content was written
+			final Queue<byte[]> queueBuffers = new ConcurrentLinkedQueue<>();
+
+			try (final OutputStream out = createOutputStream(pathFps, bGzipped, m_modelCompressionLevel.getIntValue())) {
+				final ParallelWorker<List<DataRow>, EncodedChunk> multiWorker =
+						new ParallelWorker<List<DataRow>, EncodedChunk>(this, iQueueSize, iMaxParallelWorkers, exec) {
+
+					/** Number of fingerprints written so far. */
+					private long m_lWrittenFingerprints = 0;
+
+					/** Number of rows processed so far. */
+					private long m_lRowsDone = 0;
+
+					/**
+					 * Encodes the fingerprint lines of a chunk of input rows.
+					 * 
+					 * @param listRows Input rows of the chunk.
+					 * @param lChunkIndex Index of the chunk.
+					 * 
+					 * @return Encoded lines of the chunk.
+					 */
+					@Override
+					protected EncodedChunk calculate(final List<DataRow> listRows, final long lChunkIndex) throws Exception {
+						final EncodedChunk chunk = new EncodedChunk(queueBuffers.poll());
+						long lRowIndex = lChunkIndex * ENCODING_CHUNK_SIZE;
+
+						for (final DataRow row : listRows) {
+							// Get fingerprint
+							final DenseBitVector dbvFingerprint = arrInputDataInfo[m_iInputTablePortIdx][INPUT_COLUMN_FPS].getDenseBitVector(row);
+
+							if (dbvFingerprint == null) {
+								getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+										"Encountered empty fingerprint, which will be ignored.");
+							}
+							else {
+								// Process id
+								String strId = (bUseRowIds ?
+										row.getKey().getString() :
+										arrInputDataInfo[m_iInputTablePortIdx][INPUT_COLUMN_ID].getString(row));
+
+								// Assign an artificial ID, if missing cell was encountered
+								if (strId == null) {
+									getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+											"Encountered empty ID. Generated unique ID (MissingIdXXX) on the fly.");
+									strId = "MissingId" + lRowIndex;
+								}
+
+								try {
+									// Encode fingerprint line
+									chunk.addLine(dbvFingerprint, strId, arrLineSeparator);
+								}
+								catch (final Exception exc) {
+									LOGGER.warn("Invalid fingerprint encountered in row '" + row.getKey() + "'.");
+									getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+											"Encountered an invalid fingerprint. Skipping this fingerprint.");
+								}
+							}
+
+							lRowIndex++;
 						}
 
-						// Write out header in the very beginning
-						final int iNumBits = (int) dbvFingerprint.length();
-						if (lWrittenFingerprints == 0) {
-							// Determine fingerprint length
-							iDefinedNumBits = (int) dbvFingerprint.length();
-
-							writer.write("#FPS1");
-							writer.newLine();
-							writer.write("#num_bits=" + iNumBits);
-							writer.newLine();
-							writer.write("#software=Knime/" + KNIMEConstants.VERSION);
-							writer.newLine();
-							writer.write("#date=" + LocalDateTime.now().format(bSuppressTime ?
-									DATE_FORMATTER_WITH_SUPPRESSED_TIME : DATE_FORMATTER));
-							writer.newLine();
-						}
+						chunk.setRows(listRows.size(), listRows.get(listRows.size() - 1));
+						return chunk;
+					}
 
-						String strFpsFingerprint;
+					/**
+					 * Writes the encoded lines of a chunk in the order of the input rows.
+					 * Before the first fingerprint line the header gets written.
+					 * 
+					 * @param task Encoding result for a chunk.
+					 */
+					@Override
+					protected void processResult(final ComputationTask task)
+							throws ExecutionException, CancellationException, InterruptedException {
+						final EncodedChunk chunk = task.get();
 
 						try {
-							// Convert fingerprint and check length consistency
-							strFpsFingerprint = convertToFpsFormat(dbvFingerprint, iDefinedNumBits);
-
-							// Write out fingerprint line
-							writer.write(strFpsFingerprint);
-							writer.write("\t");
-							writer.write(strId);
-							writer.newLine();
-							lWrittenFingerprints++;
+							// Write out header in the very beginning
+							if (m_lWrittenFingerprints == 0 && chunk.getLineCount() > 0) {
+								writeHeader(out, chunk.getFirstNumBits(), bSuppressTime, arrLineSeparator);
+							}
+
+							out.write(chunk.getBuffer(), 0, chunk.getLength());
+							m_lWrittenFingerprints += chunk.getLineCount();
 						}
 						catch (final IOException excIo) {
-							throw excIo;
+							refFailure.set(excIo);
+							stopProcessing();
+							return;
 						}
-						catch (final NumberFormatException excFormat) {
-							LOGGER.warn("Invalid fingerprint size encountered in row '" + row.getKey() + "'.");
-							getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
-									"Encountered an invalid fingerprint size. Skipping this fingerprint.");
+						finally {
+							queueBuffers.offer(chunk.getBuffer());
 						}
-						catch (final Exception exc) {
-							LOGGER.warn("Invalid fingerprint encountered in row '" + row.getKey() + "'.");
-							getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
-									"Encountered an invalid fingerprint. Skipping this fingerprint.");
+
+						// Check cancellation status and report progress
+						m_lRowsDone += chunk.getRowCount();
+						try {
+							AbstractRDKitNodeModel.reportProgress(exec, m_lRowsDone, lTotalRowCount, chunk.getLastRow(),
+									" - Writing fingerprints");
+						}
+						catch (final CanceledExecutionException e) {
+							stopProcessing();
 						}
 					}
+				};
 
-					// Every 20 iterations check cancellation status and report progress
-					if (rowIndex % 20 == 0) {
-						AbstractRDKitNodeModel.reportProgress(exec, rowIndex, lTotalRowCount, row, " - Writing fingerprints");
+				// The rows get closed also, if the processing stops before reaching the end of the table
+				try (final RowChunkIterable chunks = new RowChunkIterable(inData[m_iInputTablePortIdx], ENCODING_CHUNK_SIZE)) {
+					multiWorker.process(chunks);
+				}
+				catch (final CancellationException exc) {
+					if (refFailure.get() != null) {
+						throw refFailure.get();
 					}
+					exec.checkCanceled();
+					throw exc;
+				}
+
+				if (refFailure.get() != null) {
+					throw refFailure.get();
 				}
 			}
 		}
 		catch (final IOException excIo) {
-			throw new IOException("The fingerprint file could not be read successfully: " + excIo, excIo);
+			throw new IOException("The fingerprint file could not be written successfully: " + excIo, excIo);
 		}
 		exec.checkCanceled();
 		exec.setProgress(1.0, "Finished Processing");
@@ -430,6 +513,31 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 		return new BufferedDataTable[0];
 	}
 
+	/**
+	 * Writes the FPS header.
+	 * 
+	 * @param out Output stream. Must not be null.
+	 * @param iNumBits Number of fingerprint bits.
+	 * @param bSuppressTime Set to true to write 00:00:00 as time.
+	 * @param arrLineSeparator Line separator. Must not be null.
+	 * 
+	 * @throws IOException Thrown, if writing failed.
+	 */
+	protected void writeHeader(final OutputStream out, final int iNumBits, final boolean bSuppressTime,
+			final byte[] arrLineSeparator) throws IOException {
+		final String strLineSeparator = new String(arrLineSeparator, StandardCharsets.UTF_8);
+		final String strHeader = "#FPS1" + strLineSeparator +
+				"#num_bits=" + iNumBits + strLineSeparator +
+				"#software=Knime/" + KNIMEConstants.VERSION + strLineSeparator +
+				"#date=" + LocalDateTime.now().format(bSuppressTime ?
+						DATE_FORMATTER_WITH_SUPPRESSED_TIME : DATE_FORMATTER) + strLineSeparator;
+		out.write(strHeader.getBytes(StandardCharsets.UTF_8));
+	}
+
+	//
+	// Static Public Methods
+	//
+
 	/**
 	 * Converts the passed in bit vector into an FPS file format compatible
 	 * string (see <a href="http://code.google.com/p/chem-fingerprints/wiki/FPS">FPS.wiki</a>).
@@ -445,46 +553,66 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 	 */
 	public static String convertToFpsFormat(final DenseBitVector dbvFingerprint,
 			final int iForceBitLength) throws NumberFormatException {
-
 		final int iNumBits = (int)dbvFingerprint.length();
+		final byte[] arrHex = new byte[getFpsHexLength(iNumBits)];
+		encodeFpsHex(dbvFingerprint.getAllBits(), iNumBits, arrHex, 0);
 
-		// resultHex to store hex encoded Fingerprints
-		final StringBuilder sbResult = new StringBuilder(iNumBits / 4);
-		final StringBuilder strTemp = new StringBuilder(2);
-		int iByte = 0;
-		int j = 0;
-
-		// Traverse through each character of binary bits, processing 8 bits at
-		// a time starting at the highest bit of the fingerprint
-		for (int i = 0; i < iNumBits; i++) {
-			iByte = iByte + (dbvFingerprint.get(iNumBits - i - 1) ? 1 << j : 0);
-			j++;
-
-			// Every 8 bits we calculate a hex string piece
-			if (i % 8 == 7) {
-				if (iByte == 0) {
-					sbResult.append("00");
-				}
-				else {
-					strTemp.setLength(0);
+		return new String(arrHex, StandardCharsets.ISO_8859_1);
+	}
 
-					while (iByte != 0) {
-						strTemp.append(HEX[(iByte % 16)]);
-						iByte = iByte >> 4;
-					}
+	/**
+	 * Returns the number of hex characters of an FPS fingerprint. Remaining bits,
+	 * which do not fill a complete byte, are not encoded.
+	 * 
+	 * @param iNumBits Number of fingerprint bits.
+	 * 
+	 * @return Number of hex characters.
+	 */
+	public static int getFpsHexLength(final int iNumBits) {
+		return (iNumBits >>> 3) * 2;
+	}
 
-					if (strTemp.length() == 1) {
-						strTemp.append("0");
-					}
+	/**
+	 * Encodes the words of a bit vector as FPS hex characters into the passed in buffer.
+	 * The highest bit of the bit vector becomes the first FPS bit.
+	 * 
+	 * @param arrWords Words of a bit vector as returned by {@link DenseBitVector#getAllBits()}.
+	 * 		Must not be null.
+	 * @param iNumBits Number of bits of the bit vector.
+	 * @param arrBuffer Buffer to write to. Must have space for {@link #getFpsHexLength(int)} bytes.
+	 * @param iOffset Position in the buffer to start writing.
+	 * 
+	 * @return Position in the buffer after the last written hex character.
+	 */
+	public static int encodeFpsHex(final long[] arrWords, final int iNumBits, final byte[] arrBuffer, final int iOffset) {
+		final int iBytes = iNumBits >>> 3;
+		int iPos = iOffset;
+
+		// Byte-aligned fingerprints: FPS byte k is the bit-reversed byte (iBytes - 1 - k) of the bit vector
+		if ((iNumBits & 7) == 0) {
+			for (int m = iBytes - 1; m >= 0; m--) {
+				final int iPair = ((int)(arrWords[m >>> 3] >>> ((m & 7) << 3)) & 0xFF) << 1;
+				arrBuffer[iPos++] = FPS_HEX_PAIRS[iPair];
+				arrBuffer[iPos++] = FPS_HEX_PAIRS[iPair + 1];
+			}
+		}
 
-					sbResult.append(strTemp.reverse());
+		// Other fingerprints: FPS byte k consists of the bits starting at the highest bit minus 8 * k
+		else {
+			for (int k = 0; k < iBytes; k++) {
+				int iByte = 0;
+				for (int j = 0; j < 8; j++) {
+					final int iBit = iNumBits - 8 * k - j - 1;
+					if (((arrWords[iBit >>> 6] >>> (iBit & 63)) & 1L) != 0) {
+						iByte |= 1 << j;
+					}
 				}
-
-				iByte = 0;
-				j = 0;
+				arrBuffer[iPos++] = (byte)HEX[iByte >>> 4];
+				arrBuffer[iPos++] = (byte)HEX[iByte & 0x0F];
 			}
 		}
-		return sbResult.toString();
+
+		return iPos;
 	}
 
 	/**
@@ -508,4 +636,192 @@ public class RDKitFingerprintWriterV2NodeModel extends AbstractRDKitNodeModel {
 
 		return strRet;
 	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Creates the output stream for the FPS file.
+	 * 
+	 * @param pathFps Path of the output file. Must not be null.
+	 * @param bGzipped Set to true to compress the file with gzip.
+	 * @param iCompressionLevel Gzip compression level (1 - 9).
+	 * 
+	 * @return Buffered output stream.
+	 * 
+	 * @throws IOException Thrown, if the file could not be created.
+	 */
+	private static OutputStream createOutputStream(final Path pathFps, final boolean bGzipped,
+			final int iCompressionLevel) throws IOException {
+		final OutputStream out = Files.newOutputStream(pathFps);
+
+		if (bGzipped) {
+			return new GZIPOutputStream(out, OUTPUT_BUFFER_SIZE) {
+				{
+					def.setLevel(iCompressionLevel);
+				}
+			};
+		}
+
+		return new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * Encoded FPS lines of a chunk of input rows. Hex characters and ASCII identifiers
+	 * are written directly into a byte buffer, which can be reused for another chunk
+	 * after it was written.
+	 */
+	private static class EncodedChunk {
+
+		/** The buffer with the encoded lines. */
+		private byte[] m_arrBuffer;
+
+		/** The number of used bytes of the buffer. */
+		private int m_iLength = 0;
+
+		/** The number of encoded lines. */
+		private int m_iLineCount = 0;
+
+		/** The number of bits of the first encoded fingerprint. -1, if no lines are encoded. */
+		private int m_iFirstNumBits = -1;
+
+		/** The number of input rows of the chunk. */
+		private int m_iRowCount = 0;
+
+		/** The last input row of the chunk. */
+		private DataRow m_lastRow = null;
+
+		/**
+		 * Creates a new chunk.
+		 * 
+		 * @param arrBuffer Buffer to be reused. Can be null to create a new buffer.
+		 */
+		private EncodedChunk(final byte[] arrBuffer) {
+			m_arrBuffer = (arrBuffer != null ? arrBuffer : new byte[64 * 1024]);
+		}
+
+		/**
+		 * Encodes a fingerprint line.
+		 * 
+		 * @param dbvFingerprint Fingerprint. Must not be null.
+		 * @param strId Identifier. Must not be null.
+		 * @param arrLineSeparator Line separator. Must not be null.
+		 */
+		private void addLine(final DenseBitVector dbvFingerprint, final String strId, final byte[] arrLineSeparator) {
+			final int iNumBits = (int)dbvFingerprint.length();
+			final int iIdLength = strId.length();
+			ensureCapacity(getFpsHexLength(iNumBits) + 1 + 3 * iIdLength + arrLineSeparator.length);
+
+			m_iLength = encodeFpsHex(dbvFingerprint.getAllBits(), iNumBits, m_arrBuffer, m_iLength);
+			m_arrBuffer[m_iLength++] = '\t';
+
+			// Identifiers are ASCII usually, which are written without creating a byte array
+			boolean bAscii = true;
+			for (int i = 0; i < iIdLength && bAscii; i++) {
+				bAscii = (strId.charAt(i) < 0x80);
+			}
+			if (bAscii) {
+				for (int i = 0; i < iIdLength; i++) {
+					m_arrBuffer[m_iLength++] = (byte)strId.charAt(i);
+				}
+			}
+			else {
+				final byte[] arrId = strId.getBytes(StandardCharsets.UTF_8);
+				System.arraycopy(arrId, 0, m_arrBuffer, m_iLength, arrId.length);
+				m_iLength += arrId.length;
+			}
+
+			System.arraycopy(arrLineSeparator, 0, m_arrBuffer, m_iLength, arrLineSeparator.length);
+			m_iLength += arrLineSeparator.length;
+
+			if (m_iLineCount == 0) {
+				m_iFirstNumBits = iNumBits;
+			}
+			m_iLineCount++;
+		}
+
+		/**
+		 * Grows the buffer, if it has less than the specified number of bytes left.
+		 * 
+		 * @param iAdditionalBytes Number of bytes, which are needed.
+		 */
+		private void ensureCapacity(final int iAdditionalBytes) {
+			if (m_arrBuffer.length - m_iLength < iAdditionalBytes) {
+				final byte[] arrLarger = new byte[Math.max(2 * m_arrBuffer.length, m_iLength + iAdditionalBytes)];
+				System.arraycopy(m_arrBuffer, 0, arrLarger, 0, m_iLength);
+				m_arrBuffer = arrLarger;
+			}
+		}
+
+		/**
+		 * Sets the information about the input rows of the chunk, which is used for progress reporting.
+		 * 
+		 * @param iRowCount Number of input rows of the chunk, including rows without fingerprint.
+		 * @param lastRow The last input row of the chunk. Can be null for an empty chunk.
+		 */
+		private void setRows(final int iRowCount, final DataRow lastRow) {
+			m_iRowCount = iRowCount;
+			m_lastRow = lastRow;
+		}
+
+		/**
+		 * Returns the buffer with the encoded lines. Only the first {@link #getLength()} bytes are used.
+		 * 
+		 * @return Buffer. Never null.
+		 */
+		private byte[] getBuffer() {
+			return m_arrBuffer;
+		}
+
+		/**
+		 * Returns the number of used bytes of the buffer.
+		 * 
+		 * @return Number of bytes to be written.
+		 */
+		private int getLength() {
+			return m_iLength;
+		}
+
+		/**
+		 * Returns the number of encoded lines.
+		 * 
+		 * @return Number of fingerprints of the chunk, which get written.
+		 */
+		private int getLineCount() {
+			return m_iLineCount;
+		}
+
+		/**
+		 * Returns the number of bits of the first encoded fingerprint, which determines
+		 * the num_bits header of the file.
+		 * 
+		 * @return Number of bits or -1, if no lines are encoded.
+		 */
+		private int getFirstNumBits() {
+			return m_iFirstNumBits;
+		}
+
+		/**
+		 * Returns the number of input rows of the chunk.
+		 * 
+		 * @return Number of input rows, including rows without fingerprint.
+		 */
+		private int getRowCount() {
+			return m_iRowCount;
+		}
+
+		/**
+		 * Returns the last input row of the chunk.
+		 * 
+		 * @return Last row or null for an empty chunk.
+		 */
+		private DataRow getLastRow() {
+			return m_lastRow;
+		}
+	}
 }
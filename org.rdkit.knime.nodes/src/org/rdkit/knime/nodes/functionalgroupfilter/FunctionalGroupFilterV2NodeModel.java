@@ -62,7 +62,6 @@ import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
-import org.knime.core.data.RowKey;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
@@ -120,6 +119,12 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 	/** An often used special string used to indicate a processing error for a row. */
 	private static final String ERROR = "e";
 
+	/**
+	 * Result cell index of the first non-matching pattern of a row. It is not part of the output
+	 * tables, but tells the result processor how to split. A missing cell means that the row matched.
+	 */
+	private static final int RESULT_CELL_NON_MATCH = 0;
+
 	//
 	// Members
 	//
@@ -183,15 +188,6 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 	 */
 	private SafeGuardedResource<ROMol>[] m_arrMolSmarts;
 
-	/**
-	 * This map is used for communication between parallel execution threads that determine, if
-	 * a molecule fulfills the matching criteria, and the code that performs the splitting.
-	 * It contains only row keys of non-matching rows and as value it records here the
-	 * first non-matching pattern. We will synchronize on that object to ensure that
-	 * only one thread is accessing at a time.
-	 */
-	private final Map<RowKey, String> m_mapNonMatches = new HashMap<>(50);
-
 	//
 	// Constructor
 	//
@@ -383,11 +379,16 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 	protected AbstractRDKitCellFactory createOutputFactory(final InputDataInfo[] arrInputDataInfos)
 			throws InvalidSettingsException {
 		// Generate column specs for the output table columns produced by this factory
-		final DataColumnSpec[] arrOutputSpec = new DataColumnSpec[0]; // We have no output columns
+		// We have no output columns, the only result cell carries the first non-matching pattern per row
+		final DataColumnSpec[] arrOutputSpec = new DataColumnSpec[] {
+				new DataColumnSpecCreator("Failed Pattern", StringCell.TYPE).createSpec() };
 
 		final boolean bAdd = m_modelRecordFailedPatternOption.getBooleanValue();
 		final int iCount = m_arrActivatedConditions.length;
-		final DataCell[] arrNoCells = new DataCell[0];
+		final DataCell[] arrMatch = new DataCell[] { DataType.getMissingCell() };
+		final DataCell[] arrIgnoredNonMatch = new DataCell[] { new StringCell(IGNORE_FAILED_PATTERN) };
+		final DataCell[] arrError = new DataCell[] { new StringCell(ERROR) };
+		final DataCell[] arrMissingInput = new DataCell[] { new StringCell(MISSING_INPUT) };
 
 		// Generate factory
 		final AbstractRDKitCellFactory factory = new AbstractRDKitCellFactory(this,
@@ -444,13 +445,25 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 					strNonMatchPattern = MISSING_INPUT;
 				}
 
-				if (strNonMatchPattern != null) {
-					synchronized (m_mapNonMatches) {
-						m_mapNonMatches.put(row.getKey(), strNonMatchPattern);
-					}
+				// Pass the result on with the row instead of sharing it between threads
+				final DataCell[] arrResult;
+				if (strNonMatchPattern == null) {
+					arrResult = arrMatch;
+				}
+				else if (IGNORE_FAILED_PATTERN.equals(strNonMatchPattern)) {
+					arrResult = arrIgnoredNonMatch;
+				}
+				else if (ERROR.equals(strNonMatchPattern)) {
+					arrResult = arrError;
+				}
+				else if (MISSING_INPUT.equals(strNonMatchPattern)) {
+					arrResult = arrMissingInput;
+				}
+				else {
+					arrResult = new DataCell[] { new StringCell(strNonMatchPattern) };
 				}
 
-				return arrNoCells;
+				return arrResult;
 			}
 		};
 
@@ -539,9 +552,6 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 			// Contains the rows with non-matching molecules
 			final BufferedDataContainer tableNoMatch = exec.createDataContainer(arrOutSpecs[m_iFailedMoleculesPortIdx]);
 
-			// Reset the "communication medium" for multi-threading
-			m_mapNonMatches.clear();
-
 			// Setup main factory
 			final AbstractRDKitCellFactory factory = createOutputFactory(arrInputDataInfo[m_iInputMoleculesPortIdx]);
 			final AbstractRDKitNodeModel.ResultProcessor resultProcessor =
@@ -549,18 +559,17 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 
 				/**
 				 * {@inheritDoc}
-				 * This implementation determines, if the cell 0 in the results is missing.
-				 * If it is missing and the setting tells to split the tables,
-				 * then the original input row is added to table 1. Otherwise, the input row
-				 * gets merged with the cell 0 and is added to table 0.
+				 * This implementation determines, if the non-matching pattern cell in the results
+				 * is missing. If it is missing, the row matched all conditions (or its processing failed
+				 * unexpectedly) and the original input row is added to table 0. Otherwise, the input row
+				 * gets merged with the first non-matching pattern, if desired, and is added to table 1.
 				 */
 				@Override
 				public void processResults(final long rowIndex, final DataRow row, final DataCell[] arrResults) {
-					final String strNonMatchingPattern;
-
-					synchronized (m_mapNonMatches) {
-						strNonMatchingPattern = m_mapNonMatches.remove(row.getKey());
-					}
+					final DataCell cellNonMatch = (arrResults.length > RESULT_CELL_NON_MATCH ?
+							arrResults[RESULT_CELL_NON_MATCH] : missingCell);
+					final String strNonMatchingPattern = (cellNonMatch.isMissing() ? null :
+						((StringCell)cellNonMatch).getStringValue());
 
 					// Add the row to the matching table
 					if (strNonMatchingPattern == null) {
@@ -604,7 +613,7 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 			// Runs the multiple threads to do the work
 			try {
 				new AbstractRDKitNodeModel.ParallelProcessor(factory, resultProcessor, inData[m_iInputMoleculesPortIdx].size(),
-						getWarningConsolidator(), exec).run(inData[m_iInputMoleculesPortIdx]);
+						getWarningConsolidator(), exec).process(inData[m_iInputMoleculesPortIdx]);
 			}
 			catch (final Exception e) {
 				exec.checkCanceled();
@@ -621,9 +630,6 @@ public class FunctionalGroupFilterV2NodeModel extends AbstractRDKitNodeModel {
 
 	@Override
 	protected void cleanupIntermediateResults() {
-		if (m_mapNonMatches != null) {
-			m_mapNonMatches.clear();
-		}
 		m_arrActivatedConditions = null;
 		m_arrMolSmarts = null;
 		m_definitions = null;
@@ -0,0 +1,414 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.mcs;
+
+import org.RDKit.Bond;
+import org.RDKit.Int_Pair;
+import org.RDKit.MCSResult;
+import org.RDKit.Match_Vect;
+import org.RDKit.RDKFuncs;
+import org.RDKit.ROMol;
+import org.RDKit.ROMol_Vect;
+import org.RDKit.RWMol;
+
+/**
+ * Maintains a running MCS candidate for molecules, which are added one by one, without
+ * retaining the molecules. The candidate is kept as fragment of a real molecule. If an added
+ * molecule does not contain the candidate, the candidate gets replaced by the MCS of the
+ * fragment and the new molecule. Hence, the candidate is always a common substructure of all
+ * added molecules, but as the MCS is refined pairwise, it may be smaller than the exact MCS.
+ * This works only for MCS calculations, which must cover all molecules and which do not
+ * depend on ring membership or valences, because these properties change when cutting out
+ * a fragment (see {@link #isSupported(double, boolean, boolean, boolean)}).
+ * Objects of this class are not thread-safe.
+ */
+public class IncrementalMCS {
+
+	//
+	// Members
+	//
+
+	/** The atom comparison mode. */
+	private final AtomComparison m_atomComparison;
+
+	/** The bond comparison mode. */
+	private final BondComparison m_bondComparison;
+
+	/**
+	 * The deadline (system time in milliseconds), which all refinements of the candidate
+	 * share. Long.MAX_VALUE, if there is no timeout.
+	 */
+	private final long m_lDeadline;
+
+	/** The fragment representing the current candidate. Null, if no molecule was added yet. */
+	private RWMol m_fragment;
+
+	/** The query to check molecules for containing the candidate. Null, if only one molecule was added. */
+	private RWMol m_query;
+
+	/** The SMARTS of the current candidate as delivered by the MCS calculation. */
+	private String m_strSmarts;
+
+	/** Flag to tell that the added molecules do not have any common substructure. */
+	private boolean m_bEmpty;
+
+	/** Flag to tell that a refinement of the candidate timed out. */
+	private boolean m_bTimedOut;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new empty incremental MCS calculation.
+	 * 
+	 * @param atomComparison Atom comparison mode. Must not be null.
+	 * @param bondComparison Bond comparison mode. Must not be null.
+	 * @param iTimeout Timeout in seconds for all refinements of the candidate together,
+	 * 		starting now. 0 for no timeout. After it has passed, every further refinement 
+	 * 		gets at most one second.
+	 */
+	public IncrementalMCS(final AtomComparison atomComparison, final BondComparison bondComparison,
+			final int iTimeout) {
+		m_atomComparison = atomComparison;
+		m_bondComparison = bondComparison;
+		m_lDeadline = (iTimeout > 0 ? System.currentTimeMillis() + iTimeout * 1000L : Long.MAX_VALUE);
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Refines the candidate with the passed in molecule, if it does not contain the candidate yet.
+	 * The molecule is not retained and can be freed by the caller afterwards.
+	 * 
+	 * @param mol Molecule to add. Must not be null.
+	 * 
+	 * @return True, if the candidate has changed. False otherwise.
+	 */
+	public boolean add(final ROMol mol) {
+		boolean bChanged = false;
+
+		if (m_fragment == null) {
+			m_fragment = new RWMol(mol);
+			bChanged = true;
+		}
+		else if (!m_bEmpty && !contains(mol)) {
+			refine(mol);
+			bChanged = true;
+		}
+
+		return bChanged;
+	}
+
+	/**
+	 * Determines, if the passed in molecule contains the current candidate.
+	 * 
+	 * @param mol Molecule to check. Must not be null.
+	 * 
+	 * @return True, if the molecule contains the candidate. False, if not or if there is
+	 * 		no candidate (yet) to check against.
+	 */
+	public boolean contains(final ROMol mol) {
+		return m_query != null && mol.hasSubstructMatch(m_query);
+	}
+
+	/**
+	 * Returns the SMARTS of the current candidate.
+	 * 
+	 * @return SMARTS of the candidate. Null, if no molecule has been added or if the
+	 * 		added molecules do not have any common substructure.
+	 */
+	public String getSmarts() {
+		String strSmarts = null;
+
+		if (m_fragment != null && !m_bEmpty) {
+			strSmarts = (m_strSmarts == null ? RDKFuncs.MolToSmarts(m_fragment) : m_strSmarts);
+		}
+
+		return strSmarts;
+	}
+
+	/**
+	 * Returns true, if the added molecules do not have any common substructure.
+	 * 
+	 * @return True, if there is no MCS.
+	 */
+	public boolean isEmpty() {
+		return m_bEmpty;
+	}
+
+	/**
+	 * Returns true, if any refinement of the candidate timed out. The candidate is still
+	 * a common substructure of all added molecules in this case.
+	 * 
+	 * @return True, if a refinement timed out.
+	 */
+	public boolean isTimedOut() {
+		return m_bTimedOut;
+	}
+
+	/**
+	 * Frees the native resources of the candidate.
+	 */
+	public void delete() {
+		if (m_fragment != null) {
+			m_fragment.delete();
+			m_fragment = null;
+		}
+		if (m_query != null) {
+			m_query.delete();
+			m_query = null;
+		}
+	}
+
+	//
+	// Public Static Methods
+	//
+
+	/**
+	 * Determines, if an MCS with the passed in options can be calculated incrementally.
+	 * 
+	 * @param dThreshold Fraction of molecules that the MCS must cover. Must be 1.0.
+	 * @param bRingMatchesRingOnly Ring matches ring only option. Must be false.
+	 * @param bCompleteRingsOnly Complete rings only option. Must be false.
+	 * @param bMatchValences Match valences option. Must be false.
+	 * 
+	 * @return True, if supported. False otherwise.
+	 */
+	public static boolean isSupported(final double dThreshold, final boolean bRingMatchesRingOnly,
+			final boolean bCompleteRingsOnly, final boolean bMatchValences) {
+		return dThreshold >= 1.0d && !bRingMatchesRingOnly && !bCompleteRingsOnly && !bMatchValences;
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Replaces the candidate by the MCS of the current candidate fragment and the passed in molecule.
+	 * 
+	 * @param mol Molecule, which does not contain the current candidate. Must not be null.
+	 */
+	private void refine(final ROMol mol) {
+		final ROMol_Vect mols = new ROMol_Vect();
+		String strSmarts = null;
+		MCSResult mcs = null;
+
+		try {
+			mols.add(m_fragment);
+			mols.add(mol);
+			mcs = RDKFuncs.findMCS(mols, true, 1.0d, getRemainingTimeout(), false,
+					false, false, false, false /* Match Chiral Tag */,
+					m_atomComparison.getRDKitComparator(), m_bondComparison.getRDKitComparator());
+			strSmarts = mcs.getSmartsString();
+			m_bTimedOut |= mcs.getCanceled();
+		}
+		finally {
+			if (mcs != null) {
+				mcs.delete();
+			}
+			mols.delete();
+		}
+
+		if (strSmarts == null || strSmarts.isEmpty()) {
+			m_bEmpty = true;
+			return;
+		}
+
+		// Cut the new candidate out of the molecule (or out of the old fragment, if
+		// the molecule cannot be matched for any reason) to keep real atoms and bonds
+		final RWMol query = RWMol.MolFromSmarts(generalizeSmarts(strSmarts));
+		ROMol molBase = mol;
+		Match_Vect match = mol.getSubstructMatch(query);
+		if (match.size() == 0) {
+			match.delete();
+			molBase = m_fragment;
+			match = m_fragment.getSubstructMatch(query);
+		}
+
+		if (match.size() == 0) {
+			// Should not happen - the MCS must be contained in both molecules
+			match.delete();
+			query.delete();
+			m_bEmpty = true;
+			return;
+		}
+
+		final RWMol fragment = createFragment(molBase, query, match);
+		match.delete();
+
+		delete();
+		m_fragment = fragment;
+		m_query = query;
+		m_strSmarts = strSmarts;
+	}
+
+	/**
+	 * Determines the timeout to be passed to the RDKit for the next refinement, which is
+	 * the time left until the deadline.
+	 * 
+	 * @return Remaining time in seconds, at least 1 second. 0 (no timeout), if there is no deadline.
+	 */
+	private int getRemainingTimeout() {
+		if (m_lDeadline == Long.MAX_VALUE) {
+			return 0;
+		}
+
+		final long lRemaining = m_lDeadline - System.currentTimeMillis();
+		return (int)Math.max(1, Math.min(Integer.MAX_VALUE, (lRemaining + 999) / 1000));
+	}
+
+	/**
+	 * Rewrites the SMARTS of an MCS, so that a substructure search with it matches the same
+	 * atoms and bonds as the MCS comparison modes. The MCS calculation writes only the atom
+	 * and bond types, which it has encountered in the involved molecules.
+	 * 
+	 * @param strSmarts SMARTS of an MCS. Must not be null.
+	 * 
+	 * @return Generalized SMARTS.
+	 */
+	private String generalizeSmarts(final String strSmarts) {
+		final StringBuilder sbSmarts = new StringBuilder(strSmarts.length());
+		final StringBuilder sbBond = new StringBuilder();
+		final int iLength = strSmarts.length();
+		int i = 0;
+
+		while (i <= iLength) {
+			final char c = (i < iLength ? strSmarts.charAt(i) : 0);
+
+			// Collect bond expressions
+			if (c != 0 && "-=#:~,".indexOf(c) >= 0) {
+				sbBond.append(c);
+				i++;
+				continue;
+			}
+
+			if (sbBond.length() > 0) {
+				String strBond = sbBond.toString();
+				if (m_bondComparison == BondComparison.CompareAny) {
+					strBond = "~";
+				}
+				else if (m_bondComparison == BondComparison.CompareOrder &&
+						(strBond.indexOf('-') >= 0 || strBond.indexOf(':') >= 0)) {
+					// Single and aromatic bonds match each other
+					strBond = "-,:";
+				}
+				sbSmarts.append(strBond);
+				sbBond.setLength(0);
+			}
+
+			if (c == '[') {
+				final int iEnd = strSmarts.indexOf(']', i);
+				sbSmarts.append(m_atomComparison == AtomComparison.CompareAny ?
+						"*" : strSmarts.substring(i, iEnd + 1));
+				i = iEnd + 1;
+			}
+			else {
+				if (c != 0) {
+					sbSmarts.append(c);
+				}
+				i++;
+			}
+		}
+
+		return sbSmarts.toString();
+	}
+
+	/**
+	 * Creates a copy of the passed in molecule, which contains only the atoms and bonds
+	 * matched by the query.
+	 * 
+	 * @param mol Molecule to cut the fragment out from. Must not be null.
+	 * @param query Query, which matches the molecule. Must not be null.
+	 * @param match Match of the query in the molecule. Must not be null.
+	 * 
+	 * @return Fragment. Never null.
+	 */
+	private static RWMol createFragment(final ROMol mol, final ROMol query, final Match_Vect match) {
+		final int iAtomCount = (int)mol.getNumAtoms();
+		final int[] arrMappedAtoms = new int[(int)query.getNumAtoms()];
+		final boolean[] arrKeepAtoms = new boolean[iAtomCount];
+		for (int i = 0; i < match.size(); i++) {
+			final Int_Pair pair = match.get(i);
+			arrMappedAtoms[pair.getFirst()] = pair.getSecond();
+			arrKeepAtoms[pair.getSecond()] = true;
+		}
+
+		final boolean[] arrKeepBonds = new boolean[(int)mol.getNumBonds()];
+		for (int i = 0; i < query.getNumBonds(); i++) {
+			final Bond bondQuery = query.getBondWithIdx(i);
+			final Bond bond = mol.getBondBetweenAtoms(arrMappedAtoms[(int)bondQuery.getBeginAtomIdx()],
+					arrMappedAtoms[(int)bondQuery.getEndAtomIdx()]);
+			arrKeepBonds[(int)bond.getIdx()] = true;
+		}
+
+		final RWMol fragment = new RWMol(mol);
+		fragment.beginBatchEdit();
+		for (int i = 0; i < arrKeepBonds.length; i++) {
+			if (!arrKeepBonds[i]) {
+				final Bond bond = mol.getBondWithIdx(i);
+				fragment.removeBond(bond.getBeginAtomIdx(), bond.getEndAtomIdx());
+			}
+		}
+		for (int i = 0; i < iAtomCount; i++) {
+			if (!arrKeepAtoms[i]) {
+				fragment.removeAtom(i);
+			}
+		}
+		fragment.commitBatchEdit();
+
+		if (!fragment.getRingInfo().isInitialized()) {
+			RDKFuncs.fastFindRings(fragment);
+		}
+
+		return fragment;
+	}
+}
@@ -46,13 +46,25 @@
  */
 package org.rdkit.knime.nodes.mcs;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.RDKit.MCSResult;
 import org.RDKit.RDKFuncs;
 import org.RDKit.ROMol;
 import org.RDKit.ROMol_Vect;
+import org.RDKit.RWMol;
 import org.knime.chem.types.SmartsCellFactory;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
@@ -61,7 +73,6 @@ import org.knime.core.data.def.IntCell;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.NodeLogger;
-import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
 
 /**
  * This utility class offers MCS functionality based on the RDKit.
@@ -86,6 +97,18 @@ public final class MCSUtils {
 	/** Index of result data cells for timed out value. */
 	public static final int TIMED_OUT_INDEX = 3;
 
+	/** Minimal number of molecules to try finding the MCS based on small subsets first. */
+	public static final int MIN_SEEDING_MOLECULES = 20;
+
+	/** Maximal number of molecules in a subset, before giving up finding the MCS based on subsets. */
+	public static final int MAX_SEEDING_SUBSET_SIZE = 12;
+
+	/** Number of molecules checked for containing an MCS candidate in one task. */
+	private static final int VERIFICATION_CHUNK_SIZE = 64;
+
+	/** Time in milliseconds after which idle threads of an MCS worker pool die. */
+	private static final long EXECUTOR_KEEP_ALIVE_TIME = 30000;
+
 	/** The logging instance. */
 	private static final NodeLogger LOGGER = NodeLogger.getLogger(MCSUtils.class);
 
@@ -103,19 +126,23 @@ public final class MCSUtils {
 	 * @param bMatchValencesOption Match valences option. Default is false.
 	 * @param atomComparison Arom comparison mode. Must not be null.
 	 * @param bondComparison Bond comparison mode. Must not be null.
-	 * @param iTimeout Timeout for the calculation.
+	 * @param iTimeout Timeout in seconds for the entire calculation. 0 for no timeout.
+	 * @param executor Worker pool to run the calculations in. Must not be null. It is owned by the caller,
+	 * 		who should use one pool for all MCS calculations of a node execution and shut it down afterwards.
 	 * @param exec Optional execution context. Can be null. If set, it will be used to show progress and
 	 * 		to let a user interrupt the calculation.
 	 * 
 	 * @return Array of data cells with MCS results.
 	 * 
+	 * @see #createExecutor(int)
+	 * 
 	 * @throws Exception Thrown, if MCS could not be calculated.
 	 */
 	public static final DataCell[] calculateMCS(final ROMol_Vect mols, final double dThreshold,
 			final boolean bRingMatchesRingOnly, final boolean bCompleteRingsOnly,
 			final boolean bMatchValencesOption,
 			final AtomComparison atomComparison, final BondComparison bondComparison,
-			final int iTimeout, final ExecutionContext exec) throws Exception {
+			final int iTimeout, final ExecutorService executor, final ExecutionContext exec) throws Exception {
 		final DataCell[] arrResults = new DataCell[4];
 
 		// Calculate MCS
@@ -153,68 +180,34 @@ public final class MCSUtils {
 			}
 		}
 
-		// Handle normal case: Process MCS in a separate thread
+		// Handle normal case: Process MCS in a worker pool
 		else {
-			final Map<String, Object> mapResult = new HashMap<String, Object>();
-			final Thread thread = new Thread(new Runnable() {
-
-				@Override
-				public void run() {
-					MCSResult mcs = null;
-
-					try {
-						mcs = RDKFuncs.findMCS(mols, true,
-								dThreshold, iTimeout, false,
-								bMatchValencesOption, bRingMatchesRingOnly, bCompleteRingsOnly,
-								false /* Match Chiral Tag */,
-								atomComparison.getRDKitComparator(), bondComparison.getRDKitComparator());
-						if (mcs != null) {
-							mapResult.put("MCS", mcs.getSmartsString());
-							mapResult.put("NumAtoms", (int)mcs.getNumAtoms());
-							mapResult.put("NumBonds", (int)mcs.getNumBonds());
-							mapResult.put("Canceled", mcs.getCanceled());
-						}
-					}
-					catch (final Throwable e) {
-						// We are interested in OutOfMemory or any other error as well, but
-						// we need to rethrow the following to let the Java VM do it's job properly.
-						if (e instanceof ThreadDeath) {
-							throw (ThreadDeath)e;
-						}
-
-						LOGGER.error("Calculating MCS failed. " + e.getMessage(), e);
-						mapResult.put("Exception", e);
-					}
-					finally {
-						if (mcs != null) {
-							mcs.delete();
-						}
-					}
-				}
-
-			}, "MCS Calculation");
+			final long lDeadline = (iTimeout > 0 ? System.currentTimeMillis() + iTimeout * 1000L : Long.MAX_VALUE);
+			final int iSizeBased = (int)(iNumberOfMolecules / 10.0d * 100.0d);
+			final int iTimeoutBased = (int)(iTimeout * 1000.0d / 100.0d);
+			final int iProgressInterval = (int)(Math.max(500, Math.min(5000.0d, Math.min(iSizeBased, iTimeoutBased))));
+			LOGGER.debug("Interval based on size: " + iSizeBased);
+			LOGGER.debug("Interval based on timeOut: " + iTimeoutBased);
+			LOGGER.debug("=> MCS Progress Update Interval: " + iProgressInterval);
 
-			thread.setDaemon(true);
-			thread.start();
+			// The MCS of a subset can only be used for the MCS of all molecules, if the MCS needs
+			// to cover all molecules and if the substructure search is as strict as the MCS comparison,
+			// which is not the case for complete rings and valences
+			// Canceled native calculations keep their pool threads busy until they run out - as a
+			// cancellation ends the node execution, they do not block other calculations of it
+			Map<String, Object> mapResult = null;
 
-			if (exec != null) {
-				// Wait for the thread to finish or for the user to cancel
-				final int iSizeBased = (int)(iNumberOfMolecules / 10.0d * 100.0d);
-				final int iTimeoutBased = (int)(iTimeout * 1000.0d / 100.0d);
-				final int iProgressInterval = (int)(Math.max(500, Math.min(5000.0d, Math.min(iSizeBased, iTimeoutBased))));
-				LOGGER.debug("Interval based on size: " + iSizeBased);
-				LOGGER.debug("Interval based on timeOut: " + iTimeoutBased);
-				LOGGER.debug("=> MCS Progress Update Interval: " + iProgressInterval);
-				AbstractRDKitNodeModel.monitorWorkingThreadExecution(thread, exec, iProgressInterval, true, false);
+			if (iNumberOfMolecules >= MIN_SEEDING_MOLECULES && dThreshold >= 1.0d &&
+					!bCompleteRingsOnly && !bMatchValencesOption) {
+				mapResult = findMCSBySeeding(mols, bRingMatchesRingOnly, atomComparison, bondComparison,
+						lDeadline, iProgressInterval, executor, exec);
 			}
-			else {
-				try {
-					thread.join();
-				}
-				catch (final InterruptedException excInterrupted) {
-					// This gets thrown when the user cancels
-					throw new CanceledExecutionException();
-				}
+
+			if (mapResult == null) {
+				final int iRemainingTimeout = getRemainingTimeout(lDeadline);
+				mapResult = waitFor(executor.submit(() -> findMCS(mols, dThreshold,
+						bRingMatchesRingOnly, bCompleteRingsOnly, bMatchValencesOption,
+						atomComparison, bondComparison, iRemainingTimeout)), iProgressInterval, exec);
 			}
 
 			// Re-throw an exception
@@ -251,6 +244,285 @@ public final class MCSUtils {
 		return arrResults;
 	}
 
+	/**
+	 * Creates a worker pool for MCS calculations. It is meant to be used for all MCS
+	 * calculations of a node execution and to be shut down at the end of it. Idle threads
+	 * die after a while, hence a pool that is not shut down explicitly does not keep threads
+	 * alive. Threads of a pool that has been shut down die as soon as their (possibly
+	 * canceled, but still running) native calculations have finished.
+	 * 
+	 * @param iMaxThreads Maximal number of threads. If less than 1, 1 thread is used.
+	 * 
+	 * @return Worker pool. Never null. Should be shut down by the caller.
+	 */
+	public static ExecutorService createExecutor(final int iMaxThreads) {
+		final int iThreads = Math.max(1, iMaxThreads);
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(iThreads, iThreads,
+				EXECUTOR_KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+					final Thread thread = new Thread(runnable, "MCS Calculation");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	//
+	// Private Static Methods
+	//
+
+	/**
+	 * Calls the RDKit to calculate the MCS of the passed in RDKit molecules. Errors are not thrown,
+	 * but returned in the result map.
+	 * 
+	 * @return Map with the MCS results. If an error occurred, it contains the key "Exception".
+	 * 
+	 * @see #calculateMCS(ROMol_Vect, double, boolean, boolean, boolean, AtomComparison, BondComparison, int, ExecutorService, ExecutionContext)
+	 */
+	private static Map<String, Object> findMCS(final ROMol_Vect mols, final double dThreshold,
+			final boolean bRingMatchesRingOnly, final boolean bCompleteRingsOnly,
+			final boolean bMatchValencesOption,
+			final AtomComparison atomComparison, final BondComparison bondComparison,
+			final int iTimeout) {
+		final Map<String, Object> mapResult = new HashMap<String, Object>();
+		MCSResult mcs = null;
+
+		try {
+			mcs = RDKFuncs.findMCS(mols, true,
+					dThreshold, iTimeout, false,
+					bMatchValencesOption, bRingMatchesRingOnly, bCompleteRingsOnly,
+					false /* Match Chiral Tag */,
+					atomComparison.getRDKitComparator(), bondComparison.getRDKitComparator());
+			if (mcs != null) {
+				mapResult.put("MCS", mcs.getSmartsString());
+				mapResult.put("NumAtoms", (int)mcs.getNumAtoms());
+				mapResult.put("NumBonds", (int)mcs.getNumBonds());
+				mapResult.put("Canceled", mcs.getCanceled());
+			}
+		}
+		catch (final Throwable e) {
+			// We are interested in OutOfMemory or any other error as well, but
+			// we need to rethrow the following to let the Java VM do it's job properly.
+			if (e instanceof ThreadDeath) {
+				throw (ThreadDeath)e;
+			}
+
+			LOGGER.error("Calculating MCS failed. " + e.getMessage(), e);
+			mapResult.put("Exception", e);
+		}
+		finally {
+			if (mcs != null) {
+				mcs.delete();
+			}
+		}
+
+		return mapResult;
+	}
+
+	/**
+	 * Tries to find the MCS of all passed in molecules based on the MCS of a small subset of them.
+	 * The MCS of a subset is at least as large as the MCS of all molecules. Hence, if it is
+	 * contained in all molecules, it is also the MCS of all molecules. The subset starts with
+	 * the two smallest molecules. As long as a molecule does not contain the MCS of the subset,
+	 * the first of these molecules gets added to the subset, up to {@link #MAX_SEEDING_SUBSET_SIZE}
+	 * molecules. The molecules are checked in parallel in the worker pool. All calculations
+	 * share the time until the passed in deadline. When it is reached, seeding stops.
+	 * 
+	 * @return Map with the MCS results or null, if the MCS could not be determined based on a subset.
+	 * 
+	 * @throws CanceledExecutionException Thrown, if the user canceled the calculation.
+	 * 
+	 * @see #calculateMCS(ROMol_Vect, double, boolean, boolean, boolean, AtomComparison, BondComparison, int, ExecutorService, ExecutionContext)
+	 */
+	private static Map<String, Object> findMCSBySeeding(final ROMol_Vect mols,
+			final boolean bRingMatchesRingOnly, final AtomComparison atomComparison,
+			final BondComparison bondComparison, final long lDeadline, final int iProgressInterval,
+			final ExecutorService executor, final ExecutionContext exec) throws CanceledExecutionException {
+		final int iNumberOfMolecules = (int)mols.size();
+		final ROMol[] arrMols = new ROMol[iNumberOfMolecules];
+		final Integer[] arrIndexesBySize = new Integer[iNumberOfMolecules];
+		for (int i = 0; i < iNumberOfMolecules; i++) {
+			arrMols[i] = mols.get(i);
+			arrIndexesBySize[i] = i;
+		}
+		Arrays.sort(arrIndexesBySize, Comparator.comparingLong((Integer i) -> arrMols[i].getNumBonds())
+				.thenComparingLong(i -> arrMols[i].getNumAtoms()));
+
+		final List<Integer> listSubset = new ArrayList<>(Arrays.asList(arrIndexesBySize[0], arrIndexesBySize[1]));
+		Map<String, Object> mapResult = null;
+
+		while (mapResult == null && listSubset.size() <= MAX_SEEDING_SUBSET_SIZE &&
+				System.currentTimeMillis() < lDeadline) {
+			if (exec != null) {
+				exec.setMessage("Calculating MCS of " + listSubset.size() + " molecules");
+			}
+
+			// Calculate MCS of the subset - when canceled the still running calculation may use
+			// the vector, which gets therefore only freed explicitly after a regular finish
+			final ROMol_Vect molsSubset = new ROMol_Vect();
+			for (final int iIndex : listSubset) {
+				molsSubset.add(arrMols[iIndex]);
+			}
+			final int iRemainingTimeout = getRemainingTimeout(lDeadline);
+			final Map<String, Object> mapCandidate = waitFor(executor.submit(() -> findMCS(molsSubset, 1.0d,
+					bRingMatchesRingOnly, false, false, atomComparison, bondComparison, iRemainingTimeout)),
+					iProgressInterval, exec);
+			molsSubset.delete();
+
+			// Give up on errors, timeouts or if there is no common substructure at all
+			final String strSmarts = (String)mapCandidate.get("MCS");
+			if (mapCandidate.containsKey("Exception") || !Boolean.FALSE.equals(mapCandidate.get("Canceled")) ||
+					strSmarts == null || strSmarts.isEmpty()) {
+				break;
+			}
+
+			// Find the first molecule, which does not contain the MCS candidate
+			if (exec != null) {
+				exec.setMessage("Checking MCS candidate with " + mapCandidate.get("NumAtoms") + " atoms");
+			}
+			final int iMismatch = findFirstMismatch(arrMols, strSmarts, iProgressInterval, executor, exec);
+			if (iMismatch == -1) {
+				mapResult = mapCandidate;
+			}
+			else if (iMismatch < 0) {
+				// The candidate could not be checked
+				break;
+			}
+			else {
+				listSubset.add(iMismatch);
+			}
+		}
+
+		LOGGER.debug(mapResult == null ? "MCS could not be determined based on " + MAX_SEEDING_SUBSET_SIZE +
+				" molecules - Calculating it based on all molecules." :
+					"MCS determined based on " + listSubset.size() + " of " + iNumberOfMolecules + " molecules.");
+
+		return mapResult;
+	}
+
+	/**
+	 * Determines the first of the passed in molecules, which does not contain the passed in
+	 * substructure. The molecules are checked in chunks in the worker pool.
+	 * 
+	 * @param arrMols Molecules to check. Must not be null.
+	 * @param strSmarts Substructure as SMARTS. Must not be null.
+	 * @param iProgressInterval Interval in milliseconds to check for cancellation.
+	 * @param executor Worker pool to run the checks. Must not be null.
+	 * @param exec Optional execution context. Can be null.
+	 * 
+	 * @return Index of the first molecule, which does not contain the substructure, -1,
+	 * 		if all molecules contain it, or -2, if the SMARTS could not be parsed.
+	 * 
+	 * @throws CanceledExecutionException Thrown, if the user canceled the calculation.
+	 */
+	private static int findFirstMismatch(final ROMol[] arrMols, final String strSmarts,
+			final int iProgressInterval, final ExecutorService executor, final ExecutionContext exec)
+					throws CanceledExecutionException {
+		final RWMol query = RWMol.MolFromSmarts(strSmarts);
+		if (query == null) {
+			LOGGER.debug("Unable to parse MCS candidate " + strSmarts + " - Giving up seeding.");
+			return -2;
+		}
+
+		// Ring information is needed for ring queries and must not be created concurrently
+		if (!query.getRingInfo().isInitialized()) {
+			RDKFuncs.fastFindRings(query);
+		}
+
+		final List<Future<Integer>> listChunks = new ArrayList<>();
+		for (int iFrom = 0; iFrom < arrMols.length; iFrom += VERIFICATION_CHUNK_SIZE) {
+			final int iStart = iFrom;
+			final int iEnd = Math.min(iFrom + VERIFICATION_CHUNK_SIZE, arrMols.length);
+			listChunks.add(executor.submit(() -> {
+				for (int i = iStart; i < iEnd; i++) {
+					if (!arrMols[i].hasSubstructMatch(query)) {
+						return i;
+					}
+				}
+				return -1;
+			}));
+		}
+
+		// Wait for all chunks as the query molecule is in use until then - when canceled
+		// it gets only freed by the garbage collector after all chunks have finished
+		int iMismatch = -1;
+		for (final Future<Integer> future : listChunks) {
+			final int iChunkMismatch = waitFor(future, iProgressInterval, exec);
+			if (iMismatch < 0) {
+				iMismatch = iChunkMismatch;
+			}
+		}
+		query.delete();
+
+		return iMismatch;
+	}
+
+	/**
+	 * Waits for the result of a task running in the worker pool and checks regularly, if the user
+	 * canceled the execution. In that case the task gets canceled. As native calculations cannot
+	 * be interrupted, they will run out by themselves.
+	 * 
+	 * @param future The task to wait for. Must not be null.
+	 * @param iCheckIntervalInMillis Interval in milliseconds to check for cancellation.
+	 * @param exec Optional execution context. Can be null to wait without cancellation support.
+	 * 
+	 * @return The result of the task.
+	 * 
+	 * @throws CanceledExecutionException Thrown, if the user canceled the calculation.
+	 */
+	private static <T> T waitFor(final Future<T> future, final int iCheckIntervalInMillis,
+			final ExecutionContext exec) throws CanceledExecutionException {
+		int iCounter = 0;
+
+		while (true) {
+			try {
+				return future.get(iCheckIntervalInMillis, TimeUnit.MILLISECONDS);
+			}
+			catch (final TimeoutException excTimeout) {
+				// Still running - check cancellation below
+			}
+			catch (final InterruptedException excInterrupted) {
+				// This gets thrown when the user cancels
+				future.cancel(true);
+				throw new CanceledExecutionException();
+			}
+			catch (final ExecutionException excExecution) {
+				throw new RuntimeException(excExecution.getCause().getMessage(), excExecution.getCause());
+			}
+
+			if (exec != null) {
+				try {
+					exec.checkCanceled();
+					exec.setProgress(1.0d - (10d / (10d + iCounter++)));
+				}
+				catch (final CanceledExecutionException exc) {
+					exec.setProgress("Cancellation in progress - Please wait ...");
+					future.cancel(true);
+					LOGGER.warn("MCS calculation has not been stopped when cancelling. It will run out by itself.");
+					throw exc;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determines the timeout to be passed to the RDKit for a calculation that must finish
+	 * before the passed in deadline.
+	 * 
+	 * @param lDeadline Deadline in milliseconds (system time) or Long.MAX_VALUE for no deadline.
+	 * 
+	 * @return Remaining time in seconds, at least 1 second. 0 (no timeout), if there is no deadline.
+	 */
+	private static int getRemainingTimeout(final long lDeadline) {
+		if (lDeadline == Long.MAX_VALUE) {
+			return 0;
+		}
+
+		final long lRemaining = lDeadline - System.currentTimeMillis();
+		return (int)Math.max(1, Math.min(Integer.MAX_VALUE, (lRemaining + 999) / 1000));
+	}
+
 	//
 	// Constructor
 	//
@@ -48,6 +48,8 @@
  */
 package org.rdkit.knime.nodes.mcs;
 
+import java.util.concurrent.ExecutorService;
+
 import org.RDKit.ROMol;
 import org.RDKit.ROMol_Vect;
 import org.knime.chem.types.SmartsCell;
@@ -129,6 +131,9 @@ public class RDKitMCSNodeModel extends AbstractRDKitNodeModel {
 	private final SettingsModelIntegerBounded m_modelTimeout =
 			registerSettings(RDKitMCSNodeDialog.createTimeoutModel());
 
+	/** Worker pool for the MCS calculations of one node execution. Null, if not executing. */
+	private ExecutorService m_executorMcs = null;
+
 	//
 	// Constructor
 	//
@@ -282,7 +287,7 @@ public class RDKitMCSNodeModel extends AbstractRDKitNodeModel {
 		final DataCell[] arrResults = MCSUtils.calculateMCS(mols, m_modelThreshold.getDoubleValue(),
 				m_modelRingMatchesRingOnlyOption.getBooleanValue(), m_modelCompleteRingsOnlyOption.getBooleanValue(),
 				m_modelMatchValencesOption.getBooleanValue(), m_modelAtomComparison.getValue(),
-				m_modelBondComparison.getValue(), m_modelTimeout.getIntValue(), execSub2);
+				m_modelBondComparison.getValue(), m_modelTimeout.getIntValue(), getMcsExecutor(), execSub2);
 
 		newTableData.addRowToTable(new DefaultRow("MCS",
 				arrResults[MCSUtils.SMARTS_INDEX],
@@ -312,4 +317,37 @@ public class RDKitMCSNodeModel extends AbstractRDKitNodeModel {
 
 		return new BufferedDataTable[] { newTableData.getTable() };
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * This implementation shuts down the worker pool of the MCS calculations. Still running
+	 * native calculations of a canceled execution finish by themselves.
+	 */
+	@Override
+	protected void finishExecution() throws Exception {
+		try {
+			if (m_executorMcs != null) {
+				m_executorMcs.shutdownNow();
+				m_executorMcs = null;
+			}
+		}
+		finally {
+			super.finishExecution();
+		}
+	}
+
+	/**
+	 * Returns the worker pool for the MCS calculations of the current node execution.
+	 * It gets created when called the first time and is bounded by the maximum number
+	 * of parallel workers.
+	 * 
+	 * @return Worker pool. Never null.
+	 */
+	protected synchronized ExecutorService getMcsExecutor() {
+		if (m_executorMcs == null) {
+			m_executorMcs = MCSUtils.createExecutor(getMaxParallelWorkers());
+		}
+
+		return m_executorMcs;
+	}
 }
@@ -810,7 +810,7 @@ public class Molecule2RDKitConverterNodeModel extends AbstractRDKitNodeModel {
 		// Runs the multiple threads to do the work
 		try {
 			new AbstractRDKitNodeModel.ParallelProcessor(factory, resultProcessor, lTotalRowCount,
-					getWarningConsolidator(), exec).run(inData[0]);
+					getWarningConsolidator(), exec).process(inData[0]);
 		}
 		catch (final Exception e) {
 			exec.checkCanceled();
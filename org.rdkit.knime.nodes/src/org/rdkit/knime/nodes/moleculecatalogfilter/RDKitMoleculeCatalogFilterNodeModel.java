@@ -502,7 +502,7 @@ public class RDKitMoleculeCatalogFilterNodeModel extends AbstractRDKitNodeModel
         // Runs the multiple threads to do the work
         try {
         	new AbstractRDKitNodeModel.ParallelProcessor(factory, resultProcessor, iTotalRowCount, 
-       			getWarningConsolidator(), exec).run(inData[0]);
+       			getWarningConsolidator(), exec).process(inData[0]);
         } 
         catch (Exception e) {
             exec.checkCanceled();
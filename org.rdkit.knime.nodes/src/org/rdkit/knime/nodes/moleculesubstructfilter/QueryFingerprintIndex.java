@@ -0,0 +1,273 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.moleculesubstructfilter;
+
+import org.knime.core.data.vector.bitvector.DenseBitVector;
+
+/**
+ * Index over the fingerprints of substructure query molecules used for pre-screening.
+ * A query molecule can only be a substructure of a molecule, if all on bits of its
+ * fingerprint are also set in the fingerprint of the molecule. Every query is filed
+ * under one of its on bits (the key bit), which is the bit that is set in the fewest
+ * query fingerprints. For a molecule only the queries filed under key bits, which are
+ * set in its fingerprint, are checked further, and this check is done on the
+ * 64 bit words of the fingerprints without allocating any objects.
+ * The index is immutable and can be used from multiple threads concurrently.
+ */
+public class QueryFingerprintIndex {
+
+	//
+	// Members
+	//
+
+	/** Number of queries, including queries without fingerprint. */
+	private final int m_iQueryCount;
+
+	/** Fingerprint words of all queries. Null for queries without fingerprint. */
+	private final long[][] m_arrQueryWords;
+
+	/** Key bits, which have queries filed under them. */
+	private final int[] m_arrKeyBits;
+
+	/** Indexes of the queries filed under the key bit with the same index in m_arrKeyBits. */
+	private final int[][] m_arrKeyBitQueries;
+
+	/** Candidate mask with all queries that have a fingerprint without any on bits. */
+	private final long[] m_arrFingerprintCandidates;
+
+	/** Candidate mask with all queries that have no fingerprint and must be checked always. */
+	private final long[] m_arrUnscreenedCandidates;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new index for the passed in query fingerprints.
+	 * 
+	 * @param arrQueryFingerprints Fingerprints of all queries. Must not be null.
+	 * 		Elements can be null, if no fingerprint is available for a query.
+	 * 		Such queries will always be candidates.
+	 */
+	public QueryFingerprintIndex(final DenseBitVector[] arrQueryFingerprints) {
+		m_iQueryCount = arrQueryFingerprints.length;
+		m_arrQueryWords = new long[m_iQueryCount][];
+		m_arrFingerprintCandidates = new long[(m_iQueryCount + 63) >>> 6];
+		m_arrUnscreenedCandidates = new long[m_arrFingerprintCandidates.length];
+
+		// Count for each bit in how many query fingerprints it is set
+		int iMaxBits = 0;
+		for (final DenseBitVector fp : arrQueryFingerprints) {
+			if (fp != null) {
+				iMaxBits = (int)Math.max(iMaxBits, fp.length());
+			}
+		}
+		final int[] arrBitFrequencies = new int[iMaxBits];
+		for (int i = 0; i < m_iQueryCount; i++) {
+			final DenseBitVector fp = arrQueryFingerprints[i];
+			if (fp == null) {
+				setBit(m_arrUnscreenedCandidates, i);
+			}
+			else {
+				m_arrQueryWords[i] = fp.getAllBits();
+				for (long lBit = fp.nextSetBit(0); lBit >= 0; lBit = fp.nextSetBit(lBit + 1)) {
+					arrBitFrequencies[(int)lBit]++;
+				}
+			}
+		}
+
+		// Determine the key bit of each query and file the queries under it
+		final int[] arrQueryKeyBits = new int[m_iQueryCount];
+		final int[] arrKeyBitQueryCounts = new int[iMaxBits];
+		for (int i = 0; i < m_iQueryCount; i++) {
+			final DenseBitVector fp = arrQueryFingerprints[i];
+			int iKeyBit = -1;
+			if (fp != null) {
+				for (long lBit = fp.nextSetBit(0); lBit >= 0; lBit = fp.nextSetBit(lBit + 1)) {
+					if (iKeyBit == -1 || arrBitFrequencies[(int)lBit] < arrBitFrequencies[iKeyBit]) {
+						iKeyBit = (int)lBit;
+					}
+				}
+				if (iKeyBit == -1) {
+					setBit(m_arrFingerprintCandidates, i);
+				}
+				else {
+					arrKeyBitQueryCounts[iKeyBit]++;
+				}
+			}
+			arrQueryKeyBits[i] = iKeyBit;
+		}
+
+		int iKeyBitCount = 0;
+		for (final int iCount : arrKeyBitQueryCounts) {
+			if (iCount > 0) {
+				iKeyBitCount++;
+			}
+		}
+
+		m_arrKeyBits = new int[iKeyBitCount];
+		m_arrKeyBitQueries = new int[iKeyBitCount][];
+		final int[] arrKeyBitIndexes = new int[iMaxBits];
+		for (int iBit = 0, iKey = 0; iBit < iMaxBits; iBit++) {
+			if (arrKeyBitQueryCounts[iBit] > 0) {
+				m_arrKeyBits[iKey] = iBit;
+				m_arrKeyBitQueries[iKey] = new int[arrKeyBitQueryCounts[iBit]];
+				arrKeyBitIndexes[iBit] = iKey++;
+				arrKeyBitQueryCounts[iBit] = 0;
+			}
+		}
+		for (int i = 0; i < m_iQueryCount; i++) {
+			final int iKeyBit = arrQueryKeyBits[i];
+			if (iKeyBit >= 0) {
+				m_arrKeyBitQueries[arrKeyBitIndexes[iKeyBit]][arrKeyBitQueryCounts[iKeyBit]++] = i;
+			}
+		}
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Determines all queries, which can be a substructure of a molecule with the
+	 * passed in fingerprint. These are all queries without fingerprint and all queries
+	 * with a fingerprint, which has all its on bits also set in the passed in fingerprint.
+	 * 
+	 * @param fingerprintMol Fingerprint of a molecule. Can be null, if no fingerprint
+	 * 		is available. In this case only queries without fingerprint will be candidates.
+	 * 
+	 * @return Candidate mask, which should be evaluated with {@link #isCandidate(long[], int)}.
+	 */
+	public long[] getCandidates(final DenseBitVector fingerprintMol) {
+		final long[] arrCandidates = m_arrUnscreenedCandidates.clone();
+
+		if (fingerprintMol != null) {
+			final long[] arrMolWords = fingerprintMol.getAllBits();
+
+			for (int i = 0; i < arrCandidates.length; i++) {
+				arrCandidates[i] |= m_arrFingerprintCandidates[i];
+			}
+
+			for (int iKey = 0; iKey < m_arrKeyBits.length; iKey++) {
+				final int iKeyBit = m_arrKeyBits[iKey];
+				final int iWord = iKeyBit >>> 6;
+				if (iWord < arrMolWords.length && (arrMolWords[iWord] & (1L << iKeyBit)) != 0) {
+					for (final int iQuery : m_arrKeyBitQueries[iKey]) {
+						if (isSubset(m_arrQueryWords[iQuery], arrMolWords)) {
+							setBit(arrCandidates, iQuery);
+						}
+					}
+				}
+			}
+		}
+
+		return arrCandidates;
+	}
+
+	/**
+	 * Returns the number of queries this index was created for.
+	 * 
+	 * @return Number of queries.
+	 */
+	public int getQueryCount() {
+		return m_iQueryCount;
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Determines, if the query with the specified index is a candidate according to the
+	 * passed in candidate mask.
+	 * 
+	 * @param arrCandidates Candidate mask as returned by {@link #getCandidates(DenseBitVector)}.
+	 * 		Must not be null.
+	 * @param iQuery Index of a query.
+	 * 
+	 * @return True, if the query is a candidate and needs to be checked for a
+	 * 		substructure match. False otherwise.
+	 */
+	public static boolean isCandidate(final long[] arrCandidates, final int iQuery) {
+		return (arrCandidates[iQuery >>> 6] & (1L << iQuery)) != 0;
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Determines, if all bits set in the first word array are also set in the second one.
+	 * 
+	 * @param arrQueryWords Words of the query fingerprint. Must not be null.
+	 * @param arrMolWords Words of the molecule fingerprint. Must not be null.
+	 * 
+	 * @return True, if the query fingerprint is a subset of the molecule fingerprint.
+	 */
+	private static boolean isSubset(final long[] arrQueryWords, final long[] arrMolWords) {
+		for (int i = 0; i < arrQueryWords.length; i++) {
+			final long lMolWord = (i < arrMolWords.length ? arrMolWords[i] : 0L);
+			if ((arrQueryWords[i] & ~lMolWord) != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Sets the bit with the specified index in the passed in word array.
+	 * 
+	 * @param arrWords Word array. Must not be null.
+	 * @param iIndex Bit index.
+	 */
+	private static void setBit(final long[] arrWords, final int iIndex) {
+		arrWords[iIndex >>> 6] |= 1L << iIndex;
+	}
+}
@@ -58,6 +58,7 @@ import javax.swing.event.ChangeListener;
 
 import org.knime.chem.types.SmartsValue;
 import org.knime.core.data.DataValue;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
@@ -127,6 +128,9 @@ public class RDKitMoleculeSubstructFilterNodeDialog extends DefaultNodeSettingsP
 				createFingerprintScreeningThresholdModel(), "Fingerprint screening threshold: ", 1));
 		add(new DialogComponentBoolean(
 				createRowKeyMatchInfoOptionModel(), "Use row keys as substructure match information"));
+		add(new DialogComponentColumnNameSelection(
+				createFingerprintColumnNameModel(), "Pattern fingerprint column for screening: ", 0, false, true,
+				BitVectorValue.class));
 
 		// Relayout the components
 		final JPanel panel = (JPanel)getTab("Options");
@@ -333,4 +337,16 @@ public class RDKitMoleculeSubstructFilterNodeDialog extends DefaultNodeSettingsP
 	static final SettingsModelBoolean createRowKeyMatchInfoOptionModel() {
 		return new SettingsModelBoolean("row_key_match_info", true);
 	}
+
+	/**
+	 * Creates the settings model to be used for the optional column with
+	 * pre-calculated RDKit Pattern fingerprints of the input molecules.
+	 * If not set, fingerprints get calculated on the fly.
+	 * Added in October 2026.
+	 * 
+	 * @return Settings model for fingerprint column selection.
+	 */
+	static final SettingsModelString createFingerprintColumnNameModel() {
+		return new SettingsModelString("fingerprint_column", null);
+	}
 }
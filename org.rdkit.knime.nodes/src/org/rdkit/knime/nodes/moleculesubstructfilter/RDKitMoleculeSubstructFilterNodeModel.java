@@ -51,8 +51,13 @@ package org.rdkit.knime.nodes.moleculesubstructfilter;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.RDKit.ROMol;
 import org.RDKit.RWMol;
@@ -64,40 +69,48 @@ import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataValue;
-import org.knime.core.data.RowKey;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.ListCell;
-import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.BooleanCell.BooleanCellFactory;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.vector.bitvector.BitVectorValue;
 import org.knime.core.data.vector.bitvector.DenseBitVector;
-import org.knime.core.data.vector.bitvector.DenseBitVectorCell;
-import org.knime.core.data.vector.bitvector.DenseBitVectorCellFactory;
-import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
-import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
-import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 import org.rdkit.knime.nodes.AbstractRDKitCellFactory;
-import org.rdkit.knime.nodes.AbstractRDKitCellFactory.RowFailurePolicy;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
 import org.rdkit.knime.nodes.rdkfingerprint.DefaultFingerprintSettings;
 import org.rdkit.knime.nodes.rdkfingerprint.FingerprintSettings;
 import org.rdkit.knime.nodes.rdkfingerprint.FingerprintType;
 import org.rdkit.knime.nodes.substructfilter.RDKitSubstructFilterNodeModel;
+import org.rdkit.knime.properties.FingerprintSettingsHeaderProperty;
 import org.rdkit.knime.types.RDKitAdapterCell;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.InputDataInfo;
 import org.rdkit.knime.util.RDKitObjectCleaner;
 import org.rdkit.knime.util.SettingsModelEnumeration;
 import org.rdkit.knime.util.SettingsUtils;
+import org.rdkit.knime.util.WarningConsolidator;
 
 /**
  * This class is the node model of the RDKitMoleculeSubstructureFilter and
@@ -149,12 +162,21 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	/** Input data info index for Mol value. */
 	private static final int INPUT_COLUMN_MOL = 0;
 
-	/** Input data info index for Fingerprint value (calculated during pre-processing). */
+	/** Input data info index for the optional Fingerprint value with pre-calculated pattern fingerprints. */
 	private static final int INPUT_COLUMN_FP = 1;
 
 	/** Input data info index for Query Mol value. */
 	private static final int INPUT_COLUMN_QUERY = 0;
 
+	/** Result cell index of the matching substructures column. */
+	private static final int RESULT_CELL_MATCHES = 0;
+
+	/**
+	 * Result cell index of the internal flag, which tells the result processor, if a molecule
+	 * fulfills the matching criteria. It is not part of the output tables.
+	 */
+	private static final int RESULT_CELL_MATCHING_FLAG = 1;
+
 	/**
 	 * Fingerprint screening threshold value to use always the current default value
 	 * for number of query molecules that need to be present to enable the
@@ -217,6 +239,13 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	protected final SettingsModelBoolean m_modelRowKeyMatchInfoOption =
 			registerSettings(RDKitMoleculeSubstructFilterNodeDialog.createRowKeyMatchInfoOptionModel(), true);
 
+	/**
+	 * Settings model for the optional column with pre-calculated pattern fingerprints of the input molecules.
+	 * This was not available in the initial version.
+	 */
+	protected final SettingsModelString m_modelFingerprintColumnName =
+			registerSettings(RDKitMoleculeSubstructFilterNodeDialog.createFingerprintColumnNameModel(), true);
+
 	//
 	// Internals
 	//
@@ -235,27 +264,17 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 
 	/**
 	 * Intermediate pre-processing result, which will be used in processing phase.
-	 * It contains all fingerprints for the query table.
-	 */
-	private DenseBitVector[] m_arrQueryFingerprints = null;
-
-	/**
-	 * Intermediate pre-processing result, which will be used in processing phase.
-	 * It contains all on bit counts of the calculated fingerprints for the query table.
+	 * It contains the index over all fingerprints of the query table. Null, if
+	 * fingerprint screening is not used.
 	 */
-	private long[] m_arrQueryFpOnBitCounts = null;
+	private QueryFingerprintIndex m_queryFingerprintIndex = null;
 
 	/**
 	 * Intermediate pre-processing result, which will be used in processing phase.
-	 * This is the input molecule table with an added fingerprint column.
+	 * It contains the settings of the fingerprints used for screening. Null, if
+	 * fingerprint screening is not used.
 	 */
-	private BufferedDataTable m_tableWithFingerprints = null;
-
-	/**
-	 * Intermediate pre-processing result, which will be used in processing phase.
-	 * Settings model for the column name of the fingerprint column.
-	 */
-	protected SettingsModelString m_modelFingerprintColumnName = null;
+	private FingerprintSettings m_fingerprintSettings = null;
 
 	/**
 	 * Intermediate pre-processing result, which will be used in processing phase.
@@ -269,13 +288,6 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	 */
 	private int m_iTotalEmptyPatternCells = 0;
 
-	/**
-	 * This set is used for communication between parallel execution threads that determine, if
-	 * a molecule fulfills the matching criteria, and the code that performs the splitting.
-	 * We will synchronize on that object to ensure that only one thread is accessing at a time.
-	 */
-	private final HashSet<RowKey> m_setMatches = new HashSet<RowKey>(50);
-
 	//
 	// Constructor
 	//
@@ -286,6 +298,12 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	protected RDKitMoleculeSubstructFilterNodeModel() {
 		super(2, 2);
       registerInputTablesWithSizeLimits(1); // Query table supports only limited size
+
+		// Molecules can be streamed, query molecules are needed completely
+		setPortRoles(new InputPortRole[] {
+				InputPortRole.NONDISTRIBUTED_STREAMABLE,
+				InputPortRole.NONDISTRIBUTED_NONSTREAMABLE },
+				new OutputPortRole[] { OutputPortRole.NONDISTRIBUTED, OutputPortRole.NONDISTRIBUTED });
 	}
 
 	//
@@ -313,6 +331,14 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 				"Input column has not been specified yet.",
 				"Input column %COLUMN_NAME% does not exist. Has the first input table changed?");
 
+		// Determines, if the optional fingerprint column exists and contains pattern fingerprints - fails if not
+		if (hasFingerprintColumn()) {
+			SettingsUtils.checkColumnExistence(inSpecs[0], m_modelFingerprintColumnName, BitVectorValue.class,
+					"Fingerprint column has not been specified yet.",
+					"Fingerprint column %COLUMN_NAME% does not exist. Has the first input table changed?");
+			getFingerprintColumnSettings(inSpecs[0]);
+		}
+
 		// Auto guess the new column name and make it unique
 		SettingsUtils.autoGuessColumnName(inSpecs[0], null, null,
 				m_modelNewColumnName, "Matched Substructs");
@@ -357,13 +383,13 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 
 		switch (inPort) {
 		case 0: // First table with molecule column
-			// We have only one input mol column unless we are optimizing with a fingerprint column
-			// which gets created in the pre-processing phase. In this case we have 2 input columns
-			arrDataInfo = new InputDataInfo[m_modelFingerprintColumnName == null ? 1 : 2];
+			// We have only one input mol column unless pre-calculated fingerprints of the
+			// input table shall be used for the screening. In this case we have 2 input columns
+			arrDataInfo = new InputDataInfo[hasFingerprintColumn() ? 2 : 1];
 			arrDataInfo[INPUT_COLUMN_MOL] = new InputDataInfo(inSpec, m_modelInputColumnName,
 					InputDataInfo.EmptyCellPolicy.DeliverEmptyRow, null,
 					RDKitMolValue.class);
-			if (m_modelFingerprintColumnName != null) {
+			if (hasFingerprintColumn()) {
 				arrDataInfo[INPUT_COLUMN_FP] = new InputDataInfo(inSpec, m_modelFingerprintColumnName,
 						InputDataInfo.EmptyCellPolicy.TreatAsNull, null,
 						BitVectorValue.class);
@@ -428,14 +454,19 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	protected AbstractRDKitCellFactory createOutputFactory(final InputDataInfo[] arrInputDataInfos)
 			throws InvalidSettingsException {
 		// Generate column specs for the output table columns produced by this factory
-		final DataColumnSpec[] arrOutputSpec = new DataColumnSpec[1]; // We have only one output column
-		arrOutputSpec[0] = new DataColumnSpecCreator(
+		// We have only one output column, the second one carries the matching decision per row
+		final DataColumnSpec[] arrOutputSpec = new DataColumnSpec[2];
+		arrOutputSpec[RESULT_CELL_MATCHES] = new DataColumnSpecCreator(
 				m_modelNewColumnName.getStringValue().trim(), RDKitAdapterCell.RAW_TYPE)
 		.createSpec();
+		arrOutputSpec[RESULT_CELL_MATCHING_FLAG] = new DataColumnSpecCreator(
+				"Matching", BooleanCell.TYPE).createSpec();
 		final int iTotalPatternCount = m_arrQueryMols.length - m_iTotalEmptyPatternCells;
 		final int iMinimumMatches = m_modelMinimumMatches.getIntValue();
 		final MatchingCriteria matchingCriteria = m_modelMatchingCriteria.getValue();
 		final boolean bRowKeyMatchInfo = m_modelRowKeyMatchInfoOption.getBooleanValue();
+		final FingerprintSettings fingerprintSettings = m_fingerprintSettings;
+		final boolean bUseFingerprintColumn = (arrInputDataInfos.length > INPUT_COLUMN_FP);
 
 		// Generate factory
 		final AbstractRDKitCellFactory factory = new AbstractRDKitCellFactory(this,
@@ -454,37 +485,40 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 
 				// Calculate the new cells
 				ROMol mol = null;
-				DenseBitVector fingerprintMol = null;
-				boolean bFingerprintMolAvailable = true;
+				long[] arrCandidates = null;
 				int iNumberOfMatchingPatterns = 0;
 				
 				final SubstructMatchParameters ps = new SubstructMatchParameters();
 				ps.setUseChirality(m_modelUseChirality.getBooleanValue());
 				ps.setUseEnhancedStereo(m_modelUseEnhancedStereo.getBooleanValue());
+
+				// Pre-screening, if fingerprint usage is enabled
+				if (m_queryFingerprintIndex != null) {
+					DenseBitVector fingerprint = null;
+
+					// Use a pre-calculated fingerprint, if available
+					if (bUseFingerprintColumn) {
+						fingerprint = arrInputDataInfo[INPUT_COLUMN_FP].getDenseBitVector(row);
+					}
+
+					// Otherwise calculate it on the fly (this avoids an intermediate table with all fingerprints)
+					// Note, that this will throw an exception for empty cells, which will be handled by the factory
+					if (fingerprint == null) {
+						mol = markForCleanup(arrInputDataInfo[INPUT_COLUMN_MOL].getROMol(row), lUniqueWaveId);
+						fingerprint = createFingerprint(mol, fingerprintSettings);
+					}
+
+					arrCandidates = m_queryFingerprintIndex.getCandidates(fingerprint);
+				}
 				
 				for (int i = 0; i < m_arrQueryMols.length; i++) {
 					final ROMol molPattern = m_arrQueryMols[i];
 					final String keyPattern = m_arrQueryRowKeys[i];
 
 					if (molPattern != null ) {
-						boolean bDeepCheck = true;
-
-						// Pre-screening, if fingerprint usage is enabled
-						if (m_arrQueryFingerprints != null && m_arrQueryFingerprints[i] != null && bFingerprintMolAvailable) {
-
-							// Get the fingerprint only when executing this row the first time
-							if (fingerprintMol == null) {
-								fingerprintMol = arrInputDataInfo[INPUT_COLUMN_FP].getDenseBitVector(row);
-								bFingerprintMolAvailable = (fingerprintMol != null);
-							}
-
-							// A potential SSS(A,B) match is found if OBC(FP(A)) <= OBC(FP(B)) AND OBC(FP(A) & FB(B)) == OBC(FP(A)),
-							// where A is the query molecule and B is the molecule of the processed row
-							bDeepCheck = (bFingerprintMolAvailable && m_arrQueryFpOnBitCounts[i] <= fingerprintMol.cardinality() &&
-									(m_arrQueryFingerprints[i].and(fingerprintMol).cardinality() == m_arrQueryFpOnBitCounts[i]));
-						}
-
-						if (bDeepCheck) {
+						// A potential SSS(A,B) match is found if all on bits of FP(A) are also set in FP(B),
+						// where A is the query molecule and B is the molecule of the processed row
+						if (arrCandidates == null || QueryFingerprintIndex.isCandidate(arrCandidates, i)) {
 							// Get the molecule only if we really need it (this saves execution time)
 							// Note, that this will throw an exception for empty cells, which will be handled by the factory
 							if (mol == null) {
@@ -500,34 +534,25 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 				}
 
 				outputCell = CollectionCellFactory.createListCell(listQueryRefs);
+				boolean bMatching = false;
 
 				switch (matchingCriteria) {
 				case All:
-					if (iNumberOfMatchingPatterns == iTotalPatternCount) {
-						synchronized (m_setMatches) {
-							m_setMatches.add(row.getKey());
-						}
-					}
+					bMatching = (iNumberOfMatchingPatterns == iTotalPatternCount);
 					break;
 				case Exact:
-					final long iMolAtomsCount = (mol == null ? 0 : mol.getNumAtoms());
-					if (iNumberOfMatchingPatterns == iTotalPatternCount &&
-							iMolAtomsCount == m_iTotalPatternAtomsCount) {
-						synchronized (m_setMatches) {
-							m_setMatches.add(row.getKey());
-						}
-					}
+					// The molecule may have been read only for fingerprint calculation, therefore
+					// we count its atoms only if it matched a pattern at all
+					final long iMolAtomsCount = (iNumberOfMatchingPatterns == 0 ? 0 : mol.getNumAtoms());
+					bMatching = (iNumberOfMatchingPatterns == iTotalPatternCount &&
+							iMolAtomsCount == m_iTotalPatternAtomsCount);
 					break;
 				case AtLeast:
-					if (iNumberOfMatchingPatterns >= iMinimumMatches) {
-						synchronized (m_setMatches) {
-							m_setMatches.add(row.getKey());
-						}
-					}
+					bMatching = (iNumberOfMatchingPatterns >= iMinimumMatches);
 					break;
 				}
 
-				return new DataCell[] { outputCell };
+				return new DataCell[] { outputCell, BooleanCellFactory.create(bMatching) };
 			}
 		};
 
@@ -544,39 +569,40 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	 * 
 	 * @param arrPatterns RDKit molecules acting as substructure patterns. Some values
 	 * 		could be null, if the origin was a missing cell.
+	 * @param arrFingerprints Fingerprints of the patterns or null, if fingerprint screening is not used.
+	 * @param fingerprintSettings Settings of the fingerprints used for screening or null, if
+	 * 		fingerprint screening is not used.
 	 * @param iTotalEmptyPatternCells Number of empty cells encountered when evaluating
 	 * 		the query input column and preparing the patterns. This is the number of
 	 * 		null values in the arrPatterns array.
 	 * @param iTotalPatternAtomsCount Total number of atoms in all patterns.
 	 */
 	protected void setPreprocessingResults(final String[] arrRowKeys, final ROMol[] arrPatterns, final DenseBitVector[] arrFingerprints,
-			final long[] arrOnBitCounts, final BufferedDataTable tableWithFingerprints,
+			final FingerprintSettings fingerprintSettings,
 			final int iTotalEmptyPatternCells, final int iTotalPatternAtomsCount) {
 		m_arrQueryRowKeys = arrRowKeys;
 		m_arrQueryMols = arrPatterns;
-		m_arrQueryFingerprints = arrFingerprints;
-		m_arrQueryFpOnBitCounts = arrOnBitCounts;
-		m_tableWithFingerprints = tableWithFingerprints;
-		if (tableWithFingerprints != null) {
-			m_modelFingerprintColumnName = new SettingsModelString("fingerprint_column", tableWithFingerprints.
-					getDataTableSpec().getColumnNames()[tableWithFingerprints.getDataTableSpec().getNumColumns() - 1]);
-		}
+		m_queryFingerprintIndex = (arrFingerprints != null ? new QueryFingerprintIndex(arrFingerprints) : null);
+		m_fingerprintSettings = (arrFingerprints != null ? fingerprintSettings : null);
 		m_iTotalEmptyPatternCells = iTotalEmptyPatternCells;
 		m_iTotalPatternAtomsCount = iTotalPatternAtomsCount;
 	}
 
 	/**
 	 * Returns the percentage of pre-processing activities from the total execution.
+	 * Only the query molecules are evaluated in the pre-processing phase.
 	 *
-	 * @return Percentage of pre-processing. Returns 0.0d.
+	 * @return Percentage of pre-processing. Returns 0.01d.
 	 */
 	@Override
 	protected double getPreProcessingPercentage() {
-		return 0.1d;
+		return 0.01d;
 	}
 
 	/**
 	 * This method pre-processes the patterns used for the substructure filtering.
+	 * Fingerprints of the input molecules are not calculated here, but on the fly
+	 * while filtering, unless they are taken from the fingerprint column.
 	 * {@inheritDoc}
 	 */
 	@Override
@@ -585,33 +611,32 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 
 		// Process SMARTS query values
 		final boolean bIsSmarts = arrInputDataInfo[1][INPUT_COLUMN_QUERY].getDataType().isCompatible(SmartsValue.class);
+		final boolean bHasFingerprintColumn = (arrInputDataInfo[0].length > INPUT_COLUMN_FP);
 		int iFingerprintThreshold = m_modelFingerprintScreeningThreshold.getIntValue();
 		if (iFingerprintThreshold < 0) {
 			iFingerprintThreshold = DEFAULT_FINGERPRINT_SCREENING_THRESHOLD;
 		}
 
 		int i = 0;
-		final long lMolRowCount = inData[0].size();
 		final int iQueryRowCount = (int)inData[1].size();
-		final FingerprintType fpType = (iFingerprintThreshold != FINGERPRINT_SCREENING_OFF && iQueryRowCount >= iFingerprintThreshold ?
-				FINGERPRINT_SETTING.getRdkitFingerprintType() : null);
+
+		// Pre-calculated fingerprints make the screening cheap, hence we use them regardless of the query count
+		FingerprintSettings fingerprintSettings = null;
+		if (iFingerprintThreshold != FINGERPRINT_SCREENING_OFF &&
+				(bHasFingerprintColumn || iQueryRowCount >= iFingerprintThreshold)) {
+			fingerprintSettings = (bHasFingerprintColumn ?
+					getFingerprintColumnSettings(arrInputDataInfo[0][INPUT_COLUMN_FP].getTableSpec()) :
+						FINGERPRINT_SETTING);
+		}
+
 		final String[] arrRowKeys = new String[iQueryRowCount];
 		final ROMol[] arrPatterns = new ROMol[iQueryRowCount];
-		final DenseBitVector[] arrFingerprints = (fpType != null ? new DenseBitVector[iQueryRowCount] : null);
-		final long[] arrOnBitCounts = (fpType != null ? new long[iQueryRowCount] : null);
+		final DenseBitVector[] arrFingerprints = (fingerprintSettings != null ? new DenseBitVector[iQueryRowCount] : null);
 		int iTotalPatternAtomsCount = 0;
 		int iTotalEmptyPatternCells = 0;
-		ExecutionContext execQueryTable = exec;
-		ExecutionContext execMolTable = null;
-
-		// Prepare two execution contexts if we pre-process also the molecule table
-		if (fpType != null) {
-			execQueryTable = exec.createSubExecutionContext((double)iQueryRowCount / (double)(lMolRowCount + iQueryRowCount));
-			execMolTable = exec.createSubExecutionContext((double)lMolRowCount / (double)(lMolRowCount + iQueryRowCount));
-		}
 
-		// PHASE 1: Evaluate query molecules and pre-calculate fingerprints for them
-		execQueryTable.setMessage("Evaluating query molecules");
+		// Evaluate query molecules and pre-calculate fingerprints for them
+		exec.setMessage("Evaluating query molecules");
 
 		// Get all query molecules (empty cells will result in null values according to our empty cell policy)
 		for (final DataRow row : inData[1]) {
@@ -642,63 +667,23 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 				arrRowKeys[i] = row.getKey().getString();
 				iTotalPatternAtomsCount += arrPatterns[i].getNumAtoms();
 
-				// Calculate fingerprint and on bit count for optimization
-				if (fpType != null) {
-					arrFingerprints[i] = createFingerprint(arrPatterns[i]);
-					arrOnBitCounts[i] = (arrFingerprints[i] != null ? arrFingerprints[i].cardinality() : -1);
+				// Calculate fingerprint for optimization
+				if (fingerprintSettings != null) {
+					arrFingerprints[i] = createFingerprint(arrPatterns[i], fingerprintSettings);
 				}
 			}
 
 			if (i % 20 == 0) {
-				reportProgress(execQueryTable, i, iQueryRowCount, row, " - Evaluating query molecules");
+				reportProgress(exec, i, iQueryRowCount, row, " - Evaluating query molecules");
 			}
 
 			i++;
 		}
 
 		// Does not do anything by default
-		execQueryTable.setProgress(1.0d);
-
-		// PHASE 2: Pre-calculate fingerprints for molecule input table
-		BufferedDataTable tableWithFingerprints = null;
-		if (fpType != null) {
-			execMolTable.setMessage("Creating fingerprints for input molecules");
-
-			final ColumnRearranger rearranger = new ColumnRearranger(inData[0].getSpec());
-			rearranger.append(new AbstractRDKitCellFactory(this, RowFailurePolicy.DeliverEmptyValues, null, arrInputDataInfo[0],
-					new DataColumnSpecCreator(SettingsUtils.makeColumnNameUnique(
-							arrInputDataInfo[0][INPUT_COLUMN_MOL].getColumnSpec().getName() + " - Fingerprint",
-							arrInputDataInfo[0][INPUT_COLUMN_MOL].getTableSpec(), null),
-							DenseBitVectorCell.TYPE).createSpec()) {
-
-				@Override
-				public DataCell[] process(final InputDataInfo[] arrInputDataInfos, final DataRow row,
-						final long lUniqueWaveId) throws Exception {
-					final ROMol mol = markForCleanup(arrInputDataInfos[INPUT_COLUMN_MOL].getROMol(row), lUniqueWaveId);
-					return new DataCell[] { new DenseBitVectorCellFactory(createFingerprint(mol)).createDataCell() };
-				}
-
-				@Override
-				public boolean allowsParallelProcessing() {
-					return true;
-				}
-
-				@Override
-				public void setProgress(final int curRowNr, final int rowCount, final RowKey lastKey, final ExecutionMonitor exec) {
-					if (curRowNr % 20 == 0) {
-						try {
-							reportProgress((ExecutionContext)exec, curRowNr, rowCount, null, " - Creating fingerprints for input molecules");
-						}
-						catch (final CanceledExecutionException exc) {
-							// Ignored here
-						}
-					}
-				}
-			});
-			tableWithFingerprints = exec.createColumnRearrangeTable(inData[0], rearranger, execMolTable);
-		}
+		exec.setProgress(1.0d);
 
-		setPreprocessingResults(arrRowKeys, arrPatterns, arrFingerprints, arrOnBitCounts, tableWithFingerprints,
+		setPreprocessingResults(arrRowKeys, arrPatterns, arrFingerprints, fingerprintSettings,
 				iTotalEmptyPatternCells, iTotalPatternAtomsCount);
 	}
 
@@ -706,71 +691,96 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected BufferedDataTable[] processing(final BufferedDataTable[] inDataOrig, final InputDataInfo[][] arrInputDataInfoOrig,
+	protected BufferedDataTable[] processing(final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
 			final ExecutionContext exec) throws Exception {
-		final DataTableSpec[] arrOutSpecs = getOutputTableSpecs(inDataOrig);
-
-		// Tweak input table, if we are using fingerprints => Replace original with intermediate result table
-		final BufferedDataTable[] inData = inDataOrig;
-		final InputDataInfo[][] arrInputDataInfo = arrInputDataInfoOrig;
-		int iFingerprintColumn = -1;
-		if (m_arrQueryFingerprints != null) {
-			inData[0] = m_tableWithFingerprints;
-			arrInputDataInfo[0] = createInputDataInfos(0, m_tableWithFingerprints.getDataTableSpec());
-			iFingerprintColumn = arrInputDataInfo[0][INPUT_COLUMN_FP].getColumnIndex();
-		}
-
-		final int iFingerprintColumnToRemove = iFingerprintColumn;
+		final DataTableSpec[] arrOutSpecs = getOutputTableSpecs(inData);
 
 		// Contains the rows with the matching molecules
-		final BufferedDataContainer tableMatch = exec.createDataContainer(arrOutSpecs[0]);
+		final BufferedDataTableRowOutput tableMatch = new BufferedDataTableRowOutput(
+				exec.createDataContainer(arrOutSpecs[0]));
 
 		// Contains the rows with non-matching molecules
-		final BufferedDataContainer tableNoMatch = exec.createDataContainer(arrOutSpecs[1]);
+		final BufferedDataTableRowOutput tableNoMatch = new BufferedDataTableRowOutput(
+				exec.createDataContainer(arrOutSpecs[1]));
+
+		filterMolecules(new DataTableRowInput(inData[0]), inData[0].size(), arrInputDataInfo[0],
+				tableMatch, tableNoMatch, exec);
+
+		tableMatch.close();
+		tableNoMatch.close();
+
+		return new BufferedDataTable[] { tableMatch.getDataTable(), tableNoMatch.getDataTable() };
+	}
+
+	/**
+	 * Filters the molecules delivered by the passed in row input in parallel and pushes
+	 * them to the match or no-match output in the order of the input. Fingerprints for
+	 * the screening are calculated on the fly or taken from the fingerprint column, so no
+	 * intermediate table is needed and the molecules are read only once.
+	 * 
+	 * @param rowsMol Row input with the molecules to be filtered. Must not be null.
+	 * @param lRowCount Number of molecules or -1, if unknown (streaming).
+	 * @param arrInputDataInfo Information about the columns of the molecule table.
+	 * @param outputMatch Row output for molecules fulfilling the matching criteria. Must not be null.
+	 * @param outputNoMatch Row output for all other molecules. Must not be null.
+	 * @param exec Execution context for progress and cancellation. Must not be null.
+	 * 
+	 * @return Number of molecules that were read from the row input.
+	 * 
+	 * @throws Exception Thrown, if filtering failed or was canceled.
+	 */
+	protected long filterMolecules(final RowInput rowsMol, final long lRowCount,
+			final InputDataInfo[] arrInputDataInfo, final RowOutput outputMatch, final RowOutput outputNoMatch,
+			final ExecutionContext exec) throws Exception {
+		final AtomicLong alRowCounter = new AtomicLong();
 
 		// Setup main factory
-		final AbstractRDKitCellFactory factory = createOutputFactory(arrInputDataInfo[0]);
+		final AbstractRDKitCellFactory factory = createOutputFactory(arrInputDataInfo);
 		final AbstractRDKitNodeModel.ResultProcessor resultProcessor =
 				new AbstractRDKitNodeModel.ResultProcessor() {
 
 			/**
 			 * {@inheritDoc}
-			 * This implementation determines, if the cell 0 in the results is missing.
-			 * If it is missing and the setting tells to split the tables,
-			 * then the original input row is added to table 1. Otherwise the input row
-			 * gets merged with the cell 0 and is added to table 0.
+			 * This implementation determines from the flag in the results, if the molecule
+			 * fulfilled the matching criteria. Missing results (failures) count as no match.
+			 * If it matched, the input row merged with the matching substructures cell is
+			 * pushed to output 0, otherwise to output 1. Pushing may block in streaming mode,
+			 * which in turn stops the submission of new rows.
 			 */
 			@Override
 			public void processResults(final long rowIndex, final DataRow row, final DataCell[] arrResults) {
-				boolean bMatching = false;
-
-				synchronized (m_setMatches) {
-					bMatching = m_setMatches.remove(row.getKey());
-				}
+				final boolean bMatching = (arrResults.length > RESULT_CELL_MATCHING_FLAG &&
+						BooleanCell.TRUE.equals(arrResults[RESULT_CELL_MATCHING_FLAG]));
+				final DataCell[] arrOutputCells = new DataCell[] { arrResults[RESULT_CELL_MATCHES] };
 
-				if (bMatching) {
-					tableMatch.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row, arrResults, iFingerprintColumnToRemove));
+				try {
+					if (bMatching) {
+						outputMatch.push(AbstractRDKitCellFactory.mergeDataCells(row, arrOutputCells, -1));
+					}
+					else {
+						outputNoMatch.push(AbstractRDKitCellFactory.mergeDataCells(row, arrOutputCells, -1));
+					}
 				}
-				else {
-					tableNoMatch.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row, arrResults, iFingerprintColumnToRemove));
+				catch (final InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					throw new CancellationException("Pushing filtered molecules has been interrupted.");
 				}
 			}
 		};
 
 		// Runs the multiple threads to do the work
 		try {
-			new AbstractRDKitNodeModel.ParallelProcessor(factory, resultProcessor, inData[0].size(),
-					getWarningConsolidator(), exec).run(inData[0]);
+			new AbstractRDKitNodeModel.ParallelProcessor(factory, resultProcessor, lRowCount,
+					getWarningConsolidator(), exec).process(createRowIterable(rowsMol, alRowCounter));
 		}
 		catch (final Exception e) {
 			exec.checkCanceled();
 			throw e;
 		}
 
-		tableMatch.close();
-		tableNoMatch.close();
+		rowsMol.close();
 
-		return new BufferedDataTable[] { tableMatch.getTable(), tableNoMatch.getTable() };
+		return alRowCounter.get();
 	}
 
 	/**
@@ -780,25 +790,60 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 	protected void cleanupIntermediateResults() {
 		m_arrQueryRowKeys = null;
 		m_arrQueryMols = null;
-		m_arrQueryFingerprints = null;
-		m_arrQueryFpOnBitCounts = null;
-		m_tableWithFingerprints = null;
-		m_modelFingerprintColumnName = null;
+		m_queryFingerprintIndex = null;
+		m_fingerprintSettings = null;
 		m_iTotalPatternAtomsCount = 0;
 		m_iTotalEmptyPatternCells = 0;
-		m_setMatches.clear();
+	}
+
+	/**
+	 * Determines, if a column with pre-calculated pattern fingerprints of the input
+	 * molecules has been selected.
+	 * 
+	 * @return True, if a fingerprint column is set. False otherwise.
+	 */
+	protected boolean hasFingerprintColumn() {
+		final String strFingerprintColumn = m_modelFingerprintColumnName.getStringValue();
+		return strFingerprintColumn != null && !strFingerprintColumn.trim().isEmpty();
+	}
+
+	/**
+	 * Determines the settings of the pre-calculated fingerprints from the header
+	 * of the fingerprint column. Only RDKit Pattern fingerprints can be used for the
+	 * screening, as only those guarantee that all bits of a substructure are also set
+	 * in the fingerprint of a matching molecule.
+	 * 
+	 * @param inSpec Specification of the molecule table. Must not be null.
+	 * 
+	 * @return Fingerprint settings of the fingerprint column. Never null.
+	 * 
+	 * @throws InvalidSettingsException Thrown, if the column does not contain RDKit Pattern fingerprints.
+	 */
+	protected FingerprintSettings getFingerprintColumnSettings(final DataTableSpec inSpec)
+			throws InvalidSettingsException {
+		final String strFingerprintColumn = m_modelFingerprintColumnName.getStringValue();
+		final FingerprintSettingsHeaderProperty fpSpec =
+				new FingerprintSettingsHeaderProperty(inSpec.getColumnSpec(strFingerprintColumn));
+
+		if (fpSpec.getRdkitFingerprintType() != FingerprintType.pattern || fpSpec.getNumBits() <= 0) {
+			throw new InvalidSettingsException("The fingerprint column " + strFingerprintColumn +
+					" does not contain RDKit Pattern fingerprints, which are required for the screening. " +
+					"Use the RDKit Fingerprint node to calculate them or do not select a fingerprint column.");
+		}
+
+		return fpSpec;
 	}
 
 	/**
 	 * Creates a fingerprint for the passed RDKit Mol value and returns it.
 	 * 
 	 * @param mol Molecule for calculation.
+	 * @param settings Fingerprint settings to be used. Must not be null.
 	 * 
 	 * @return Fingerprint or null, if calculation failed.
 	 */
-	protected DenseBitVector createFingerprint(final ROMol mol) {
-		return FINGERPRINT_SETTING.getRdkitFingerprintType().
-				calculateBitBased(mol, FINGERPRINT_SETTING);
+	protected DenseBitVector createFingerprint(final ROMol mol, final FingerprintSettings settings) {
+		return settings.getRdkitFingerprintType().calculateBitBased(mol, settings);
 	}
 
 	@Override
@@ -814,4 +859,96 @@ public class RDKitMoleculeSubstructFilterNodeModel extends AbstractRDKitNodeMode
 			m_modelRowKeyMatchInfoOption.setBooleanValue(false);
 		}
 	}
+
+	//
+	// Streaming API
+	//
+
+	/**
+	 * Creates a streamable operator, which filters the molecules of the first input
+	 * in one pass without intermediate tables. The query molecules are read completely.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+			final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		return new StreamableOperator() {
+			@Override
+			public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+					final ExecutionContext exec) throws Exception {
+				executeStreamed(inputs, outputs, exec);
+			}
+		};
+	}
+
+	/**
+	 * Filters the molecules in streaming mode and pushes them to the match or no-match
+	 * output as soon as they are processed. If the molecules need to be converted, they
+	 * have been read completely into a table beforehand, because the conversion works on tables.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Map<String, Long> processingStreamed(final RowInput[] arrRowInputs, final PortObject[] inObjects,
+			final InputDataInfo[][] arrInputDataInfo, final PortOutput[] outputs, final ExecutionContext exec)
+					throws Exception {
+		final long lRowCount = (inObjects[0] instanceof BufferedDataTable tableMols ? tableMols.size() : -1);
+		final long lRowsRead = filterMolecules(arrRowInputs[0], lRowCount, arrInputDataInfo[0],
+				(RowOutput)outputs[0], (RowOutput)outputs[1], exec);
+
+		final Map<String, Long> mapContextOccurrences = new HashMap<String, Long>();
+		mapContextOccurrences.put(WarningConsolidator.ROW_CONTEXT.getId(), lRowsRead);
+		return mapContextOccurrences;
+	}
+
+	//
+	// Static Protected Methods
+	//
+
+	/**
+	 * Creates an iterable over the rows delivered by the passed in row input.
+	 * The rows are read lazily while iterating.
+	 *
+	 * @param rowsMol Row input with the molecules. Must not be null.
+	 * @param alRowCounter Counter that gets incremented for every read row. Must not be null.
+	 *
+	 * @return Rows of the input, which can be iterated only once.
+	 */
+	protected static Iterable<DataRow> createRowIterable(final RowInput rowsMol, final AtomicLong alRowCounter) {
+		return () -> new Iterator<DataRow>() {
+
+			/** The next row or null, if not read yet or if there are no more rows. */
+			private DataRow m_rowNext = null;
+
+			@Override
+			public boolean hasNext() {
+				if (m_rowNext == null) {
+					try {
+						m_rowNext = rowsMol.poll();
+					}
+					catch (final InterruptedException exc) {
+						Thread.currentThread().interrupt();
+						throw new CancellationException("Reading of molecules has been interrupted.");
+					}
+
+					if (m_rowNext != null) {
+						alRowCounter.incrementAndGet();
+					}
+				}
+
+				return m_rowNext != null;
+			}
+
+			@Override
+			public DataRow next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException("There are no more molecules.");
+				}
+
+				final DataRow row = m_rowNext;
+				m_rowNext = null;
+
+				return row;
+			}
+		};
+	}
 }
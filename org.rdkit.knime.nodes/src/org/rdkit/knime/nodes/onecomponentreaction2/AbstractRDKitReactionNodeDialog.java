@@ -57,6 +57,7 @@ import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumberEdit;
 import org.knime.core.node.defaultnodesettings.DialogComponentString;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
@@ -64,6 +65,7 @@ import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelLong;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
 import org.rdkit.knime.util.LayoutUtils;
 
@@ -156,6 +158,10 @@ public abstract class AbstractRDKitReactionNodeDialog extends DefaultNodeSetting
 
 		addDialogComponentsAfterReactionSettings();
 
+		createNewGroup("Parallel Processing");
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
+
 		super.createNewTab("Advanced");
 
 		m_modelAdditionalColumnsEnabled = createAdditionalColumnsEnabledModel();
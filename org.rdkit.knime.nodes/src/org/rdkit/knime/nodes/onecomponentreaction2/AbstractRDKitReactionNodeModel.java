@@ -67,10 +67,13 @@ import org.knime.chem.types.RxnValue;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
@@ -482,6 +485,32 @@ extends AbstractRDKitNodeModel {
 	 */
 	protected List<DataRow> processReactionResults(final ChemicalReaction reaction, final ROMol_Vect reactants, final List<DataCell> listAdditionalCells,
 			final List<DataRow> listToAddTo, final long uniqueWaveId, final int... indicesReactants) {
+		return processReactionResults(reaction, reactants, null, listAdditionalCells, listToAddTo, uniqueWaveId, indicesReactants);
+	}
+
+	/**
+	 * Runs the passed in reaction with the specified reactants, if both parameters
+	 * are not null. From the results it generates result rows containing the different products.
+	 * Data cells for reactants, which are known already, can be passed in to avoid
+	 * creating them again for every product.
+	 * 
+	 * @param reaction Chemical reaction to run. Can be null.
+	 * @param reactants Reactants to be used as parameters for the reaction. Can be null.
+	 * @param arrReactantCells Data cells representing the reactants in result rows. Can be null.
+	 * 		Null elements will be created from the reactant molecules. If not null,
+	 * 		the length of this array must match the size of the reactants vector.
+	 * @param listAdditionalCells Additional data cells to be added to result data rows. Can be null.
+	 * @param listToAddTo A list to be used to add new rows. Can be null to create a new list.
+	 * @param uniqueWaveId Id to register RDKit objects for cleanup.
+	 * @param indicesReactants Indices of reactants passed in using the reactants mol vector.
+	 * 		The length of this array must match the size of the reactants vector.
+	 * 
+	 * @return List of new creates data rows with information about reaction products.
+	 * 		Can be empty, but never null.
+	 */
+	protected List<DataRow> processReactionResults(final ChemicalReaction reaction, final ROMol_Vect reactants,
+			final DataCell[] arrReactantCells, final List<DataCell> listAdditionalCells,
+			final List<DataRow> listToAddTo, final long uniqueWaveId, final int... indicesReactants) {
 		final List<DataRow> listNewRows =  (listToAddTo == null ? new ArrayList<DataRow>(20) : listToAddTo);
 		final boolean bUniquifyProducts = m_modelUniquifyProducts.getBooleanValue();
 
@@ -534,8 +563,13 @@ extends AbstractRDKitNodeModel {
 								final int indexReactants = indicesReactants[index];
 								sbRowKey.append(indexReactants).append('_');
 								listCells.add(new IntCell(indexReactants));
-								listCells.add(RDKitMolCellFactory.createRDKitAdapterCell(
-										markForCleanup(reactants.get(index), uniqueWaveId)));
+								if (arrReactantCells != null && arrReactantCells[index] != null) {
+									listCells.add(arrReactantCells[index]);
+								}
+								else {
+									listCells.add(RDKitMolCellFactory.createRDKitAdapterCell(
+											markForCleanup(reactants.get(index), uniqueWaveId)));
+								}
 							}
 
 							// Add additional data cells to row
@@ -572,6 +606,77 @@ extends AbstractRDKitNodeModel {
 		return listNewRows;
 	}
 
+	/**
+	 * Determines, if the passed in molecule matches the reactant template with the specified
+	 * index of the passed in reaction. Only then the reaction can deliver products for this
+	 * molecule as reactant at this position, hence this check can be used to skip reactants
+	 * that cannot react before running the reaction for all combinations of reactants.
+	 * 
+	 * @param reaction Chemical reaction with initialized reactant matchers. Must not be null.
+	 * @param iReactantIndex Index of the reactant template.
+	 * @param mol Reactant molecule. Must not be null.
+	 * 
+	 * @return True, if the molecule matches the reactant template. False otherwise.
+	 */
+	protected boolean isReactantCompatible(final ChemicalReaction reaction, final int iReactantIndex, final ROMol mol) {
+		final ROMol_Vect vTemplates = reaction.getReactants();
+		final ROMol template = vTemplates.get(iReactantIndex);
+
+		try {
+			return mol.hasSubstructMatch(template);
+		}
+		finally {
+			template.delete();
+			vTemplates.delete();
+		}
+	}
+
+	/**
+	 * Determines the row indexes of all reactants in the passed in table that match the
+	 * reactant template with the specified index of the passed in reaction. Empty
+	 * reactant cells are not considered as compatible.
+	 * 
+	 * @param reaction Chemical reaction with initialized reactant matchers. Must not be null.
+	 * @param iReactantIndex Index of the reactant template.
+	 * @param table Table with reactants. Must not be null.
+	 * @param inputDataInfo Input data info of the reactant column. Must not be null.
+	 * @param exec Execution monitor for progress and cancellation checks. Must not be null.
+	 * 
+	 * @return Sorted row indexes of compatible reactants.
+	 * 
+	 * @throws CanceledExecutionException Thrown, if the user canceled.
+	 * @throws EmptyCellException Not thrown, if the empty cell policy treats empty cells as null.
+	 */
+	protected int[] findCompatibleReactants(final ChemicalReaction reaction, final int iReactantIndex,
+			final BufferedDataTable table, final InputDataInfo inputDataInfo, final ExecutionMonitor exec)
+					throws CanceledExecutionException, EmptyCellException {
+		final long lRowCount = table.size();
+		final int[] arrIndexes = new int[(int)lRowCount];
+		int iCount = 0;
+		int iRow = 0;
+
+		try (final CloseableRowIterator it = table.iterator()) {
+			while (it.hasNext()) {
+				final ROMol mol = inputDataInfo.getROMol(it.next());
+				if (mol != null) {
+					try {
+						if (isReactantCompatible(reaction, iReactantIndex, mol)) {
+							arrIndexes[iCount++] = iRow;
+						}
+					}
+					finally {
+						mol.delete();
+					}
+				}
+				iRow++;
+				exec.checkCanceled();
+				exec.setProgress((double)iRow / lRowCount);
+			}
+		}
+
+		return Arrays.copyOf(arrIndexes, iCount);
+	}
+
 	@Override
 	protected void cleanupIntermediateResults() {
 		super.cleanupIntermediateResults();
@@ -75,8 +75,8 @@ import org.knime.core.node.defaultnodesettings.SettingsModelColumnFilter2;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
-import org.knime.core.util.MultiThreadWorker;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitAdapterCell;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.InputDataInfo;
@@ -138,6 +138,7 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 		super(new PortType[] { BufferedDataTable.TYPE, PortTypeRegistry.getInstance().getPortType(BufferedDataTable.class, true)},
 				new PortType[] { BufferedDataTable.TYPE },
 				1);
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -295,8 +296,8 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 		}
 		else {
 			// Get settings and define data specific behavior
-			final int iMaxParallelWorkers = (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
-			final int iQueueSize = 10 * iMaxParallelWorkers;
+			final int iMaxParallelWorkers = getMaxParallelWorkers();
+			final int iQueueSize = AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
 
 			// Create the chemical reaction to be applied as safe guarded resource to avoid corruption
 			// by multiple thread processing
@@ -304,7 +305,7 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 					createSafeGuardedReactionResource(inData, arrInputDataInfo);
 
 			// Calculate one component reactions
-			new MultiThreadWorker<DataRow, DataRow[]>(iQueueSize, iMaxParallelWorkers) {
+			new ParallelWorker<DataRow, DataRow[]>(this, iQueueSize, iMaxParallelWorkers, exec) {
 
 				/**
 				 * Array of input table column indexes to be included to output table.
@@ -324,7 +325,7 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 				 * 		we have a valid reaction to be added to the result table.
 				 */
 				@Override
-				protected DataRow[] compute(final DataRow row, final long index) throws Exception {
+				protected DataRow[] calculate(final DataRow row, final long index) throws Exception {
 					List<DataRow> listNewRows = null;
 					final boolean bIncluded = isReactionIncluded(index);
 
@@ -372,7 +373,7 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 				 * @param task Processing result for a row.
 				 */
 				@Override
-				protected void processFinished(final ComputationTask task)
+				protected void processResult(final ComputationTask task)
 						throws ExecutionException, CancellationException, InterruptedException {
 					// Null, if an empty reactant cell was encountered.
 					// Empty, if we should ignore the row (e.g. if randomization is used and the reaction is not calculated).
@@ -402,11 +403,11 @@ public class RDKitOneComponentReactionNodeModel extends AbstractRDKitReactionNod
 									.append(getFinishedTaskCount()).append(" pending]").toString());
 						}
 						catch (final CanceledExecutionException e) {
-							cancel(true);
+							stopProcessing();
 						}
 					}
 				};
-			}.run(inData[0]);
+			}.process(inData[0]);
 		}
 
 		exec.checkCanceled();
@@ -60,8 +60,10 @@ import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.ui.IWorkbench;
@@ -75,6 +77,7 @@ import org.knime.core.node.streamable.OutputPortRole;
 import org.rdkit.knime.RDKitTypesPluginActivator;
 import org.rdkit.knime.extensions.aggregration.RDKitMcsAggregationPreferencePage;
 import org.rdkit.knime.nodes.AbstractRDKitCalculatorNodeModel;
+import org.rdkit.knime.nodes.AbstractRDKitGenericNodeModel;
 import org.rdkit.knime.nodes.AbstractRDKitSplitterNodeModel;
 import org.rdkit.knime.nodes.RDKitNodePlugin;
 import org.rdkit.knime.nodes.TableViewSupport;
@@ -104,6 +107,37 @@ implements IWorkbenchPreferencePage {
 	/** The id of this preference page. */
 	public static final String ID = "org.rdkit.knime.nodes.preferences";
 
+	/** The preference key for the delay in seconds before quarantined RDKit objects get cleaned up. */
+	public static final String PREF_KEY_QUARANTINE_CLEANUP_DELAY = "quarantineCleanupDelay";
+
+	/** The preference key for the maximum number of RDKit objects kept in quarantine. */
+	public static final String PREF_KEY_QUARANTINE_HIGH_WATER_MARK = "quarantineHighWaterMark";
+
+	/** The default delay in seconds before quarantined RDKit objects get cleaned up. */
+	public static final int DEFAULT_QUARANTINE_CLEANUP_DELAY = 
+			(int)(AbstractRDKitGenericNodeModel.RDKIT_OBJECT_CLEANUP_DELAY_FOR_QUARANTINE / 1000);
+
+	/** The default maximum number of RDKit objects kept in quarantine. */
+	public static final int DEFAULT_QUARANTINE_HIGH_WATER_MARK = 500000;
+
+	/** The preference key for the memory budget in MB of reactants held in memory during reaction enumeration. */
+	public static final String PREF_KEY_REACTANT_POOL_MEMORY_BUDGET = "reactantPoolMemoryBudget";
+
+	/** The default memory budget in MB of reactants held in memory during reaction enumeration. */
+	public static final int DEFAULT_REACTANT_POOL_MEMORY_BUDGET = 256;
+
+	/** The preference key for the maximum number of parallel workers per node. 0 means automatic. */
+	public static final String PREF_KEY_MAX_PARALLEL_WORKERS = "maxParallelWorkers";
+
+	/** The default maximum number of parallel workers per node, which is automatic. */
+	public static final int DEFAULT_MAX_PARALLEL_WORKERS = 0;
+
+	/** The preference key for adapting the parallelism to per-row latency and result queue pressure. */
+	public static final String PREF_KEY_ADAPTIVE_PARALLELISM = "adaptiveParallelism";
+
+	/** The default setting for adapting the parallelism. */
+	public static final boolean DEFAULT_ADAPTIVE_PARALLELISM = true;
+
 	//
 	// Globals
 	//
@@ -326,6 +360,29 @@ implements IWorkbenchPreferencePage {
          }
       };
       addField(btnSyncNow);
+
+      final IntegerFieldEditor editorQuarantineCleanupDelay = new IntegerFieldEditor(PREF_KEY_QUARANTINE_CLEANUP_DELAY, 
+    		  "Delay before cleaning up RDKit objects of canceled or failed executions (in seconds): ", getFieldEditorParent());
+      editorQuarantineCleanupDelay.setValidRange(0, Integer.MAX_VALUE);
+      addField(editorQuarantineCleanupDelay);
+
+      final IntegerFieldEditor editorQuarantineHighWaterMark = new IntegerFieldEditor(PREF_KEY_QUARANTINE_HIGH_WATER_MARK, 
+    		  "Maximum number of RDKit objects waiting for delayed cleanup (0 = unlimited): ", getFieldEditorParent());
+      editorQuarantineHighWaterMark.setValidRange(0, Integer.MAX_VALUE);
+      addField(editorQuarantineHighWaterMark);
+
+      final IntegerFieldEditor editorReactantPoolMemoryBudget = new IntegerFieldEditor(PREF_KEY_REACTANT_POOL_MEMORY_BUDGET, 
+    		  "Memory for reactants held in memory during reaction enumeration (in MB, 0 = off): ", getFieldEditorParent());
+      editorReactantPoolMemoryBudget.setValidRange(0, Integer.MAX_VALUE);
+      addField(editorReactantPoolMemoryBudget);
+
+      final IntegerFieldEditor editorMaxParallelWorkers = new IntegerFieldEditor(PREF_KEY_MAX_PARALLEL_WORKERS, 
+    		  "Maximum number of parallel workers per node (0 = automatic): ", getFieldEditorParent());
+      editorMaxParallelWorkers.setValidRange(0, 1024);
+      addField(editorMaxParallelWorkers);
+
+      addField(new BooleanFieldEditor(PREF_KEY_ADAPTIVE_PARALLELISM, 
+    		  "Adapt parallel workers and rows in flight to the measured processing times", getFieldEditorParent()));
 	}
 
 	/**
@@ -359,6 +416,11 @@ implements IWorkbenchPreferencePage {
 					prefStore.setDefault(
 							FingerprintSettingsHeaderPropertyHandler.PREF_KEY_RENDERER,
 							MultiLineStringValueRenderer.Factory.class.getName());
+					prefStore.setDefault(PREF_KEY_QUARANTINE_CLEANUP_DELAY, DEFAULT_QUARANTINE_CLEANUP_DELAY);
+					prefStore.setDefault(PREF_KEY_QUARANTINE_HIGH_WATER_MARK, DEFAULT_QUARANTINE_HIGH_WATER_MARK);
+					prefStore.setDefault(PREF_KEY_REACTANT_POOL_MEMORY_BUDGET, DEFAULT_REACTANT_POOL_MEMORY_BUDGET);
+					prefStore.setDefault(PREF_KEY_MAX_PARALLEL_WORKERS, DEFAULT_MAX_PARALLEL_WORKERS);
+					prefStore.setDefault(PREF_KEY_ADAPTIVE_PARALLELISM, DEFAULT_ADAPTIVE_PARALLELISM);
 				}
 			}
 			catch (final Exception exc) {
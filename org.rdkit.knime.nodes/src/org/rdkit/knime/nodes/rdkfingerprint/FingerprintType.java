@@ -66,6 +66,7 @@ import org.knime.core.data.IntValue;
 import org.knime.core.data.vector.bitvector.DenseBitVector;
 import org.knime.core.data.vector.bytevector.DenseByteVector;
 import org.knime.core.node.InvalidSettingsException;
+import org.rdkit.knime.util.BitVectorUtils;
 import org.rdkit.knime.util.ChemUtils;
 import org.rdkit.knime.util.SettingsUtils;
 import org.rdkit.knime.util.StringUtils;
@@ -677,8 +678,11 @@ public enum FingerprintType {
 		public ExplicitBitVect calculate(final ROMol mol, final FingerprintSettings settings) {
 			final int bitNumber = settings.getNumBits();
 			final ExplicitBitVect fingerprint = new ExplicitBitVect(bitNumber);
+			// Generating the mol block is thread-safe RDKit code and about half of the work,
+			// hence we do it before entering the lock - getAvalonFP(ROMol, ...) would do the same internally
+			final String strMolBlock = RDKFuncs.MolToMolBlock(mol, true, -1, true);
 			synchronized (AVALON_FP_LOCK) {
-				RDKFuncs.getAvalonFP(mol, fingerprint, bitNumber, false, false, settings.getSimilarityBits());
+				RDKFuncs.getAvalonFP(strMolBlock, false, fingerprint, bitNumber, false, false, settings.getSimilarityBits());
 			}
 			return fingerprint;
 		}
@@ -853,7 +857,10 @@ public enum FingerprintType {
 
 	/**
 	 * This lock prevents two calls at the same time into the Avalon Fingerprint functionality,
-	 * which has caused crashes under Windows 7 before.
+	 * which has caused crashes under Windows 7 before. The Avalon toolkit keeps global state
+	 * and still crashes on Linux as well when being called concurrently.
+	 * Only the parsing and fingerprinting in the Avalon toolkit is done while holding the lock,
+	 * everything else of the calculation happens outside.
 	 * Once there is a fix implemented in the RDKit (or somewhere else?) we can
 	 * remove this lock again.
 	 */
@@ -1212,13 +1219,7 @@ public enum FingerprintType {
 
 		if (fpRdkit != null) {
 			try {
-				final int iCount = (int)fpRdkit.getNumBits();
-				fp = new DenseBitVector(iCount);
-				for (int i = 0; i < iCount; i++) {
-					if (fpRdkit.getBit(i)) {
-						fp.set(i);
-					}
-				}
+				fp = BitVectorUtils.toDenseBitVector(fpRdkit);
 			}
 			finally {
 				fpRdkit.delete();
@@ -67,11 +67,14 @@ import org.knime.core.node.defaultnodesettings.DialogComponent;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentLabel;
 import org.knime.core.node.defaultnodesettings.DialogComponentMultiLineString;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.DialogComponentString;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
 import org.rdkit.knime.nodes.AbstractRDKitNodeSettingsPane;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.types.preferences.RDKitTypesPreferencePage;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
@@ -246,6 +249,18 @@ public class RDKitRGroupDecompositionNodeDialog extends AbstractRDKitNodeSetting
 		super.setHorizontalPlacement(true);
 		super.addDialogComponent(new DialogComponentBoolean(createRemoveHydrogenOnlyRGroupsModel(), "Remove hydrogen only R-Groups"));
 		super.addDialogComponent(new DialogComponentBoolean(createRemoveHydrogensPostMatchModel(), "Remove hydrogens post match"));
+		super.setHorizontalPlacement(false);
+
+		super.addDialogComponent(new DialogComponentSeparator());
+
+		super.setHorizontalPlacement(true);
+		SettingsModelBoolean modelChunkedProcessing = createChunkedProcessingModel();
+		super.addDialogComponent(new DialogComponentBoolean(modelChunkedProcessing, "Decompose in parallel chunks"));
+		super.addDialogComponent(new DialogComponentNumber(createChunkSizeModel(modelChunkedProcessing), 
+				"Molecules per chunk: ", 1000, 8));
+		super.setHorizontalPlacement(false);
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
 		
 		updateOptionsAvailability();
 }
@@ -510,6 +525,36 @@ public class RDKitRGroupDecompositionNodeDialog extends AbstractRDKitNodeSetting
 				DEFAULT_RGROUP_DECOMPOSITION_PARAMETERS.getRemoveHydrogensPostMatch());
 	}
 
+	/**
+	 * Creates the settings model for the option to decompose chunks of the input in parallel.
+	 * 
+	 * @return Settings model for the option to decompose chunks of the input in parallel.
+	 */
+	static final SettingsModelBoolean createChunkedProcessingModel() {
+		return new SettingsModelBoolean("chunked_processing", false);
+	}
+
+	/**
+	 * Creates the settings model for the number of molecules per chunk.
+	 * 
+	 * @param modelChunkedProcessing Main model to switch feature on and off.
+	 * 
+	 * @return Settings model for the number of molecules per chunk.
+	 */
+	static final SettingsModelIntegerBounded createChunkSizeModel(
+			final SettingsModelBoolean modelChunkedProcessing) {
+		final SettingsModelIntegerBounded result =
+				new SettingsModelIntegerBounded("chunk_size", 10000, 1, Integer.MAX_VALUE);
+		modelChunkedProcessing.addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(final ChangeEvent e) {
+				result.setEnabled(modelChunkedProcessing.getBooleanValue());
+			}
+		});
+		result.setEnabled(modelChunkedProcessing.getBooleanValue());
+		return result;
+	}
+
 	/**
 	 * Creates the model to select the option Strict Parsing for core input SDFs.
 	 * The default is taken from the RDKit Types preferences.
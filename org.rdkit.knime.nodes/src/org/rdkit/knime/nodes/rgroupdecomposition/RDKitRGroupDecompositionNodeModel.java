@@ -49,9 +49,17 @@
 package org.rdkit.knime.nodes.rgroupdecomposition;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.RDKit.Atom;
 import org.RDKit.Int_Pair;
@@ -82,21 +90,25 @@ import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
 import org.rdkit.knime.nodes.AbstractRDKitCellFactory;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitAdapterCell;
 import org.rdkit.knime.types.RDKitMolCellFactory;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.InputDataInfo;
+import org.rdkit.knime.util.RowChunkIterable;
 import org.rdkit.knime.util.SettingsModelEnumeration;
 import org.rdkit.knime.util.SettingsModelEnumerationArray;
 import org.rdkit.knime.util.SettingsUtils;
@@ -229,6 +241,14 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 	private final SettingsModelBoolean m_modelRemoveHydrogensPostMatchModel = 
 			registerSettings(RDKitRGroupDecompositionNodeDialog.createRemoveHydrogensPostMatchModel());
 
+	/** Settings model for the option to decompose chunks of the input in parallel. This was not available in the initial version. */
+	private final SettingsModelBoolean m_modelChunkedProcessing =
+			registerSettings(RDKitRGroupDecompositionNodeDialog.createChunkedProcessingModel(), true);
+
+	/** Settings model for the number of molecules per chunk. This was not available in the initial version. */
+	private final SettingsModelIntegerBounded m_modelChunkSize =
+			registerSettings(RDKitRGroupDecompositionNodeDialog.createChunkSizeModel(m_modelChunkedProcessing), true);
+
 	//
 	// Intermediate Results
 	//
@@ -258,6 +278,7 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 				});
 
 		getWarningConsolidator().registerContext(ROW_CONTEXT_TABLE_CORES);
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -439,6 +460,10 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 	protected BufferedDataTable[] processing(final BufferedDataTable[] inData, 
 			final InputDataInfo[][] arrInputDataInfo,
 			final ExecutionContext exec) throws Exception {
+		if (m_modelChunkedProcessing.getBooleanValue()) {
+			return processingInChunks(inData, arrInputDataInfo, exec);
+		}
+
 		// Setup helpers
 		final WarningConsolidator warnings = getWarningConsolidator();
 		
@@ -449,14 +474,7 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 		final long lTotalRowCount = inData[0].size();
 
 		// Setup decomposition parameters
-		RGroupDecompositionParameters params = markForCleanup(new RGroupDecompositionParameters());
-		params.setLabels(Labels.getCombinedValues(m_modelLabels.getValues()));
-		params.setMatchingStrategy(m_modelMatchingStrategy.getValue().getRDKitRGroupMatching().swigValue());
-		params.setRgroupLabelling(Labeling.getCombinedValues(m_modelLabeling.getValues()));
-		params.setAlignment(m_modelCoreAlignment.getValue().getRDKitRGroupCoreAlignment().swigValue());
-		params.setOnlyMatchAtRGroups(m_modelOnlyMatchAtRGroupsModel.getBooleanValue());
-		params.setRemoveAllHydrogenRGroups(m_modelRemoveHydrogenOnlyRGroupsModel.getBooleanValue());
-		params.setRemoveHydrogensPostMatch(m_modelRemoveHydrogensPostMatchModel.getBooleanValue());
+		RGroupDecompositionParameters params = markForCleanup(createDecompositionParameters());
 		
 		// Get settings for additional output columns
 		boolean bAddMatchingSmartsCore = m_modelAddMatchingSmartsCore.getBooleanValue();
@@ -631,6 +649,286 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 		return new BufferedDataTable[] { matchedTableData.getTable(), unmatchedTableData.getTable() };
 	}
 
+	/**
+	 * Performs the R-Group decomposition for chunks of the input table in parallel. Every chunk
+	 * is decomposed independently, hence the R-Group labels of the chunks are reconciled based
+	 * on the attachment points in the matching cores: The same attachment point gets always
+	 * the same Rx column, and labels that are already in use by the first chunk are kept.
+	 * Results are added to the output tables in the order of the input rows as soon as
+	 * a chunk is finished, and the native decomposition results are freed right afterwards.
+	 * 
+	 * @param inData Input data tables.
+	 * @param arrInputDataInfo Information about all columns of the input tables.
+	 * @param exec Execution context to check for cancellation and report progress.
+	 * 
+	 * @return Tables with matching and non-matching rows.
+	 * 
+	 * @throws Exception Thrown, if processing fails or was cancelled.
+	 */
+	protected BufferedDataTable[] processingInChunks(final BufferedDataTable[] inData,
+			final InputDataInfo[][] arrInputDataInfo,
+			final ExecutionContext exec) throws Exception {
+		// Setup helpers
+		final WarningConsolidator warnings = getWarningConsolidator();
+		final int iRGroupSlots = R_GROUP_NAMES.size();
+
+		// Contains the rows from input which did not match
+		final BufferedDataContainer unmatchedTableData = exec.createDataContainer(getOutputTableSpecs(inData)[1]);
+
+		// Get settings and define data specific behavior
+		final long lTotalRowCount = inData[0].size();
+		final int iChunkSize = m_modelChunkSize.getIntValue();
+
+		// Get settings for additional output columns
+		final boolean bAddMatchingSmartsCore = m_modelAddMatchingSmartsCore.getBooleanValue();
+		final boolean bAddMatchingExplicitCore = m_modelAddMatchingExplicitCore.getBooleanValue();
+		final boolean bUseAtomMaps = m_modelUseAtomMaps.getBooleanValue();
+		final boolean bUseRLabels = m_modelUseRLabels.getBooleanValue();
+		final int iNumNonRGroupCols = (bAddMatchingSmartsCore ? 1 : 0) + (bAddMatchingExplicitCore ? 1 : 0);
+
+		// Create output table 1 specification with all possible Rx columns, unused ones are removed at the end
+		final DataTableSpecCreator specCreator = new DataTableSpecCreator(inData[0].getSpec());
+		specCreator.setName("RGroups");
+		if (bAddMatchingSmartsCore) {
+			specCreator.addColumns(new DataColumnSpecCreator(m_modelNewMatchingSmartsCoreColumnName.getStringValue(), 
+					SmartsCell.TYPE).createSpec());
+		}
+		if (bAddMatchingExplicitCore) {
+			specCreator.addColumns(new DataColumnSpecCreator(m_modelNewMatchingExplicitCoreColumnName.getStringValue(), 
+					RDKitAdapterCell.RAW_TYPE).createSpec());
+		}
+		for (final String strRGroup : R_GROUP_NAMES) {
+			specCreator.addColumns(new DataColumnSpecCreator(strRGroup, RDKitAdapterCell.RAW_TYPE).createSpec());
+		}
+		final BufferedDataContainer matchedTableData = exec.createDataContainer(specCreator.createSpec());
+
+		// Global R-Group labels: Attachment point key => Label and usage of labels (only accessed in processFinished())
+		final Map<String, Integer> mapGlobalLabels = new HashMap<>();
+		final boolean[] arrLabelUsed = new boolean[iRGroupSlots];
+		final boolean[] arrLabelNonEmpty = new boolean[iRGroupSlots];
+
+		final AtomicBoolean abSuccess = new AtomicBoolean(false);
+		final AtomicLong alRowsDone = new AtomicLong(0);
+
+		// Wave ids of all chunks: Chunk index => Wave id (needed for cleanup also when a chunk failed)
+		final Map<Long, Long> mapChunkWaveIds = new ConcurrentHashMap<>();
+
+		final int iMaxParallelWorkers = getMaxParallelWorkers();
+		final int iQueueSize = AdaptiveParallelism.getMaxChunksInFlight(iMaxParallelWorkers);
+
+		final ParallelWorker<List<DataRow>, ChunkResult> multiWorker =
+				new ParallelWorker<List<DataRow>, ChunkResult>(this, iQueueSize, iMaxParallelWorkers, exec) {
+
+			/**
+			 * Decomposes a chunk of input molecules and determines the keys of all
+			 * R-Group labels found in the matching cores.
+			 * 
+			 * @param listRows Input rows of the chunk.
+			 * @param lChunkIndex Index of the chunk.
+			 * 
+			 * @return Result of the chunk. Native objects are freed in processFinished().
+			 */
+			@Override
+			protected ChunkResult calculate(final List<DataRow> listRows, final long lChunkIndex) throws Exception {
+				final long lUniqueWaveId = createUniqueCleanupWaveId();
+				mapChunkWaveIds.put(lChunkIndex, lUniqueWaveId);
+				final boolean[] arrMatched = new boolean[listRows.size()];
+				int iMatchCount = 0;
+
+				// Each chunk uses its own cores, as RDKit molecules are not safe to be shared between threads
+				final ROMol_Vect vScaffolds = markForCleanup(new ROMol_Vect(), lUniqueWaveId);
+				for (final ROMol scaffold : m_arrSmarts) {
+					vScaffolds.add(markForCleanup(new RWMol(scaffold), lUniqueWaveId));
+				}
+				final RGroupDecompositionParameters params = markForCleanup(createDecompositionParameters(), lUniqueWaveId);
+				final RGroupDecomposition decomp = markForCleanup(new RGroupDecomposition(vScaffolds, params), lUniqueWaveId);
+
+				for (int i = 0; i < arrMatched.length; i++) {
+					final ROMol mol = markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_MOL].getROMol(listRows.get(i)), lUniqueWaveId);
+
+					// We use only cells, which are not missing
+					if (mol != null) {
+						arrMatched[i] = (decomp.add(mol) >= 0);
+						if (arrMatched[i]) {
+							iMatchCount++;
+						}
+					}
+					else {
+						warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Encountered empty molecule cell in table 1 - ignored it.");
+					}
+				}
+
+				StringMolMap_Vect vResults = null;
+				List<Map<Integer, String>> listLabelKeys = null;
+
+				if (iMatchCount > 0 && decomp.process()) {
+					vResults = markForCleanup(decomp.getRGroupsAsRows(), lUniqueWaveId);
+					listLabelKeys = new ArrayList<>((int)vResults.size());
+
+					// All rows of a chunk share usually the same labeled core
+					final Map<String, Map<Integer, String>> mapCoreLabelKeys = new HashMap<>();
+					for (int i = 0; i < vResults.size(); i++) {
+						final StringMolMap mapResults = markForCleanup(vResults.get(i), lUniqueWaveId);
+						final ROMol molCore = markForCleanup(mapResults.get("Core"), lUniqueWaveId);
+						final String strCore = RDKFuncs.MolToSmiles(molCore);
+						Map<Integer, String> mapLabelKeys = mapCoreLabelKeys.get(strCore);
+						if (mapLabelKeys == null) {
+							mapLabelKeys = createLabelKeys(molCore, lUniqueWaveId);
+							mapCoreLabelKeys.put(strCore, mapLabelKeys);
+						}
+						listLabelKeys.add(mapLabelKeys);
+					}
+				}
+
+				return new ChunkResult(arrMatched, vResults, listLabelKeys);
+			}
+
+			/**
+			 * Assigns the global R-Group labels to the decomposition results of a chunk
+			 * and adds the result rows to the output tables.
+			 * 
+			 * @param task Processing result for a chunk.
+			 */
+			@Override
+			protected void processResult(final ComputationTask task)
+					throws ExecutionException, CancellationException, InterruptedException {
+				final List<DataRow> listRows = task.getInput();
+				final Long lUniqueWaveId = mapChunkWaveIds.remove(task.getIndex());
+
+				try {
+					final ChunkResult result = task.get();
+					final StringMolMap_Vect vResults = result.getResults();
+					int iMatchIndex = 0;
+
+					for (int iRow = 0; iRow < listRows.size(); iRow++) {
+						final DataRow row = listRows.get(iRow);
+
+						if (!result.isMatched(iRow)) {
+							unmatchedTableData.addRowToTable(row);
+							continue;
+						}
+						else if (vResults == null) {
+							// Decomposition of the chunk failed - same as for a failing decomposition of all rows
+							continue;
+						}
+
+						abSuccess.set(true);
+						final StringMolMap mapResults = markForCleanup(vResults.get(iMatchIndex), lUniqueWaveId);
+						final Map<Integer, String> mapLabelKeys = result.getLabelKeys(iMatchIndex);
+						iMatchIndex++;
+
+						// Map chunk labels to global labels
+						final Map<Integer, Integer> mapLabels = new HashMap<>();
+						for (final Map.Entry<Integer, String> entry : mapLabelKeys.entrySet()) {
+							Integer iGlobalLabel = mapGlobalLabels.get(entry.getValue());
+							if (iGlobalLabel == null) {
+								iGlobalLabel = registerLabel(entry.getKey(), arrLabelUsed);
+								mapGlobalLabels.put(entry.getValue(), iGlobalLabel);
+							}
+							mapLabels.put(entry.getKey(), iGlobalLabel);
+						}
+
+						// Create matching core and optionally the cell for it
+						int iColIndex = 0;
+						final ROMol molCore = markForCleanup(mapResults.get("Core"), lUniqueWaveId);
+						relabelRGroups(molCore, mapLabels, lUniqueWaveId);
+						final String strSmartsWithoutStereoChemistry = RDKFuncs.MolToSmarts(molCore, false); // Do not include stereo chemistry
+						final DataCell[] arrResultCells = AbstractRDKitCellFactory.createEmptyCells(iNumNonRGroupCols + iRGroupSlots);
+						if (bAddMatchingSmartsCore) {
+							arrResultCells[iColIndex++] = SmartsCellFactory.create(strSmartsWithoutStereoChemistry);
+						}
+
+						// Create optionally matching substructure
+						if (bAddMatchingExplicitCore) {
+							try {
+								final ROMol molSubstructure = markForCleanup(generateMatchingExplicitCore(
+										markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_MOL].getROMol(row), lUniqueWaveId),
+										strSmartsWithoutStereoChemistry, bUseAtomMaps, bUseRLabels, lUniqueWaveId), lUniqueWaveId);
+								arrResultCells[iColIndex] = RDKitMolCellFactory.createRDKitAdapterCell(molSubstructure);
+							}
+							catch (final Exception exc) {
+								warnings.saveWarning(ROW_CONTEXT_R_GROUP_OUTPUT_TABLE.getId(),
+										"Unable to generate matching explicit core for SMARTS core.");
+								arrResultCells[iColIndex] = DataType.getMissingCell();
+							}
+							iColIndex++;
+						}
+
+						// Create all R group cells
+						for (final Map.Entry<Integer, Integer> entry : mapLabels.entrySet()) {
+							final String strRGroup = "R" + entry.getKey();
+							if (mapResults.has_key(strRGroup)) {
+								final ROMol rGroup = markForCleanup(mapResults.get(strRGroup), lUniqueWaveId);
+								relabelRGroups(rGroup, mapLabels, lUniqueWaveId);
+								arrResultCells[iColIndex + entry.getValue()] = RDKitMolCellFactory.createRDKitAdapterCell(rGroup);
+								arrLabelNonEmpty[entry.getValue()] = true;
+							}
+						}
+
+						// Append core and R group cells to input columns
+						matchedTableData.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row, arrResultCells, -1));
+					}
+				}
+				finally {
+					if (lUniqueWaveId != null) {
+						cleanupMarkedObjects(lUniqueWaveId);
+					}
+				}
+
+				// Check, if user pressed cancel (however, we will finish the method nevertheless)
+				final long lRowsDone = alRowsDone.addAndGet(listRows.size());
+				try {
+					AbstractRDKitNodeModel.reportProgress(exec, lRowsDone, lTotalRowCount, listRows.get(listRows.size() - 1),
+							new StringBuilder(" - Decomposing R-Groups in chunks [").append(getActiveCount())
+							.append(" active, ").append(getFinishedTaskCount()).append(" pending]").toString());
+				}
+				catch (final CanceledExecutionException e) {
+					stopProcessing();
+				}
+			}
+		};
+
+		// The rows get closed also, if the processing stops before reaching the end of the table
+		try (final RowChunkIterable chunks = new RowChunkIterable(inData[0], iChunkSize)) {
+			multiWorker.process(chunks);
+		}
+		catch (final CancellationException exc) {
+			exec.checkCanceled();
+			throw exc;
+		}
+
+		exec.checkCanceled();
+
+		if (!abSuccess.get() && m_modelFailForNoMatch.getBooleanValue()) {
+			throw new RuntimeException("No R-Group matches found.");
+		}
+
+		matchedTableData.close();
+		unmatchedTableData.close();
+
+		// Remove all Rx columns that have not been used at all
+		final BufferedDataTable tableMatched = matchedTableData.getTable();
+		final ColumnRearranger rearranger = new ColumnRearranger(tableMatched.getDataTableSpec());
+		final int iOffset = tableMatched.getDataTableSpec().getNumColumns() - iRGroupSlots;
+		final List<Boolean> listNonEmptyColumns = new ArrayList<>();
+		for (int i = iRGroupSlots - 1; i >= 0; i--) {
+			if (arrLabelUsed[i]) {
+				listNonEmptyColumns.add(0, arrLabelNonEmpty[i]);
+			}
+			else {
+				rearranger.remove(iOffset + i);
+			}
+		}
+
+		m_arrNonEmptyColumn = (listNonEmptyColumns.isEmpty() ? null : new boolean[listNonEmptyColumns.size()]);
+		for (int i = 0; i < listNonEmptyColumns.size(); i++) {
+			m_arrNonEmptyColumn[i] = listNonEmptyColumns.get(i);
+		}
+
+		return new BufferedDataTable[] { exec.createColumnRearrangeTable(tableMatched, rearranger, exec),
+				unmatchedTableData.getTable() };
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * This implementation returns always 0.05d.
@@ -898,6 +1196,105 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 		return molExplicitCore;
 	}
 	
+	/**
+	 * Creates the RDKit R-Group Decomposition parameters based on the current settings.
+	 * It is the responsibility of the caller to clean up the returned object.
+	 * 
+	 * @return Decomposition parameters. Never null.
+	 */
+	protected RGroupDecompositionParameters createDecompositionParameters() {
+		final RGroupDecompositionParameters params = new RGroupDecompositionParameters();
+		params.setLabels(Labels.getCombinedValues(m_modelLabels.getValues()));
+		params.setMatchingStrategy(m_modelMatchingStrategy.getValue().getRDKitRGroupMatching().swigValue());
+		params.setRgroupLabelling(Labeling.getCombinedValues(m_modelLabeling.getValues()));
+		params.setAlignment(m_modelCoreAlignment.getValue().getRDKitRGroupCoreAlignment().swigValue());
+		params.setOnlyMatchAtRGroups(m_modelOnlyMatchAtRGroupsModel.getBooleanValue());
+		params.setRemoveAllHydrogenRGroups(m_modelRemoveHydrogenOnlyRGroupsModel.getBooleanValue());
+		params.setRemoveHydrogensPostMatch(m_modelRemoveHydrogensPostMatchModel.getBooleanValue());
+		return params;
+	}
+
+	/**
+	 * Determines for all R-Group labels of the passed in labeled core (as delivered by
+	 * the R-Group decomposition) a key that describes the position of the attachment point
+	 * in the core independently from the label number. It is the canonical SMILES of
+	 * the core with only this attachment point. Symmetric attachment points get the
+	 * same SMILES and are distinguished by an occurrence number in the order of the labels.
+	 * 
+	 * @param molCore Labeled core. Must not be null.
+	 * @param lUniqueWaveId Used for marking RDKit objects for cleanup.
+	 * 
+	 * @return Map of labels and their keys, sorted by labels. Never null.
+	 */
+	protected Map<Integer, String> createLabelKeys(final ROMol molCore, final long lUniqueWaveId) {
+		final Map<Integer, Integer> mapLabelAtoms = new TreeMap<>();
+		for (int i = 0; i < molCore.getNumAtoms(); i++) {
+			final int iLabel = getRGroupLabel(markForCleanup(molCore.getAtomWithIdx(i), lUniqueWaveId));
+			if (iLabel > 0) {
+				mapLabelAtoms.put(iLabel, i);
+			}
+		}
+
+		final Map<Integer, String> mapLabelKeys = new TreeMap<>();
+		final Set<String> setKeys = new HashSet<>();
+		for (final Map.Entry<Integer, Integer> entry : mapLabelAtoms.entrySet()) {
+			// Remove all other attachment points
+			final RWMol molKey = markForCleanup(new RWMol(molCore), lUniqueWaveId);
+			int iAtomIndex = entry.getValue();
+			for (int i = (int)molKey.getNumAtoms() - 1; i >= 0; i--) {
+				if (i != entry.getValue() && getRGroupLabel(markForCleanup(molKey.getAtomWithIdx(i), lUniqueWaveId)) > 0) {
+					molKey.removeAtom(i);
+					if (i < entry.getValue()) {
+						iAtomIndex--;
+					}
+				}
+			}
+
+			final Atom atom = markForCleanup(molKey.getAtomWithIdx(iAtomIndex), lUniqueWaveId);
+			atom.setAtomMapNum(1);
+			atom.setIsotope(0);
+
+			final String strKey = RDKFuncs.MolToSmiles(molKey);
+			String strUniqueKey = strKey;
+			for (int iOccurrence = 2; !setKeys.add(strUniqueKey); iOccurrence++) {
+				strUniqueKey = strKey + "#" + iOccurrence;
+			}
+			mapLabelKeys.put(entry.getKey(), strUniqueKey);
+		}
+
+		return mapLabelKeys;
+	}
+
+	/**
+	 * Sets new R-Group labels for all labeled attachment points of the passed in molecule
+	 * (core or R-Group). All label representations (atom map, isotope, MDL R-Group) that
+	 * are used by the attachment point get updated.
+	 * 
+	 * @param mol Molecule to relabel. Must not be null.
+	 * @param mapLabels Map of old labels and new labels.
+	 * @param lUniqueWaveId Used for marking RDKit objects for cleanup.
+	 */
+	protected void relabelRGroups(final ROMol mol, final Map<Integer, Integer> mapLabels, final long lUniqueWaveId) {
+		for (int i = 0; i < mol.getNumAtoms(); i++) {
+			final Atom atom = markForCleanup(mol.getAtomWithIdx(i), lUniqueWaveId);
+			final Integer iNewLabel = mapLabels.get(getRGroupLabel(atom));
+			if (iNewLabel != null && iNewLabel != getRGroupLabel(atom)) {
+				if (atom.getAtomMapNum() > 0) {
+					atom.setAtomMapNum(iNewLabel);
+				}
+				if (atom.getIsotope() > 0) {
+					atom.setIsotope(iNewLabel);
+				}
+				if (atom.hasProp("_MolFileRLabel")) {
+					atom.setIntProp("_MolFileRLabel", iNewLabel);
+				}
+				if (atom.hasProp("dummyLabel")) {
+					atom.setProp("dummyLabel", "R" + iNewLabel);
+				}
+			}
+		}
+	}
+
 	@Override
 	protected Map<String, Long> createWarningContextOccurrencesMap(BufferedDataTable[] inData,
 	      InputDataInfo[][] arrInputDataInfo, BufferedDataTable[] resultData) {
@@ -942,6 +1339,32 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 	// Static Public Methods
 	//
 
+	/**
+	 * Determines the R-Group label of the passed in atom, if it is an attachment point
+	 * as delivered by the R-Group decomposition.
+	 * 
+	 * @param atom Atom to check. Must not be null.
+	 * 
+	 * @return Label number or 0, if the atom is not a labeled attachment point.
+	 */
+	public static int getRGroupLabel(final Atom atom) {
+		int iLabel = 0;
+
+		if (atom.getAtomicNum() == 0) {
+			if (atom.getAtomMapNum() > 0) {
+				iLabel = atom.getAtomMapNum();
+			}
+			else if (atom.getIsotope() > 0) {
+				iLabel = (int)atom.getIsotope();
+			}
+			else if (atom.hasProp("_MolFileRLabel")) {
+				iLabel = (int)atom.getUIntProp("_MolFileRLabel");
+			}
+		}
+
+		return iLabel;
+	}
+
 	/**
 	 * Determines, if the condition is fulfilled that we have an additional input table with
 	 * cores connected to the node according to the passed in specs.
@@ -956,4 +1379,105 @@ public class RDKitRGroupDecompositionNodeModel extends AbstractRDKitNodeModel {
 				inSpecs[1] instanceof DataTableSpec &&
 				((DataTableSpec)inSpecs[1]).getNumColumns() > 0);
 	}
+
+	//
+	// Static Protected Methods
+	//
+
+	/**
+	 * Registers a new global R-Group label. The label of the chunk is used, if it is still
+	 * available, otherwise the lowest free label. 
+	 * 
+	 * @param iChunkLabel Label found in the chunk.
+	 * @param arrLabelUsed Flags of all labels that are used already. Will be updated.
+	 * 
+	 * @return The new global label.
+	 * 
+	 * @throws RuntimeException Thrown, if all possible labels are used up already.
+	 */
+	protected static int registerLabel(final int iChunkLabel, final boolean[] arrLabelUsed) {
+		int iLabel = (iChunkLabel > 0 && iChunkLabel < arrLabelUsed.length && !arrLabelUsed[iChunkLabel] ? 
+				iChunkLabel : -1);
+
+		for (int i = 1; iLabel < 0 && i < arrLabelUsed.length; i++) {
+			if (!arrLabelUsed[i]) {
+				iLabel = i;
+			}
+		}
+
+		if (iLabel < 0) {
+			throw new RuntimeException("Too many different R-Groups found in the chunks. " +
+					"Please switch off the option to decompose in parallel chunks.");
+		}
+
+		arrLabelUsed[iLabel] = true;
+
+		return iLabel;
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * Result of the decomposition of one chunk of input rows. It holds native RDKit objects,
+	 * which are registered for cleanup under the unique wave id of the chunk.
+	 */
+	protected static class ChunkResult {
+
+		/** Flags to tell, which input rows matched a core. */
+		private final boolean[] m_arrMatched;
+
+		/** The decomposition results of all matched rows. Null, if the decomposition failed. */
+		private final StringMolMap_Vect m_vResults;
+
+		/** The label keys of all matched rows. Null, if the decomposition failed. */
+		private final List<Map<Integer, String>> m_listLabelKeys;
+
+		/**
+		 * Creates a new chunk result.
+		 * 
+		 * @param arrMatched Flags to tell, which input rows matched a core.
+		 * @param vResults The decomposition results of all matched rows. Null, if the decomposition failed.
+		 * @param listLabelKeys The label keys of all matched rows. Null, if the decomposition failed.
+		 */
+		public ChunkResult(final boolean[] arrMatched, final StringMolMap_Vect vResults,
+				final List<Map<Integer, String>> listLabelKeys) {
+			m_arrMatched = arrMatched;
+			m_vResults = vResults;
+			m_listLabelKeys = listLabelKeys;
+		}
+
+		/**
+		 * Determines, if an input row of the chunk matched a core.
+		 * 
+		 * @param iRow Index of the row within the chunk.
+		 * 
+		 * @return True, if the row matched a core. False otherwise.
+		 */
+		public boolean isMatched(final int iRow) {
+			return m_arrMatched[iRow];
+		}
+
+		/**
+		 * Returns the decomposition results of all matched rows of the chunk.
+		 * 
+		 * @return Decomposition results in the order of the matched rows.
+		 * 		Null, if the decomposition failed.
+		 */
+		public StringMolMap_Vect getResults() {
+			return m_vResults;
+		}
+
+		/**
+		 * Returns the label keys of a matched row of the chunk.
+		 * 
+		 * @param iMatchIndex Index of the row among the matched rows of the chunk.
+		 * 
+		 * @return Label keys by R-Group label. Must not be called, if the decomposition failed.
+		 */
+		public Map<Integer, String> getLabelKeys(final int iMatchIndex) {
+			return m_listLabelKeys.get(iMatchIndex);
+		}
+	}
 }
@@ -55,6 +55,7 @@ import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.DialogComponentColumnNameSelection;
 
@@ -100,6 +101,8 @@ public class RDKitRMSDFilterNodeDialog extends DefaultNodeSettingsPane {
 				createRmsdThresholdModel(), "RMSD threshold", 0.1d));
 		super.addDialogComponent(new DialogComponentBoolean(
 				createIgnoreHsOptionModel(), "Ignore Hs (increases performance)"));
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
 	}
 
 	//
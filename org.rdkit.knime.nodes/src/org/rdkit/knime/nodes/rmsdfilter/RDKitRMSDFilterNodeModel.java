@@ -49,14 +49,22 @@
 package org.rdkit.knime.nodes.rmsdfilter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.RDKit.Atom;
+import org.RDKit.Bond;
+import org.RDKit.Conformer;
 import org.RDKit.GenericRDKitException;
+import org.RDKit.Int_Pair;
 import org.RDKit.Match_Vect;
 import org.RDKit.Match_Vect_Vect;
+import org.RDKit.Point3D;
 import org.RDKit.ROMol;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
@@ -68,6 +76,7 @@ import org.knime.core.data.StringValue;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
@@ -76,6 +85,7 @@ import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.rdkit.knime.nodes.AbstractRDKitCellFactory;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.types.RDKitMolValue;
 import org.rdkit.knime.util.InputDataInfo;
 import org.rdkit.knime.util.InvalidInputException;
@@ -97,6 +107,9 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 
 	/**
 	 * Simple wrapper class to have an association between a conformer molecule and a row key.
+	 * It keeps also the distances of all atoms to the centroid of the conformer, which are
+	 * used to prune RMSD calculations, and its topology, which tells, if cached matches
+	 * can be used for it.
 	 * 
 	 * @author Manuel Schwarze
 	 */
@@ -108,18 +121,27 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 
 		private final ROMol m_molConformer;
 		private final RowKey m_rowKey;
+		private final double[] m_arrCentroidDistances;
+		private final String m_strTopology;
 
 		//
 		// Constructor
 		//
 
 		public IncludedConformer(final ROMol molConformer, final RowKey rowKey) {
+			this(molConformer, rowKey, null, null);
+		}
+
+		public IncludedConformer(final ROMol molConformer, final RowKey rowKey, final double[] arrCentroidDistances,
+				final String strTopology) {
 			if (molConformer == null || rowKey == null) {
 				throw new IllegalArgumentException("RDKit Molecule and Row Key must not be null.");
 			}
 
 			m_molConformer = molConformer;
 			m_rowKey = rowKey;
+			m_arrCentroidDistances = arrCentroidDistances;
+			m_strTopology = strTopology;
 		}
 
 		//
@@ -133,6 +155,102 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 		public RowKey getRowKey() {
 			return m_rowKey;
 		}
+
+		/**
+		 * Returns the distances of all atoms to the centroid of the conformer, followed
+		 * by the radius of gyration as last element.
+		 * 
+		 * @return Centroid distances or null, if not available.
+		 */
+		public double[] getCentroidDistances() {
+			return m_arrCentroidDistances;
+		}
+
+		/**
+		 * Returns the topology of the conformer as created by {@link RDKitRMSDFilterNodeModel#createTopology(ROMol)}.
+		 * 
+		 * @return Topology or null, if not available.
+		 */
+		public String getTopology() {
+			return m_strTopology;
+		}
+	}
+
+	/**
+	 * Substructure matches of the first conformer of a reference with itself. As long as
+	 * further conformers of the reference have the same topology (same atoms and bonds in
+	 * the same order), these matches are the same as the matches between any two conformers,
+	 * and do not need to be recalculated for every pair of conformers.
+	 */
+	protected static class ConformerMatches {
+
+		//
+		// Members
+		//
+
+		private final String m_strTopology;
+		private final Match_Vect_Vect m_matches;
+		private final int[][] m_arrMatches;
+
+		//
+		// Constructor
+		//
+
+		public ConformerMatches(final String strTopology, final Match_Vect_Vect matches) {
+			m_strTopology = strTopology;
+			m_matches = matches;
+			m_arrMatches = new int[(int)matches.size()][];
+			for (int i = 0; i < m_arrMatches.length; i++) {
+				final Match_Vect match = matches.get(i);
+				m_arrMatches[i] = new int[(int)match.size()];
+				for (int j = 0; j < m_arrMatches[i].length; j++) {
+					final Int_Pair pair = match.get(j);
+					m_arrMatches[i][pair.getFirst()] = pair.getSecond();
+				}
+			}
+		}
+
+		//
+		// Public Methods
+		//
+
+		public String getTopology() {
+			return m_strTopology;
+		}
+
+		public Match_Vect getMatch(final int iIndex) {
+			return m_matches.get(iIndex);
+		}
+
+		/**
+		 * Returns all matches as arrays, which map probe atom indexes to reference atom indexes.
+		 * 
+		 * @return Matches. Not null.
+		 */
+		public int[][] getMatches() {
+			return m_arrMatches;
+		}
+	}
+
+	/**
+	 * A run of consecutive input rows with the same reference value. Rows with
+	 * missing cells are added to the current run.
+	 */
+	protected static class ConformerTask {
+
+		//
+		// Members
+		//
+
+		private final List<DataRow> m_listRows = new ArrayList<DataRow>();
+
+		//
+		// Public Methods
+		//
+
+		public List<DataRow> getRows() {
+			return m_listRows;
+		}
 	}
 
 	//
@@ -172,16 +290,22 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 	// Intermediate results
 
 	/** Maps reference values to the total count of occurrences in the input table. */
-	private HashMap<String, Integer> m_mapReferenceToTotalCount;
+	private Map<String, Integer> m_mapReferenceToTotalCount;
 
 	/** Maps reference values to the count of processed rows with this reference value. */
-	private HashMap<String, Integer> m_mapReferenceToProcessedCount;
+	private Map<String, Integer> m_mapReferenceToProcessedCount;
 
 	/** Maps reference values to ROMol objects that are currently in processing focus and made it already into the output table. */
-	private HashMap<String, List<IncludedConformer>> m_mapReferenceToIncludedList;
+	private Map<String, List<IncludedConformer>> m_mapReferenceToIncludedList;
 
 	/** Maps reference values to a unique wave id used for cleaning up RDKit objects that are not needed anymore. */
-	private HashMap<String, Long> m_mapReferenceToUniqueWaveId;
+	private Map<String, Long> m_mapReferenceToUniqueWaveId;
+
+	/** Maps reference values to the substructure matches of their first conformer. */
+	private Map<String, ConformerMatches> m_mapReferenceToConformerMatches;
+
+	/** Flag to tell, if all rows of a reference value are consecutive rows in the input table. */
+	private boolean m_bConsecutiveReferences;
 
 	//
 	// Constructor
@@ -192,6 +316,7 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 	 */
 	RDKitRMSDFilterNodeModel() {
 		super(1, 2);
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -320,14 +445,18 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 			final InputDataInfo[][] arrInputDataInfo, final ExecutionContext exec)
 					throws Exception {
 		// Initialize intermediate results to determine what work we need to do when processing
-		m_mapReferenceToTotalCount = new LinkedHashMap<String, Integer>();
-		m_mapReferenceToProcessedCount = new LinkedHashMap<String, Integer>();
-		m_mapReferenceToIncludedList = new LinkedHashMap<String, List<IncludedConformer>>();
-		m_mapReferenceToUniqueWaveId = new LinkedHashMap<String, Long>();
+		// (references get processed in parallel, hence we use concurrent maps)
+		m_mapReferenceToTotalCount = new ConcurrentHashMap<String, Integer>();
+		m_mapReferenceToProcessedCount = new ConcurrentHashMap<String, Integer>();
+		m_mapReferenceToIncludedList = new ConcurrentHashMap<String, List<IncludedConformer>>();
+		m_mapReferenceToUniqueWaveId = new ConcurrentHashMap<String, Long>();
+		m_mapReferenceToConformerMatches = new ConcurrentHashMap<String, ConformerMatches>();
+		m_bConsecutiveReferences = true;
 
 		// Walk through the input table and find out how many different groups are defined and how many rows belong to the group
 		final long lTotalRowCount = inData[0].size();
 		long rowInputIndex = 0;
+		String strLastRef = null;
 
 		AbstractRDKitNodeModel.reportProgress(exec, 0, lTotalRowCount, null, " - Evaluating input");
 
@@ -345,6 +474,12 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 					m_mapReferenceToIncludedList.put(strRef, new ArrayList<IncludedConformer>(10));
 					m_mapReferenceToUniqueWaveId.put(strRef, createUniqueCleanupWaveId());
 				}
+				else if (!strRef.equals(strLastRef)) {
+					// The reference occurred already before another reference
+					m_bConsecutiveReferences = false;
+				}
+
+				strLastRef = strRef;
 			}
 
 			// Every 20 iterations check cancellation status and report progress
@@ -365,7 +500,6 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 	@Override
 	protected BufferedDataTable[] processing(final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
 			final ExecutionContext exec) throws Exception {
-		final WarningConsolidator warnings = getWarningConsolidator();
 		final DataTableSpec[] arrOutSpecs = getOutputTableSpecs(inData);
 
 		// Contains the rows that have an RMSD >= threshold value
@@ -383,109 +517,284 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 		// Get option for removing Hs on the fly
 		final boolean bIgnoreHs = m_modelIgnoreHsOption.getBooleanValue();
 
-		// Iterate through all input rows and calculate results
-		long rowInputIndex = 0;
-		for (final CloseableRowIterator i = inData[0].iterator(); i.hasNext(); rowInputIndex++) {
-			final DataRow row = i.next();
+		// Different references are independent from each other and get processed in parallel,
+		// but only if the rows of a reference are not spread over the table, because the
+		// conformers of a reference need to be processed one after the other
+		final int iMaxParallelWorkers = (m_bConsecutiveReferences ?
+				getMaxParallelWorkers() : 1);
+		final int iQueueSize = AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
+		final AtomicLong alRowCounter = new AtomicLong(0);
+
+		final ParallelWorker<ConformerTask, boolean[]> multiWorker =
+				new ParallelWorker<ConformerTask, boolean[]>(this, iQueueSize, iMaxParallelWorkers, exec) {
+
+			/**
+			 * Filters all conformers of a run of rows with the same reference.
+			 * 
+			 * @param task Run of rows with the same reference.
+			 * @param lTaskIndex Index of the task.
+			 * 
+			 * @return Flags for all rows of the run - true to include them in the first table.
+			 */
+			@Override
+			protected boolean[] calculate(final ConformerTask task, final long lTaskIndex) throws Exception {
+				final List<DataRow> listRows = task.getRows();
+				final boolean[] arrIncluded = new boolean[listRows.size()];
+
+				for (int i = 0; i < arrIncluded.length; i++) {
+					arrIncluded[i] = filterConformer(listRows.get(i), arrInputDataInfo, dThreshold, bIgnoreHs);
+				}
 
-			// Get reference cell, which defined the group the conformer molecule belongs to
-			final DataCell refCell = arrInputDataInfo[0][INPUT_COLUMN_REFERENCE].getCell(row);
-			final DataCell molCellForNullCheck = arrInputDataInfo[0][INPUT_COLUMN_MOL].getCell(row);
+				return arrIncluded;
+			}
 
-			// We use only cells, which are not missing (see also createInputDataInfos(...) )
-			if (refCell != null) {
-				if (molCellForNullCheck != null) {
-					// Create the string representation of the reference cell
-					final String strRef = getStringValue(refCell);
+			/**
+			 * Adds the rows of the run to the output tables.
+			 * 
+			 * @param task Processing result of a run of rows.
+			 */
+			@Override
+			protected void processResult(final ComputationTask task)
+					throws ExecutionException, CancellationException, InterruptedException {
+				final List<DataRow> listRows = task.getInput().getRows();
+				final boolean[] arrIncluded = task.get();
+
+				for (int i = 0; i < arrIncluded.length; i++) {
+					if (arrIncluded[i]) {
+						port0.addRowToTable(listRows.get(i));
+					}
+					else {
+						port1.addRowToTable(listRows.get(i));
+					}
+				}
 
-					// Get the unique wave id that was assigned to the group for RDKit object cleanup
-					final long lUniqueWaveId = m_mapReferenceToUniqueWaveId.get(strRef);
+				// Check, if user pressed cancel (however, we will finish the method nevertheless)
+				try {
+					AbstractRDKitNodeModel.reportProgress(exec, alRowCounter.addAndGet(listRows.size()), lTotalRowCount,
+							listRows.get(listRows.size() - 1), " - Calculating best RMSD values and filtering (found already " +
+							port0.size() + " matching)");
+				}
+				catch (final CanceledExecutionException e) {
+					stopProcessing();
+				}
+			}
+		};
 
-					// Get the conformers molecule
-					ROMol molProbe = markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_MOL].getROMol(row), lUniqueWaveId);
+		try {
+			multiWorker.process(createConformerTasks(inData[0], arrInputDataInfo));
+		}
+		catch (final CancellationException exc) {
+			exec.checkCanceled();
+			throw exc;
+		}
 
-					// We use only cells that could be resolved into an RDKit molecule (normal case)
-					if (molProbe != null) {
-						// Remove Hs, if set as option
-						if (bIgnoreHs) {
-							molProbe = markForCleanup(molProbe.removeHs(false), lUniqueWaveId);
-						}
+		exec.checkCanceled();
+		exec.setProgress(1.0, "Finished Processing");
+
+		port0.close();
+		port1.close();
+
+		return new BufferedDataTable[] { port0.getTable(), port1.getTable() };
+	}
+
+	/**
+	 * Determines for the conformer of the passed in row, if it belongs into the first table,
+	 * because its RMSD to all previously included conformers of the same reference is
+	 * larger than the threshold. This method must be called for the rows of a reference
+	 * in the order of the input table, and not concurrently for the same reference.
+	 * 
+	 * @param row Input row. Must not be null.
+	 * @param arrInputDataInfo Information about all columns of the input table.
+	 * @param dThreshold The RMSD threshold.
+	 * @param bIgnoreHs True to remove Hs before calculating RMSD values.
+	 * 
+	 * @return True to include the row in the first table. False to add it to the second table.
+	 * 
+	 * @throws Exception Thrown, if the row could not be processed.
+	 */
+	protected boolean filterConformer(final DataRow row, final InputDataInfo[][] arrInputDataInfo,
+			final double dThreshold, final boolean bIgnoreHs) throws Exception {
+		final WarningConsolidator warnings = getWarningConsolidator();
+		boolean bIncluded = false;
+
+		// Get reference cell, which defined the group the conformer molecule belongs to
+		final DataCell refCell = arrInputDataInfo[0][INPUT_COLUMN_REFERENCE].getCell(row);
+		final DataCell molCellForNullCheck = arrInputDataInfo[0][INPUT_COLUMN_MOL].getCell(row);
+
+		// We use only cells, which are not missing (see also createInputDataInfos(...) )
+		if (refCell != null) {
+			if (molCellForNullCheck != null) {
+				// Create the string representation of the reference cell
+				final String strRef = getStringValue(refCell);
+
+				// Get the unique wave id that was assigned to the group for RDKit object cleanup
+				final long lUniqueWaveId = m_mapReferenceToUniqueWaveId.get(strRef);
+
+				// Get the conformers molecule
+				ROMol molProbe = markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_MOL].getROMol(row), lUniqueWaveId);
+
+				// We use only cells that could be resolved into an RDKit molecule (normal case)
+				if (molProbe != null) {
+					// Remove Hs, if set as option
+					if (bIgnoreHs) {
+						molProbe = markForCleanup(molProbe.removeHs(false), lUniqueWaveId);
+					}
 
-						final int iProcessedCount = setOrIncreaseCount(m_mapReferenceToProcessedCount, strRef);
+					final int iProcessedCount = setOrIncreaseCount(m_mapReferenceToProcessedCount, strRef);
+					final double[] arrProbeDistances = calculateCentroidDistances(molProbe);
+					final String strProbeTopology = createTopology(molProbe);
 
-						// Check, if this is the first one of a group - if so we just add it to the output table
-						if (iProcessedCount == 1) {
-							port0.addRowToTable(row);
-							m_mapReferenceToIncludedList.get(strRef).add(new IncludedConformer(molProbe, row.getKey()));
+					// Check, if this is the first one of a group - if so we just add it to the output table
+					if (iProcessedCount == 1) {
+						bIncluded = true;
+						m_mapReferenceToIncludedList.get(strRef).add(new IncludedConformer(molProbe, row.getKey(), arrProbeDistances, strProbeTopology));
+
+						// Calculate the substructure matches once for all conformers of the group
+						final Match_Vect_Vect matches = markForCleanup(molProbe.getSubstructMatches(molProbe, false /* unify */), lUniqueWaveId);
+						if (matches != null && !matches.isEmpty()) {
+							m_mapReferenceToConformerMatches.put(strRef, new ConformerMatches(strProbeTopology, matches));
 						}
+					}
+
+					// If it is not the first one apply logic to calculate minimum RMSD values based on
+					// all molecules of the group that are already in the include list (>= threshold)
+					else if (iProcessedCount > 1) {
+						double dMinRmsd = Double.MAX_VALUE;
 
-						// If it is not the first one apply logic to calculate minimum RMSD values based on
-						// all molecules of the group that are already in the include list (>= threshold)
-						else if (iProcessedCount > 1) {
-							double dMinRmsd = Double.MAX_VALUE;
-
-							for (final IncludedConformer includedConformer : m_mapReferenceToIncludedList.get(strRef)) {
-								try {
-									final double dRmsd = getBestRMSD(
-											includedConformer.getMolConformer(), includedConformer.getRowKey(),
-											molProbe, row.getKey());
-									if (dRmsd != -1) {
-										dMinRmsd = Math.min(dRmsd, dMinRmsd);
+						final ConformerMatches conformerMatches = m_mapReferenceToConformerMatches.get(strRef);
+
+						for (final IncludedConformer includedConformer : m_mapReferenceToIncludedList.get(strRef)) {
+							try {
+								final double dRmsd = getBestRMSD(includedConformer, molProbe, row.getKey(),
+										strProbeTopology, arrProbeDistances, conformerMatches, dThreshold);
+								if (dRmsd != -1) {
+									dMinRmsd = Math.min(dRmsd, dMinRmsd);
+
+									// The conformer will not be included anyway - no need to check further
+									if (dMinRmsd < dThreshold) {
+										break;
 									}
 								}
-								catch (final InvalidInputException exc) {
-									warnings.saveWarning(exc.getMessage());
-								}
 							}
-
-							// Check, if we got an RMSD value at all and if it is larger than our threshold
-							if (dMinRmsd < Double.MAX_VALUE && dMinRmsd >= dThreshold) {
-								port0.addRowToTable(row);
-								m_mapReferenceToIncludedList.get(strRef).add(new IncludedConformer(molProbe, row.getKey()));
-							}
-							else {
-								port1.addRowToTable(row);
+							catch (final InvalidInputException exc) {
+								warnings.saveWarning(exc.getMessage());
 							}
 						}
 
-						// Check, if we processed all molecules of a group - if so we can cleanup all RDKit objects
-						if (SettingsUtils.equals(m_mapReferenceToTotalCount.get(strRef), m_mapReferenceToProcessedCount.get(strRef))) {
-							m_mapReferenceToProcessedCount.remove(strRef);
-							m_mapReferenceToTotalCount.remove(strRef);
-							m_mapReferenceToIncludedList.remove(strRef);
-							m_mapReferenceToUniqueWaveId.remove(strRef);
-							cleanupMarkedObjects(lUniqueWaveId);
+						// Check, if we got an RMSD value at all and if it is larger than our threshold
+						if (dMinRmsd < Double.MAX_VALUE && dMinRmsd >= dThreshold) {
+							bIncluded = true;
+							m_mapReferenceToIncludedList.get(strRef).add(new IncludedConformer(molProbe, row.getKey(), arrProbeDistances, strProbeTopology));
 						}
 					}
-					else {
-						warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Unable to get RDKit molecule from conformer input cell. This row will appear in the second table.");
-						port1.addRowToTable(row);
+
+					// Check, if we processed all molecules of a group - if so we can cleanup all RDKit objects
+					if (SettingsUtils.equals(m_mapReferenceToTotalCount.get(strRef), m_mapReferenceToProcessedCount.get(strRef))) {
+						m_mapReferenceToProcessedCount.remove(strRef);
+						m_mapReferenceToTotalCount.remove(strRef);
+						m_mapReferenceToIncludedList.remove(strRef);
+						m_mapReferenceToUniqueWaveId.remove(strRef);
+						m_mapReferenceToConformerMatches.remove(strRef);
+						cleanupMarkedObjects(lUniqueWaveId);
 					}
 				}
 				else {
-					warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Encountered empty conformer input cell. This row will appear in the second table.");
-					port1.addRowToTable(row);
+					warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Unable to get RDKit molecule from conformer input cell. This row will appear in the second table.");
 				}
 			}
 			else {
-				warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Encountered empty reference input cell. This row will appear in the second table.");
-				port1.addRowToTable(row);
-			}
-
-			// Every 20 iterations check cancellation status and report progress
-			if (rowInputIndex % 20 == 0) {
-				AbstractRDKitNodeModel.reportProgress(exec, rowInputIndex, lTotalRowCount, row, " - Calculating best RMSD values and filtering (found already " +
-						port0.size() + " matching)");
+				warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Encountered empty conformer input cell. This row will appear in the second table.");
 			}
 		}
+		else {
+			warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), "Encountered empty reference input cell. This row will appear in the second table.");
+		}
 
-		exec.checkCanceled();
-		exec.setProgress(1.0, "Finished Processing");
+		return bIncluded;
+	}
 
-		port0.close();
-		port1.close();
+	/**
+	 * Creates tasks for runs of consecutive input rows with the same reference value.
+	 * The table is read lazily while iterating.
+	 * 
+	 * @param table Input table. Must not be null.
+	 * @param arrInputDataInfo Information about all columns of the input table.
+	 * 
+	 * @return Iterable over tasks. Never null.
+	 */
+	protected Iterable<ConformerTask> createConformerTasks(final BufferedDataTable table,
+			final InputDataInfo[][] arrInputDataInfo) {
+		return new Iterable<ConformerTask>() {
+			@Override
+			public Iterator<ConformerTask> iterator() {
+				final CloseableRowIterator iterator = table.iterator();
+
+				return new Iterator<ConformerTask>() {
+
+					/** The first row of the next task, which was read already. */
+					private DataRow m_rowNext = null;
+
+					@Override
+					public boolean hasNext() {
+						final boolean bHasNext = (m_rowNext != null || iterator.hasNext());
+						if (!bHasNext) {
+							iterator.close();
+						}
+						return bHasNext;
+					}
 
-		return new BufferedDataTable[] { port0.getTable(), port1.getTable() };
+					@Override
+					public ConformerTask next() {
+						final DataRow rowFirst = (m_rowNext != null ? m_rowNext : iterator.next());
+						final ConformerTask task = new ConformerTask();
+						String strTaskRef = getReference(rowFirst);
+						task.getRows().add(rowFirst);
+						m_rowNext = null;
+
+						while (iterator.hasNext()) {
+							final DataRow row = iterator.next();
+							final String strRef = getReference(row);
+							if (strRef == null || strRef.equals(strTaskRef)) {
+								task.getRows().add(row);
+							}
+							else if (strTaskRef == null) {
+								// The run started with rows that are not used for RMSD calculations
+								strTaskRef = strRef;
+								task.getRows().add(row);
+							}
+							else {
+								m_rowNext = row;
+								break;
+							}
+						}
+
+						return task;
+					}
+
+					/**
+					 * Determines the reference value of a row.
+					 * 
+					 * @param row Input row.
+					 * 
+					 * @return Reference value or null, if the row is not used for RMSD calculations.
+					 */
+					private String getReference(final DataRow row) {
+						String strRef = null;
+
+						try {
+							if (arrInputDataInfo[0][INPUT_COLUMN_MOL].getCell(row) != null) {
+								strRef = getStringValue(arrInputDataInfo[0][INPUT_COLUMN_REFERENCE].getCell(row));
+							}
+						}
+						catch (final InvalidInputException exc) {
+							// Ignored here - the row will fail later in the processing of the task
+						}
+
+						return strRef;
+					}
+				};
+			}
+		};
 	}
 
 	@Override
@@ -494,12 +803,13 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 		m_mapReferenceToProcessedCount.clear();
 		m_mapReferenceToIncludedList.clear();
 		m_mapReferenceToUniqueWaveId.clear();
+		m_mapReferenceToConformerMatches.clear();
 
 		m_mapReferenceToTotalCount = null;
 		m_mapReferenceToProcessedCount = null;
 		m_mapReferenceToIncludedList = null;
 		m_mapReferenceToUniqueWaveId = null;
-
+		m_mapReferenceToConformerMatches = null;
 	}
 
 	/**
@@ -608,4 +918,150 @@ public class RDKitRMSDFilterNodeModel extends AbstractRDKitNodeModel {
 
 		return (dBestRmsd < Double.MAX_VALUE ? dBestRmsd : -1.0d);
 	}
+
+	/**
+	 * Calculates the best RMSD value for two molecules with a single conformer, but only as
+	 * far as needed to compare it with the threshold: The result is exact, if it is below the
+	 * threshold. Otherwise it may be a lower bound of the best RMSD value, which is also
+	 * larger than or equal to the threshold. Lower bounds are derived from the distances of
+	 * the atoms to the centroids of the two conformers, which cannot be changed by any
+	 * alignment. Cached matches are only used, if reference and probe have both the topology
+	 * of the cached matches. Otherwise it falls back to a full calculation
+	 * with {@link #getBestRMSD(ROMol, RowKey, ROMol, RowKey)}.
+	 * 
+	 * @param conformerRef Included reference conformer. Must not be null.
+	 * @param molProbe Probe molecule. Can be null to return -1.
+	 * @param keyProbe Row key of the probe molecule. Used in error information. Can be null.
+	 * @param strProbeTopology Topology of the probe molecule. Can be null.
+	 * @param arrProbeDistances Centroid distances of the probe molecule. Can be null.
+	 * @param conformerMatches Cached matches of the group. Can be null.
+	 * @param dThreshold The RMSD threshold.
+	 * 
+	 * @return Best RMSD value (or lower bound >= threshold) or -1, if it could not be determined.
+	 * 
+	 * @throws InvalidInputException Thrown if there is no substructure match found between reference and probe molecules.
+	 * @throws GenericRDKitException Thrown if an internal RDKit error occurred.
+	 */
+	protected double getBestRMSD(final IncludedConformer conformerRef, final ROMol molProbe, final RowKey keyProbe,
+			final String strProbeTopology, final double[] arrProbeDistances, final ConformerMatches conformerMatches,
+			final double dThreshold) throws InvalidInputException, GenericRDKitException {
+		final double[] arrRefDistances = conformerRef.getCentroidDistances();
+
+		if (molProbe == null || conformerMatches == null || arrRefDistances == null || arrProbeDistances == null ||
+				arrRefDistances.length != arrProbeDistances.length ||
+				!conformerMatches.getTopology().equals(conformerRef.getTopology()) ||
+				!conformerMatches.getTopology().equals(strProbeTopology)) {
+			return getBestRMSD(conformerRef.getMolConformer(), conformerRef.getRowKey(), molProbe, keyProbe);
+		}
+
+		// The difference of the radii of gyration is a lower bound for any alignment
+		final int iAtomCount = arrProbeDistances.length - 1;
+		final double dGyrationBound = Math.abs(arrRefDistances[iAtomCount] - arrProbeDistances[iAtomCount]);
+		if (dGyrationBound >= dThreshold) {
+			return dGyrationBound;
+		}
+
+		final int[][] arrMatches = conformerMatches.getMatches();
+		double dBestRmsd = Double.MAX_VALUE;
+		double dMinLowerBound = Double.MAX_VALUE;
+
+		for (int i = 0; i < arrMatches.length && dBestRmsd >= dThreshold; i++) {
+			// The differences of centroid distances of matched atoms are a lower bound for this match
+			final int[] arrMatch = arrMatches[i];
+			double dSum = 0.0d;
+			for (int iAtom = 0; iAtom < iAtomCount; iAtom++) {
+				final double dDiff = arrRefDistances[arrMatch[iAtom]] - arrProbeDistances[iAtom];
+				dSum += dDiff * dDiff;
+			}
+			final double dLowerBound = Math.sqrt(dSum / iAtomCount);
+
+			if (dLowerBound >= dThreshold || dLowerBound >= dBestRmsd) {
+				dMinLowerBound = Math.min(dMinLowerBound, dLowerBound);
+			}
+			else {
+				dBestRmsd = Math.min(dBestRmsd, molProbe.alignMol(conformerRef.getMolConformer(), -1, -1,
+						conformerMatches.getMatch(i)));
+			}
+		}
+
+		return Math.min(dBestRmsd, dMinLowerBound);
+	}
+
+	//
+	// Static Protected Methods
+	//
+
+	/**
+	 * Calculates the distances of all atoms of the conformer of the passed in molecule
+	 * to its centroid and the radius of gyration.
+	 * 
+	 * @param mol Molecule with a conformer. Can be null to return null.
+	 * 
+	 * @return Array with the distances of all atoms followed by the radius of gyration as
+	 * 		last element. Null, if the molecule has no conformer.
+	 */
+	protected static double[] calculateCentroidDistances(final ROMol mol) {
+		double[] arrDistances = null;
+
+		if (mol != null && mol.getNumConformers() > 0 && mol.getNumAtoms() > 0) {
+			final Conformer conformer = mol.getConformer();
+			final int iAtomCount = (int)mol.getNumAtoms();
+			final double[][] arrPos = new double[iAtomCount][3];
+			final double[] arrCentroid = new double[3];
+
+			for (int i = 0; i < iAtomCount; i++) {
+				final Point3D pos = conformer.getAtomPos(i);
+				arrPos[i][0] = pos.getX();
+				arrPos[i][1] = pos.getY();
+				arrPos[i][2] = pos.getZ();
+				for (int j = 0; j < 3; j++) {
+					arrCentroid[j] += arrPos[i][j] / iAtomCount;
+				}
+			}
+
+			arrDistances = new double[iAtomCount + 1];
+			double dSum = 0.0d;
+			for (int i = 0; i < iAtomCount; i++) {
+				final double dX = arrPos[i][0] - arrCentroid[0];
+				final double dY = arrPos[i][1] - arrCentroid[1];
+				final double dZ = arrPos[i][2] - arrCentroid[2];
+				final double dSquare = dX * dX + dY * dY + dZ * dZ;
+				arrDistances[i] = Math.sqrt(dSquare);
+				dSum += dSquare;
+			}
+			arrDistances[iAtomCount] = Math.sqrt(dSum / iAtomCount);
+		}
+
+		return arrDistances;
+	}
+
+	/**
+	 * Creates a string that describes the atoms and bonds of the passed in molecule
+	 * in their order. Two molecules with the same topology string have the same
+	 * substructure matches with each other as each of them with itself.
+	 * 
+	 * @param mol Molecule. Must not be null.
+	 * 
+	 * @return Topology string. Never null.
+	 */
+	protected static String createTopology(final ROMol mol) {
+		final StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < mol.getNumAtoms(); i++) {
+			final Atom atom = mol.getAtomWithIdx(i);
+			sb.append(atom.getAtomicNum()).append(',').append(atom.getFormalCharge()).append(',')
+			.append(atom.getIsotope()).append(',').append(atom.getIsAromatic() ? 'a' : 'A').append(',')
+			.append(atom.getTotalNumHs()).append(';');
+		}
+
+		sb.append('|');
+
+		for (int i = 0; i < mol.getNumBonds(); i++) {
+			final Bond bond = mol.getBondWithIdx(i);
+			sb.append(bond.getBeginAtomIdx()).append('-').append(bond.getEndAtomIdx()).append(',')
+			.append(bond.getBondType().swigValue()).append(';');
+		}
+
+		return sb.toString();
+	}
 }
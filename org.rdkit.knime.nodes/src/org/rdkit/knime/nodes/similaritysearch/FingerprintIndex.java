@@ -0,0 +1,473 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.similaritysearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory index over reference fingerprints for Tanimoto and Tversky similarity searches.
+ * The words of all reference fingerprints are packed into one contiguous array (the arena),
+ * sorted by the number of on bits (popcount). As the similarity of two fingerprints cannot be
+ * higher than the similarity they would have, if all bits of the fingerprint with fewer
+ * on bits were also set in the other one, whole popcount ranges of references can be skipped
+ * for a similarity threshold (BitBound pruning, see Swamidass and Baldi,
+ * J. Chem. Inf. Model. 2007, 47, 302-317). A search starts with references having the
+ * popcount of the query and widens the popcount range until the bound falls below the
+ * threshold. When searching for the best k hits, the similarity of the k-th best hit
+ * found so far is used as threshold. The index is immutable and can be searched from
+ * multiple threads concurrently.
+ */
+public class FingerprintIndex {
+
+	//
+	// Members
+	//
+
+	/** Number of bits of all fingerprints. */
+	private final int m_iNumBits;
+
+	/** Number of 64 bit words of a fingerprint. */
+	private final int m_iWordsPerFingerprint;
+
+	/** Number of reference fingerprints. */
+	private final int m_iSize;
+
+	/** Words of all reference fingerprints in popcount order. */
+	private final long[] m_arrArena;
+
+	/** Popcounts of all reference fingerprints in popcount order. */
+	private final int[] m_arrPopCounts;
+
+	/** Indexes of the reference fingerprints (in the order they were passed in) in popcount order. */
+	private final int[] m_arrReferenceIndexes;
+
+	/** Identifiers of the reference fingerprints in the order they were passed in. */
+	private final String[] m_arrIds;
+
+	/** Position in popcount order of the first reference fingerprint for every popcount (0 - number of bits + 1). */
+	private final int[] m_arrPopCountStarts;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new index for the passed in reference fingerprints.
+	 * 
+	 * @param iNumBits Number of bits of all fingerprints.
+	 * @param listWords Words of all reference fingerprints, e.g. as returned by
+	 * 		{@link org.knime.core.data.vector.bitvector.DenseBitVector#getAllBits()}.
+	 * 		Must not be null. Every element must have exactly the number of words
+	 * 		required for the number of bits.
+	 * @param listIds Identifiers of all reference fingerprints in the same order.
+	 * 		Must not be null and must have the same size as the list of words.
+	 * 
+	 * @throws IllegalArgumentException Thrown, if the fingerprints do not have the
+	 * 		specified number of bits or if there are too many fingerprints for one index.
+	 */
+	public FingerprintIndex(final int iNumBits, final List<long[]> listWords, final List<String> listIds) {
+		if (iNumBits < 0) {
+			throw new IllegalArgumentException("The number of fingerprint bits must not be negative.");
+		}
+		if (listWords.size() != listIds.size()) {
+			throw new IllegalArgumentException("The number of fingerprints and identifiers must be equal.");
+		}
+
+		m_iNumBits = iNumBits;
+		m_iWordsPerFingerprint = (iNumBits + 63) >>> 6;
+		m_iSize = listWords.size();
+
+		if ((long)m_iSize * m_iWordsPerFingerprint > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("There are too many reference fingerprints (" + m_iSize +
+					") with " + iNumBits + " bits for a single index.");
+		}
+
+		// Count the fingerprints of every popcount
+		final int[] arrPopCounts = new int[m_iSize];
+		m_arrPopCountStarts = new int[iNumBits + 2];
+		for (int i = 0; i < m_iSize; i++) {
+			final long[] arrWords = listWords.get(i);
+			if (arrWords.length != m_iWordsPerFingerprint) {
+				throw new IllegalArgumentException("Reference fingerprint #" + (i + 1) +
+						" does not have " + iNumBits + " bits.");
+			}
+			arrPopCounts[i] = getPopCount(arrWords);
+			m_arrPopCountStarts[arrPopCounts[i] + 1]++;
+		}
+		for (int i = 1; i < m_arrPopCountStarts.length; i++) {
+			m_arrPopCountStarts[i] += m_arrPopCountStarts[i - 1];
+		}
+
+		// Sort the fingerprints by popcount (stable, so that equal popcounts keep their order)
+		m_arrArena = new long[m_iSize * m_iWordsPerFingerprint];
+		m_arrPopCounts = new int[m_iSize];
+		m_arrReferenceIndexes = new int[m_iSize];
+		m_arrIds = listIds.toArray(new String[m_iSize]);
+		final int[] arrNextPositions = m_arrPopCountStarts.clone();
+		for (int i = 0; i < m_iSize; i++) {
+			final int iPosition = arrNextPositions[arrPopCounts[i]]++;
+			System.arraycopy(listWords.get(i), 0, m_arrArena, iPosition * m_iWordsPerFingerprint, m_iWordsPerFingerprint);
+			m_arrPopCounts[iPosition] = arrPopCounts[i];
+			m_arrReferenceIndexes[iPosition] = i;
+		}
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Returns the number of bits of the fingerprints in this index.
+	 * 
+	 * @return Number of bits.
+	 */
+	public int getNumBits() {
+		return m_iNumBits;
+	}
+
+	/**
+	 * Returns the number of reference fingerprints in this index.
+	 * 
+	 * @return Number of reference fingerprints.
+	 */
+	public int getSize() {
+		return m_iSize;
+	}
+
+	/**
+	 * Returns the identifier of a reference fingerprint.
+	 * 
+	 * @param iReferenceIndex Index of the reference fingerprint in the order they were passed in.
+	 * 
+	 * @return Identifier.
+	 */
+	public String getId(final int iReferenceIndex) {
+		return m_arrIds[iReferenceIndex];
+	}
+
+	/**
+	 * Searches the reference fingerprints, which are similar to the passed in query fingerprint.
+	 * The Tversky similarity is c / (alpha * (a - c) + beta * (b - c) + c) with a and b being
+	 * the number of on bits of query and reference and c the number of common on bits.
+	 * Alpha = beta = 1 is the Tanimoto similarity.
+	 * 
+	 * @param arrQueryWords Words of the query fingerprint. Must not be null and must have
+	 * 		the same number of bits as the reference fingerprints.
+	 * @param dAlpha Tversky weight of the query bits, which are not set in the reference. Must not be negative.
+	 * @param dBeta Tversky weight of the reference bits, which are not set in the query. Must not be negative.
+	 * @param dThreshold Minimal similarity of a hit (inclusive).
+	 * @param iMaxHits Maximal number of hits to return, which are the most similar ones.
+	 * 		Specify 0 to return all hits.
+	 * 
+	 * @return Hits ordered by descending similarity. Hits with the same similarity are
+	 * 		ordered by the index of the reference fingerprint. Never null.
+	 * 
+	 * @throws IllegalArgumentException Thrown, if the query fingerprint has the wrong length.
+	 */
+	public List<Hit> search(final long[] arrQueryWords, final double dAlpha, final double dBeta,
+			final double dThreshold, final int iMaxHits) {
+		if (arrQueryWords.length != m_iWordsPerFingerprint) {
+			throw new IllegalArgumentException("The query fingerprint does not have " + m_iNumBits + " bits.");
+		}
+
+		final int iQueryPopCount = getPopCount(arrQueryWords);
+		final HitCollector collector = new HitCollector(dThreshold, iMaxHits);
+		boolean bLower = true;
+		boolean bUpper = true;
+
+		// Widen the popcount range around the popcount of the query as long as hits are possible
+		for (int iDistance = 0; bLower || bUpper; iDistance++) {
+			if (bLower) {
+				final int iPopCount = iQueryPopCount - iDistance;
+				bLower = (iPopCount >= 0 && getMaxSimilarity(iQueryPopCount, iPopCount, dAlpha, dBeta) >= collector.getThreshold());
+				if (bLower) {
+					searchPopCount(arrQueryWords, iQueryPopCount, iPopCount, dAlpha, dBeta, collector);
+				}
+			}
+
+			if (bUpper && iDistance > 0) {
+				final int iPopCount = iQueryPopCount + iDistance;
+				bUpper = (iPopCount <= m_iNumBits && getMaxSimilarity(iQueryPopCount, iPopCount, dAlpha, dBeta) >= collector.getThreshold());
+				if (bUpper) {
+					searchPopCount(arrQueryWords, iQueryPopCount, iPopCount, dAlpha, dBeta, collector);
+				}
+			}
+		}
+
+		return collector.getHits();
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Compares the query fingerprint with all reference fingerprints with the specified popcount.
+	 * 
+	 * @param arrQueryWords Words of the query fingerprint.
+	 * @param iQueryPopCount Popcount of the query fingerprint.
+	 * @param iPopCount Popcount of the reference fingerprints to compare with.
+	 * @param dAlpha Tversky weight of the query bits.
+	 * @param dBeta Tversky weight of the reference bits.
+	 * @param collector Collector of the hits.
+	 */
+	private void searchPopCount(final long[] arrQueryWords, final int iQueryPopCount, final int iPopCount,
+			final double dAlpha, final double dBeta, final HitCollector collector) {
+		final int iEnd = m_arrPopCountStarts[iPopCount + 1];
+		final int iWords = m_iWordsPerFingerprint;
+
+		for (int iPosition = m_arrPopCountStarts[iPopCount], iOffset = iPosition * iWords; iPosition < iEnd;
+				iPosition++, iOffset += iWords) {
+			int iCommon = 0;
+			for (int i = 0; i < iWords; i++) {
+				iCommon += Long.bitCount(arrQueryWords[i] & m_arrArena[iOffset + i]);
+			}
+
+			final double dSimilarity = getSimilarity(iCommon, iQueryPopCount, iPopCount, dAlpha, dBeta);
+			if (dSimilarity >= collector.getThreshold()) {
+				collector.add(m_arrReferenceIndexes[iPosition], dSimilarity);
+			}
+		}
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Calculates the Tversky similarity.
+	 * 
+	 * @param iCommon Number of on bits, which are set in query and reference.
+	 * @param iQueryPopCount Number of on bits of the query.
+	 * @param iReferencePopCount Number of on bits of the reference.
+	 * @param dAlpha Tversky weight of the query bits, which are not set in the reference.
+	 * @param dBeta Tversky weight of the reference bits, which are not set in the query.
+	 * 
+	 * @return Similarity. 0, if the fingerprints do not have any on bits.
+	 */
+	public static double getSimilarity(final int iCommon, final int iQueryPopCount, final int iReferencePopCount,
+			final double dAlpha, final double dBeta) {
+		final double dDenominator = dAlpha * (iQueryPopCount - iCommon) +
+				dBeta * (iReferencePopCount - iCommon) + iCommon;
+		return (dDenominator > 0.0d ? iCommon / dDenominator : 0.0d);
+	}
+
+	/**
+	 * Calculates the highest possible Tversky similarity for fingerprints with the
+	 * passed in popcounts, which is reached, if all on bits of the fingerprint
+	 * with less on bits are also set in the other fingerprint (BitBound).
+	 * 
+	 * @param iQueryPopCount Number of on bits of the query.
+	 * @param iReferencePopCount Number of on bits of the reference.
+	 * @param dAlpha Tversky weight of the query bits, which are not set in the reference.
+	 * @param dBeta Tversky weight of the reference bits, which are not set in the query.
+	 * 
+	 * @return Upper bound of the similarity.
+	 */
+	public static double getMaxSimilarity(final int iQueryPopCount, final int iReferencePopCount,
+			final double dAlpha, final double dBeta) {
+		return getSimilarity(Math.min(iQueryPopCount, iReferencePopCount), iQueryPopCount, iReferencePopCount,
+				dAlpha, dBeta);
+	}
+
+	/**
+	 * Counts the on bits of a fingerprint.
+	 * 
+	 * @param arrWords Words of the fingerprint. Must not be null.
+	 * 
+	 * @return Number of on bits.
+	 */
+	public static int getPopCount(final long[] arrWords) {
+		int iCount = 0;
+		for (final long lWord : arrWords) {
+			iCount += Long.bitCount(lWord);
+		}
+		return iCount;
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * A reference fingerprint found by a similarity search.
+	 */
+	public class Hit {
+
+		/** Index of the reference fingerprint in the order they were passed in. */
+		private final int m_iReferenceIndex;
+
+		/** Similarity between query and reference. */
+		private final double m_dSimilarity;
+
+		/**
+		 * Creates a new hit.
+		 * 
+		 * @param iReferenceIndex Index of the reference fingerprint.
+		 * @param dSimilarity Similarity.
+		 */
+		private Hit(final int iReferenceIndex, final double dSimilarity) {
+			m_iReferenceIndex = iReferenceIndex;
+			m_dSimilarity = dSimilarity;
+		}
+
+		/**
+		 * Returns the index of the reference fingerprint in the order they were passed in.
+		 * 
+		 * @return Reference index.
+		 */
+		public int getReferenceIndex() {
+			return m_iReferenceIndex;
+		}
+
+		/**
+		 * Returns the identifier of the reference fingerprint.
+		 * 
+		 * @return Identifier.
+		 */
+		public String getId() {
+			return m_arrIds[m_iReferenceIndex];
+		}
+
+		/**
+		 * Returns the similarity between query and reference.
+		 * 
+		 * @return Similarity.
+		 */
+		public double getSimilarity() {
+			return m_dSimilarity;
+		}
+	}
+
+	/**
+	 * Collects the hits of a single search. If the number of hits is limited, only the
+	 * best hits are kept and the threshold is raised to the similarity of the worst of them.
+	 */
+	private class HitCollector {
+
+		/** Orders hits from the best to the worst. */
+		private final Comparator<Hit> m_comparator =
+				Comparator.comparingDouble(Hit::getSimilarity).reversed().thenComparingInt(Hit::getReferenceIndex);
+
+		/** Maximal number of hits. 0 for unlimited. */
+		private final int m_iMaxHits;
+
+		/** Hits found so far. If the number of hits is limited, the worst hit is the head. */
+		private final PriorityQueue<Hit> m_queueBestHits;
+
+		/** Hits found so far, if the number of hits is not limited. */
+		private final List<Hit> m_listHits;
+
+		/** Current minimal similarity of new hits. */
+		private double m_dThreshold;
+
+		/**
+		 * Creates a new hit collector.
+		 * 
+		 * @param dThreshold Minimal similarity of a hit.
+		 * @param iMaxHits Maximal number of hits. 0 for unlimited.
+		 */
+		private HitCollector(final double dThreshold, final int iMaxHits) {
+			m_dThreshold = dThreshold;
+			m_iMaxHits = Math.max(0, iMaxHits);
+			m_queueBestHits = (m_iMaxHits > 0 ? new PriorityQueue<>(
+					Math.max(1, Math.min(m_iMaxHits, m_iSize)), m_comparator.reversed()) : null);
+			m_listHits = (m_iMaxHits > 0 ? null : new ArrayList<>());
+		}
+
+		/**
+		 * Returns the current minimal similarity of new hits.
+		 * 
+		 * @return Threshold.
+		 */
+		private double getThreshold() {
+			return m_dThreshold;
+		}
+
+		/**
+		 * Adds a hit, which has a similarity not lower than the current threshold.
+		 * 
+		 * @param iReferenceIndex Index of the reference fingerprint.
+		 * @param dSimilarity Similarity.
+		 */
+		private void add(final int iReferenceIndex, final double dSimilarity) {
+			final Hit hit = new Hit(iReferenceIndex, dSimilarity);
+
+			if (m_queueBestHits == null) {
+				m_listHits.add(hit);
+			}
+			else if (m_queueBestHits.size() < m_iMaxHits) {
+				m_queueBestHits.add(hit);
+				if (m_queueBestHits.size() == m_iMaxHits) {
+					m_dThreshold = Math.max(m_dThreshold, m_queueBestHits.peek().getSimilarity());
+				}
+			}
+			else if (m_comparator.compare(hit, m_queueBestHits.peek()) < 0) {
+				m_queueBestHits.poll();
+				m_queueBestHits.add(hit);
+				m_dThreshold = Math.max(m_dThreshold, m_queueBestHits.peek().getSimilarity());
+			}
+		}
+
+		/**
+		 * Returns the collected hits.
+		 * 
+		 * @return Hits ordered from the best to the worst.
+		 */
+		private List<Hit> getHits() {
+			final List<Hit> listHits = (m_queueBestHits == null ? m_listHits : new ArrayList<>(m_queueBestHits));
+			Collections.sort(listHits, m_comparator);
+			return listHits;
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.similaritysearch;
+
+import java.awt.Dimension;
+
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import org.knime.core.data.StringValue;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.node.context.NodeCreationConfiguration;
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelColumnName;
+import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.filehandling.core.connections.FSLocationUtil;
+import org.knime.filehandling.core.data.location.variable.FSLocationVariableType;
+import org.knime.filehandling.core.defaultnodesettings.EnumConfig;
+import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.DialogComponentReaderFileChooser;
+import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.SettingsModelReaderFileChooser;
+import org.knime.filehandling.core.defaultnodesettings.filtermode.SettingsModelFilterMode;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
+import org.rdkit.knime.util.DialogComponentColumnNameSelection;
+import org.rdkit.knime.util.DialogComponentEnumSelection;
+import org.rdkit.knime.util.SettingsModelEnumeration;
+
+/**
+ * {@code NodeDialog} for the "RDKitSimilaritySearch" Node.
+ * <br><br>
+ * This node dialog derives from {@link DefaultNodeSettingsPane} which allows
+ * creation of a simple dialog with standard components. If you need a more
+ * complex dialog please derive directly from {@link org.knime.core.node.NodeDialogPane}.
+ */
+public class RDKitSimilaritySearchNodeDialog extends DefaultNodeSettingsPane {
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Create a new dialog pane with components to configure the query fingerprint column,
+	 * the reference fingerprints (either a column of the optional reference table or an
+	 * FPS file), the similarity metric and the hit criteria.
+	 *
+	 * @param nodeCreationConfig Node Creation Configuration instance.
+	 *                           Mustn't be null.
+	 */
+	RDKitSimilaritySearchNodeDialog(final NodeCreationConfiguration nodeCreationConfig) {
+		final int iQueryPortIndex = RDKitSimilaritySearchNodeModel.getInputTablePortIndexes(nodeCreationConfig,
+				RDKitSimilaritySearchNodeFactory.INPUT_PORT_GRP_ID_QUERIES)[0];
+		final int iReferencePortIndex = RDKitSimilaritySearchNodeModel.getReferenceTablePortIndex(nodeCreationConfig);
+
+		super.createNewGroup("Queries");
+		super.addDialogComponent(new DialogComponentColumnNameSelection(
+				createQueryColumnNameModel(), "Query fingerprint column: ", iQueryPortIndex,
+				BitVectorValue.class));
+
+		super.createNewGroup("References");
+		if (iReferencePortIndex >= 0) {
+			super.addDialogComponent(new DialogComponentColumnNameSelection(
+					createReferenceColumnNameModel(), "Reference fingerprint column: ", iReferencePortIndex,
+					BitVectorValue.class));
+			super.addDialogComponent(new DialogComponentColumnNameSelection(
+					createReferenceIdColumnNameModel(), "Reference ID column: ", iReferencePortIndex, false,
+					StringValue.class));
+		}
+		else {
+			final SettingsModelReaderFileChooser modelInputPath = createReferenceFileModel(nodeCreationConfig);
+			final DialogComponentReaderFileChooser fileChooser = new DialogComponentReaderFileChooser(
+					modelInputPath,
+					"FpsReaderHistory",
+					createFlowVariableModel(modelInputPath.getKeysForFSLocation(), FSLocationVariableType.INSTANCE)
+			);
+			fileChooser.getComponentPanel().setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+			super.addDialogComponent(fileChooser);
+		}
+
+		super.createNewGroup("Similarity");
+		final SettingsModelEnumeration<SimilarityMetric> modelMetric = createSimilarityMetricModel();
+		super.addDialogComponent(new DialogComponentEnumSelection<SimilarityMetric>(
+				modelMetric, "Similarity metric:"));
+		super.setHorizontalPlacement(true);
+		super.addDialogComponent(new DialogComponentNumber(
+				createTverskyAlphaModel(modelMetric), "Tversky alpha (query weight): ", 0.1d));
+		super.addDialogComponent(new DialogComponentNumber(
+				createTverskyBetaModel(modelMetric), "Tversky beta (reference weight): ", 0.1d));
+		super.setHorizontalPlacement(false);
+
+		super.createNewGroup("Hits");
+		super.addDialogComponent(new DialogComponentNumber(
+				createSimilarityThresholdModel(), "Minimum similarity: ", 0.05d));
+		super.addDialogComponent(new DialogComponentNumber(
+				createMaxHitsModel(), "Maximum hits per query (0 = unlimited): ", 1));
+
+		super.createNewGroup("Parallel Processing");
+		super.addDialogComponent(new DialogComponentNumber(
+				AdaptiveParallelism.createMaxParallelWorkersModel(), "Maximum number of parallel workers (0 = from preferences): ", 1));
+
+		final JPanel panelOptions = (JPanel) super.getTab("Options");
+		panelOptions.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+		panelOptions.setPreferredSize(new Dimension(790, 510));
+	}
+
+	//
+	// Static Methods
+	//
+
+	/**
+	 * Creates the settings model to be used for the query fingerprint column.
+	 * 
+	 * @return Settings model for query fingerprint column selection.
+	 */
+	static SettingsModelString createQueryColumnNameModel() {
+		return new SettingsModelString("query_column", null);
+	}
+
+	/**
+	 * Creates the settings model to be used for the reference fingerprint column.
+	 * 
+	 * @return Settings model for reference fingerprint column selection.
+	 */
+	static SettingsModelString createReferenceColumnNameModel() {
+		return new SettingsModelString("reference_column", null);
+	}
+
+	/**
+	 * Creates the settings model to be used for the reference ID column.
+	 * Due to the model class the option to use the RowID as identifier
+	 * is included.
+	 * 
+	 * @return Settings model for reference ID column selection.
+	 */
+	static SettingsModelColumnName createReferenceIdColumnNameModel() {
+		return new SettingsModelColumnName("reference_id_column", null);
+	}
+
+	/**
+	 * Creates the settings model to be used for the FPS file with the reference
+	 * fingerprints, which is used when there is no reference table connected.
+	 *
+	 * @param nodeCreationConfig Node Creation Configuration instance.
+	 *                           Mustn't be null.
+	 * @return Settings model for reference file path selection.
+	 * @throws IllegalArgumentException When {@code nodeCreationConfig} parameter is null.
+	 */
+	static SettingsModelReaderFileChooser createReferenceFileModel(final NodeCreationConfiguration nodeCreationConfig) {
+		if (nodeCreationConfig == null) {
+			throw new IllegalArgumentException("Node Creation Configuration parameter must not be null.");
+		}
+
+		final SettingsModelReaderFileChooser modelResult = new SettingsModelReaderFileChooser(
+				"reference_file",
+				nodeCreationConfig.getPortConfig().orElseThrow(IllegalStateException::new),
+				RDKitSimilaritySearchNodeFactory.INPUT_PORT_GRP_ID_FS_CONNECTION,
+				EnumConfig.create(
+						SettingsModelFilterMode.FilterMode.FILE
+				),
+				".fps", ".fps.gz");
+
+		nodeCreationConfig.getURLConfig().ifPresent(urlConfiguration ->
+				modelResult.setLocation(FSLocationUtil.createFromURL(urlConfiguration.getUrl().toString()))
+		);
+
+		return modelResult;
+	}
+
+	/**
+	 * Creates the settings model to be used for the similarity metric.
+	 * 
+	 * @return Settings model for the similarity metric.
+	 */
+	static SettingsModelEnumeration<SimilarityMetric> createSimilarityMetricModel() {
+		return new SettingsModelEnumeration<>(SimilarityMetric.class, "similarity_metric", SimilarityMetric.Tanimoto);
+	}
+
+	/**
+	 * Creates the settings model to be used for the Tversky weight of the query bits.
+	 * It is only enabled, if the Tversky metric is selected.
+	 * 
+	 * @param modelMetric Settings model of the similarity metric. Must not be null.
+	 * 
+	 * @return Settings model for the Tversky alpha value.
+	 */
+	static SettingsModelDoubleBounded createTverskyAlphaModel(final SettingsModelEnumeration<SimilarityMetric> modelMetric) {
+		return createTverskyWeightModel("tversky_alpha", modelMetric);
+	}
+
+	/**
+	 * Creates the settings model to be used for the Tversky weight of the reference bits.
+	 * It is only enabled, if the Tversky metric is selected.
+	 * 
+	 * @param modelMetric Settings model of the similarity metric. Must not be null.
+	 * 
+	 * @return Settings model for the Tversky beta value.
+	 */
+	static SettingsModelDoubleBounded createTverskyBetaModel(final SettingsModelEnumeration<SimilarityMetric> modelMetric) {
+		return createTverskyWeightModel("tversky_beta", modelMetric);
+	}
+
+	/**
+	 * Creates the settings model to be used for the minimum similarity of a hit.
+	 * 
+	 * @return Settings model for the similarity threshold.
+	 */
+	static SettingsModelDoubleBounded createSimilarityThresholdModel() {
+		return new SettingsModelDoubleBounded("similarity_threshold", 0.7d, 0.0d, 1.0d);
+	}
+
+	/**
+	 * Creates the settings model to be used for the maximum number of hits per query.
+	 * 
+	 * @return Settings model for the maximum number of hits. 0 means unlimited.
+	 */
+	static SettingsModelIntegerBounded createMaxHitsModel() {
+		return new SettingsModelIntegerBounded("max_hits", 10, 0, Integer.MAX_VALUE);
+	}
+
+	//
+	// Private Static Methods
+	//
+
+	/**
+	 * Creates a settings model for a Tversky weight, which depends on the selected metric.
+	 * 
+	 * @param strConfigName Key of the setting.
+	 * @param modelMetric Settings model of the similarity metric. Must not be null.
+	 * 
+	 * @return Settings model for a Tversky weight.
+	 */
+	private static SettingsModelDoubleBounded createTverskyWeightModel(final String strConfigName,
+			final SettingsModelEnumeration<SimilarityMetric> modelMetric) {
+		final SettingsModelDoubleBounded model = new SettingsModelDoubleBounded(strConfigName, 0.5d, 0.0d, 1.0d);
+
+		// This model will depend on the selected metric
+		modelMetric.addChangeListener(new ChangeListener() {
+
+			/**
+			 * We use this to enable or disable the weight field,
+			 * which makes only sense if Tversky is selected.
+			 */
+			@Override
+			public void stateChanged(final ChangeEvent e) {
+				model.setEnabled(modelMetric.getValue() == SimilarityMetric.Tversky);
+			}
+		});
+
+		model.setEnabled(modelMetric.getValue() == SimilarityMetric.Tversky);
+
+		return model;
+	}
+}
@@ -0,0 +1,792 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.similaritysearch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bitvector.DenseBitVector;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.context.NodeCreationConfiguration;
+import org.knime.core.node.defaultnodesettings.SettingsModelColumnName;
+import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.filehandling.core.connections.FSPath;
+import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.SettingsModelReaderFileChooser;
+import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage;
+import org.knime.filehandling.core.node.table.reader.preview.dialog.GenericItemAccessor;
+import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
+import org.rdkit.knime.nodes.fingerprintreader.FpsChunk;
+import org.rdkit.knime.nodes.fingerprintreader.FpsChunkReader;
+import org.rdkit.knime.nodes.fingerprintreader.FpsLineProcessor;
+import org.rdkit.knime.util.InputDataInfo;
+import org.rdkit.knime.util.SettingsModelEnumeration;
+import org.rdkit.knime.util.SettingsUtils;
+import org.rdkit.knime.util.WarningConsolidator;
+import org.rdkit.knime.util.WarningConsolidator.Context;
+
+/**
+ * This class implements the node model of the RDKitSimilaritySearch node.
+ * It searches for every query fingerprint the most similar reference fingerprints,
+ * which are either taken from an optional second input table or read from an FPS file.
+ * The reference fingerprints are kept in a {@link FingerprintIndex}, which
+ * is searched for multiple queries in parallel.
+ */
+public class RDKitSimilaritySearchNodeModel extends AbstractRDKitNodeModel {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	protected static final NodeLogger LOGGER = NodeLogger
+			.getLogger(RDKitSimilaritySearchNodeModel.class);
+
+	/** Input data info index for the query fingerprint. */
+	protected static final int INPUT_COLUMN_QUERY = 0;
+
+	/** Input data info index for the reference fingerprint. */
+	protected static final int INPUT_COLUMN_REFERENCE = 0;
+
+	/** Input data info index for the reference ID. */
+	protected static final int INPUT_COLUMN_REFERENCE_ID = 1;
+
+	/** Row context for generating warnings, if something is incorrect in the reference table. */
+	protected static final WarningConsolidator.Context ROW_CONTEXT_TABLE_2 = new Context("rowTable2", "row", "rows", true);
+
+	/** Warning context for fingerprints read from the reference file. */
+	protected static final WarningConsolidator.Context FP_CONTEXT =
+			new WarningConsolidator.Context("Fingerprint", "fingerprint", "fingerprints", true);
+
+	//
+	// Members
+	//
+
+	/** The query table port index. */
+	private final int m_iQueryTablePortIdx;
+
+	/** The optional reference table port index. -1, if the reference table port does not exist. */
+	private final int m_iReferenceTablePortIdx;
+
+	/** The output table port index. */
+	private final int m_iOutputTablePortIdx;
+
+	/** Settings model for the column name of the query fingerprint column. */
+	private final SettingsModelString m_modelQueryColumnName =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createQueryColumnNameModel());
+
+	/** Settings model for the column name of the reference fingerprint column. */
+	private final SettingsModelString m_modelReferenceColumnName =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createReferenceColumnNameModel(), true);
+
+	/** Settings model for the column name of the reference ID column. */
+	private final SettingsModelColumnName m_modelReferenceIdColumnName =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createReferenceIdColumnNameModel(), true);
+
+	/** Settings model for the reference file path, which is used without reference table. */
+	private final SettingsModelReaderFileChooser m_modelReferenceFile;
+
+	/** Settings model for the similarity metric. */
+	private final SettingsModelEnumeration<SimilarityMetric> m_modelSimilarityMetric =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createSimilarityMetricModel());
+
+	/** Settings model for the Tversky weight of the query. */
+	private final SettingsModelDoubleBounded m_modelTverskyAlpha =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createTverskyAlphaModel(m_modelSimilarityMetric));
+
+	/** Settings model for the Tversky weight of the reference. */
+	private final SettingsModelDoubleBounded m_modelTverskyBeta =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createTverskyBetaModel(m_modelSimilarityMetric));
+
+	/** Settings model for the minimum similarity of a hit. */
+	private final SettingsModelDoubleBounded m_modelSimilarityThreshold =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createSimilarityThresholdModel());
+
+	/** Settings model for the maximum number of hits per query. */
+	private final SettingsModelIntegerBounded m_modelMaxHits =
+			registerSettings(RDKitSimilaritySearchNodeDialog.createMaxHitsModel());
+
+	//
+	// Internals
+	//
+
+	/** Number of fingerprint lines read from the reference file. */
+	private long m_lReadFingerprintLines = 0;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Constructs new {@code RDKitSimilaritySearchNodeModel} instance with configuration specified.
+	 *
+	 * @param nodeCreationConfig Node Creation Configuration instance.
+	 *                           Mustn't be null.
+	 * @throws IllegalStateException if {@code nodeCreationConfig} is null or malformed.
+	 */
+	RDKitSimilaritySearchNodeModel(final NodeCreationConfiguration nodeCreationConfig) {
+		super(nodeCreationConfig);
+
+		m_iQueryTablePortIdx = getInputTablePortIndexes(nodeCreationConfig,
+				RDKitSimilaritySearchNodeFactory.INPUT_PORT_GRP_ID_QUERIES)[0];
+		m_iReferenceTablePortIdx = getReferenceTablePortIndex(nodeCreationConfig);
+		m_iOutputTablePortIdx = getOutputTablePortIndexes(nodeCreationConfig,
+				RDKitSimilaritySearchNodeFactory.OUTPUT_PORT_GRP_ID_HITS)[0];
+
+		m_modelReferenceFile = registerSettings(
+				RDKitSimilaritySearchNodeDialog.createReferenceFileModel(nodeCreationConfig), true);
+
+		// As we keep all reference fingerprints in memory we cannot support large reference tables
+		if (hasReferenceTable()) {
+			registerInputTablesWithSizeLimits(m_iReferenceTablePortIdx);
+		}
+
+		getWarningConsolidator().registerContext(ROW_CONTEXT_TABLE_2);
+		getWarningConsolidator().registerContext(FP_CONTEXT);
+		registerMaxParallelWorkersSettings();
+	}
+
+	//
+	// Protected Methods
+	//
+
+	/**
+	 * KNIME File Handling API messages handler.
+	 *
+	 * @param statusMessage A message received from KNIME File Handling API.
+	 *                      Can be null.
+	 */
+	protected void onStatusMessage(final StatusMessage statusMessage) {
+		if (statusMessage != null && statusMessage.getMessage() != null) {
+			switch (statusMessage.getType()) {
+				case ERROR -> getWarningConsolidator().saveWarning(statusMessage.getMessage());
+				case WARNING -> LOGGER.warn(statusMessage.getMessage());
+				case INFO -> LOGGER.info(statusMessage.getMessage());
+			}
+		}
+	}
+
+	@Override
+	protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		if (!hasReferenceTable()) {
+			m_modelReferenceFile.configureInModel(inSpecs, this::onStatusMessage);
+		}
+
+		return super.configure(inSpecs);
+	}
+
+	@Override
+	protected DataTableSpec[] configure(final DataTableSpec[] inSpecs)
+			throws InvalidSettingsException {
+		// Reset warnings and check RDKit library readiness
+		super.configure(inSpecs);
+
+		final WarningConsolidator warnings = getWarningConsolidator();
+
+		// Auto guess the query column if not set - fails if no compatible column found
+		SettingsUtils.autoGuessColumn(inSpecs[m_iQueryTablePortIdx], m_modelQueryColumnName, BitVectorValue.class, 0,
+				"Auto guessing: Using column %COLUMN_NAME% as query fingerprint column.",
+				"No BitVectorValue compatible column in query table.", warnings);
+
+		// Determines, if the query column exists - fails if it does not
+		SettingsUtils.checkColumnExistence(inSpecs[m_iQueryTablePortIdx], m_modelQueryColumnName, BitVectorValue.class,
+				"Query fingerprint column has not been specified yet.",
+				"Query fingerprint column %COLUMN_NAME% does not exist. Has the query table changed?");
+
+		if (hasReferenceTable()) {
+			// Auto guess the reference column if not set - fails if no compatible column found
+			SettingsUtils.autoGuessColumn(inSpecs[m_iReferenceTablePortIdx], m_modelReferenceColumnName, BitVectorValue.class, 0,
+					"Auto guessing: Using column %COLUMN_NAME% as reference fingerprint column.",
+					"No BitVectorValue compatible column in reference table.", warnings);
+
+			// Determines, if the reference column exists - fails if it does not
+			SettingsUtils.checkColumnExistence(inSpecs[m_iReferenceTablePortIdx], m_modelReferenceColumnName, BitVectorValue.class,
+					"Reference fingerprint column has not been specified yet.",
+					"Reference fingerprint column %COLUMN_NAME% does not exist. Has the reference table changed?");
+
+			// Auto guess the reference ID column - if no string column is found we will use the row id
+			final boolean bIdColumnFound = SettingsUtils.autoGuessColumn(inSpecs[m_iReferenceTablePortIdx],
+					m_modelReferenceIdColumnName, StringValue.class, 0,
+					"Auto guessing: Using column %COLUMN_NAME% as reference ID column.",
+					null, warnings); // Do not fail, if we don't find a string column
+			if (!bIdColumnFound) {
+				m_modelReferenceIdColumnName.setSelection(m_modelReferenceIdColumnName.getColumnName(), true);
+			}
+
+			// Determines, if the reference ID column exists - fails if it does not
+			SettingsUtils.checkColumnExistence(inSpecs[m_iReferenceTablePortIdx], m_modelReferenceIdColumnName, StringValue.class,
+					"Reference ID column has not been specified yet.",
+					"Reference ID column %COLUMN_NAME% does not exist. Has the reference table changed?");
+		}
+		else {
+			// Perform checks on the specified reference file
+			try (final GenericItemAccessor<FSPath> itemAccessor = m_modelReferenceFile.createItemAccessor()) {
+				Files.exists(itemAccessor.getRootItem(this::onStatusMessage));
+			}
+			catch (final IOException e) {
+				warnings.saveWarning("Failed to access reference file: " + e.getMessage());
+			}
+		}
+
+		if (m_modelSimilarityThreshold.getDoubleValue() <= 0.0d && m_modelMaxHits.getIntValue() == 0) {
+			warnings.saveWarning("Without minimum similarity and maximum number of hits " +
+					"every reference will be reported as hit for every query.");
+		}
+
+		// Consolidate all warnings and make them available to the user
+		generateWarnings();
+
+		// Generate output specs
+		return getOutputTableSpecs(inSpecs);
+	}
+
+	/**
+	 * This implementation generates input data info objects for the query fingerprint column
+	 * and for the reference fingerprint and ID columns and connects them with the information
+	 * coming from the appropriate setting models.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected InputDataInfo[] createInputDataInfos(final int inPort, final DataTableSpec inSpec)
+			throws InvalidSettingsException {
+
+		InputDataInfo[] arrDataInfo = null;
+
+		// Specify input of query table
+		if (inPort == m_iQueryTablePortIdx) {
+			arrDataInfo = new InputDataInfo[1]; // We have only one input column
+			arrDataInfo[INPUT_COLUMN_QUERY] = new InputDataInfo(inSpec, m_modelQueryColumnName,
+					InputDataInfo.EmptyCellPolicy.TreatAsNull, null,
+					BitVectorValue.class);
+		}
+
+		// Specify input of optional reference table
+		else if (inPort == m_iReferenceTablePortIdx && inSpec != null) {
+			arrDataInfo = new InputDataInfo[2]; // We have two input columns
+			arrDataInfo[INPUT_COLUMN_REFERENCE] = new InputDataInfo(inSpec, m_modelReferenceColumnName,
+					InputDataInfo.EmptyCellPolicy.TreatAsNull, null,
+					BitVectorValue.class);
+
+			// If the row key is used as column we cannot use the InputDataInfo object
+			if (m_modelReferenceIdColumnName.useRowID()) {
+				arrDataInfo[INPUT_COLUMN_REFERENCE_ID] = null;
+			}
+			else {
+				arrDataInfo[INPUT_COLUMN_REFERENCE_ID] = new InputDataInfo(inSpec, null, m_modelReferenceIdColumnName, "id",
+						InputDataInfo.EmptyCellPolicy.TreatAsNull, null,
+						StringValue.class);
+			}
+		}
+
+		return (arrDataInfo == null ? new InputDataInfo[0] : arrDataInfo);
+	}
+
+	/**
+	 * Returns the output table specification of the specified out port.
+	 * The hit table contains all columns of the query table followed by
+	 * the reference ID, the similarity and the rank of a hit.
+	 * 
+	 * @param outPort Index of output port in focus. Zero-based.
+	 * @param inSpecs All input table specifications.
+	 * 
+	 * @return The specification of all output tables.
+	 * 
+	 * @throws InvalidSettingsException Thrown, if the settings are inconsistent with
+	 * 		given DataTableSpec elements.
+	 */
+	@Override
+	protected DataTableSpec getOutputTableSpec(final int outPort,
+			final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		DataTableSpec spec = null;
+
+		if (outPort == m_iOutputTablePortIdx && inSpecs != null && inSpecs[m_iQueryTablePortIdx] != null) {
+			final DataTableSpec specQueries = inSpecs[m_iQueryTablePortIdx];
+			final List<String> listNewNames = new ArrayList<>();
+			final DataColumnSpec[] arrNewSpecs = new DataColumnSpec[] {
+					new DataColumnSpecCreator(createUniqueColumnName("Reference ID", specQueries, listNewNames),
+							StringCell.TYPE).createSpec(),
+					new DataColumnSpecCreator(createUniqueColumnName("Similarity", specQueries, listNewNames),
+							DoubleCell.TYPE).createSpec(),
+					new DataColumnSpecCreator(createUniqueColumnName("Rank", specQueries, listNewNames),
+							IntCell.TYPE).createSpec()
+			};
+
+			spec = new DataTableSpec("Hits", specQueries, new DataTableSpec(arrNewSpecs));
+		}
+
+		return spec;
+	}
+
+	@Override
+	protected BufferedDataTable[] processing(final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
+			final ExecutionContext exec) throws Exception {
+		final DataTableSpec[] arrOutSpecs = getOutputTableSpecs(inData);
+		final ExecutionContext subExecIndexing = exec.createSubExecutionContext(0.3d);
+		final ExecutionContext subExecSearching = exec.createSubExecutionContext(0.7d);
+
+		// Build the index of all reference fingerprints
+		final FingerprintIndex index = (hasReferenceTable() ?
+				createIndex(inData[m_iReferenceTablePortIdx], arrInputDataInfo[m_iReferenceTablePortIdx], subExecIndexing) :
+				createIndex(subExecIndexing));
+		subExecIndexing.setProgress(1.0d);
+
+		if (index.getSize() == 0) {
+			getWarningConsolidator().saveWarning("There are no valid reference fingerprints. No hits will be found.");
+		}
+
+		LOGGER.debug("Created index of " + index.getSize() + " reference fingerprints with " + index.getNumBits() + " bits");
+
+		// Contains the rows with the hits
+		final BufferedDataContainer newTableData = exec.createDataContainer(arrOutSpecs[m_iOutputTablePortIdx]);
+
+		// Search all queries in parallel and add the hits in the order of the queries
+		final InputDataInfo inputDataInfoQuery = arrInputDataInfo[m_iQueryTablePortIdx][INPUT_COLUMN_QUERY];
+		final boolean bTversky = (m_modelSimilarityMetric.getValue() == SimilarityMetric.Tversky);
+		final double dAlpha = (bTversky ? m_modelTverskyAlpha.getDoubleValue() : 1.0d);
+		final double dBeta = (bTversky ? m_modelTverskyBeta.getDoubleValue() : 1.0d);
+		final double dThreshold = m_modelSimilarityThreshold.getDoubleValue();
+		final int iMaxHits = m_modelMaxHits.getIntValue();
+		final long lTotalRowCount = inData[m_iQueryTablePortIdx].size();
+		final int iMaxParallelWorkers = getMaxParallelWorkers();
+		final int iQueueSize = AdaptiveParallelism.getMaxRowsInFlight(iMaxParallelWorkers);
+		final AtomicReference<Exception> refFailure = new AtomicReference<>();
+
+		final ParallelWorker<DataRow, List<DataRow>> multiWorker =
+				new ParallelWorker<DataRow, List<DataRow>>(this, iQueueSize, iMaxParallelWorkers, subExecSearching) {
+
+			/** Number of query rows processed so far. */
+			private long m_lRowsDone = 0;
+
+			/** Number of hits found so far. */
+			private long m_lHits = 0;
+
+			/**
+			 * Searches the hits of a query and creates the result rows.
+			 * 
+			 * @param row Query row.
+			 * @param lIndex Index of the query row.
+			 * 
+			 * @return Result rows. Empty, if there are no hits.
+			 */
+			@Override
+			protected List<DataRow> calculate(final DataRow row, final long lIndex) throws Exception {
+				final DenseBitVector dbvQuery = inputDataInfoQuery.getDenseBitVector(row);
+
+				if (dbvQuery == null) {
+					getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+							"Encountered empty query fingerprint, which will be ignored.");
+					return Collections.emptyList();
+				}
+
+				if (index.getSize() == 0) {
+					return Collections.emptyList();
+				}
+
+				if (dbvQuery.length() != index.getNumBits()) {
+					getWarningConsolidator().saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+							"Encountered query fingerprint with a different number of bits than the " +
+							"reference fingerprints, which will be ignored.");
+					return Collections.emptyList();
+				}
+
+				final List<FingerprintIndex.Hit> listHits =
+						index.search(dbvQuery.getAllBits(), dAlpha, dBeta, dThreshold, iMaxHits);
+				final List<DataRow> listResultRows = new ArrayList<>(listHits.size());
+				final int iQueryCellCount = row.getNumCells();
+				int iRank = 0;
+
+				for (final FingerprintIndex.Hit hit : listHits) {
+					iRank++;
+					final DataCell[] arrCells = new DataCell[iQueryCellCount + 3];
+					for (int i = 0; i < iQueryCellCount; i++) {
+						arrCells[i] = row.getCell(i);
+					}
+					arrCells[iQueryCellCount] = new StringCell(hit.getId());
+					arrCells[iQueryCellCount + 1] = new DoubleCell(hit.getSimilarity());
+					arrCells[iQueryCellCount + 2] = new IntCell(iRank);
+					listResultRows.add(new DefaultRow(new RowKey(row.getKey().getString() + "_" + iRank), arrCells));
+				}
+
+				return listResultRows;
+			}
+
+			/**
+			 * Adds the hit rows of a query to the table.
+			 * 
+			 * @param task Search result for a query.
+			 */
+			@Override
+			protected void processResult(final ComputationTask task)
+					throws ExecutionException, CancellationException, InterruptedException {
+				final List<DataRow> listResultRows = task.get();
+
+				try {
+					for (final DataRow row : listResultRows) {
+						newTableData.addRowToTable(row);
+					}
+				}
+				catch (final RuntimeException exc) {
+					refFailure.set(exc);
+					stopProcessing();
+					return;
+				}
+
+				m_lRowsDone++;
+				m_lHits += listResultRows.size();
+
+				// Check, if user cancelled and report progress
+				try {
+					AbstractRDKitNodeModel.reportProgress(subExecSearching, m_lRowsDone, lTotalRowCount, null,
+							" - Found " + m_lHits + " hits");
+				}
+				catch (final CanceledExecutionException e) {
+					stopProcessing();
+				}
+			}
+		};
+
+		try {
+			multiWorker.process(inData[m_iQueryTablePortIdx]);
+		}
+		catch (final CancellationException exc) {
+			if (refFailure.get() != null) {
+				throw refFailure.get();
+			}
+			exec.checkCanceled();
+			throw exc;
+		}
+
+		if (refFailure.get() != null) {
+			throw refFailure.get();
+		}
+
+		exec.checkCanceled();
+		exec.setProgress(1.0, "Finished Processing");
+
+		newTableData.close();
+
+		final BufferedDataTable[] arrResult = new BufferedDataTable[arrOutSpecs.length];
+		arrResult[m_iOutputTablePortIdx] = newTableData.getTable();
+		return arrResult;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * This implementation considers the number of query rows, reference rows
+	 * and fingerprints read from the reference file.
+	 */
+	@Override
+	protected Map<String, Long> createWarningContextOccurrencesMap(
+			final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
+			final BufferedDataTable[] resultData) {
+		// We do not call super here, because it would take the wrong table
+		// if a file system connection is present
+		final Map<String, Long> map = new HashMap<>();
+		map.put(WarningConsolidator.ROW_CONTEXT.getId(), inData[m_iQueryTablePortIdx].size());
+		if (hasReferenceTable()) {
+			map.put(ROW_CONTEXT_TABLE_2.getId(), inData[m_iReferenceTablePortIdx].size());
+		}
+		map.put(FP_CONTEXT.getId(), m_lReadFingerprintLines);
+
+		return map;
+	}
+
+	/**
+	 * Determines, if the optional reference table port exists.
+	 * 
+	 * @return True, if reference fingerprints are taken from a table. False, if
+	 * 		they are read from a file.
+	 */
+	protected boolean hasReferenceTable() {
+		return m_iReferenceTablePortIdx >= 0;
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Creates the index of the reference fingerprints of the reference table.
+	 * The first valid fingerprint determines the number of bits. Empty fingerprints
+	 * and fingerprints of a different size are skipped.
+	 * 
+	 * @param tableReferences Reference table. Must not be null.
+	 * @param arrInputDataInfo Information about the fingerprint and ID columns of the reference table.
+	 * @param exec Execution context for progress reporting. Must not be null.
+	 * 
+	 * @return Index of the reference fingerprints. Never null.
+	 * 
+	 * @throws Exception Thrown, if the reference table could not be read or the user cancelled.
+	 */
+	private FingerprintIndex createIndex(final BufferedDataTable tableReferences,
+			final InputDataInfo[] arrInputDataInfo, final ExecutionContext exec) throws Exception {
+		final WarningConsolidator warnings = getWarningConsolidator();
+		final boolean bUseRowIds = (arrInputDataInfo[INPUT_COLUMN_REFERENCE_ID] == null);
+		final long lTotalRowCount = tableReferences.size();
+		final List<long[]> listWords = new ArrayList<>();
+		final List<String> listIds = new ArrayList<>();
+		int iNumBits = -1;
+		long lRowIndex = 0;
+
+		for (final DataRow row : tableReferences) {
+			final DenseBitVector dbvReference = arrInputDataInfo[INPUT_COLUMN_REFERENCE].getDenseBitVector(row);
+
+			if (dbvReference == null) {
+				warnings.saveWarning(ROW_CONTEXT_TABLE_2.getId(),
+						"Encountered empty reference fingerprint, which will be ignored.");
+			}
+			else if (iNumBits != -1 && dbvReference.length() != iNumBits) {
+				warnings.saveWarning(ROW_CONTEXT_TABLE_2.getId(),
+						"Encountered reference fingerprint with a different number of bits, which will be ignored.");
+			}
+			else {
+				String strId = (bUseRowIds ? row.getKey().getString() :
+					arrInputDataInfo[INPUT_COLUMN_REFERENCE_ID].getString(row));
+				if (strId == null) {
+					warnings.saveWarning(ROW_CONTEXT_TABLE_2.getId(),
+							"Encountered empty reference ID - using the row ID instead.");
+					strId = row.getKey().getString();
+				}
+
+				iNumBits = (int)dbvReference.length();
+				listWords.add(dbvReference.getAllBits());
+				listIds.add(strId);
+			}
+
+			lRowIndex++;
+			AbstractRDKitNodeModel.reportProgress(exec, lRowIndex, lTotalRowCount, row,
+					" - Indexing reference fingerprints");
+		}
+
+		return new FingerprintIndex(Math.max(0, iNumBits), listWords, listIds);
+	}
+
+	/**
+	 * Creates the index of the reference fingerprints of the configured FPS file,
+	 * which is split into chunks that get parsed in parallel. The lines are
+	 * interpreted by an {@link FpsLineProcessor} like in the fingerprint reader.
+	 * 
+	 * @param exec Execution context for progress reporting. Must not be null.
+	 * 
+	 * @return Index of the reference fingerprints. Never null.
+	 * 
+	 * @throws Exception Thrown, if the reference file could not be read or the user cancelled.
+	 */
+	private FingerprintIndex createIndex(final ExecutionContext exec) throws Exception {
+		final List<long[]> listWords = new ArrayList<>();
+		final List<String> listIds = new ArrayList<>();
+		m_lReadFingerprintLines = 0;
+
+		// Header lines and fingerprints are interpreted in file order
+		final FpsLineProcessor lineProcessor = new FpsLineProcessor("reference file",
+				getWarningConsolidator(), FP_CONTEXT.getId()) {
+
+			/**
+			 * Adds the fingerprint of a valid fingerprint line to the index data.
+			 * 
+			 * @param line Fingerprint line.
+			 * @param lLineNumber Line number in the file.
+			 */
+			@Override
+			protected void addFingerprint(final FpsChunk.Line line, final long lLineNumber) {
+				listWords.add(line.getWords());
+				listIds.add(line.getId());
+			}
+		};
+
+		try (final GenericItemAccessor<FSPath> pathFpsAccessor = m_modelReferenceFile.createItemAccessor()) {
+			final Path pathFps = pathFpsAccessor.getRootItem(this::onStatusMessage);
+
+			try (final FpsChunkReader reader = new FpsChunkReader(pathFps, FpsChunkReader.DEFAULT_CHUNK_SIZE)) {
+				final long lFileSize = reader.getFileSize();
+				final int iMaxParallelWorkers = getMaxParallelWorkers();
+				final int iQueueSize = AdaptiveParallelism.getMaxChunksInFlight(iMaxParallelWorkers);
+				final AtomicReference<Exception> refFailure = new AtomicReference<>();
+
+				final ParallelWorker<FpsChunk, FpsChunk> multiWorker =
+						new ParallelWorker<FpsChunk, FpsChunk>(this, iQueueSize, iMaxParallelWorkers, exec) {
+
+					/**
+					 * Parses all lines of a chunk.
+					 * 
+					 * @param chunk Chunk of the fingerprint file.
+					 * @param lIndex Index of the chunk.
+					 * 
+					 * @return The parsed chunk.
+					 */
+					@Override
+					protected FpsChunk calculate(final FpsChunk chunk, final long lIndex) throws Exception {
+						chunk.parse();
+						return chunk;
+					}
+
+					/**
+					 * Interprets the header lines and adds the fingerprints of a parsed chunk to the index data.
+					 * 
+					 * @param task Parsing result for a chunk.
+					 */
+					@Override
+					protected void processResult(final ComputationTask task)
+							throws ExecutionException, CancellationException, InterruptedException {
+						final FpsChunk chunk = task.get();
+
+						try {
+							lineProcessor.processChunk(chunk);
+						}
+						catch (final RuntimeException exc) {
+							refFailure.set(exc);
+							stopProcessing();
+							return;
+						}
+
+						m_lReadFingerprintLines = lineProcessor.getFingerprintLineCount();
+
+						// Check, if user cancelled and report progress
+						try {
+							exec.checkCanceled();
+							exec.setProgress(lFileSize == 0 ? 1.0d : Math.min(1.0d, chunk.getEndPosition() / (double)lFileSize),
+									"Indexed " + listWords.size() + " reference fingerprints");
+						}
+						catch (final CanceledExecutionException e) {
+							stopProcessing();
+						}
+					}
+				};
+
+				try {
+					multiWorker.process(() -> reader);
+				}
+				catch (final UncheckedIOException exc) {
+					throw exc.getCause();
+				}
+				catch (final CancellationException exc) {
+					if (refFailure.get() != null) {
+						throw refFailure.get();
+					}
+					exec.checkCanceled();
+					throw exc;
+				}
+
+				if (refFailure.get() != null) {
+					throw refFailure.get();
+				}
+			}
+		}
+		catch (final IOException excIo) {
+			throw new IOException("The reference file could not be read successfully: " + excIo, excIo);
+		}
+
+		return new FingerprintIndex(Math.max(0, lineProcessor.getNumberOfBits()), listWords, listIds);
+	}
+
+	//
+	// Static Methods
+	//
+
+	/**
+	 * Returns the index of the optional reference table input port.
+	 *
+	 * @param nodeCreationConfig Node Creation Configuration instance.
+	 *                           Mustn't be null.
+	 * @return Index of the reference table port or -1, if the port does not exist.
+	 */
+	static int getReferenceTablePortIndex(final NodeCreationConfiguration nodeCreationConfig) {
+		final int[] arrIndexes = getInputTablePortIndexes(nodeCreationConfig,
+				RDKitSimilaritySearchNodeFactory.INPUT_PORT_GRP_ID_REFERENCES);
+		return (arrIndexes.length > 0 ? arrIndexes[0] : -1);
+	}
+
+	/**
+	 * Creates a column name, which does not exist yet in the query table nor in the list
+	 * of new names, and adds it to the list.
+	 * 
+	 * @param strName Preferred column name. Must not be null.
+	 * @param specQueries Query table specification. Can be null.
+	 * @param listNewNames Names of new columns created so far. Must not be null.
+	 * 
+	 * @return Unique column name.
+	 */
+	private static String createUniqueColumnName(final String strName, final DataTableSpec specQueries,
+			final List<String> listNewNames) {
+		final String strUniqueName = SettingsUtils.makeColumnNameUnique(strName, specQueries, listNewNames);
+		listNewNames.add(strUniqueName);
+		return strUniqueName;
+	}
+}
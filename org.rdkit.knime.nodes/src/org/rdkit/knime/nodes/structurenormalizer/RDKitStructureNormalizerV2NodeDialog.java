@@ -74,7 +74,9 @@ import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentMultiLineString;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.DialogComponentString;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.filehandling.core.connections.FSLocationUtil;
 import org.knime.filehandling.core.data.location.variable.FSLocationVariableType;
@@ -296,6 +298,12 @@ public class RDKitStructureNormalizerV2NodeDialog extends DefaultNodeSettingsPan
 				.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 		super.addDialogComponent(compAdvancedOptions);
 
+		final DialogComponentNumber compCheckerProcesses = new DialogComponentNumber(createCheckerProcessesModel(),
+				"Number of structure checker processes (0 = check within KNIME): ", 1, 5);
+		compCheckerProcesses.setToolTipText("Separate processes check structures in parallel without blocking " +
+				"other Structure Normalizer nodes. Each process needs about 100 MB of memory.");
+		super.addDialogComponent(compCheckerProcesses);
+
 		// Create components for defining the transformation configuration file
 		m_modelTransformationConfigurationPath = createTransformationConfigurationPathModel(nodeCreationConfig);
 		m_modelTransformationConfigurationPath.addChangeListener(new ChangeListener() {
@@ -434,6 +442,10 @@ public class RDKitStructureNormalizerV2NodeDialog extends DefaultNodeSettingsPan
 				0, iRow++, LayoutUtils.REMAINDER, 1,
 				LayoutUtils.HORIZONTAL, LayoutUtils.CENTER, 1.0d, 0.0d,
 				7, 7, 0, 7);
+		LayoutUtils.constrain(panel, compCheckerProcesses.getComponentPanel(),
+				0, iRow++, LayoutUtils.REMAINDER, 1,
+				LayoutUtils.NONE, LayoutUtils.WEST, 0.0d, 0.0d,
+				7, 7, 0, 7);
 		LayoutUtils.constrain(panel, panelSubSwitches,
 				0, iRow++, LayoutUtils.REMAINDER, LayoutUtils.REMAINDER,
 				LayoutUtils.BOTH, LayoutUtils.CENTER, 1.0d, 1.0d,
@@ -595,6 +607,16 @@ public class RDKitStructureNormalizerV2NodeDialog extends DefaultNodeSettingsPan
 				RDKitStructureNormalizerV2NodeModel.DEFAULT_ADVANCED_OPTIONS);
 	}
 
+	/**
+	 * Creates the settings model to be used to specify the number of separate structure
+	 * checker processes. 0 means that structures are checked within the KNIME process.
+	 * 
+	 * @return Settings model for the number of structure checker processes.
+	 */
+	static SettingsModelIntegerBounded createCheckerProcessesModel() {
+		return new SettingsModelIntegerBounded("checker_processes", 0, 0, 64);
+	}
+
 	/**
 	 * Creates the settings model to be used to specify what non error codes (usually
 	 * transformation / warning codes) shall be treated as failures to make rows end
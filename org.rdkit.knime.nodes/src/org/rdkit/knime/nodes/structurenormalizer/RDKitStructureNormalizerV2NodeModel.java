@@ -55,9 +55,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.RDKit.RDKFuncs;
 import org.RDKit.StringInt_Pair;
@@ -79,10 +88,12 @@ import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.context.NodeCreationConfiguration;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.SettingsModelReaderFileChooser;
@@ -92,13 +103,16 @@ import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.WriteP
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage;
 import org.rdkit.knime.nodes.AbstractRDKitCellFactory;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.nodes.functionalgroupfilter.FunctionalGroupDefinitions;
 import org.rdkit.knime.util.FileSystemsUtils;
 import org.rdkit.knime.util.FileUtils;
 import org.rdkit.knime.util.InputDataInfo;
+import org.rdkit.knime.util.RowChunkIterable;
 import org.rdkit.knime.util.SettingsModelEnumerationArray;
 import org.rdkit.knime.util.SettingsUtils;
 import org.rdkit.knime.util.StringUtils;
+import org.rdkit.knime.util.WarningConsolidator;
 
 /**
  * This class implements the node model of the RDKitStructureNormalizer node
@@ -188,6 +202,57 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 	/** Internally used factory column id for the error messages. */
 	private static final int COL_ID_ERRORS = 3;
 
+	/** Number of rows sent together to a structure checker process. */
+	private static final int CHECKER_PROCESS_BATCH_SIZE = 200;
+
+	/** Number of attempts to check a batch in structure checker processes before its rows are treated as failed. */
+	private static final int CHECKER_PROCESS_ATTEMPTS = 2;
+
+	/** Placeholder for the log file in a structure checker configuration. */
+	private static final String LOG_FILE_PLACEHOLDER = "{2}";
+
+	//
+	// Statics
+	//
+
+	/** Temporary configuration files by file type and content hash. They are reused by all executions. */
+	private static final Map<String, File> g_mapConfigurationFiles = new HashMap<>();
+
+	/**
+	 * The configuration (options without log file) the structure checker of this process has been
+	 * initialized with. Null, if unknown. Guarded by {@link #STRUCTURE_CHECKER_LOCK}.
+	 */
+	private static String g_strLoadedConfiguration = null;
+
+	/**
+	 * The log written when initializing the structure checker with the loaded configuration.
+	 * Guarded by {@link #STRUCTURE_CHECKER_LOCK}.
+	 */
+	private static byte[] g_arrLoadedConfigurationLog = null;
+
+	/** Number of executions, which could skip the initialization of the structure checker. */
+	private static final AtomicLong g_lConfigurationCacheHits = new AtomicLong();
+
+	/** Number of executions, which had to initialize the structure checker. */
+	private static final AtomicLong g_lConfigurationCacheMisses = new AtomicLong();
+
+	/** Temporary log files of structure checkers, which still exist. They get deleted latest when KNIME ends. */
+	private static final Set<Path> g_setTemporaryLogFiles = ConcurrentHashMap.newKeySet();
+
+	/** Registers a single shutdown hook to delete all temporary log files that still exist. */
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for (final Path pathLogTmpFile : g_setTemporaryLogFiles) {
+				try {
+					Files.deleteIfExists(pathLogTmpFile);
+				}
+				catch (final IOException e) {
+					// Ignoring it
+				}
+			}
+		}, "RDKit Structure Normalizer Cleanup"));
+	}
+
 	//
 	// Members
 	//
@@ -246,6 +311,22 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 	private final SettingsModelEnumerationArray<StruCheckCode> m_modelAdditionalFailureCodesConfiguration =
 			registerSettings(RDKitStructureNormalizerV2NodeDialog.createAdditionalFailureCodesConfigurationModel());
 
+	/** Settings model for the number of structure checker processes. 0 to check in the KNIME process. */
+	private final SettingsModelIntegerBounded m_modelCheckerProcesses =
+			registerSettings(RDKitStructureNormalizerV2NodeDialog.createCheckerProcessesModel(), true); // Was added later
+
+	/**
+	 * Pool of structure checker processes, which is kept between executions (e.g. loop iterations)
+	 * as long as the configuration does not change. Null, if there is none.
+	 */
+	private StruCheckProcessPool m_poolCheckerProcesses = null;
+
+	/** Configuration (including the number of processes) the pool of structure checker processes was started with. */
+	private String m_strPoolConfiguration = null;
+
+	/** Temporary log files of the structure checker processes of the pool. */
+	private Path[] m_arrPoolLogTmpFiles = null;
+
 	// Intermediate results
 
 	/** Quick access to input type during processing. */
@@ -532,8 +613,6 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 		arrOutputSpec[COL_ID_ERRORS] = new DataColumnSpecCreator("Error Messages",
 				CollectionCellFactory.getElementType(new DataType[] { StringCell.TYPE })).createSpec();
 
-		final DataCell missingCell = DataType.getMissingCell();
-
 		// Flag masks
 		final int iErrorMask = StruCheckCode.getErrorCodeMask(m_modelAdditionalFailureCodesConfiguration.getValues());
 		final int iNonErrorMask = StruCheckCode.getNonErrorCodeMask(m_modelAdditionalFailureCodesConfiguration.getValues());
@@ -550,63 +629,11 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 			 */
 			@Override
 			public DataCell[] process(final InputDataInfo[] arrInputDataInfo, final DataRow row, final long lUniqueWaveId) throws Exception {
-				String strMol;
-				String strData = null;
-
-                switch (m_inputType) {
-                    case SDF -> {
-                        strMol = arrInputDataInfo[INPUT_COLUMN_MOL].getSdfValue(row);
-
-                        // Standardize line endings
-                        strMol = strMol.replace("\r\n", "\n");
-
-                        // Cut off properties and $$$$ and append later again to corrected structure
-                        final String strEndTag = "M  END\n";
-                        final int iIndexEnd = strMol.indexOf(strEndTag);
-                        if (iIndexEnd >= 0) {
-                            strData = strMol.substring(iIndexEnd + strEndTag.length());
-                            strMol = strMol.substring(0, iIndexEnd + strEndTag.length());
-                        }
-                    }
-                    case SMILES -> strMol = arrInputDataInfo[INPUT_COLUMN_MOL].getSmiles(row);
-                    default -> throw new Exception("Invalid input type.");
-                }
-
+				final String[] arrStructure = prepareStructure(arrInputDataInfo, row);
 				final StringInt_Pair results = markForCleanup(
-						RDKFuncs.checkMolString(strMol, m_inputType == Input.SMILES), lUniqueWaveId);
-
-				// Read corrected structure and add back properties
-				String strCorrectedStructure = results.getFirst();
-				if (strCorrectedStructure != null) {
-					strCorrectedStructure += strData;
-				}
-
-				// Evaluate flags
-				final int iFlags = results.getSecond();
-				final StruCheckCode[] arrErrorCodes = StruCheckCode.getCodes(iFlags, iErrorMask);
-				final StruCheckCode[] arrWarningCodes = StruCheckCode.getCodes(iFlags, iNonErrorMask);
-				final DataCell cellCorrectedStructure = createSdfCell(strCorrectedStructure);
-				final DataCell cellFlags = new IntCell(iFlags);
-
-				DataCell cellErrorMessages = missingCell;
-				if (arrErrorCodes.length > 0) {
-					final List<DataCell> cells = new ArrayList<>(arrErrorCodes.length);
-					for (final StruCheckCode code : arrErrorCodes) {
-						cells.add(new StringCell(code.getMessage()));
-					}
-					cellErrorMessages = CollectionCellFactory.createListCell(cells);
-				}
-
-				DataCell cellWarningMessages = missingCell;
-				if (arrWarningCodes.length > 0) {
-					final List<DataCell> cells = new ArrayList<>(5);
-					for (final StruCheckCode code : arrWarningCodes) {
-						cells.add(new StringCell(code.getMessage()));
-					}
-					cellWarningMessages = CollectionCellFactory.createListCell(cells);
-				}
+						RDKFuncs.checkMolString(arrStructure[0], m_inputType == Input.SMILES), lUniqueWaveId);
 
-				return new DataCell[] { cellCorrectedStructure, cellFlags, cellWarningMessages, cellErrorMessages};
+				return createResultCells(results.getFirst(), arrStructure[1], results.getSecond(), iErrorMask, iNonErrorMask);
 			}
 		};
 
@@ -616,6 +643,91 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 		return factory;
 	}
 
+	/**
+	 * Reads the structure to be checked from the input row. For SDF input the line endings
+	 * get standardized and the properties get cut off to be appended again to the corrected structure.
+	 *
+	 * @param arrInputDataInfo Input data information of the input table. Must not be null.
+	 * @param row Input row. Must not be null.
+	 *
+	 * @return Array with the structure to be checked and the cut off SDF properties (or null).
+	 *
+	 * @throws Exception Thrown, if the structure could not be read, e.g. an
+	 * 		{@link InputDataInfo.EmptyCellException} for empty cells.
+	 */
+	protected String[] prepareStructure(final InputDataInfo[] arrInputDataInfo, final DataRow row) throws Exception {
+		String strMol;
+		String strData = null;
+
+        switch (m_inputType) {
+            case SDF -> {
+                strMol = arrInputDataInfo[INPUT_COLUMN_MOL].getSdfValue(row);
+
+                // Standardize line endings
+                strMol = strMol.replace("\r\n", "\n");
+
+                // Cut off properties and $$$$ and append later again to corrected structure
+                final String strEndTag = "M  END\n";
+                final int iIndexEnd = strMol.indexOf(strEndTag);
+                if (iIndexEnd >= 0) {
+                    strData = strMol.substring(iIndexEnd + strEndTag.length());
+                    strMol = strMol.substring(0, iIndexEnd + strEndTag.length());
+                }
+            }
+            case SMILES -> strMol = arrInputDataInfo[INPUT_COLUMN_MOL].getSmiles(row);
+            default -> throw new Exception("Invalid input type.");
+        }
+
+		return new String[] { strMol, strData };
+	}
+
+	/**
+	 * Creates the result cells for the outcome of a structure check.
+	 *
+	 * @param strCorrectedStructure Corrected structure delivered by the checker. Can be null.
+	 * @param strData SDF properties to be appended to the corrected structure. Can be null.
+	 * @param iFlags Flags delivered by the checker.
+	 * @param iErrorMask Mask of flags to be treated as errors.
+	 * @param iNonErrorMask Mask of flags to be treated as warnings.
+	 *
+	 * @return Result cells (corrected structure, flags, warning messages and error messages).
+	 */
+	protected DataCell[] createResultCells(String strCorrectedStructure, final String strData, final int iFlags,
+			final int iErrorMask, final int iNonErrorMask) {
+		final DataCell missingCell = DataType.getMissingCell();
+
+		// Add back properties
+		if (strCorrectedStructure != null) {
+			strCorrectedStructure += strData;
+		}
+
+		// Evaluate flags
+		final StruCheckCode[] arrErrorCodes = StruCheckCode.getCodes(iFlags, iErrorMask);
+		final StruCheckCode[] arrWarningCodes = StruCheckCode.getCodes(iFlags, iNonErrorMask);
+		final DataCell cellCorrectedStructure = createSdfCell(strCorrectedStructure);
+		final DataCell cellFlags = new IntCell(iFlags);
+
+		DataCell cellErrorMessages = missingCell;
+		if (arrErrorCodes.length > 0) {
+			final List<DataCell> cells = new ArrayList<>(arrErrorCodes.length);
+			for (final StruCheckCode code : arrErrorCodes) {
+				cells.add(new StringCell(code.getMessage()));
+			}
+			cellErrorMessages = CollectionCellFactory.createListCell(cells);
+		}
+
+		DataCell cellWarningMessages = missingCell;
+		if (arrWarningCodes.length > 0) {
+			final List<DataCell> cells = new ArrayList<>(5);
+			for (final StruCheckCode code : arrWarningCodes) {
+				cells.add(new StringCell(code.getMessage()));
+			}
+			cellWarningMessages = CollectionCellFactory.createListCell(cells);
+		}
+
+		return new DataCell[] { cellCorrectedStructure, cellFlags, cellWarningMessages, cellErrorMessages};
+	}
+
 	@Override
 	protected BufferedDataTable[] processing(final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
 			final ExecutionContext exec) throws Exception {
@@ -627,6 +739,16 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 		// Contains the input rows if result computation fails
 		final BufferedDataContainer port1 = exec.createDataContainer(arrOutSpecs[m_iFailedMoleculesPortIdx]);
 
+		// Check in separate structure checker processes, if configured
+		if (m_modelCheckerProcesses.getIntValue() > 0) {
+			processWithCheckerProcesses(inData[m_iInputTablePortIdx], arrInputDataInfo[m_iInputTablePortIdx],
+					port0, port1, exec);
+			return new BufferedDataTable[] { port0.getTable(), port1.getTable() };
+		}
+
+		// Processes of former executions are not needed anymore
+		closeCheckerProcessPool(null);
+
 		synchronized (STRUCTURE_CHECKER_LOCK) {
 
 			// Setup warning/failure treatment
@@ -649,24 +771,7 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 				for (long rowIndex = 0; i.hasNext(); rowIndex++) {
 					final DataRow row = i.next();
 					final DataCell[] arrResults = factory.getCells(row);
-
-					// Check what goes into the second table (empty cells, failures and warnings treated like failures)
-					if (arrResults[1] == null || arrResults[1].isMissing() ||
-							(((IntCell) arrResults[1]).getIntValue() & iErrorCodeMask) != 0) {
-						port1.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row,
-								new DataCell[]{
-										arrResults[COL_ID_FLAGS],
-										arrResults[COL_ID_ERRORS]
-								}, -1));
-					}
-					else {
-						port0.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row,
-								new DataCell[]{
-										arrResults[COL_ID_CORRECTED_STRUCTURE],
-										arrResults[COL_ID_FLAGS],
-										arrResults[COL_ID_WARNINGS]
-								}, -1));
-					}
+					addResultRow(row, arrResults, iErrorCodeMask, port0, port1);
 
 					// Every 20 iterations check cancellation status and report progress
 					if (rowIndex % 20 == 0) {
@@ -686,124 +791,356 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 	}
 
 	/**
-	 * Initializes the structure checker.
-	 * 
-	 * @throws Exception Thrown, if initializing failed.
+	 * Checks the structures of the input table in a pool of structure checker processes, which
+	 * get initialized once with the configuration of this node. Batches of rows are checked
+	 * concurrently and the results are added in the order of the input table to the output
+	 * tables. The global structure checker lock is not involved, so that multiple nodes
+	 * can check structures at the same time. The pool is kept for the next execution, e.g.
+	 * of a loop, unless a log file is configured, which can only be completed by ending the processes.
+	 * A batch, which fails in a structure checker process, is checked once more. If this fails again,
+	 * its rows are added to the failed molecules table.
+	 *
+	 * @param inData Input table. Must not be null.
+	 * @param arrInputDataInfo Input data information of the input table. Must not be null.
+	 * @param port0 Container for passed molecules. It gets closed when done. Must not be null.
+	 * @param port1 Container for failed molecules. It gets closed when done. Must not be null.
+	 * @param exec Execution context for progress reporting and cancellation checks. Must not be null.
+	 *
+	 * @throws Exception Thrown, if the checker processes failed or the execution was canceled.
 	 */
-	protected void initialize() throws Exception {
-		synchronized (STRUCTURE_CHECKER_LOCK) {
-			FileOutputStream outTrans = null;
-			FileOutputStream outAtoms = null;
-
-			// Create temporary transformation configuration file
-			final String strTransformationConfigurationOriginal =
-					(isDefaultConfigurationFile(m_modelTransformationConfigurationPath.getPath()) ?
-							DEFAULT_TRANSFORMATION_CONFIGURATION_FILE :
-								m_modelTransformationConfigurationPath.getPath());
-			String strTransformationConfiguration = getConfiguration(m_modelTransformationConfigurationPath,
-					DEFAULT_TRANSFORMATION_CONFIGURATION_FILE);
-			strTransformationConfiguration = strTransformationConfiguration.replace("\r\n", "\n");
-			final File fileTempTransformationConfigFile = File.createTempFile("checkfgs", ".trn");
-			fileTempTransformationConfigFile.deleteOnExit();
+	protected void processWithCheckerProcesses(final BufferedDataTable inData, final InputDataInfo[] arrInputDataInfo,
+			final BufferedDataContainer port0, final BufferedDataContainer port1, final ExecutionContext exec) throws Exception {
+		final int iProcesses = m_modelCheckerProcesses.getIntValue();
+		final int iErrorMask = StruCheckCode.getErrorCodeMask(m_modelAdditionalFailureCodesConfiguration.getValues());
+		final int iNonErrorMask = StruCheckCode.getNonErrorCodeMask(m_modelAdditionalFailureCodesConfiguration.getValues());
+		final WarningConsolidator warnings = getWarningConsolidator();
+		final long lTotalRowCount = inData.size();
+		final AtomicLong alRowsDone = new AtomicLong(0);
+
+		m_inputType = determineStructureCheckerInputType(arrInputDataInfo[INPUT_COLUMN_MOL].getDataType());
+		final boolean bSmiles = (m_inputType == Input.SMILES);
+
+		try (final WritePathAccessor pathAccessor = m_modelLogPath.createWritePathAccessor()) {
+			final Path pathLogFile = prepareLogFile(pathAccessor);
+
+			boolean bKeepPool = false;
 
 			try {
-				outTrans = new FileOutputStream(fileTempTransformationConfigFile, false);
-				outTrans.write(strTransformationConfiguration.getBytes());
-				outTrans.flush();
-			}
-			catch (final Exception exc) {
-				throw new Exception("Unable to create temporary transformation configuration file for Structure Normalizer.", exc);
+				final StruCheckProcessPool pool = getCheckerProcessPool(iProcesses, exec);
+				final ParallelWorker<List<DataRow>, DataCell[][]> multiWorker =
+						new ParallelWorker<List<DataRow>, DataCell[][]>(this, AdaptiveParallelism.getMaxChunksInFlight(iProcesses), iProcesses, exec) {
+
+					/**
+					 * Checks the structures of a batch of rows in one of the checker processes.
+					 *
+					 * @param listRows Input rows of the batch.
+					 * @param lBatchIndex Index of the batch.
+					 *
+					 * @return Result cells for every row of the batch.
+					 */
+					@Override
+					protected DataCell[][] calculate(final List<DataRow> listRows, final long lBatchIndex) throws Exception {
+						final int iCount = listRows.size();
+						final String[] arrMols = new String[iCount];
+						final String[] arrData = new String[iCount];
+
+						for (int i = 0; i < iCount; i++) {
+							try {
+								final String[] arrStructure = prepareStructure(arrInputDataInfo, listRows.get(i));
+								arrMols[i] = arrStructure[0];
+								arrData[i] = arrStructure[1];
+							}
+							catch (final InputDataInfo.EmptyCellException exc) {
+								warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(),
+										"Encountered empty input cell.");
+							}
+							catch (final Exception exc) {
+								final String strMsg = "Failed to process data" +
+										(exc.getMessage() != null ? ": " + exc.getMessage() : ".") +
+										" Generating empty result cells.";
+								LOGGER.debug(strMsg + " (Row '" + listRows.get(i).getKey() + "')", exc);
+								warnings.saveWarning(WarningConsolidator.ROW_CONTEXT.getId(), strMsg);
+							}
+						}
+
+						final String[] arrCorrected = new String[iCount];
+						final int[] arrFlags = new int[iCount];
+						final boolean bChecked = checkInCheckerProcesses(pool, arrMols, bSmiles, arrCorrected, arrFlags);
+
+						final DataCell[][] arrResults = new DataCell[iCount][];
+						for (int i = 0; i < iCount; i++) {
+							if (arrMols[i] == null) {
+								arrResults[i] = AbstractRDKitCellFactory.createEmptyCells(4);
+							}
+							else if (!bChecked) {
+								arrResults[i] = createCheckerProcessFailureCells();
+							}
+							else {
+								arrResults[i] = createResultCells(arrCorrected[i], arrData[i], arrFlags[i],
+										iErrorMask, iNonErrorMask);
+							}
+						}
+
+						if (!bChecked) {
+							warnings.saveWarning("Structure checker processes failed repeatedly on a batch of rows. " +
+									"These rows were added to the failed molecules table.");
+						}
+
+						return arrResults;
+					}
+
+					/**
+					 * Adds the rows of a checked batch to the output tables.
+					 *
+					 * @param task Checking result for a batch.
+					 */
+					@Override
+					protected void processResult(final ComputationTask task)
+							throws ExecutionException, CancellationException, InterruptedException {
+						final List<DataRow> listRows = task.getInput();
+						final DataCell[][] arrResults = task.get();
+
+						for (int i = 0; i < arrResults.length; i++) {
+							addResultRow(listRows.get(i), arrResults[i], iErrorMask, port0, port1);
+						}
+
+						// Check, if user pressed cancel (however, we will finish the method nevertheless)
+						final long lRowsDone = alRowsDone.addAndGet(listRows.size());
+						try {
+							AbstractRDKitNodeModel.reportProgress(exec, lRowsDone, lTotalRowCount, listRows.get(listRows.size() - 1),
+									new StringBuilder(" - Checking structures in ").append(iProcesses)
+									.append(" processes [").append(getActiveCount()).append(" active, ")
+									.append(getFinishedTaskCount()).append(" pending]").toString());
+						}
+						catch (final CanceledExecutionException e) {
+							stopProcessing();
+						}
+					}
+				};
+
+				// The rows get closed also, if the processing stops before reaching the end of the table
+				try (final RowChunkIterable batches = new RowChunkIterable(inData, CHECKER_PROCESS_BATCH_SIZE)) {
+					multiWorker.process(batches);
+				}
+				catch (final CancellationException exc) {
+					exec.checkCanceled();
+					throw exc;
+				}
+
+				// Logs of the checker processes are only complete after the processes ended
+				bKeepPool = (pathLogFile == null && pool.isOperational());
 			}
 			finally {
-				FileUtils.close(outTrans);
+				if (!bKeepPool) {
+					closeCheckerProcessPool(pathLogFile);
+				}
 			}
+		}
+
+		exec.checkCanceled();
+		exec.setProgress(1.0, "Finished Processing");
+
+		port0.close();
+		port1.close();
+	}
+
+	/**
+	 * Adds an input row with the result cells of its structure check either to the table
+	 * of passed molecules or to the table of failed molecules.
+	 *
+	 * @param row Input row. Must not be null.
+	 * @param arrResults Result cells of the structure check. Must not be null.
+	 * @param iErrorCodeMask Mask of flags, which make a molecule fail.
+	 * @param port0 Container for passed molecules. Must not be null.
+	 * @param port1 Container for failed molecules. Must not be null.
+	 */
+	protected void addResultRow(final DataRow row, final DataCell[] arrResults, final int iErrorCodeMask,
+			final BufferedDataContainer port0, final BufferedDataContainer port1) {
+		// Check what goes into the second table (empty cells, failures and warnings treated like failures)
+		if (arrResults[1] == null || arrResults[1].isMissing() ||
+				(((IntCell) arrResults[1]).getIntValue() & iErrorCodeMask) != 0) {
+			port1.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row,
+					new DataCell[]{
+							arrResults[COL_ID_FLAGS],
+							arrResults[COL_ID_ERRORS]
+					}, -1));
+		}
+		else {
+			port0.addRowToTable(AbstractRDKitCellFactory.mergeDataCells(row,
+					new DataCell[]{
+							arrResults[COL_ID_CORRECTED_STRUCTURE],
+							arrResults[COL_ID_FLAGS],
+							arrResults[COL_ID_WARNINGS]
+					}, -1));
+		}
+	}
 
-			// Create temporary augmented atoms configuration file
-			final String strAugmentedAtomsConfigurationOriginal =
-					(isDefaultConfigurationFile(m_modelAugmentedAtomsConfigurationPath.getPath()) ?
-							DEFAULT_AUGMENTED_ATOMS_CONFIGURATION_FILE :
-								m_modelAugmentedAtomsConfigurationPath.getPath());
-			String strAugmentedAtomsConfiguration = getConfiguration(m_modelAugmentedAtomsConfigurationPath,
-					DEFAULT_AUGMENTED_ATOMS_CONFIGURATION_FILE);
-			strAugmentedAtomsConfiguration = strAugmentedAtomsConfiguration.replace("\r\n", "\n");
-			final File fileTempAugmentedAtomsConfigFile = File.createTempFile("checkfgs", ".chk");
-			fileTempAugmentedAtomsConfigFile.deleteOnExit();
+	/**
+	 * Returns the pool of structure checker processes for the current configuration. The pool
+	 * of a former execution is reused, if it was started with the same configuration and
+	 * still has working processes. Otherwise a new pool gets started.
+	 *
+	 * @param iProcesses Number of structure checker processes.
+	 * @param exec Execution context for progress messages. Must not be null.
+	 *
+	 * @return Pool of structure checker processes. Never null.
+	 *
+	 * @throws Exception Thrown, if the configuration files could not be created or
+	 * 		the processes could not be started.
+	 */
+	protected StruCheckProcessPool getCheckerProcessPool(final int iProcesses, final ExecutionContext exec)
+			throws Exception {
+		final String strConfiguration = getCheckerConfiguration();
+		final String strPoolConfiguration = iProcesses + "\n" + strConfiguration;
+
+		if (m_poolCheckerProcesses != null && m_poolCheckerProcesses.isOperational() &&
+				strPoolConfiguration.equals(m_strPoolConfiguration)) {
+			LOGGER.debug("Reusing " + iProcesses + " structure checker processes of the former execution.");
+			return m_poolCheckerProcesses;
+		}
+
+		closeCheckerProcessPool(null);
+
+		// Every checker process writes its own log file
+		m_arrPoolLogTmpFiles = new Path[iProcesses];
+		final String[] arrOptions = new String[iProcesses];
+		for (int i = 0; i < iProcesses; i++) {
+			m_arrPoolLogTmpFiles[i] = createTemporaryLogFile();
+			arrOptions[i] = resolveCheckerOptions(strConfiguration, m_arrPoolLogTmpFiles[i]);
+		}
+
+		exec.setMessage("Starting " + iProcesses + " structure checker processes");
+		m_poolCheckerProcesses = new StruCheckProcessPool(arrOptions);
+		m_strPoolConfiguration = strPoolConfiguration;
+
+		return m_poolCheckerProcesses;
+	}
+
+	/**
+	 * Stops the structure checker processes of the pool, if there is one, and deletes their log files.
+	 *
+	 * @param pathLogFile Log file, which shall receive the logs of all structure checker processes
+	 * 		one after the other. Can be null to discard the logs.
+	 *
+	 * @throws IOException Thrown, if the log file could not be written.
+	 */
+	protected void closeCheckerProcessPool(final Path pathLogFile) throws IOException {
+		final Path[] arrLogTmpFiles = m_arrPoolLogTmpFiles;
 
+		if (m_poolCheckerProcesses != null) {
+			m_poolCheckerProcesses.close();
+		}
+		m_poolCheckerProcesses = null;
+		m_strPoolConfiguration = null;
+		m_arrPoolLogTmpFiles = null;
+
+		if (arrLogTmpFiles != null) {
 			try {
-				outAtoms = new FileOutputStream(fileTempAugmentedAtomsConfigFile, false);
-				outAtoms.write(strAugmentedAtomsConfiguration.getBytes());
-				outAtoms.flush();
-			}
-			catch (final Exception exc) {
-				throw new Exception("Unable to create temporary augmented atoms configuration file for Structure Normalizer.", exc);
+				// Combine the logs of all checker processes, which are complete after the processes ended
+				if (pathLogFile != null) {
+					Files.deleteIfExists(pathLogFile);
+					for (final Path pathLogTmpFile : arrLogTmpFiles) {
+						if (pathLogTmpFile != null && Files.exists(pathLogTmpFile)) {
+							Files.write(pathLogFile, Files.readAllBytes(pathLogTmpFile),
+									StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+						}
+					}
+				}
 			}
 			finally {
-				FileUtils.close(outAtoms);
-			}
-
-			try (final WritePathAccessor pathAccessor = m_modelLogPath.createWritePathAccessor()) {
-				// Create log file
-				Path pathLogFile = pathAccessor.getOutputPath(this::onStatusMessage);
-
-				// Create missing directories
-				if (pathLogFile != null && !pathLogFile.toString().isBlank()) {
-					if (Files.exists(pathLogFile)) {
-						if (FileOverwritePolicy.FAIL.equals(m_modelLogPath.getFileOverwritePolicy())) {
-							throw new InvalidSettingsException("The specified log file exists already. " +
-									"You may remove the file or switch on the Overwrite option to grant execution.");
-						}
+				for (final Path pathLogTmpFile : arrLogTmpFiles) {
+					if (pathLogTmpFile != null) {
+						Files.deleteIfExists(pathLogTmpFile);
+						g_setTemporaryLogFiles.remove(pathLogTmpFile);
 					}
-					else {
-						final Path pathLogFileParent = pathLogFile.getParent();
-						if (pathLogFileParent != null && !Files.exists(pathLogFileParent)) {
-							if (!m_modelLogPath.isCreateMissingFolders()) {
-								throw new InvalidSettingsException("The specified log file directory does not exist. " +
-										"You may create the directory or switch on the Overwrite option to grant execution.");
-							}
+				}
+			}
+		}
+	}
 
-							// Create missing directories
-							Files.createDirectories(pathLogFileParent);
-						}
-					}
+	/**
+	 * Checks a batch of molecules in the pool of structure checker processes. If a process fails
+	 * on the batch, e.g. because it crashed or hung, the pool replaces it and the batch gets
+	 * checked once more.
+	 *
+	 * @param pool Pool of structure checker processes. Must not be null.
+	 * @param arrMols Molecules to be checked. Must not be null.
+	 * @param bSmiles True, if the molecules are SMILES, false if they are Mol blocks.
+	 * @param arrCorrected Array to receive the corrected structures. Must be as long as arrMols.
+	 * @param arrFlags Array to receive the StruChk flags. Must be as long as arrMols.
+	 *
+	 * @return True, if the batch was checked. False, if all attempts failed.
+	 *
+	 * @throws IOException Thrown, if no structure checker process is left.
+	 * @throws InterruptedException Thrown, if the thread was interrupted while waiting for a process.
+	 */
+	protected boolean checkInCheckerProcesses(final StruCheckProcessPool pool, final String[] arrMols,
+			final boolean bSmiles, final String[] arrCorrected, final int[] arrFlags)
+					throws IOException, InterruptedException {
+		for (int iAttempt = 1; ; iAttempt++) {
+			try {
+				pool.check(arrMols, bSmiles, arrCorrected, arrFlags);
+				return true;
+			}
+			catch (final IOException exc) {
+				if (!pool.isOperational()) {
+					throw exc;
+				}
+				if (iAttempt >= CHECKER_PROCESS_ATTEMPTS) {
+					LOGGER.warn("Checking a batch of " + arrMols.length + " molecules failed " + iAttempt +
+							" times - Treating its rows as failed.", exc);
+					return false;
 				}
+				LOGGER.debug("Checking a batch of " + arrMols.length + " molecules failed - Retrying it.", exc);
+			}
+		}
+	}
+
+	/**
+	 * Creates the result cells for a molecule, which could not be checked, because the
+	 * structure checker processes failed on its batch. The missing flags route the row
+	 * into the table of failed molecules.
+	 *
+	 * @return Result cells (corrected structure, flags, warning messages and error messages).
+	 */
+	protected DataCell[] createCheckerProcessFailureCells() {
+		final DataCell missingCell = DataType.getMissingCell();
+		final DataCell cellErrorMessages = CollectionCellFactory.createListCell(
+				List.of(new StringCell("Structure checker process failed on this row or another row of its batch.")));
+
+		return new DataCell[] { missingCell, missingCell, missingCell, cellErrorMessages };
+	}
 
-				final Path pathLogTmpFile = Files.createTempFile("checkfgs", ".log");
-				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                    try {
-                        Files.delete(pathLogTmpFile);
-                    }
-					catch (IOException e) {
-                        // Ignoring it
-                    }
-                }));
-				Files.delete(pathLogTmpFile); // Deleting it, it will be recreated by StruChk
-
-				// Initialize the structure checker
-				String strAdvancedOptions = m_modelAdvancedOptions.getStringValue();
-				if (strAdvancedOptions != null) {
-					strAdvancedOptions = strAdvancedOptions.trim();
-					if (!strAdvancedOptions.isEmpty()) {
-						strAdvancedOptions += "\n";
+	/**
+	 * Initializes the structure checker. If it has been initialized already with the same
+	 * configuration, the initialization is skipped.
+	 * 
+	 * @throws Exception Thrown, if initializing failed.
+	 */
+	protected void initialize() throws Exception {
+		synchronized (STRUCTURE_CHECKER_LOCK) {
+			try (final WritePathAccessor pathAccessor = m_modelLogPath.createWritePathAccessor()) {
+				final Path pathLogFile = prepareLogFile(pathAccessor);
+				final String strConfiguration = getCheckerConfiguration();
+
+				if (strConfiguration.equals(g_strLoadedConfiguration)) {
+					LOGGER.info("StruChk of RDKit is initialized already with the same configuration - Skipping initialization " +
+							getConfigurationCacheStatistics(g_lConfigurationCacheHits.incrementAndGet(),
+									g_lConfigurationCacheMisses.get()));
+					if (pathLogFile != null && g_arrLoadedConfigurationLog != null) {
+						Files.write(pathLogFile, g_arrLoadedConfigurationLog);
 					}
-				}
-				else {
-					strAdvancedOptions = "";
+					return;
 				}
 
-				String strOptions = "StruCheck\n" + // Add this dummy argument to work around an issue
-						// in RDKit/StruCheck that throws the first parameter away
-						StruCheckSwitch.generateSwitches(m_modelSwitchOptions.getValues()) +
-						strAdvancedOptions +
-						"-or\n" +
-						"-ta \"{0}\"\n" +
-						"-ca \"{1}\"\n" +
-						"-l \"{2}\"";
-				strOptions = strOptions.replace("{0}", fileTempTransformationConfigFile.getAbsolutePath());
-				strOptions = strOptions.replace("{1}", fileTempAugmentedAtomsConfigFile.getAbsolutePath());
-				strOptions = strOptions.replace("{2}", pathLogTmpFile.toAbsolutePath().toString());
-				LOGGER.info("Initializing StruChk of RDKit with the following options:\n" + strOptions);
-				LOGGER.info(fileTempTransformationConfigFile.getName() + " copied from " + strTransformationConfigurationOriginal);
-				LOGGER.info(fileTempAugmentedAtomsConfigFile.getName() + " copied from " + strAugmentedAtomsConfigurationOriginal);
+				LOGGER.info("StruChk of RDKit needs to be initialized " +
+						getConfigurationCacheStatistics(g_lConfigurationCacheHits.get(),
+								g_lConfigurationCacheMisses.incrementAndGet()));
+				g_strLoadedConfiguration = null;
+				g_arrLoadedConfigurationLog = null;
+
+				final Path pathLogTmpFile = createTemporaryLogFile();
+				final String strOptions = resolveCheckerOptions(strConfiguration, pathLogTmpFile);
 
 				try {
 					final int iError = RDKFuncs.initCheckMol(strOptions);
@@ -812,22 +1149,153 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 						throw new Exception("Configuring the Structure Normalizer failed with error code #" + iError +
 								" - Please check your configuration files and settings.");
 					}
+
+					g_strLoadedConfiguration = strConfiguration;
 				}
 				finally {
-					if (pathLogFile != null && !pathLogFile.toString().isBlank() && Files.exists(pathLogTmpFile)) {
-						Files.copy(pathLogTmpFile, pathLogFile, StandardCopyOption.REPLACE_EXISTING);
+					if (Files.exists(pathLogTmpFile)) {
+						// StruChk keeps writing into the log, so we remember the initialization part for executions to come
+						g_arrLoadedConfigurationLog = Files.readAllBytes(pathLogTmpFile);
+						if (pathLogFile != null) {
+							Files.write(pathLogFile, g_arrLoadedConfigurationLog);
+						}
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Creates the effective configuration of a structure checker, which are the options to initialize it
+	 * with a placeholder for the log file. The configured transformation and augmented atoms configurations
+	 * are referenced as temporary files. These files are reused, as long as their content does not change,
+	 * so that the same configuration leads always to the same options.
+	 *
+	 * @return Options for initializing StruChk with a placeholder for the log file.
+	 *
+	 * @throws Exception Thrown, if the configuration files could not be created.
+	 */
+	protected String getCheckerConfiguration() throws Exception {
+		// Get temporary transformation configuration file
+		final String strTransformationConfigurationOriginal =
+				(isDefaultConfigurationFile(m_modelTransformationConfigurationPath.getPath()) ?
+						DEFAULT_TRANSFORMATION_CONFIGURATION_FILE :
+							m_modelTransformationConfigurationPath.getPath());
+		String strTransformationConfiguration = getConfiguration(m_modelTransformationConfigurationPath,
+				DEFAULT_TRANSFORMATION_CONFIGURATION_FILE);
+		strTransformationConfiguration = strTransformationConfiguration.replace("\r\n", "\n");
+		final File fileTempTransformationConfigFile = getConfigurationFile(strTransformationConfiguration, ".trn",
+				strTransformationConfigurationOriginal, "transformation");
+
+		// Get temporary augmented atoms configuration file
+		final String strAugmentedAtomsConfigurationOriginal =
+				(isDefaultConfigurationFile(m_modelAugmentedAtomsConfigurationPath.getPath()) ?
+						DEFAULT_AUGMENTED_ATOMS_CONFIGURATION_FILE :
+							m_modelAugmentedAtomsConfigurationPath.getPath());
+		String strAugmentedAtomsConfiguration = getConfiguration(m_modelAugmentedAtomsConfigurationPath,
+				DEFAULT_AUGMENTED_ATOMS_CONFIGURATION_FILE);
+		strAugmentedAtomsConfiguration = strAugmentedAtomsConfiguration.replace("\r\n", "\n");
+		final File fileTempAugmentedAtomsConfigFile = getConfigurationFile(strAugmentedAtomsConfiguration, ".chk",
+				strAugmentedAtomsConfigurationOriginal, "augmented atoms");
+
+		// Combine options for the structure checker
+		String strAdvancedOptions = m_modelAdvancedOptions.getStringValue();
+		if (strAdvancedOptions != null) {
+			strAdvancedOptions = strAdvancedOptions.trim();
+			if (!strAdvancedOptions.isEmpty()) {
+				strAdvancedOptions += "\n";
+			}
+		}
+		else {
+			strAdvancedOptions = "";
+		}
+
+		String strOptions = "StruCheck\n" + // Add this dummy argument to work around an issue
+				// in RDKit/StruCheck that throws the first parameter away
+				StruCheckSwitch.generateSwitches(m_modelSwitchOptions.getValues()) +
+				strAdvancedOptions +
+				"-or\n" +
+				"-ta \"{0}\"\n" +
+				"-ca \"{1}\"\n" +
+				"-l \"" + LOG_FILE_PLACEHOLDER + "\"";
+		strOptions = strOptions.replace("{0}", fileTempTransformationConfigFile.getAbsolutePath());
+		strOptions = strOptions.replace("{1}", fileTempAugmentedAtomsConfigFile.getAbsolutePath());
+
+		return strOptions;
+	}
+
+	/**
+	 * Checks the configured log file and creates missing directories for it.
+	 *
+	 * @param pathAccessor Accessor of the configured log file path. Must not be null.
+	 *
+	 * @return Path of the log file or null, if no log file is configured.
+	 *
+	 * @throws Exception Thrown, if the log file cannot be written.
+	 */
+	protected Path prepareLogFile(final WritePathAccessor pathAccessor) throws Exception {
+		final Path pathLogFile = pathAccessor.getOutputPath(this::onStatusMessage);
+
+		// Create missing directories
+		if (pathLogFile != null && !pathLogFile.toString().isBlank()) {
+			if (Files.exists(pathLogFile)) {
+				if (FileOverwritePolicy.FAIL.equals(m_modelLogPath.getFileOverwritePolicy())) {
+					throw new InvalidSettingsException("The specified log file exists already. " +
+							"You may remove the file or switch on the Overwrite option to grant execution.");
+				}
+			}
+			else {
+				final Path pathLogFileParent = pathLogFile.getParent();
+				if (pathLogFileParent != null && !Files.exists(pathLogFileParent)) {
+					if (!m_modelLogPath.isCreateMissingFolders()) {
+						throw new InvalidSettingsException("The specified log file directory does not exist. " +
+								"You may create the directory or switch on the Overwrite option to grant execution.");
+					}
+
+					// Create missing directories
+					Files.createDirectories(pathLogFileParent);
+				}
+			}
+
+			return pathLogFile;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Determines a temporary log file for a structure checker. The file does not exist yet,
+	 * it will be created by StruChk, and it gets deleted latest when KNIME ends.
+	 *
+	 * @return Path of the temporary log file.
+	 *
+	 * @throws IOException Thrown, if the temporary file could not be determined.
+	 */
+	protected Path createTemporaryLogFile() throws IOException {
+		final Path pathLogTmpFile = Files.createTempFile("checkfgs", ".log");
+		g_setTemporaryLogFiles.add(pathLogTmpFile);
+		Files.delete(pathLogTmpFile); // Deleting it, it will be recreated by StruChk
+
+		return pathLogTmpFile;
+	}
+
 	@Override
 	protected void cleanupIntermediateResults() {
 		super.cleanupIntermediateResults();
 		m_inputType = null;
 	}
 
+	@Override
+	protected void onDispose() {
+		try {
+			closeCheckerProcessPool(null);
+		}
+		catch (final IOException exc) {
+			LOGGER.debug("Unable to delete temporary structure checker log files.", exc);
+		}
+		super.onDispose();
+	}
+
 	/**
 	 * Creates an SDF Cell from the passed in SDF Value. It checks, if the SDF Value
 	 * has the required $$$ postfix. If not, it adds it.
@@ -907,6 +1375,113 @@ public class RDKitStructureNormalizerV2NodeModel extends AbstractRDKitNodeModel
 		return strConfiguration;
 	}
 
+	/**
+	 * Returns the number of executions, which could skip the initialization of the
+	 * structure checker, because it was initialized already with the same configuration.
+	 *
+	 * @return Number of configuration cache hits since KNIME started.
+	 */
+	public static long getConfigurationCacheHits() {
+		return g_lConfigurationCacheHits.get();
+	}
+
+	/**
+	 * Returns the number of executions, which had to initialize the structure checker.
+	 *
+	 * @return Number of configuration cache misses since KNIME started.
+	 */
+	public static long getConfigurationCacheMisses() {
+		return g_lConfigurationCacheMisses.get();
+	}
+
+	/**
+	 * Forgets the configuration the structure checker of this process has been initialized with.
+	 * This must be called by everybody else, who initializes the structure checker.
+	 */
+	public static void invalidateLoadedCheckerConfiguration() {
+		synchronized (STRUCTURE_CHECKER_LOCK) {
+			g_strLoadedConfiguration = null;
+			g_arrLoadedConfigurationLog = null;
+		}
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Replaces the log file placeholder in a structure checker configuration.
+	 *
+	 * @param strConfiguration Configuration with log file placeholder. Must not be null.
+	 * @param pathLogTmpFile The log file the structure checker shall write to. Must not be null.
+	 *
+	 * @return Options for initializing StruChk.
+	 */
+	private static String resolveCheckerOptions(final String strConfiguration, final Path pathLogTmpFile) {
+		final String strOptions = strConfiguration.replace(LOG_FILE_PLACEHOLDER, pathLogTmpFile.toAbsolutePath().toString());
+		LOGGER.info("Initializing StruChk of RDKit with the following options:\n" + strOptions);
+
+		return strOptions;
+	}
+
+	/**
+	 * Returns a temporary file with the specified configuration content. A file created
+	 * before for the same content is reused, if it still exists.
+	 *
+	 * @param strConfiguration Configuration content. Must not be null.
+	 * @param strSuffix File suffix, e.g. ".trn".
+	 * @param strOrigin Origin of the configuration for logging.
+	 * @param strType Type of configuration for error messages.
+	 *
+	 * @return Temporary configuration file.
+	 *
+	 * @throws Exception Thrown, if the file could not be created.
+	 */
+	private static File getConfigurationFile(final String strConfiguration, final String strSuffix,
+			final String strOrigin, final String strType) throws Exception {
+		final byte[] arrContent = strConfiguration.getBytes();
+		final String strKey = strSuffix + ":" + HexFormat.of().formatHex(
+				MessageDigest.getInstance("SHA-256").digest(arrContent));
+
+		synchronized (g_mapConfigurationFiles) {
+			File file = g_mapConfigurationFiles.get(strKey);
+
+			if (file != null && file.isFile() && file.length() == arrContent.length) {
+				LOGGER.debug("Reusing " + file.getName() + " for configuration from " + strOrigin);
+			}
+			else {
+				file = File.createTempFile("checkfgs", strSuffix);
+				file.deleteOnExit();
+
+				try (final FileOutputStream out = new FileOutputStream(file, false)) {
+					out.write(arrContent);
+					out.flush();
+				}
+				catch (final Exception exc) {
+					throw new Exception("Unable to create temporary " + strType +
+							" configuration file for Structure Normalizer.", exc);
+				}
+
+				g_mapConfigurationFiles.put(strKey, file);
+				LOGGER.info(file.getName() + " copied from " + strOrigin);
+			}
+
+			return file;
+		}
+	}
+
+	/**
+	 * Creates a message with the configuration cache statistics for logging.
+	 *
+	 * @param lHits Number of cache hits.
+	 * @param lMisses Number of cache misses.
+	 *
+	 * @return Message.
+	 */
+	private static String getConfigurationCacheStatistics(final long lHits, final long lMisses) {
+		return "(Configuration cache: " + lHits + " hits, " + lMisses + " misses)";
+	}
+
 	/**
 	 * Determines, if the specified file name (of a StruChecker configuration
 	 * file) defines a default configuration file or not. It returns true, if
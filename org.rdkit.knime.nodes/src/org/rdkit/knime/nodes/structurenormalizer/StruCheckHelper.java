@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.structurenormalizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.RDKit.RDKFuncs;
+import org.RDKit.StringInt_Pair;
+
+/**
+ * This class is the entry point of a structure checker helper process. StruChk keeps its
+ * configuration in global state of the native RDKit library, so that only one configuration
+ * can be active per process and checks cannot run concurrently. A helper process holds
+ * its own StruChk instance, which gets initialized once and then checks batches of molecules
+ * sent by the {@link StruCheckProcessPool} of the KNIME process.
+ * <br/>
+ * This class must only depend on the Java runtime and the RDKit Java wrapper, because
+ * these are the only things on the class path of a helper process.
+ * <br/>
+ * Protocol (all over a loopback socket, strings as UTF-8 with length prefix, -1 for null):
+ * <ol>
+ * <li>Helper sends the token and the index it received as arguments.</li>
+ * <li>KNIME sends the StruChk options, helper answers with the result code of initCheckMol().</li>
+ * <li>KNIME sends batches: number of molecules (> 0), SMILES flag and the molecules.
+ * 		Helper answers with the corrected structure and the flags for every molecule.</li>
+ * <li>KNIME sends 0 as number of molecules (or closes the connection) to end the helper.</li>
+ * </ol>
+ */
+public final class StruCheckHelper {
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * This constructor serves only the purpose to avoid instantiation of this class.
+	 */
+	private StruCheckHelper() {
+		// To avoid instantiation of this class.
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Runs the helper process.
+	 *
+	 * @param args Port number of the loopback socket to connect to, the token
+	 * 		to identify helpers of the pool, the index of this helper and the names
+	 * 		of the native libraries to be loaded, in the order the RDKit Types plug-in
+	 * 		loads them in the KNIME process.
+	 *
+	 * @throws Exception Thrown, if the helper failed. The KNIME process notices this
+	 * 		by a closed connection.
+	 */
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("Usage: StruCheckHelper <port> <token> <index> <library>...");
+			System.exit(1);
+		}
+
+		for (int i = 3; i < args.length; i++) {
+			System.loadLibrary(args[i]);
+		}
+
+		try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+			socket.setTcpNoDelay(true);
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+
+			// Identify and initialize
+			writeString(out, args[1]);
+			out.writeInt(Integer.parseInt(args[2]));
+			out.flush();
+			out.writeInt(RDKFuncs.initCheckMol(readString(in)));
+			out.flush();
+
+			// Process batches until KNIME tells us to stop
+			int iCount;
+			while ((iCount = readCount(in)) > 0) {
+				final boolean bSmiles = in.readBoolean();
+
+				// Read the complete batch first, so that KNIME never blocks on writing while we write
+				final String[] arrMols = new String[iCount];
+				for (int i = 0; i < iCount; i++) {
+					arrMols[i] = readString(in);
+				}
+
+				for (int i = 0; i < iCount; i++) {
+					String strCorrected = null;
+					int iFlags = 0;
+
+					if (arrMols[i] != null) {
+						final StringInt_Pair results = RDKFuncs.checkMolString(arrMols[i], bSmiles);
+						try {
+							strCorrected = results.getFirst();
+							iFlags = results.getSecond();
+						}
+						finally {
+							results.delete();
+						}
+					}
+
+					writeString(out, strCorrected);
+					out.writeInt(iFlags);
+				}
+
+				out.flush();
+			}
+		}
+		finally {
+			RDKFuncs.closeCheckMolFiles();
+		}
+	}
+
+	//
+	// Static Package Methods (also used by the StruCheckProcessPool)
+	//
+
+	/**
+	 * Writes a string with a length prefix.
+	 *
+	 * @param out Output stream. Must not be null.
+	 * @param str String to write. Can be null.
+	 *
+	 * @throws IOException Thrown, if writing failed.
+	 */
+	static void writeString(final DataOutputStream out, final String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+		}
+		else {
+			final byte[] arrBytes = str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(arrBytes.length);
+			out.write(arrBytes);
+		}
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+	 *
+	 * @param in Input stream. Must not be null.
+	 *
+	 * @return String or null.
+	 *
+	 * @throws IOException Thrown, if reading failed.
+	 */
+	static String readString(final DataInputStream in) throws IOException {
+		final int iLength = in.readInt();
+		String str = null;
+
+		if (iLength >= 0) {
+			final byte[] arrBytes = new byte[iLength];
+			in.readFully(arrBytes);
+			str = new String(arrBytes, StandardCharsets.UTF_8);
+		}
+
+		return str;
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Reads the number of molecules of the next batch.
+	 *
+	 * @param in Input stream. Must not be null.
+	 *
+	 * @return Number of molecules. 0, if the connection was closed.
+	 *
+	 * @throws IOException Thrown, if reading failed.
+	 */
+	private static int readCount(final DataInputStream in) throws IOException {
+		try {
+			return in.readInt();
+		}
+		catch (final EOFException exc) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,690 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.structurenormalizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.RDKit.RDKFuncs;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.NodeLogger;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.rdkit.knime.RDKitTypesPluginActivator;
+import org.rdkit.knime.util.SystemUtils;
+
+/**
+ * This class manages a pool of structure checker helper processes (see {@link StruCheckHelper}).
+ * Every helper process has its own StruChk instance, which is initialized once with the
+ * options passed in when creating the pool. Molecules are checked in batches by an idle helper,
+ * so that as many batches can be checked concurrently as helpers exist. The global
+ * {@link RDKitStructureNormalizerV2NodeModel#STRUCTURE_CHECKER_LOCK} of the KNIME process
+ * is not involved. A helper, which crashes or does not deliver the results of a batch in time,
+ * gets killed and restarted, as long as the restart limit of the pool is not reached.
+ * Instances are thread-safe.
+ */
+public class StruCheckProcessPool implements AutoCloseable {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(StruCheckProcessPool.class);
+
+	/** Time in milliseconds to wait for helper processes to connect. */
+	private static final int STARTUP_TIMEOUT = 60000;
+
+	/** Time in milliseconds to wait for a helper process to end after telling it to stop. */
+	private static final long SHUTDOWN_TIMEOUT = 2000;
+
+	/** Interval in milliseconds, in which a thread waiting for an idle helper checks, if helpers are left. */
+	private static final long IDLE_CHECK_INTERVAL = 500;
+
+	/** Time in milliseconds a helper process gets for every batch, independent of its size. */
+	private static final long BATCH_TIMEOUT_BASE = 30000;
+
+	/** Additional time in milliseconds a helper process gets for every molecule of a batch. */
+	private static final long BATCH_TIMEOUT_PER_MOLECULE = 1000;
+
+	/** Number of restarts of failed helper processes allowed per helper of the pool. */
+	private static final int MAX_RESTARTS_PER_HELPER = 3;
+
+	/** Location of the RDKit Java wrapper within the RDKit Types bundle. */
+	private static final String RDKIT_JAR_ENTRY = "lib/org.RDKit.jar";
+
+	//
+	// Members
+	//
+
+	/** Directory with temporary files of the helper processes. */
+	private final File m_dirTemp;
+
+	/** StruChk options for every helper process. Used again when restarting a helper. */
+	private final String[] m_arrOptions;
+
+	/** Command line to start a helper process (without the arguments for the helper). */
+	private final List<String> m_listCommand;
+
+	/** Native libraries, which a helper process needs to load. */
+	private final String[] m_arrLibraries;
+
+	/** All helper processes of the pool. */
+	private final List<Process> m_listProcesses = new ArrayList<>();
+
+	/** All checkers (helper process connections) of the pool. Index is the same as for the processes. */
+	private final List<Checker> m_listCheckers = new ArrayList<>();
+
+	/** Checkers, which are idle and can take the next batch. */
+	private final BlockingQueue<Checker> m_queueIdleCheckers;
+
+	/** Number of checkers, which have not failed yet or which have been restarted. */
+	private final AtomicInteger m_iAliveCheckers = new AtomicInteger();
+
+	/** Number of restarts of failed helpers. Guarded by this pool. */
+	private int m_iRestarts = 0;
+
+	/** Flag to tell that the pool has been closed. Guarded by this pool. */
+	private boolean m_bClosed = false;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new pool and starts one helper process for each passed in option string.
+	 * Every helper initializes its StruChk instance with one of the options.
+	 *
+	 * @param arrOptions StruChk options for every helper process. They should differ
+	 * 		only in the log file. Must not be null or empty.
+	 *
+	 * @throws Exception Thrown, if helper processes could not be started or if
+	 * 		initializing StruChk failed.
+	 */
+	public StruCheckProcessPool(final String[] arrOptions) throws Exception {
+		if (arrOptions == null || arrOptions.length == 0) {
+			throw new IllegalArgumentException("Options for at least one structure checker process must be specified.");
+		}
+
+		m_arrLibraries = RDKitTypesPluginActivator.getNativeLibraries();
+		if (m_arrLibraries.length == 0) {
+			throw new UnsatisfiedLinkError("Unsupported operating system or architecture.");
+		}
+
+		m_dirTemp = Files.createTempDirectory("struchk").toFile();
+		m_arrOptions = arrOptions.clone();
+		m_queueIdleCheckers = new ArrayBlockingQueue<>(arrOptions.length);
+
+		try {
+			m_listCommand = createCommand();
+			for (int i = 0; i < arrOptions.length; i++) {
+				m_listProcesses.add(null);
+				m_listCheckers.add(null);
+			}
+			final int[] arrIndexes = new int[arrOptions.length];
+			for (int i = 0; i < arrIndexes.length; i++) {
+				arrIndexes[i] = i;
+			}
+			startCheckers(arrIndexes);
+			m_iAliveCheckers.set(arrOptions.length);
+			LOGGER.debug("Started " + arrOptions.length + " structure checker processes.");
+		}
+		catch (final Exception exc) {
+			close();
+			throw exc;
+		}
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Returns the number of helper processes.
+	 *
+	 * @return Number of structure checkers in the pool.
+	 */
+	public int getSize() {
+		return m_arrOptions.length;
+	}
+
+	/**
+	 * Determines, if the pool has still helper processes, which can check molecules.
+	 *
+	 * @return True, if at least one helper has not failed yet or has been restarted.
+	 * 		False, if all helpers failed without restart or the pool has been closed.
+	 */
+	public boolean isOperational() {
+		return m_iAliveCheckers.get() > 0;
+	}
+
+	/**
+	 * Checks a batch of molecules with the next idle helper process. It waits,
+	 * if all helpers are busy. A helper, whose communication failed or which did not
+	 * deliver all results in time (see {@link #getBatchTimeout(int)}), gets killed
+	 * and restarted, if the restart limit is not reached yet. Otherwise it is not used anymore.
+	 *
+	 * @param arrMols Molecules to be checked. Null elements are skipped and deliver
+	 * 		null as corrected structure. Must not be null.
+	 * @param bSmiles True, if the molecules are SMILES, false if they are Mol blocks.
+	 * @param arrCorrected Array to receive the corrected structures. Must be as long as arrMols.
+	 * @param arrFlags Array to receive the StruChk flags. Must be as long as arrMols.
+	 *
+	 * @throws IOException Thrown, if the communication with the helper process failed,
+	 * 		e.g. because it crashed or hung, or if all helper processes have failed.
+	 * 		The batch is not checked in this case, but it can be passed in again.
+	 * @throws InterruptedException Thrown, if the thread was interrupted while waiting for an idle helper.
+	 */
+	public void check(final String[] arrMols, final boolean bSmiles, final String[] arrCorrected,
+			final int[] arrFlags) throws IOException, InterruptedException {
+		if (arrMols.length == 0) {
+			return;
+		}
+
+		Checker checker;
+		while ((checker = m_queueIdleCheckers.poll(IDLE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) == null) {
+			if (m_iAliveCheckers.get() <= 0) {
+				throw new IOException("All structure checker processes have failed.");
+			}
+		}
+
+		final long lTimeout = getBatchTimeout(arrMols.length);
+		boolean bHealthy = false;
+		boolean bHung = false;
+
+		try {
+			checker.check(arrMols, bSmiles, arrCorrected, arrFlags, lTimeout);
+			bHealthy = true;
+		}
+		catch (final SocketTimeoutException exc) {
+			bHung = true;
+			throw new IOException("A structure checker process did not check " + arrMols.length +
+					" molecules within " + (lTimeout / 1000) + " seconds.", exc);
+		}
+		catch (final IOException exc) {
+			throw new IOException("A structure checker process failed while checking " + arrMols.length +
+					" molecules.", exc);
+		}
+		finally {
+			if (bHealthy) {
+				m_queueIdleCheckers.add(checker);
+			}
+			else {
+				replaceChecker(checker, bHung);
+			}
+		}
+	}
+
+	/**
+	 * Returns the time a helper process gets to deliver the results of a batch
+	 * before it is considered to be hung.
+	 *
+	 * @param iMolecules Number of molecules in the batch.
+	 *
+	 * @return Timeout in milliseconds.
+	 */
+	public static long getBatchTimeout(final int iMolecules) {
+		return BATCH_TIMEOUT_BASE + iMolecules * BATCH_TIMEOUT_PER_MOLECULE;
+	}
+
+	/**
+	 * Stops all helper processes and deletes temporary files.
+	 */
+	@Override
+	public synchronized void close() {
+		m_bClosed = true;
+
+		for (final Checker checker : m_listCheckers) {
+			if (checker != null) {
+				checker.close();
+			}
+		}
+		for (final Process process : m_listProcesses) {
+			if (process != null) {
+				stopProcess(process);
+			}
+		}
+		m_queueIdleCheckers.clear();
+		m_iAliveCheckers.set(0);
+
+		try (final Stream<java.nio.file.Path> stream = Files.walk(m_dirTemp.toPath())) {
+			stream.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+		}
+		catch (final IOException exc) {
+			LOGGER.debug("Unable to delete temporary structure checker files in " + m_dirTemp, exc);
+		}
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Kills the helper process of a failed checker and starts a new helper for its index.
+	 * If the restart limit is reached or the restart fails, the helper is not used anymore.
+	 *
+	 * @param checker Failed checker. Must not be null.
+	 * @param bHung True, if the helper did not answer in time. It gets killed immediately
+	 * 		instead of giving it the chance to end gracefully.
+	 */
+	private synchronized void replaceChecker(final Checker checker, final boolean bHung) {
+		final int iIndex = checker.m_iIndex;
+		final Process process = m_listProcesses.get(iIndex);
+
+		checker.close();
+		if (bHung) {
+			process.destroyForcibly();
+		}
+		else {
+			stopProcess(process);
+		}
+
+		if (!m_bClosed && m_iRestarts < MAX_RESTARTS_PER_HELPER * getSize()) {
+			m_iRestarts++;
+			m_listCheckers.set(iIndex, null);
+			try {
+				startCheckers(new int[] { iIndex });
+				LOGGER.warn("A structure checker process failed and has been restarted (restart " +
+						m_iRestarts + " of at most " + (MAX_RESTARTS_PER_HELPER * getSize()) + ").");
+				return;
+			}
+			catch (final Exception exc) {
+				LOGGER.debug("Restarting a structure checker process failed.", exc);
+				if (m_listCheckers.get(iIndex) != null) {
+					m_listCheckers.get(iIndex).close();
+				}
+				stopProcess(m_listProcesses.get(iIndex));
+			}
+		}
+
+		final int iAlive = m_iAliveCheckers.decrementAndGet();
+		LOGGER.warn("A structure checker process failed - " + iAlive + " of " + getSize() + " left.");
+	}
+
+	/**
+	 * Starts helper processes, waits for their connections and initializes StruChk in each of them.
+	 * Initialized checkers are added to the idle queue.
+	 *
+	 * @param arrIndexes Indexes of the helpers to be started. Their checkers must not be set. Must not be null.
+	 *
+	 * @throws Exception Thrown, if starting or initializing failed.
+	 */
+	private void startCheckers(final int[] arrIndexes) throws Exception {
+		final String strToken = UUID.randomUUID().toString();
+		final List<File> listErrorFiles = new ArrayList<>();
+
+		try (final ServerSocket server = new ServerSocket(0, arrIndexes.length, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(STARTUP_TIMEOUT);
+
+			for (final int i : arrIndexes) {
+				final List<String> listArgs = new ArrayList<>(m_listCommand);
+				listArgs.add(Integer.toString(server.getLocalPort()));
+				listArgs.add(strToken);
+				listArgs.add(Integer.toString(i));
+				listArgs.addAll(List.of(m_arrLibraries));
+
+				final File fileErrors = new File(m_dirTemp, "helper" + i + ".err");
+				listErrorFiles.add(fileErrors);
+				m_listProcesses.set(i, new ProcessBuilder(listArgs)
+						.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+						.redirectError(fileErrors)
+						.start());
+			}
+
+			// Helpers connect in any order and identify themselves with their index
+			int iConnected = 0;
+			while (iConnected < arrIndexes.length) {
+				final Socket socket;
+				try {
+					socket = server.accept();
+				}
+				catch (final SocketTimeoutException exc) {
+					throw new IOException("Structure checker processes did not start within " +
+							(STARTUP_TIMEOUT / 1000) + " seconds. " + readErrors(listErrorFiles), exc);
+				}
+
+				final Checker checker = new Checker(socket);
+				final int iIndex = checker.identify(strToken);
+				if (iIndex < 0 || iIndex >= getSize() || m_listCheckers.get(iIndex) != null) {
+					checker.close();
+				}
+				else {
+					m_listCheckers.set(iIndex, checker);
+					iConnected++;
+				}
+			}
+		}
+
+		for (final int i : arrIndexes) {
+			final int iError = m_listCheckers.get(i).initialize(m_arrOptions[i]);
+			if (iError != 0) {
+				throw new Exception("Configuring the Structure Normalizer failed with error code #" + iError +
+						" - Please check your configuration files and settings.");
+			}
+		}
+
+		for (final int i : arrIndexes) {
+			m_queueIdleCheckers.add(m_listCheckers.get(i));
+		}
+	}
+
+	/**
+	 * Creates the command line to start a helper process (without the arguments for the helper).
+	 * The class path consists of the RDKit Java wrapper and a copy of the helper class.
+	 *
+	 * @return Command line. Never null.
+	 *
+	 * @throws IOException Thrown, if the required files could not be located.
+	 */
+	private List<String> createCommand() throws IOException {
+		// Copy the helper class, because the class files of this bundle may not be accessible as files
+		final String strHelperClassFile = StruCheckHelper.class.getName().replace('.', '/') + ".class";
+		final File fileHelperClass = new File(new File(m_dirTemp, "classes"), strHelperClassFile);
+		fileHelperClass.getParentFile().mkdirs();
+		try (final InputStream in = StruCheckHelper.class.getClassLoader().getResourceAsStream(strHelperClassFile)) {
+			if (in == null) {
+				throw new IOException("Class file of the structure checker helper not found.");
+			}
+			Files.copy(in, fileHelperClass.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		final List<String> listCommand = new ArrayList<>();
+		listCommand.add(new File(new File(System.getProperty("java.home"), "bin"),
+				SystemUtils.isWindows() ? "java.exe" : "java").getAbsolutePath());
+		listCommand.add("-Xmx256m");
+		listCommand.add("-XX:+UseSerialGC");
+		listCommand.add("-Djava.awt.headless=true");
+		listCommand.add("-Djava.library.path=" + getLibraryPath(m_arrLibraries));
+		listCommand.add("-cp");
+		listCommand.add(new File(m_dirTemp, "classes").getAbsolutePath() + File.pathSeparator + getRDKitJar().getAbsolutePath());
+		listCommand.add(StruCheckHelper.class.getName());
+
+		return listCommand;
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Locates the RDKit Java wrapper JAR file.
+	 *
+	 * @return JAR file. Never null.
+	 *
+	 * @throws IOException Thrown, if it could not be located.
+	 */
+	private static File getRDKitJar() throws IOException {
+		final Bundle bundle = FrameworkUtil.getBundle(RDKFuncs.class);
+		final URL url = (bundle == null ? null : bundle.getEntry(RDKIT_JAR_ENTRY));
+
+		if (url != null) {
+			return new File(FileLocator.toFileURL(url).getPath());
+		}
+
+		// Outside of OSGi the wrapper is on the normal class path
+		try {
+			return new File(RDKFuncs.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		}
+		catch (final Exception exc) {
+			throw new IOException("Unable to locate the RDKit Java wrapper for structure checker processes.", exc);
+		}
+	}
+
+	/**
+	 * Determines the directory of the RDKit native libraries, which are located in the
+	 * RDKit Binary bundle of the current platform. Falls back to the library path
+	 * of the KNIME process.
+	 *
+	 * @param arrLibraries Names of the native libraries a helper process loads. Must not be null.
+	 *
+	 * @return Library path for helper processes. Never null.
+	 */
+	private static String getLibraryPath(final String[] arrLibraries) {
+		final String strOs = Platform.getOS();
+		final String strArch = Platform.getOSArch();
+		final Bundle bundle = Platform.getBundle("org.rdkit.knime.bin." + strOs + "." + strArch);
+
+		if (bundle != null) {
+			for (final String strLibrary : arrLibraries) {
+				final URL url = bundle.getEntry("os/" + strOs + "/" + strArch + "/" + System.mapLibraryName(strLibrary));
+				if (url != null) {
+					try {
+						return new File(FileLocator.toFileURL(url).getPath()).getParentFile().getAbsolutePath();
+					}
+					catch (final IOException exc) {
+						LOGGER.debug("Unable to locate RDKit native library in " + bundle.getSymbolicName(), exc);
+					}
+				}
+			}
+		}
+
+		return System.getProperty("java.library.path", "");
+	}
+
+	/**
+	 * Waits for a helper process to end. If it does not end in time, it gets killed.
+	 *
+	 * @param process Helper process. Must not be null.
+	 */
+	private static void stopProcess(final Process process) {
+		try {
+			if (!process.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+		catch (final InterruptedException exc) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reads the error output of helper processes to report startup failures.
+	 *
+	 * @param listErrorFiles Error output files. Must not be null.
+	 *
+	 * @return Error output of all helpers. Empty, if there is none.
+	 */
+	private static String readErrors(final List<File> listErrorFiles) {
+		final StringBuilder sb = new StringBuilder();
+
+		for (final File file : listErrorFiles) {
+			try {
+				if (file.length() > 0) {
+					sb.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim()).append('\n');
+				}
+			}
+			catch (final IOException exc) {
+				// Ignored by purpose
+			}
+		}
+
+		return sb.toString().trim();
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * Connection to a single helper process. Not thread-safe - the pool ensures that
+	 * only one thread works with a checker at a time.
+	 */
+	private static class Checker {
+
+		/** Socket connected to the helper. */
+		private final Socket m_socket;
+
+		/** Input stream from the helper. */
+		private final DataInputStream m_in;
+
+		/** Output stream to the helper. */
+		private final DataOutputStream m_out;
+
+		/** Index of the helper process. -1 until identified. */
+		private int m_iIndex = -1;
+
+		/**
+		 * Creates a new checker for a connected helper process.
+		 *
+		 * @param socket Socket connected to the helper. Must not be null.
+		 *
+		 * @throws IOException Thrown, if the streams could not be opened.
+		 */
+		private Checker(final Socket socket) throws IOException {
+			m_socket = socket;
+			m_socket.setTcpNoDelay(true);
+			m_socket.setSoTimeout(STARTUP_TIMEOUT); // Until initialized
+			m_in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+			m_out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+		}
+
+		/**
+		 * Reads the token and the index the helper sends to identify itself.
+		 *
+		 * @param strToken The expected token. Must not be null.
+		 *
+		 * @return Index of the helper or -1, if the token does not match.
+		 *
+		 * @throws IOException Thrown, if reading failed.
+		 */
+		private int identify(final String strToken) throws IOException {
+			if (strToken.equals(StruCheckHelper.readString(m_in))) {
+				m_iIndex = m_in.readInt();
+			}
+			return m_iIndex;
+		}
+
+		/**
+		 * Initializes StruChk in the helper process.
+		 *
+		 * @param strOptions StruChk options. Must not be null.
+		 *
+		 * @return Result code of initializing StruChk. 0, if successful.
+		 *
+		 * @throws IOException Thrown, if the communication failed.
+		 */
+		private int initialize(final String strOptions) throws IOException {
+			StruCheckHelper.writeString(m_out, strOptions);
+			m_out.flush();
+			return m_in.readInt();
+		}
+
+		/**
+		 * Checks a batch of molecules.
+		 *
+		 * @param lTimeout Time in milliseconds the helper gets to deliver all results.
+		 *
+		 * @throws SocketTimeoutException Thrown, if the helper did not deliver all results in time.
+		 *
+		 * @see StruCheckProcessPool#check(String[], boolean, String[], int[])
+		 */
+		private void check(final String[] arrMols, final boolean bSmiles, final String[] arrCorrected,
+				final int[] arrFlags, final long lTimeout) throws IOException {
+			final long lDeadline = System.currentTimeMillis() + lTimeout;
+
+			m_out.writeInt(arrMols.length);
+			m_out.writeBoolean(bSmiles);
+			for (final String strMol : arrMols) {
+				StruCheckHelper.writeString(m_out, strMol);
+			}
+			m_out.flush();
+
+			for (int i = 0; i < arrMols.length; i++) {
+				// The timeout applies to every blocking read, so it gets reduced to the time left
+				m_socket.setSoTimeout((int) Math.max(1, lDeadline - System.currentTimeMillis()));
+				arrCorrected[i] = StruCheckHelper.readString(m_in);
+				arrFlags[i] = m_in.readInt();
+			}
+		}
+
+		/**
+		 * Tells the helper process to stop and closes the connection.
+		 */
+		private void close() {
+			try {
+				m_out.writeInt(0);
+				m_out.flush();
+			}
+			catch (final IOException exc) {
+				// Ignored by purpose - the helper may be gone already
+			}
+
+			try {
+				m_socket.close();
+			}
+			catch (final IOException exc) {
+				// Ignored by purpose
+			}
+		}
+	}
+}
@@ -51,11 +51,16 @@ package org.rdkit.knime.nodes.twocomponentreaction2;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -68,7 +73,6 @@ import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.def.IntCell;
-import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -77,10 +81,22 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelColumnFilter2;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
-import org.knime.core.util.MultiThreadWorker;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 import org.rdkit.knime.nodes.AbstractRDKitNodeModel;
+import org.rdkit.knime.nodes.AdaptiveParallelism;
 import org.rdkit.knime.nodes.onecomponentreaction2.AbstractRDKitReactionNodeModel;
 import org.rdkit.knime.types.RDKitAdapterCell;
 import org.rdkit.knime.types.RDKitMolValue;
@@ -126,6 +142,12 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 	protected static final List<DataRow> NOT_INCLUDED =
 			Collections.unmodifiableList(new ArrayList<DataRow>(0));
 
+	/**
+	 * Maximal number of second reactants a first reactant gets combined with in a single
+	 * task of a matrix expansion. This bounds the number of products held in memory per task.
+	 */
+	protected static final int REACTANT2_CHUNK_SIZE = 256;
+
 	//
 	// Members
 	//
@@ -167,6 +189,14 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 				new PortType[]{BufferedDataTable.TYPE},
 				2);
 		registerInputTablesWithSizeLimits(0, 1); // We do not support too many components
+
+		// First reactants can be streamed, second reactants and reaction are needed completely
+		setPortRoles(new InputPortRole[] {
+				InputPortRole.NONDISTRIBUTED_STREAMABLE,
+				InputPortRole.NONDISTRIBUTED_NONSTREAMABLE,
+				InputPortRole.NONDISTRIBUTED_NONSTREAMABLE },
+				new OutputPortRole[] { OutputPortRole.NONDISTRIBUTED });
+		registerMaxParallelWorkersSettings();
 	}
 
 	//
@@ -349,12 +379,45 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 		final DataTableSpec[] arrOutSpecs = getOutputTableSpecs(inData);
 
 		// Contains the rows with the result columns
-		final BufferedDataContainer tableProducts = exec.createDataContainer(arrOutSpecs[0]);
+		final BufferedDataTableRowOutput tableProducts = new BufferedDataTableRowOutput(
+				exec.createDataContainer(arrOutSpecs[0]));
+
+		enumerateProducts(new DataTableRowInput(inData[0]), inData[0].size(), inData, arrInputDataInfo,
+				tableProducts, exec);
+
+		tableProducts.close();
 
-		final int iTotalRowCountReactant1 = (int)inData[0].size();
+		return new BufferedDataTable[] { tableProducts.getDataTable() };
+	}
+
+	/**
+	 * Enumerates the products of the first reactants delivered by the passed in row input
+	 * and the second reactants of the second input table. Products are pushed to the
+	 * passed in row output in the order of the reactants as soon as a task is finished.
+	 * In matrix mode a first reactant gets combined with slices of at most
+	 * {@link #REACTANT2_CHUNK_SIZE} second reactants per task. As the number of pending
+	 * tasks is limited and pushing rows may block, the memory consumption stays bounded
+	 * also for very large matrix expansions.
+	 *
+	 * @param rowsReactant1 Row input with the first reactants. Must not be null.
+	 * @param lRowCountReactant1 Number of first reactants or -1, if unknown (streaming).
+	 * @param inData All input tables. The table of the first reactants can be null.
+	 * @param arrInputDataInfo Information about all columns of the input tables.
+	 * @param output Row output to push the products to. Must not be null.
+	 * @param exec Execution context for progress and cancellation. Must not be null.
+	 *
+	 * @return Number of first reactants that were read from the row input.
+	 *
+	 * @throws Exception Thrown, if the enumeration failed or was canceled.
+	 */
+	protected long enumerateProducts(final RowInput rowsReactant1, final long lRowCountReactant1,
+			final BufferedDataTable[] inData, final InputDataInfo[][] arrInputDataInfo,
+			final RowOutput output, final ExecutionContext exec) throws Exception {
+		final DataTableSpec specReactant1 = rowsReactant1.getDataTableSpec();
 		final int iTotalRowCountReactant2 = (int)inData[1].size();
+		final AtomicLong alRowCountReactant1 = new AtomicLong();
 
-		if (iTotalRowCountReactant1 == 0) {
+		if (lRowCountReactant1 == 0) {
 			getWarningConsolidator().saveWarning("Input table 1 is empty - there are no reactants to process.");
 		}
 		else if (iTotalRowCountReactant2 == 0) {
@@ -363,8 +426,8 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 		else {
 			// Get settings and define data specific behavior
 			final boolean bMatrixExpansion = m_modelDoMatrixExpansion.getBooleanValue();
-			final int iMaxParallelWorkers = (int)Math.ceil(1.5 * Runtime.getRuntime().availableProcessors());
-			final int iQueueSize = 10 * iMaxParallelWorkers;
+			final int iMaxParallelWorkers = getMaxParallelWorkers();
+			final int iQueueSize = AdaptiveParallelism.getMaxChunksInFlight(iMaxParallelWorkers);
 			final AtomicInteger aiReactionCounter = new AtomicInteger();
 			final AtomicBoolean abEarlyDone = new AtomicBoolean(false);
 
@@ -373,6 +436,62 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 			final SafeGuardedResource<ChemicalReaction> chemicalReaction =
 					markForCleanup(createSafeGuardedReactionResource(inData, arrInputDataInfo));
 
+			// Determine additional columns of both input tables to be included in the output table
+			final List<Integer> listReactant1AdditionalColumnIndexes;
+			final List<Integer> listReactant2AdditionalColumnIndexes;
+			if (!m_modelAdditionalColumnsEnabled.getBooleanValue()) {
+				listReactant1AdditionalColumnIndexes = null;
+				listReactant2AdditionalColumnIndexes = null;
+			}
+			else if (specReactant1 == inData[1].getDataTableSpec()) {
+				// we have the same table on both input ports, so processing it only once to avoid additional columns duplication
+				final DataTableSpec inSpec = specReactant1;
+				listReactant1AdditionalColumnIndexes = Stream
+						.concat(
+								Arrays.stream(m_modelReactant1ColumnsFilter.applyTo(inSpec).getIncludes()),
+								Arrays.stream(m_modelReactant2ColumnsFilter.applyTo(inSpec).getIncludes())
+						)
+						.distinct()
+						.filter(strColumnName -> !strColumnName.equals(m_modelReactant1ColumnName.getStringValue())
+								&& !strColumnName.equals(m_modelReactant2ColumnName.getStringValue()))
+						.map(inSpec::findColumnIndex)
+						.toList();
+				listReactant2AdditionalColumnIndexes = Collections.emptyList();
+			}
+			else {
+				listReactant1AdditionalColumnIndexes = createAdditionalColumnIndexList(
+						m_modelReactant1ColumnsFilter, specReactant1,
+						m_modelReactant1ColumnName);
+				listReactant2AdditionalColumnIndexes = createAdditionalColumnIndexList(
+						m_modelReactant2ColumnsFilter, inData[1].getDataTableSpec(),
+						m_modelReactant2ColumnName);
+			}
+
+			// For matrix expansion decode all second reactants only once, if they fit into memory,
+			// otherwise they are read again from the table for every first reactant
+			exec.setMessage("Loading second reactants");
+			final ReactantPool poolReactant2 = (bMatrixExpansion ?
+					markForCleanup(ReactantPool.load(inData[1], arrInputDataInfo[1][INPUT_COLUMN_REACTANT2],
+							listReactant2AdditionalColumnIndexes, ReactantPool.getMemoryBudget(),
+							exec.createSubProgress(0.0d))) : null);
+
+			// For matrix expansion determine the second reactants that match their reactant template,
+			// only those can react and need to be combined with the first reactants
+			final int[] arrCompatibleReactants2;
+			if (bMatrixExpansion) {
+				exec.setMessage("Matching second reactants with reactant template");
+				arrCompatibleReactants2 = (poolReactant2 != null ?
+						findCompatibleReactants(chemicalReaction.get(), 1, poolReactant2) :
+						findCompatibleReactants(chemicalReaction.get(), 1, inData[1],
+								arrInputDataInfo[1][INPUT_COLUMN_REACTANT2], exec.createSubProgress(0.0d)));
+				LOGGER.info(arrCompatibleReactants2.length + " of " + iTotalRowCountReactant2 +
+						" second reactants match the reactant template.");
+			}
+			else {
+				arrCompatibleReactants2 = null;
+			}
+			final AtomicInteger aiIncompatibleReactants1 = new AtomicInteger();
+
 			// Create iterator resources over table with the second reactants
 			final SafeGuardedResource<RandomAccessRowIterator> rowAccessReactant2 =
 					markForCleanup(new SafeGuardedResource<RandomAccessRowIterator>() {
@@ -400,54 +519,16 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 					});
 
 			// Calculate two component reactions
-			final MultiThreadWorker<DataRow, List<DataRow>> multiWorker =
-					new MultiThreadWorker<DataRow, List<DataRow>>(iQueueSize, iMaxParallelWorkers) {
-
-				/**
-				 * Array of input reactant table #1 column indexes to be included to output table.
-				 */
-				private final List<Integer> listReactant1AdditionalColumnIndexes;
+			final long lStartTime = System.nanoTime();
+			final ParallelWorker<ReactionTask, List<DataRow>> multiWorker =
+					new ParallelWorker<ReactionTask, List<DataRow>>(this, iQueueSize, iMaxParallelWorkers, exec) {
 
 				/**
-				 * Array of input reactant table #2 column indexes to be included to output table.
-				 */
-				private final List<Integer> listReactant2AdditionalColumnIndexes;
-
-				{
-                    if (!m_modelAdditionalColumnsEnabled.getBooleanValue()) {
-                        listReactant1AdditionalColumnIndexes = null;
-                        listReactant2AdditionalColumnIndexes = null;
-                    }
-					else if (inData[0].getDataTableSpec() == inData[1].getDataTableSpec()) {
-						// we have the same table on both input ports, so processing it only once to avoid additional columns duplication
-						final DataTableSpec inSpec = inData[0].getDataTableSpec();
-						listReactant1AdditionalColumnIndexes = Stream
-								.concat(
-										Arrays.stream(m_modelReactant1ColumnsFilter.applyTo(inSpec).getIncludes()),
-										Arrays.stream(m_modelReactant2ColumnsFilter.applyTo(inSpec).getIncludes())
-								)
-								.distinct()
-								.filter(strColumnName -> !strColumnName.equals(m_modelReactant1ColumnName.getStringValue())
-										&& !strColumnName.equals(m_modelReactant2ColumnName.getStringValue()))
-								.map(inSpec::findColumnIndex)
-								.toList();
-						listReactant2AdditionalColumnIndexes = Collections.emptyList();
-					}
-					else {
-						listReactant1AdditionalColumnIndexes = createAdditionalColumnIndexList(
-								m_modelReactant1ColumnsFilter, inData[0].getDataTableSpec(),
-								m_modelReactant1ColumnName);
-						listReactant2AdditionalColumnIndexes = createAdditionalColumnIndexList(
-								m_modelReactant2ColumnsFilter, inData[1].getDataTableSpec(),
-								m_modelReactant2ColumnName);
-                    }
-                }
-
-				/**
-				 * Computes the two component reactions.
+				 * Computes the two component reactions of a first reactant with a slice
+				 * of second reactants.
 				 * 
-				 * @param row Input row with reactant 1.
-				 * @param index Index of row with reactant 1.
+				 * @param task Reaction task with the input row of reactant 1.
+				 * @param lTaskIndex Index of the task (not the row index of reactant 1).
 				 * 
 				 * @return Result of none (null), one or multiple data rows. If the result
 				 * 		is equal to EMPTY_RESULT_DUE_TO_LACK_OF_ROWS processing will
@@ -455,7 +536,9 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 				 * 		a missing reactant 1.
 				 */
 				@Override
-				protected List<DataRow> compute(final DataRow row, final long index) throws Exception {
+				protected List<DataRow> calculate(final ReactionTask task, final long lTaskIndex) throws Exception {
+					final FirstReactant reactant1 = task.getReactant1();
+					final long index = reactant1.getRowIndex();
 					final long uniqueWaveId = createUniqueCleanupWaveId();
 					List<DataRow> listNewRows = null;
 
@@ -463,46 +546,84 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 					ROMol mol1 = null;
 
 					try {
-						final RandomAccessRowIterator rowAccess = rowAccessReactant2.get();
+						// Iterate through all pooled second reactants for each first reactant
+						if (poolReactant2 != null) {
+							final long subUniqueWaveId = createUniqueCleanupWaveId();
+
+							try {
+								for (int i = task.getFrom(); i < task.getTo(); i++) {
+									final int index2 = arrCompatibleReactants2[i];
+									if (isReactionIncluded(index, index2)) {
+										bFoundIncluded = true;
+										if (mol1 == null) {
+											mol1 = prepareFirstReactant(reactant1);
+											if (mol1 == null) {
+												// Nothing to calculate, if cell is empty
+												break;
+											}
+											if (!reactant1.isCompatible()) {
+												// No products possible with this first reactant
+												listNewRows = new ArrayList<DataRow>(0);
+												break;
+											}
+										}
+
+										final ReactantPool.Reactant reactant2 = poolReactant2.get(index2);
+										if (reactant2.getMolecule() != null) {
+											List<DataCell> listAdditionalCells2 = null;
+											if (reactant1.getAdditionalCells() != null) {
+												listAdditionalCells2 = new ArrayList<>(reactant1.getAdditionalCells());
+												listAdditionalCells2.addAll(reactant2.getAdditionalCells());
+											}
+
+											listNewRows = processWithReactants(mol1, reactant2.getMolecule(), reactant2.getReactantCell(),
+													listAdditionalCells2, listNewRows, subUniqueWaveId, (int)index, index2);
+										}
+									}
+								}
+							}
+							finally {
+								cleanupMarkedObjects(subUniqueWaveId);
+							}
+						}
+
+						final RandomAccessRowIterator rowAccess = (poolReactant2 == null ? rowAccessReactant2.get() : null);
 
 						if (rowAccess != null) {
 							// Iterate through all second reactant rows for each first reactant
 							if (bMatrixExpansion) {
-								rowAccess.resetIterator();
+								// The iterator moves on over the slices of subsequent tasks and gets reset
+								// automatically when going backwards - only an exhausted iterator needs a reset
+								if (rowAccess.getNextRowIndex() < 0) {
+									rowAccess.resetIterator();
+								}
 								final long subUniqueWaveId = createUniqueCleanupWaveId();
-								int index2 = 0;
 
 								try {
-									while (rowAccess.hasNext()) {
+									for (int i = task.getFrom(); i < task.getTo(); i++) {
+										final int index2 = arrCompatibleReactants2[i];
 										if (isReactionIncluded(index, index2)) {
 											bFoundIncluded = true;
 											if (mol1 == null) {
-												mol1 = markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_REACTANT1].getROMol(row), uniqueWaveId);
+												mol1 = prepareFirstReactant(reactant1);
 												if (mol1 == null) {
 													// Nothing to calculate, if cell is empty
 													break;
 												}
-											}
-
-											// Additional data cells
-											final List<DataCell> listAdditionalCells1;
-                                            if (m_modelAdditionalColumnsEnabled.getBooleanValue()) {
-												listAdditionalCells1 = new ArrayList<>();
-												for (int iReactant1AdditionalColumnIndex : listReactant1AdditionalColumnIndexes) {
-													listAdditionalCells1.add(row.getCell(iReactant1AdditionalColumnIndex));
+												if (!reactant1.isCompatible()) {
+													// No products possible with this first reactant
+													listNewRows = new ArrayList<DataRow>(0);
+													break;
 												}
 											}
-                                            else {
-												listAdditionalCells1 = null;
-											}
 
-											listNewRows = processWithSecondReactant(mol1, listAdditionalCells1, rowAccess.next(),
-													listNewRows, subUniqueWaveId, (int)index, index2);
-										}
-										else {
-											rowAccess.skip(1);
+											// Skips over rows of second reactants, which cannot react or are not included
+											final DataRow row2 = rowAccess.get(index2);
+											if (row2 != null) {
+												listNewRows = processWithSecondReactant(mol1, reactant1.getAdditionalCells(), row2,
+														listNewRows, subUniqueWaveId, (int)index, index2);
+											}
 										}
-										index2++;
 									}
 								}
 								finally {
@@ -514,32 +635,18 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 							else {
 								if (isReactionIncluded(index, index)) {
 									bFoundIncluded = true;
-									if (mol1 == null) {
-										mol1 = markForCleanup(arrInputDataInfo[0][INPUT_COLUMN_REACTANT1].getROMol(row), uniqueWaveId);
-										if (mol1 != null) {
-											final DataRow row2 = rowAccess.get((int)index);
+									mol1 = prepareFirstReactant(reactant1);
+									if (mol1 != null) {
+										final DataRow row2 = rowAccess.get((int)index);
 
-											if (row2 != null) {
-												// Additional data cells
-												final List<DataCell> listAdditionalCells1;
-                                                if (m_modelAdditionalColumnsEnabled.getBooleanValue()) {
-													listAdditionalCells1 = new ArrayList<>();
-													for (int iReactant1AdditionalColumnIndex : listReactant1AdditionalColumnIndexes) {
-														listAdditionalCells1.add(row.getCell(iReactant1AdditionalColumnIndex));
-													}
-												}
-                                                else {
-													listAdditionalCells1 = null;
-												}
-
-												listNewRows = processWithSecondReactant(mol1, listAdditionalCells1, row2,
-														null, uniqueWaveId, (int)index, (int)index);
-											}
-											else {
-												// Using this as result will cause an CancellationException to be thrown
-												// See process() method
-												listNewRows = EMPTY_RESULT_DUE_TO_LACK_OF_ROWS; // No more rows found
-											}
+										if (row2 != null) {
+											listNewRows = processWithSecondReactant(mol1, reactant1.getAdditionalCells(), row2,
+													null, uniqueWaveId, (int)index, (int)index);
+										}
+										else {
+											// Using this as result will cause an CancellationException to be thrown
+											// See process() method
+											listNewRows = EMPTY_RESULT_DUE_TO_LACK_OF_ROWS; // No more rows found
 										}
 									}
 								}
@@ -548,16 +655,53 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 					}
 					finally {
 						cleanupMarkedObjects(uniqueWaveId);
+
+						// The first reactant is shared by all tasks of it and freed after the last one
+						if (reactant1.finishTask() && reactant1.getCleanupWaveId() >= 0) {
+							cleanupMarkedObjects(reactant1.getCleanupWaveId());
+						}
 					}
 
-					// If we there was no reaction to be included we use a special return value
-					if (listNewRows == null && !bFoundIncluded) {
+					// If we there was no reaction to be included we use a special return value,
+					// the same for further slices of a missing reactant 1 as this is reported only once
+					if (listNewRows == null && (!bFoundIncluded || !task.isFirstChunk())) {
 						listNewRows = NOT_INCLUDED;
 					}
 
 					return listNewRows;
 				}
 
+				/**
+				 * Decodes the molecule of a first reactant and checks in matrix mode, if it matches the
+				 * first reactant template. This happens only once for all tasks of the first reactant.
+				 * 
+				 * @param reactant1 First reactant. Must not be null.
+				 * 
+				 * @return Molecule of the first reactant or null, if the cell is empty.
+				 * 
+				 * @throws EmptyCellException Needed to be declared, but will never
+				 * 		be thrown because the EmptyCellPolicy is set to TreatAsNull
+				 * 		for retrieval of reactant 1 data.
+				 */
+				private ROMol prepareFirstReactant(final FirstReactant reactant1) throws EmptyCellException {
+					synchronized (reactant1) {
+						if (!reactant1.isPrepared()) {
+							final long lWaveId = createUniqueCleanupWaveId();
+							final ROMol mol = markForCleanup(
+									arrInputDataInfo[0][INPUT_COLUMN_REACTANT1].getROMol(reactant1.getRow()), lWaveId);
+							final boolean bCompatible = (mol != null &&
+									(!bMatrixExpansion || isReactantCompatible(chemicalReaction.get(), 0, mol)));
+							if (mol != null && !bCompatible) {
+								aiIncompatibleReactants1.incrementAndGet();
+							}
+							reactant1.setPrepared(mol, bCompatible, bCompatible ?
+									getAdditionalCells(reactant1.getRow(), listReactant1AdditionalColumnIndexes) : null, lWaveId);
+						}
+
+						return reactant1.getMolecule();
+					}
+				}
+
 				/**
 				 * Prepares the processing with two reactants and calls processReactionResults-
 				 * 
@@ -584,40 +728,81 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 							arrInputDataInfo[1][INPUT_COLUMN_REACTANT2].getROMol(row2), wave);
 
 					if (mol2 != null) {
-						// The reaction takes a vector of reactants. For this
-						// single-component reaction that vector is one long
-						final ROMol_Vect rs = new ROMol_Vect(2);
-						rs.set(0, mol1);
-						rs.set(1, mol2);
-
 						// Additional data cells
 						final List<DataCell> listAdditionalCells2;
-                        if (m_modelAdditionalColumnsEnabled.getBooleanValue()) {
-                            listAdditionalCells2 = new ArrayList<>(listAdditionalCells);
+						if (m_modelAdditionalColumnsEnabled.getBooleanValue()) {
+							listAdditionalCells2 = new ArrayList<>(listAdditionalCells);
 							for (int iReactant2AdditionalColumnIndex : listReactant2AdditionalColumnIndexes) {
 								listAdditionalCells2.add(row2.getCell(iReactant2AdditionalColumnIndex));
 							}
 						}
-                        else {
+						else {
 							listAdditionalCells2 = null;
 						}
 
-						// Process reaction and create rows
-						listNewRows = processReactionResults(chemicalReaction.get(), rs, listAdditionalCells2, listToAddTo,
+						listNewRows = processWithReactants(mol1, mol2, null, listAdditionalCells2, listToAddTo,
 								wave, indicesReactants);
-
 					}
 
 					return listNewRows;
 				}
 
+				/**
+				 * Runs the reaction with two reactants and calls processReactionResults.
+				 * 
+				 * @param mol1 Molecule of reactant 1. Must not be null.
+				 * @param mol2 Molecule of reactant 2. Must not be null.
+				 * @param cellReactant2 Data cell representing reactant 2 in result rows. Can be null
+				 * 		to create it from the molecule.
+				 * @param listAdditionalCells Additional data cells to be added to result data rows. Can be null.
+				 * @param listToAddTo A list to add new results to. Can be null.
+				 * @param wave Unique wave id for RDKit object cleanup.
+				 * @param indicesReactants List of indices for reaction 1 and 2.
+				 * 
+				 * @return Results of reaction as data rows.
+				 */
+				private List<DataRow> processWithReactants(final ROMol mol1, final ROMol mol2, final DataCell cellReactant2,
+						final List<DataCell> listAdditionalCells, final List<DataRow> listToAddTo, final long wave,
+						final int... indicesReactants) {
+					// The reaction takes a vector of reactants. For this
+					// two-component reaction that vector is two long
+					final ROMol_Vect rs = new ROMol_Vect(2);
+					rs.set(0, mol1);
+					rs.set(1, mol2);
+
+					// Process reaction and create rows
+					return processReactionResults(chemicalReaction.get(), rs, new DataCell[] { null, cellReactant2 },
+							listAdditionalCells, listToAddTo, wave, indicesReactants);
+				}
+
+				/**
+				 * Collects the additional data cells of a data row.
+				 * 
+				 * @param row Data row. Must not be null.
+				 * @param listColumnIndexes Indexes of the additional columns. Can be null.
+				 * 
+				 * @return List of additional data cells or null, if no column indexes were passed in.
+				 */
+				private List<DataCell> getAdditionalCells(final DataRow row, final List<Integer> listColumnIndexes) {
+					List<DataCell> listAdditionalCells = null;
+
+					if (listColumnIndexes != null) {
+						listAdditionalCells = new ArrayList<>(listColumnIndexes.size());
+						for (final int iColumnIndex : listColumnIndexes) {
+							listAdditionalCells.add(row.getCell(iColumnIndex));
+						}
+					}
+
+					return listAdditionalCells;
+				}
+
 				/**
 				 * Adds the results to the table.
 				 * 
 				 * @param task Processing result for a row.
 				 */
 				@Override
-				protected void processFinished(final ComputationTask task)
+				protected void processResult(final ComputationTask task)
 						throws ExecutionException, CancellationException, InterruptedException {
 
 					final List<DataRow> listResults = task.get();
@@ -634,8 +819,10 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 						// Process normal results
 						else {
 							if (!listResults.isEmpty()) {
+								// Blocks, if the consumer of a streamed output is slower than the enumeration,
+								// which in turn stops the submission of new tasks
 								for (final DataRow row : listResults) {
-									tableProducts.addRowToTable(row);
+									output.push(row);
 								}
 								aiReactionCounter.addAndGet(listResults.size());
 							}
@@ -648,23 +835,34 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 
 					// Check, if user pressed cancel (however, we will finish the method nevertheless)
 					// Update the progress only every 20 rows
-					if (task.getIndex() % 20 == 0) {
+					final ReactionTask reactionTask = task.getInput();
+					if (reactionTask.isFirstChunk() && reactionTask.getRowIndex() % 20 == 0) {
 						try {
-							AbstractRDKitNodeModel.reportProgress(exec, (int)task.getIndex(),
-									iTotalRowCountReactant1, task.getInput(),
-									new StringBuilder(" to calculate ").append(aiReactionCounter.get())
+							final String strStatus = new StringBuilder(" to calculate ").append(aiReactionCounter.get())
 									.append(" reactions [").append(getActiveCount()).append(" active, ")
-									.append(getFinishedTaskCount()).append(" pending]").toString());
+									.append(getFinishedTaskCount()).append(" pending, ")
+									.append(getProductsPerSecond(aiReactionCounter.get(), lStartTime))
+									.append(" products/s]").toString();
+							if (lRowCountReactant1 >= 0) {
+								AbstractRDKitNodeModel.reportProgress(exec, reactionTask.getRowIndex(),
+										lRowCountReactant1, reactionTask.getRow(), strStatus);
+							}
+							else {
+								// Streaming - the total number of first reactants is unknown
+								exec.checkCanceled();
+								exec.setMessage("Processed row " + reactionTask.getRowIndex() + " (\"" +
+										reactionTask.getRow().getKey() + "\")" + strStatus);
+							}
 						}
 						catch (final CanceledExecutionException e) {
-							cancel(true);
+							stopProcessing();
 						}
 					}
 				};
 			};
 
 			try {
-				multiWorker.run(inData[0]);
+				multiWorker.process(createReactionTasks(rowsReactant1, arrCompatibleReactants2, alRowCountReactant1));
 			}
 			catch (final Exception exc) {
 				// Ignore cancellations or early aborts due to too few rows
@@ -672,15 +870,34 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 					throw exc;
 				}
 			}
+			finally {
+				rowsReactant1.close();
+			}
+
+			final long lTotalRowCountReactant1 = (lRowCountReactant1 >= 0 ?
+					lRowCountReactant1 : alRowCountReactant1.get());
+			if (lTotalRowCountReactant1 == 0) {
+				getWarningConsolidator().saveWarning("Input table 1 is empty - there are no reactants to process.");
+			}
+
+			LOGGER.info("Enumerated " + aiReactionCounter.get() + " products in " +
+					String.format("%.1f", (System.nanoTime() - lStartTime) / 1e9d) + " s (" +
+					getProductsPerSecond(aiReactionCounter.get(), lStartTime) + " products/s" +
+					(bMatrixExpansion ? (poolReactant2 != null ? ", second reactants held in memory" :
+						", second reactants read from table") : "") + ")");
+			if (bMatrixExpansion) {
+				LOGGER.info(aiIncompatibleReactants1.get() + " of " + lTotalRowCountReactant1 +
+						" first reactants did not match the reactant template and were skipped.");
+			}
 
-			// Check size discrepancy
+			// Check size discrepancy (an early end means that there were more first reactants)
 			if (bMatrixExpansion == false) {
-				if (iTotalRowCountReactant1 < iTotalRowCountReactant2) {
-					getWarningConsolidator().saveWarning("Number of first reactants is lower than number of second reactants.");
-				}
-				else if (iTotalRowCountReactant1 > iTotalRowCountReactant2) {
+				if (abEarlyDone.get() || lTotalRowCountReactant1 > iTotalRowCountReactant2) {
 					getWarningConsolidator().saveWarning("Number of second reactants is lower than number of first reactants.");
 				}
+				else if (lTotalRowCountReactant1 < iTotalRowCountReactant2) {
+					getWarningConsolidator().saveWarning("Number of first reactants is lower than number of second reactants.");
+				}
 			}
 
 			// Check, if user cancelled
@@ -691,8 +908,392 @@ public class RDKitTwoComponentReactionNodeModel extends AbstractRDKitReactionNod
 
 		exec.setProgress(1.0, "Finished Processing");
 
-		tableProducts.close();
+		return alRowCountReactant1.get();
+	}
 
-		return new BufferedDataTable[] { tableProducts.getTable() };
+	/**
+	 * Determines the indexes of all reactants in the passed in reactant pool that match the
+	 * reactant template with the specified index of the passed in reaction. Empty
+	 * reactant cells are not considered as compatible.
+	 * 
+	 * @param reaction Chemical reaction with initialized reactant matchers. Must not be null.
+	 * @param iReactantIndex Index of the reactant template.
+	 * @param pool Reactant pool. Must not be null.
+	 * 
+	 * @return Sorted indexes of compatible reactants.
+	 */
+	protected int[] findCompatibleReactants(final ChemicalReaction reaction, final int iReactantIndex,
+			final ReactantPool pool) {
+		final int iSize = pool.size();
+		final int[] arrIndexes = new int[iSize];
+		int iCount = 0;
+
+		for (int i = 0; i < iSize; i++) {
+			final ROMol mol = pool.get(i).getMolecule();
+			if (mol != null && isReactantCompatible(reaction, iReactantIndex, mol)) {
+				arrIndexes[iCount++] = i;
+			}
+		}
+
+		return Arrays.copyOf(arrIndexes, iCount);
+	}
+
+	//
+	// Streaming API
+	//
+
+	/**
+	 * {@inheritDoc}
+	 * The first reactants are streamed, while the second reactants and the optional
+	 * reaction table need to be available completely.
+	 */
+	@Override
+	public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+			final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		return new StreamableOperator() {
+			@Override
+			public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+					final ExecutionContext exec) throws Exception {
+				executeStreamed(inputs, outputs, exec);
+			}
+		};
+	}
+
+	/**
+	 * Enumerates the products in streaming mode and pushes them to the row output as soon
+	 * as they are calculated. If the first reactants need to be converted or if reactions
+	 * shall be randomized, the first reactants have been read completely into a table beforehand.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Map<String, Long> processingStreamed(final RowInput[] arrRowInputs, final PortObject[] inObjects,
+			final InputDataInfo[][] arrInputDataInfo, final PortOutput[] outputs, final ExecutionContext exec)
+					throws Exception {
+		final BufferedDataTable[] inData = objectsToTables(inObjects);
+		final long lRowCountReactant1 = (inData[0] == null ? -1 : inData[0].size());
+		final long lRowsRead = enumerateProducts(arrRowInputs[0], lRowCountReactant1, inData,
+				arrInputDataInfo, (RowOutput)outputs[0], exec);
+
+		final Map<String, Long> mapContextOccurrences = new HashMap<String, Long>();
+		mapContextOccurrences.put(WarningConsolidator.ROW_CONTEXT.getId(), lRowsRead);
+		mapContextOccurrences.put(PRODUCT_CONTEXT.getId(), (long)m_aiProductCounter.get());
+		return mapContextOccurrences;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Randomized reactions require all first reactants in advance.
+	 */
+	@Override
+	protected boolean isCompleteStreamedInputRequired(final int iInPort, final InputDataInfo[][] arrInputDataInfo) {
+		return super.isCompleteStreamedInputRequired(iInPort, arrInputDataInfo) ||
+				(iInPort == 0 && m_modelRandomizeReactants.getBooleanValue());
+	}
+
+	//
+	// Static Protected Methods
+	//
+
+	/**
+	 * Creates the reaction tasks for the first reactants delivered by the passed in row input.
+	 * In matrix mode a task is created for every slice of at most {@link #REACTANT2_CHUNK_SIZE}
+	 * compatible second reactants of a first reactant, otherwise one task per first reactant.
+	 * All tasks of a first reactant share it, so that it is decoded only once.
+	 * The first reactants are read lazily while iterating.
+	 *
+	 * @param rowsReactant1 Row input with the first reactants. Must not be null.
+	 * @param arrCompatibleReactants2 Sorted indexes of compatible second reactants in matrix mode.
+	 * 		Null for row by row reactions.
+	 * @param alRowCounter Counter that gets incremented for every read first reactant. Must not be null.
+	 *
+	 * @return Reaction tasks, which can be iterated only once.
+	 */
+	protected static Iterable<ReactionTask> createReactionTasks(final RowInput rowsReactant1,
+			final int[] arrCompatibleReactants2, final AtomicLong alRowCounter) {
+		final int iChunkCount = (arrCompatibleReactants2 == null ? 1 : Math.max(1,
+				(arrCompatibleReactants2.length + REACTANT2_CHUNK_SIZE - 1) / REACTANT2_CHUNK_SIZE));
+
+		return () -> new Iterator<ReactionTask>() {
+
+			/** The current first reactant or null, if not read yet or if there are no more rows. */
+			private FirstReactant m_reactantCurrent = null;
+
+			/** The next slice of second reactants to be combined with the current first reactant. */
+			private int m_iNextChunk = 0;
+
+			@Override
+			public boolean hasNext() {
+				if (m_reactantCurrent == null || m_iNextChunk >= iChunkCount) {
+					final DataRow row;
+					try {
+						row = rowsReactant1.poll();
+					}
+					catch (final InterruptedException exc) {
+						Thread.currentThread().interrupt();
+						throw new CancellationException("Reading of first reactants has been interrupted.");
+					}
+
+					m_reactantCurrent = (row != null ?
+							new FirstReactant(row, alRowCounter.getAndIncrement(), iChunkCount) : null);
+					m_iNextChunk = 0;
+				}
+
+				return m_reactantCurrent != null;
+			}
+
+			@Override
+			public ReactionTask next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException("There are no more first reactants.");
+				}
+
+				final int iChunk = m_iNextChunk++;
+				int iFrom = 0;
+				int iTo = 0;
+				if (arrCompatibleReactants2 != null) {
+					iFrom = Math.min(iChunk * REACTANT2_CHUNK_SIZE, arrCompatibleReactants2.length);
+					iTo = Math.min(iFrom + REACTANT2_CHUNK_SIZE, arrCompatibleReactants2.length);
+				}
+
+				return new ReactionTask(m_reactantCurrent, iFrom, iTo);
+			}
+		};
+	}
+
+	/**
+	 * Calculates the enumeration throughput.
+	 * 
+	 * @param lProductCount Number of products created so far.
+	 * @param lStartTime Start time of the enumeration as delivered by {@link System#nanoTime()}.
+	 * 
+	 * @return Number of products per second.
+	 */
+	protected static long getProductsPerSecond(final long lProductCount, final long lStartTime) {
+		final long lElapsedNanos = Math.max(1, System.nanoTime() - lStartTime);
+		return (long)(lProductCount * 1e9d / lElapsedNanos);
+	}
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * A first reactant, which is shared by all reaction tasks of it. Its molecule gets decoded
+	 * and checked against the reactant template only once by the first task that needs it.
+	 * It gets freed after the last task of the first reactant has finished.
+	 */
+	protected static class FirstReactant {
+
+		/** The data row with the first reactant. */
+		private final DataRow m_row;
+
+		/** The row index of the first reactant. */
+		private final long m_lRowIndex;
+
+		/** The number of tasks of the first reactant, which have not finished yet. */
+		private final AtomicInteger m_aiPendingTasks;
+
+		/** Determines, if the molecule was decoded already. */
+		private boolean m_bPrepared = false;
+
+		/** The decoded molecule. Null, if not prepared yet or if the cell is empty. */
+		private ROMol m_mol = null;
+
+		/** Determines, if the molecule can react with the reactant template. */
+		private boolean m_bCompatible = false;
+
+		/** The additional cells of the first reactant to be added to all products. Can be null. */
+		private List<DataCell> m_listAdditionalCells = null;
+
+		/** The cleanup wave id of the decoded molecule. -1, if not prepared yet. */
+		private long m_lCleanupWaveId = -1;
+
+		/**
+		 * Creates a new first reactant.
+		 *
+		 * @param row The data row with the first reactant. Must not be null.
+		 * @param lRowIndex The row index of the first reactant.
+		 * @param iTaskCount The number of reaction tasks of the first reactant.
+		 */
+		public FirstReactant(final DataRow row, final long lRowIndex, final int iTaskCount) {
+			m_row = row;
+			m_lRowIndex = lRowIndex;
+			m_aiPendingTasks = new AtomicInteger(iTaskCount);
+		}
+
+		/**
+		 * Returns the data row with the first reactant.
+		 *
+		 * @return Data row. Never null.
+		 */
+		public DataRow getRow() {
+			return m_row;
+		}
+
+		/**
+		 * Returns the row index of the first reactant.
+		 *
+		 * @return Row index.
+		 */
+		public long getRowIndex() {
+			return m_lRowIndex;
+		}
+
+		/**
+		 * Determines, if the molecule was decoded already.
+		 *
+		 * @return True, if {@link #setPrepared(ROMol, boolean, List, long)} was called.
+		 */
+		public synchronized boolean isPrepared() {
+			return m_bPrepared;
+		}
+
+		/**
+		 * Stores the results of decoding the first reactant.
+		 *
+		 * @param mol The decoded molecule. Null, if the cell is empty.
+		 * @param bCompatible True, if the molecule can react with the reactant template.
+		 * @param listAdditionalCells The additional cells to be added to all products. Can be null.
+		 * @param lCleanupWaveId The cleanup wave id the molecule was marked with.
+		 */
+		public synchronized void setPrepared(final ROMol mol, final boolean bCompatible,
+				final List<DataCell> listAdditionalCells, final long lCleanupWaveId) {
+			m_mol = mol;
+			m_bCompatible = bCompatible;
+			m_listAdditionalCells = listAdditionalCells;
+			m_lCleanupWaveId = lCleanupWaveId;
+			m_bPrepared = true;
+		}
+
+		/**
+		 * Returns the decoded molecule.
+		 *
+		 * @return Molecule or null, if not prepared yet or if the cell is empty.
+		 */
+		public synchronized ROMol getMolecule() {
+			return m_mol;
+		}
+
+		/**
+		 * Determines, if the molecule can react with the reactant template.
+		 *
+		 * @return True, if compatible. False, if not prepared yet, if the cell is empty
+		 * 		or if the molecule does not match the template.
+		 */
+		public synchronized boolean isCompatible() {
+			return m_bCompatible;
+		}
+
+		/**
+		 * Returns the additional cells of the first reactant to be added to all products.
+		 * The list must not be changed.
+		 *
+		 * @return Additional cells or null, if there are none or if the molecule is not compatible.
+		 */
+		public synchronized List<DataCell> getAdditionalCells() {
+			return m_listAdditionalCells;
+		}
+
+		/**
+		 * Returns the cleanup wave id the decoded molecule was marked with.
+		 *
+		 * @return Cleanup wave id or -1, if not prepared yet.
+		 */
+		public synchronized long getCleanupWaveId() {
+			return m_lCleanupWaveId;
+		}
+
+		/**
+		 * Records that a reaction task of the first reactant has finished.
+		 *
+		 * @return True, if this was the last task of the first reactant.
+		 */
+		public boolean finishTask() {
+			return m_aiPendingTasks.decrementAndGet() == 0;
+		}
+	}
+
+	/**
+	 * A unit of work of the enumeration: a first reactant together with the slice of
+	 * compatible second reactants it shall be combined with.
+	 */
+	protected static class ReactionTask {
+
+		/** The first reactant, which is shared by all tasks of it. */
+		private final FirstReactant m_reactant1;
+
+		/** Start of the slice of compatible second reactants (inclusive). */
+		private final int m_iFrom;
+
+		/** End of the slice of compatible second reactants (exclusive). */
+		private final int m_iTo;
+
+		/**
+		 * Creates a new reaction task.
+		 *
+		 * @param reactant1 The first reactant. Must not be null.
+		 * @param iFrom Start of the slice of compatible second reactants (inclusive).
+		 * @param iTo End of the slice of compatible second reactants (exclusive).
+		 */
+		public ReactionTask(final FirstReactant reactant1, final int iFrom, final int iTo) {
+			m_reactant1 = reactant1;
+			m_iFrom = iFrom;
+			m_iTo = iTo;
+		}
+
+		/**
+		 * Returns the first reactant of this task.
+		 *
+		 * @return First reactant. Never null.
+		 */
+		public FirstReactant getReactant1() {
+			return m_reactant1;
+		}
+
+		/**
+		 * Returns the data row with the first reactant.
+		 *
+		 * @return Data row. Never null.
+		 */
+		public DataRow getRow() {
+			return m_reactant1.getRow();
+		}
+
+		/**
+		 * Returns the row index of the first reactant.
+		 *
+		 * @return Row index.
+		 */
+		public long getRowIndex() {
+			return m_reactant1.getRowIndex();
+		}
+
+		/**
+		 * Returns the start of the slice of compatible second reactants.
+		 *
+		 * @return Index into the compatible second reactants (inclusive).
+		 */
+		public int getFrom() {
+			return m_iFrom;
+		}
+
+		/**
+		 * Returns the end of the slice of compatible second reactants.
+		 *
+		 * @return Index into the compatible second reactants (exclusive).
+		 */
+		public int getTo() {
+			return m_iTo;
+		}
+
+		/**
+		 * Determines, if this is the first task of a first reactant. Warnings and
+		 * statistics about a first reactant are only recorded by its first task.
+		 *
+		 * @return True, if this is the first task of the first reactant.
+		 */
+		public boolean isFirstChunk() {
+			return m_iFrom == 0;
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,348 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.twocomponentreaction2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.RDKit.RDKFuncs;
+import org.RDKit.ROMol;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.rdkit.knime.nodes.RDKitNodePlugin;
+import org.rdkit.knime.nodes.preferences.RDKitNodesPreferencePage;
+import org.rdkit.knime.types.RDKitMolCellFactory;
+import org.rdkit.knime.util.InputDataInfo;
+import org.rdkit.knime.util.InputDataInfo.EmptyCellException;
+
+/**
+ * A read-only pool of reactants, which are decoded only once from a table and then
+ * shared by all threads enumerating reactions. Besides the RDKit molecule it holds the
+ * data cell that represents the reactant in the output table and the additional data cells
+ * that shall be taken over from the input table.
+ * The pool is only created if its estimated memory consumption stays within a
+ * memory budget. Otherwise callers are expected to fall back to reading the reactants
+ * from the table again.
+ * RDKit molecules in the pool must only be used read-only, e.g. as reactants of
+ * a reaction. The pool must be deleted after usage to free native resources, e.g.
+ * by registering it for cleanup in the node model.
+ */
+public class ReactantPool {
+
+	//
+	// Constants
+	//
+
+	/** The logger instance. */
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(ReactantPool.class);
+
+	/** Estimated memory in bytes that is used by a pooled reactant independently of its size. */
+	private static final long MEMORY_PER_REACTANT = 1024;
+
+	/** Estimated memory in bytes that is used by a pooled reactant per atom. */
+	private static final long MEMORY_PER_ATOM = 320;
+
+	/** Estimated memory in bytes that is used by a pooled reactant per bond. */
+	private static final long MEMORY_PER_BOND = 192;
+
+	//
+	// Inner Classes
+	//
+
+	/**
+	 * A reactant held in the pool.
+	 */
+	public static class Reactant {
+
+		/** The RDKit molecule of the reactant. Null, if the cell was empty. */
+		private final ROMol m_mol;
+
+		/** The data cell representing the reactant in result rows. Null, if the cell was empty. */
+		private final DataCell m_cellReactant;
+
+		/** Additional data cells of the reactant row. Null, if not requested. */
+		private final List<DataCell> m_listAdditionalCells;
+
+		/**
+		 * Creates a new pooled reactant.
+		 * 
+		 * @param mol The RDKit molecule of the reactant. Can be null.
+		 * @param cellReactant The data cell representing the reactant. Can be null.
+		 * @param listAdditionalCells Additional data cells of the reactant row. Can be null.
+		 */
+		private Reactant(final ROMol mol, final DataCell cellReactant, final List<DataCell> listAdditionalCells) {
+			m_mol = mol;
+			m_cellReactant = cellReactant;
+			m_listAdditionalCells = listAdditionalCells;
+		}
+
+		/**
+		 * Returns the RDKit molecule of the reactant. It must not be changed or deleted.
+		 * 
+		 * @return RDKit molecule or null, if the input cell was empty.
+		 */
+		public ROMol getMolecule() {
+			return m_mol;
+		}
+
+		/**
+		 * Returns the data cell representing the reactant in result rows.
+		 * 
+		 * @return RDKit data cell or null, if the input cell was empty.
+		 */
+		public DataCell getReactantCell() {
+			return m_cellReactant;
+		}
+
+		/**
+		 * Returns the additional data cells of the reactant row.
+		 * 
+		 * @return Unmodifiable list of data cells or null, if additional cells were not requested.
+		 */
+		public List<DataCell> getAdditionalCells() {
+			return m_listAdditionalCells;
+		}
+	}
+
+	//
+	// Members
+	//
+
+	/** All pooled reactants in the order of the table rows. */
+	private final List<Reactant> m_listReactants;
+
+	/** The estimated memory consumption of the pool in bytes. */
+	private final long m_lEstimatedMemory;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new reactant pool.
+	 * 
+	 * @param listReactants All pooled reactants. Must not be null.
+	 * @param lEstimatedMemory Estimated memory consumption of the pool in bytes.
+	 */
+	private ReactantPool(final List<Reactant> listReactants, final long lEstimatedMemory) {
+		m_listReactants = listReactants;
+		m_lEstimatedMemory = lEstimatedMemory;
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Returns the number of pooled reactants, which is the number of rows of the table
+	 * the pool was loaded from.
+	 * 
+	 * @return Number of reactants.
+	 */
+	public int size() {
+		return m_listReactants.size();
+	}
+
+	/**
+	 * Returns the reactant of the specified row.
+	 * 
+	 * @param iIndex Row index.
+	 * 
+	 * @return Pooled reactant. Never null.
+	 */
+	public Reactant get(final int iIndex) {
+		return m_listReactants.get(iIndex);
+	}
+
+	/**
+	 * Returns the estimated memory consumption of the pool.
+	 * 
+	 * @return Estimated memory consumption in bytes.
+	 */
+	public long getEstimatedMemory() {
+		return m_lEstimatedMemory;
+	}
+
+	/**
+	 * Frees all native resources of the pool. Afterwards the pool must not be used anymore.
+	 */
+	public void delete() {
+		delete(m_listReactants);
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Loads all reactants of the specified table into a new pool.
+	 * 
+	 * @param table Table with reactants. Must not be null.
+	 * @param inputDataInfo Input data info of the reactant column. Must not be null.
+	 * 		Its empty cell policy must be to treat empty cells as null.
+	 * @param listAdditionalColumnIndexes Indexes of additional columns to be pooled. Can be null
+	 * 		to not pool any additional cells.
+	 * @param lMemoryBudget Maximal estimated memory consumption of the pool in bytes.
+	 * @param exec Execution monitor for progress and cancellation checks. Must not be null.
+	 * 
+	 * @return Reactant pool or null, if the memory budget is 0 or if it would be exceeded.
+	 * 
+	 * @throws CanceledExecutionException Thrown, if the user canceled.
+	 * @throws EmptyCellException Not thrown, if the empty cell policy is set correctly.
+	 */
+	public static ReactantPool load(final BufferedDataTable table, final InputDataInfo inputDataInfo,
+			final List<Integer> listAdditionalColumnIndexes, final long lMemoryBudget,
+			final ExecutionMonitor exec) throws CanceledExecutionException, EmptyCellException {
+		final long lRowCount = table.size();
+
+		if (lMemoryBudget <= 0 || lRowCount * MEMORY_PER_REACTANT > lMemoryBudget) {
+			return null;
+		}
+
+		final List<Reactant> listReactants = new ArrayList<>((int)lRowCount);
+		long lEstimatedMemory = 0;
+		boolean bSuccess = false;
+
+		try (final CloseableRowIterator it = table.iterator()) {
+			while (it.hasNext()) {
+				final DataRow row = it.next();
+				final ROMol mol = inputDataInfo.getROMol(row);
+				DataCell cellReactant = null;
+				List<DataCell> listAdditionalCells = null;
+
+				lEstimatedMemory += MEMORY_PER_REACTANT;
+
+				if (mol != null) {
+					// Ring information is computed lazily by substructure matching,
+					// which would change a shared molecule - ensure it exists before sharing it
+					if (!mol.getRingInfo().isInitialized()) {
+						RDKFuncs.fastFindRings(mol);
+					}
+					cellReactant = RDKitMolCellFactory.createRDKitAdapterCell(mol);
+					lEstimatedMemory += mol.getNumAtoms() * MEMORY_PER_ATOM + mol.getNumBonds() * MEMORY_PER_BOND;
+				}
+
+				if (listAdditionalColumnIndexes != null) {
+					listAdditionalCells = new ArrayList<>(listAdditionalColumnIndexes.size());
+					for (final int iColumnIndex : listAdditionalColumnIndexes) {
+						listAdditionalCells.add(row.getCell(iColumnIndex));
+					}
+					listAdditionalCells = Collections.unmodifiableList(listAdditionalCells);
+				}
+
+				listReactants.add(new Reactant(mol, cellReactant, listAdditionalCells));
+
+				if (lEstimatedMemory > lMemoryBudget) {
+					LOGGER.info("Reactants exceed the memory budget of " + (lMemoryBudget >> 20) +
+							" MB - they will be read from the table instead.");
+					return null;
+				}
+
+				exec.checkCanceled();
+				exec.setProgress((double)listReactants.size() / lRowCount);
+			}
+
+			bSuccess = true;
+		}
+		finally {
+			if (!bSuccess) {
+				delete(listReactants);
+			}
+		}
+
+		LOGGER.debug("Loaded " + listReactants.size() + " reactants into memory (estimated " +
+				(lEstimatedMemory >> 10) + " KB)");
+
+		return new ReactantPool(listReactants, lEstimatedMemory);
+	}
+
+	/**
+	 * Returns the memory budget for reactant pools, which gets retrieved from the
+	 * preferences. If not found it will return a default value.
+	 * 
+	 * @return Memory budget in bytes. 0, if reactant pools shall not be used.
+	 */
+	public static long getMemoryBudget() {
+		long lBudgetInMB = RDKitNodesPreferencePage.DEFAULT_REACTANT_POOL_MEMORY_BUDGET;
+
+		try {
+			lBudgetInMB = RDKitNodePlugin.getDefault().getPreferenceStore().getInt(
+					RDKitNodesPreferencePage.PREF_KEY_REACTANT_POOL_MEMORY_BUDGET);
+		}
+		catch (final Exception exc) {
+			LOGGER.debug("Unable to retrieve preference for reactant pool memory budget. Using default.", exc);
+		}
+
+		return Math.max(0, lBudgetInMB) << 20;
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Deletes the RDKit molecules of the passed in reactants.
+	 * 
+	 * @param listReactants Reactants. Must not be null.
+	 */
+	private static void delete(final List<Reactant> listReactants) {
+		for (final Reactant reactant : listReactants) {
+			if (reactant.m_mol != null) {
+				reactant.m_mol.delete();
+			}
+		}
+		listReactants.clear();
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * This class delivers the rows of a table in chunks of a fixed maximal size, reading
+ * the table lazily while iterating. It is meant to feed chunks of rows into a
+ * parallel worker. The iterable can be iterated only once. The underlying
+ * row iterator gets closed when the last chunk was read or when this
+ * object is closed, whatever comes first. Hence it should be used in a
+ * try-with-resources block, which also covers processing that stops before
+ * the end of the table was reached.
+ */
+public class RowChunkIterable implements Iterable<List<DataRow>>, AutoCloseable {
+
+	//
+	// Members
+	//
+
+	/** The table to read. */
+	private final BufferedDataTable m_table;
+
+	/** The maximal number of rows per chunk. */
+	private final int m_iChunkSize;
+
+	/** The row iterator of the table. Null, if not opened yet or closed already. */
+	private CloseableRowIterator m_iterator;
+
+	/** Determines, if the table was iterated already. */
+	private boolean m_bIterated;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates a new iterable over chunks of rows of the specified table.
+	 * 
+	 * @param table Table to read. Must not be null.
+	 * @param iChunkSize Maximal number of rows per chunk. Must be greater than 0.
+	 */
+	public RowChunkIterable(final BufferedDataTable table, final int iChunkSize) {
+		if (table == null) {
+			throw new IllegalArgumentException("Table must not be null.");
+		}
+		if (iChunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be greater than 0.");
+		}
+
+		m_table = table;
+		m_iChunkSize = iChunkSize;
+	}
+
+	//
+	// Public Methods
+	//
+
+	/**
+	 * Returns the iterator over the chunks. Can be called only once.
+	 * 
+	 * @return Iterator over chunks of rows. Never null.
+	 * 
+	 * @throws IllegalStateException Thrown, if called a second time or after closing.
+	 */
+	@Override
+	public synchronized Iterator<List<DataRow>> iterator() {
+		if (m_bIterated) {
+			throw new IllegalStateException("The row chunks can be iterated only once.");
+		}
+
+		m_bIterated = true;
+		m_iterator = m_table.iterator();
+
+		return new Iterator<List<DataRow>>() {
+			@Override
+			public boolean hasNext() {
+				synchronized (RowChunkIterable.this) {
+					if (m_iterator == null) {
+						return false;
+					}
+
+					final boolean bHasNext = m_iterator.hasNext();
+					if (!bHasNext) {
+						close();
+					}
+					return bHasNext;
+				}
+			}
+
+			@Override
+			public List<DataRow> next() {
+				synchronized (RowChunkIterable.this) {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+
+					final List<DataRow> listRows = new ArrayList<>(m_iChunkSize);
+					while (listRows.size() < m_iChunkSize && m_iterator.hasNext()) {
+						listRows.add(m_iterator.next());
+					}
+					return listRows;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Closes the underlying row iterator, if it is still open. Chunks that were not
+	 * read yet get discarded. This method can be called multiple times.
+	 */
+	@Override
+	public synchronized void close() {
+		m_bIterated = true;
+		if (m_iterator != null) {
+			m_iterator.close();
+			m_iterator = null;
+		}
+	}
+}
@@ -52,11 +52,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.swing.tree.TreeNode;
 
@@ -74,6 +75,7 @@ import org.rdkit.knime.internals.RDKitInternals;
  * A context can be a row, a batch, a list of images, etc. When warnings are saved,
  * they can be assigned to such an context (specified only as contextId later on).
  * The warning consolidator then tracks how often a warning occurred within a context.
+ * Saving warnings is thread-safe and does not require any locking.
  * 
  * @author Manuel Schwarze
  */
@@ -248,7 +250,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	/**
 	 * Stores warnings and how often they occurred in a certain context.
 	 */
-	private Map<String, Map<String, Integer>> m_hWarningOccurrences;
+	private Map<String, Map<String, LongAdder>> m_hWarningOccurrences;
 
 	//
 	// Constructors
@@ -268,8 +270,8 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * 		warnings in the future.
 	 */
 	public WarningConsolidator(final Context... contexts) {
-		m_mapContexts = new HashMap<String, Context>();
-		m_hWarningOccurrences = new HashMap<String, Map<String, Integer>>();
+		m_mapContexts = new ConcurrentHashMap<String, Context>();
+		m_hWarningOccurrences = new ConcurrentHashMap<String, Map<String, LongAdder>>();
 
 		for (final Context context : contexts) {
 			registerContext(context);
@@ -294,7 +296,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 				registerContext(context);
 			}
 			for (final String contextId : wc.m_hWarningOccurrences.keySet()) {
-				final Map<String, Integer> mapContextWarnings = m_hWarningOccurrences.get(contextId);
+				final Map<String, LongAdder> mapContextWarnings = wc.m_hWarningOccurrences.get(contextId);
 				merge(contextId, mapContextWarnings);
 			}
 		}
@@ -352,7 +354,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * 
 	 * @param warning Warning message to save. Can be null to do nothing.
 	 */
-	public synchronized void saveWarning(final String warning) {
+	public void saveWarning(final String warning) {
 		saveWarning(null, warning, 1);
 	}
 
@@ -363,7 +365,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * @param contextId Context of the warning. Can be null, if warning does not belong to any context.
 	 * @param warning Warning message to save. Can be null to do nothing.
 	 */
-	public synchronized void saveWarning(final String contextId, final String warning) {
+	public void saveWarning(final String contextId, final String warning) {
 		saveWarning(contextId, warning, 1);
 	}
 
@@ -373,13 +375,13 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * 
 	 * @param consolidator Warning consolidator. Can be null to do nothing.
 	 */
-	public synchronized void saveWarnings(final WarningConsolidator anotherConsolidator) {
+	public void saveWarnings(final WarningConsolidator anotherConsolidator) {
 		if (anotherConsolidator != null && anotherConsolidator != this) {
 			for (final Context context : anotherConsolidator.getContexts()) {
 				registerContext(context);
 			}
 			for (final String contextId : anotherConsolidator.m_hWarningOccurrences.keySet()) {
-				final Map<String, Integer> mapContextWarnings = m_hWarningOccurrences.get(contextId);
+				final Map<String, LongAdder> mapContextWarnings = anotherConsolidator.m_hWarningOccurrences.get(contextId);
 				merge(contextId, mapContextWarnings);
 			}
 		}
@@ -436,7 +438,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 			sbWarnings.setLength(0); // Reset
 
 			final Context context = m_mapContexts.get(contextId);
-			final Map<String, Integer> m_hWarningOccurrencesInContext = m_hWarningOccurrences.get(contextId);
+			final Map<String, LongAdder> m_hWarningOccurrencesInContext = m_hWarningOccurrences.get(contextId);
 
 			// Determine, if we want to suppress the warning based on a passed in context id
 			if (m_hWarningOccurrencesInContext != null && !m_hWarningOccurrencesInContext.isEmpty() &&
@@ -456,7 +458,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 
 						// Find out how many times a warning occurred within a context
 						long processed = -1; // Default is unknown
-						final long occurred = m_hWarningOccurrencesInContext.get(warning);
+						final long occurred = m_hWarningOccurrencesInContext.get(warning).sum();
 
 						if (mapContextOccurrences != null) {
 							final Long longProcessed = mapContextOccurrences.get(contextId);
@@ -568,8 +570,8 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 */
    public void load(Config settings) {
       if (settings != null) {
-         m_hWarningOccurrences = new HashMap<>();
-         m_mapContexts = new HashMap<>();
+         m_hWarningOccurrences = new ConcurrentHashMap<>();
+         m_mapContexts = new ConcurrentHashMap<>();
          
          try {
             Config contexts = settings.getConfig("contextMap");
@@ -590,12 +592,14 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
                   Config warning = (Config)e2.nextElement();
                   String strWarning = warning.getString("warning");
                   int iOccurrences = warning.getInt("occurrences");
-                  Map<String, Integer> mapWarnings = m_hWarningOccurrences.get(contextId);
+                  Map<String, LongAdder> mapWarnings = m_hWarningOccurrences.get(contextId);
                   if (mapWarnings == null) {
-                     mapWarnings = new HashMap<>();
+                     mapWarnings = new ConcurrentHashMap<>();
                      m_hWarningOccurrences.put(contextId, mapWarnings);
                   }
-                  mapWarnings.put(strWarning, iOccurrences);
+                  final LongAdder counter = new LongAdder();
+                  counter.add(iOccurrences);
+                  mapWarnings.put(strWarning, counter);
                }
             }
          }
@@ -604,8 +608,8 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
          }
       }
       else { // Use defaults
-         m_hWarningOccurrences = new HashMap<>();
-         m_mapContexts = new HashMap<>();
+         m_hWarningOccurrences = new ConcurrentHashMap<>();
+         m_mapContexts = new ConcurrentHashMap<>();
       }
    }
 	
@@ -619,13 +623,13 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
       if (settings != null) {
          Config warnings = settings.addConfig("warningsMap");
          for (String strContextId : m_hWarningOccurrences.keySet()) {
-            Map<String, Integer> mapWarningsInContext = m_hWarningOccurrences.get(strContextId);
+            Map<String, LongAdder> mapWarningsInContext = m_hWarningOccurrences.get(strContextId);
             Config warningMap = warnings.addConfig(strContextId);
             int iCount = 0;
             for (String strWarning : mapWarningsInContext.keySet()) {
                Config warningItem = warningMap.addConfig("warning_" + (iCount++));
                warningItem.addString("warning", strWarning);
-               warningItem.addInt("occurrences", mapWarningsInContext.get(strWarning));
+               warningItem.addInt("occurrences", mapWarningsInContext.get(strWarning).intValue());
             }
          }         
          Config contexts = settings.addConfig("contextMap");
@@ -657,7 +661,7 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * @param warning Warning message to save. Can be null to do nothing.
 	 * @param occurrences Number of occurrences.
 	 */
-	private synchronized void saveWarning(final String contextId, final String warning, final int occurrences) {
+	private void saveWarning(final String contextId, final String warning, final long occurrences) {
 		if (warning != null) {
 			Context context = NO_CONTEXT;
 
@@ -667,26 +671,24 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 
 			// Register context, if not found
 			if (context == null) {
-				context = new Context(contextId, contextId, contextId + "s", true);
-				registerContext(context);
+				context = m_mapContexts.computeIfAbsent(contextId, 
+						id -> new Context(id, id, id + "s", true));
 			}
 
 			// Find warning map for context, create if not found
-			Map<String, Integer> mapContextWarnings = m_hWarningOccurrences.get(context.getId());
+			Map<String, LongAdder> mapContextWarnings = m_hWarningOccurrences.get(context.getId());
 			if (mapContextWarnings == null) {
-				mapContextWarnings = new HashMap<String, Integer>();
-				m_hWarningOccurrences.put(context.getId(), mapContextWarnings);
+				mapContextWarnings = m_hWarningOccurrences.computeIfAbsent(context.getId(), 
+						id -> new ConcurrentHashMap<String, LongAdder>());
 			}
 
 			// Find warning and increase occurrence, create if not found
-			final Integer occurred = mapContextWarnings.get(warning);
-			int occurredNew = occurrences;
-
-			if (occurred != null) {
-				occurredNew = occurred.intValue() + occurrences;
+			LongAdder occurred = mapContextWarnings.get(warning);
+			if (occurred == null) {
+				occurred = mapContextWarnings.computeIfAbsent(warning, key -> new LongAdder());
 			}
 
-			mapContextWarnings.put(warning, occurredNew);
+			occurred.add(occurrences);
 		}
 	}
 
@@ -696,13 +698,13 @@ public class WarningConsolidator implements RDKitInternals<WarningConsolidator>
 	 * @param contextId Context ID of warnings. Can be null to use the NO_CONTEXT.
 	 * @param mapContextWarnings Warnings and their occurrences. Can be null.
 	 */
-	private void merge(String contextId, final Map<String, Integer> mapContextWarnings) {
+	private void merge(String contextId, final Map<String, LongAdder> mapContextWarnings) {
 		if (mapContextWarnings != null) {
 			if (contextId == null) {
 				contextId = NO_CONTEXT.getId();
 			}
-			for (final String warning : mapContextWarnings.keySet()) {
-				saveWarning(warning, contextId, mapContextWarnings.get(warning));
+			for (final Map.Entry<String, LongAdder> entry : mapContextWarnings.entrySet()) {
+				saveWarning(contextId, entry.getKey(), entry.getValue().sum());
 			}
 		}
 	}
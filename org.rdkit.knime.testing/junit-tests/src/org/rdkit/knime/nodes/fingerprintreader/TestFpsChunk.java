@@ -0,0 +1,174 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.fingerprintreader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the decoding of FPS hex fingerprints and the parsing of FPS lines by {@link FpsChunk}.
+ */
+public class TestFpsChunk {
+
+	//
+	// Tests
+	//
+
+	@Test
+	public void testDecodeKnownValues() {
+		// The first FPS bit becomes the last bit of the bit vector
+		Assertions.assertArrayEquals(new long[] { 0x80L }, decode("01"));
+		Assertions.assertArrayEquals(new long[] { 0x01L }, decode("80"));
+		Assertions.assertArrayEquals(new long[] { 0x8000L }, decode("0100"));
+		Assertions.assertArrayEquals(new long[] { 0x0001L }, decode("0080"));
+		Assertions.assertArrayEquals(new long[] { 0x0FF0L }, decode("f00f"));
+		Assertions.assertArrayEquals(new long[] { 0x0L, 0x8000L }, decode("01000000000000000000"));
+		Assertions.assertArrayEquals(new long[0], decode(""));
+	}
+
+	@Test
+	public void testDecodeByteCountsNotMultipleOf8() {
+		final Random random = new Random(23);
+
+		for (final int iBytes : new int[] { 1, 3, 7, 9, 13, 17, 127, 129 }) {
+			final byte[] arrFpsBytes = new byte[iBytes];
+			random.nextBytes(arrFpsBytes);
+			final StringBuilder sbHex = new StringBuilder();
+			for (final byte by : arrFpsBytes) {
+				sbHex.append(String.format("%02x", by & 0xFF));
+			}
+
+			final long[] arrWords = decode(sbHex.toString());
+			final int iNumBits = iBytes * 8;
+			Assertions.assertEquals((iBytes + 7) / 8, arrWords.length, "Number of words for " + iBytes + " bytes");
+
+			for (int iFpsBit = 0; iFpsBit < iNumBits; iFpsBit++) {
+				final boolean bExpected = ((arrFpsBytes[iFpsBit >>> 3] >>> (iFpsBit & 7)) & 1) != 0;
+				final int iBit = iNumBits - 1 - iFpsBit;
+				Assertions.assertEquals(bExpected, ((arrWords[iBit >>> 6] >>> (iBit & 63)) & 1L) != 0,
+						"Bit " + iBit + " of " + iBytes + " bytes");
+			}
+			for (int iBit = iNumBits; iBit < arrWords.length * 64; iBit++) {
+				Assertions.assertEquals(0L, (arrWords[iBit >>> 6] >>> (iBit & 63)) & 1L,
+						"Bit " + iBit + " beyond the fingerprint of " + iBytes + " bytes");
+			}
+		}
+	}
+
+	@Test
+	public void testDecodeInvalidFingerprints() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> decode("012"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> decode("0g"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> decode("x0"));
+	}
+
+	@Test
+	public void testParseLines() {
+		final FpsChunk chunk = new FpsChunk(toBuffer("#FPS1\n#num_bits=16\n\n0100\tid1\textra\r\n 8000 \t id2 \nzz00\tid3\n00\n"), 100);
+		chunk.parse();
+
+		final List<FpsChunk.Line> listLines = chunk.getLines();
+		Assertions.assertEquals(7, chunk.getLineCount());
+		Assertions.assertEquals(100, chunk.getEndPosition());
+		Assertions.assertEquals(6, listLines.size());
+
+		Assertions.assertTrue(listLines.get(0).isHeader());
+		Assertions.assertEquals("FPS1", listLines.get(0).getHeader());
+		Assertions.assertEquals("num_bits=16", listLines.get(1).getHeader());
+
+		Assertions.assertFalse(listLines.get(2).isHeader());
+		Assertions.assertEquals(3, listLines.get(2).getLineIndex());
+		Assertions.assertEquals("id1", listLines.get(2).getId());
+		Assertions.assertEquals(16, listLines.get(2).getNumBits());
+		Assertions.assertArrayEquals(new long[] { 0x8000L }, listLines.get(2).getWords());
+		Assertions.assertNull(listLines.get(2).getError());
+
+		Assertions.assertEquals("id2", listLines.get(3).getId());
+		Assertions.assertArrayEquals(new long[] { 0x0100L }, listLines.get(3).getWords());
+
+		Assertions.assertEquals("id3", listLines.get(4).getId());
+		Assertions.assertNull(listLines.get(4).getWords());
+		Assertions.assertNotNull(listLines.get(4).getError());
+
+		Assertions.assertNull(listLines.get(5).getId());
+		Assertions.assertNull(listLines.get(5).getWords());
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Decodes a complete FPS hex fingerprint.
+	 * 
+	 * @param strHex Hex characters.
+	 * 
+	 * @return Words of the bit vector.
+	 */
+	private long[] decode(final String strHex) {
+		final ByteBuffer buffer = toBuffer(" " + strHex + " ");
+		return FpsChunk.decodeHex(buffer, 1, buffer.limit() - 1);
+	}
+
+	/**
+	 * Wraps the characters of a string into a byte buffer.
+	 * 
+	 * @param str String with ASCII characters.
+	 * 
+	 * @return Byte buffer.
+	 */
+	private ByteBuffer toBuffer(final String str) {
+		return ByteBuffer.wrap(str.getBytes(StandardCharsets.US_ASCII));
+	}
+}
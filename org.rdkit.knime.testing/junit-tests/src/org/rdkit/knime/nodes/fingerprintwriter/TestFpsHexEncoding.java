@@ -0,0 +1,195 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.fingerprintwriter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.rdkit.knime.nodes.fingerprintreader.FpsChunk;
+
+/**
+ * Tests the encoding of bit vectors as FPS hex fingerprints by {@link RDKitFingerprintWriterV2NodeModel}
+ * with round trips through the decoder of the FPS Reader.
+ */
+public class TestFpsHexEncoding {
+
+	//
+	// Constants
+	//
+
+	/** Densities of the random fingerprints. */
+	private static final double[] DENSITIES = { 0.0d, 0.05d, 0.5d, 1.0d };
+
+	//
+	// Tests
+	//
+
+	@Test
+	public void testEncodeKnownValues() {
+		// The last bit of the bit vector becomes the first FPS bit
+		Assertions.assertEquals("01", encode(new long[] { 0x80L }, 8));
+		Assertions.assertEquals("80", encode(new long[] { 0x01L }, 8));
+		Assertions.assertEquals("0100", encode(new long[] { 0x8000L }, 16));
+		Assertions.assertEquals("0080", encode(new long[] { 0x0001L }, 16));
+
+		// Remaining lowest bits, which do not fill a complete byte, are not encoded
+		Assertions.assertEquals("01", encode(new long[] { 0x100L }, 9));
+		Assertions.assertEquals("00", encode(new long[] { 0x001L }, 9));
+		Assertions.assertEquals("fe", encode(new long[] { 0x0FFL }, 9));
+		Assertions.assertEquals("", encode(new long[] { 0x7FL }, 7));
+	}
+
+	@Test
+	public void testRoundTripsByteAligned() {
+		final Random random = new Random(24);
+
+		for (final int iNumBits : new int[] { 8, 16, 56, 64, 72, 120, 1024, 2048 }) {
+			for (final double dDensity : DENSITIES) {
+				final long[] arrWords = createFingerprint(random, iNumBits, dDensity);
+				Assertions.assertArrayEquals(arrWords, roundTrip(arrWords, iNumBits),
+						"Round trip of " + iNumBits + " bits with density " + dDensity);
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTripsNotByteAligned() {
+		final Random random = new Random(24);
+
+		for (final int iNumBits : new int[] { 1, 7, 9, 15, 17, 63, 65, 100, 1001, 1023, 2047 }) {
+			final int iRemainingBits = iNumBits & 7;
+			final int iEncodedBits = iNumBits - iRemainingBits;
+
+			for (final double dDensity : DENSITIES) {
+				final long[] arrWords = createFingerprint(random, iNumBits, dDensity);
+				final long[] arrDecoded = roundTrip(arrWords, iNumBits);
+				final String strMessage = " of " + iNumBits + " bits with density " + dDensity;
+
+				// The encoded fingerprint consists of the highest bits of the bit vector
+				Assertions.assertEquals((iEncodedBits + 63) / 64, arrDecoded.length, "Number of words" + strMessage);
+				for (int iBit = 0; iBit < iEncodedBits; iBit++) {
+					Assertions.assertEquals(isSet(arrWords, iBit + iRemainingBits), isSet(arrDecoded, iBit),
+							"Bit " + iBit + strMessage);
+				}
+				for (int iBit = iEncodedBits; iBit < arrDecoded.length * 64; iBit++) {
+					Assertions.assertFalse(isSet(arrDecoded, iBit), "Bit " + iBit + " beyond the fingerprint" + strMessage);
+				}
+			}
+		}
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Creates random fingerprint words.
+	 * 
+	 * @param random Random number generator.
+	 * @param iNumBits Number of bits.
+	 * @param dDensity Probability of an on bit.
+	 * 
+	 * @return Words of the fingerprint without any bits beyond the number of bits.
+	 */
+	private long[] createFingerprint(final Random random, final int iNumBits, final double dDensity) {
+		final long[] arrWords = new long[(iNumBits + 63) / 64];
+		for (int iBit = 0; iBit < iNumBits; iBit++) {
+			if (random.nextDouble() < dDensity) {
+				arrWords[iBit >>> 6] |= 1L << (iBit & 63);
+			}
+		}
+		return arrWords;
+	}
+
+	/**
+	 * Encodes a fingerprint in the middle of a buffer and decodes it again.
+	 * 
+	 * @param arrWords Words of the fingerprint.
+	 * @param iNumBits Number of bits.
+	 * 
+	 * @return Decoded words.
+	 */
+	private long[] roundTrip(final long[] arrWords, final int iNumBits) {
+		final int iOffset = 3;
+		final byte[] arrBuffer = new byte[iOffset + RDKitFingerprintWriterV2NodeModel.getFpsHexLength(iNumBits) + 2];
+		final int iEnd = RDKitFingerprintWriterV2NodeModel.encodeFpsHex(arrWords, iNumBits, arrBuffer, iOffset);
+		Assertions.assertEquals(arrBuffer.length - 2, iEnd, "End position of " + iNumBits + " bits");
+
+		return FpsChunk.decodeHex(ByteBuffer.wrap(arrBuffer), iOffset, iEnd);
+	}
+
+	/**
+	 * Encodes a fingerprint.
+	 * 
+	 * @param arrWords Words of the fingerprint.
+	 * @param iNumBits Number of bits.
+	 * 
+	 * @return Lower case hex characters.
+	 */
+	private String encode(final long[] arrWords, final int iNumBits) {
+		final byte[] arrBuffer = new byte[RDKitFingerprintWriterV2NodeModel.getFpsHexLength(iNumBits)];
+		RDKitFingerprintWriterV2NodeModel.encodeFpsHex(arrWords, iNumBits, arrBuffer, 0);
+		return new String(arrBuffer, StandardCharsets.US_ASCII).toLowerCase();
+	}
+
+	/**
+	 * Determines, if a bit is set.
+	 * 
+	 * @param arrWords Words of a fingerprint.
+	 * @param iBit Bit index.
+	 * 
+	 * @return True, if set.
+	 */
+	private boolean isSet(final long[] arrWords, final int iBit) {
+		return ((arrWords[iBit >>> 6] >>> (iBit & 63)) & 1L) != 0;
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2010-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.nodes.similaritysearch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the similarity searches of {@link FingerprintIndex} against a brute force
+ * comparison of the query with every reference fingerprint.
+ */
+public class TestFingerprintIndex {
+
+	//
+	// Constants
+	//
+
+	/** Number of bits of the test fingerprints, which is not a multiple of 64 on purpose. */
+	private static final int NUM_BITS = 167;
+
+	/** Number of reference fingerprints. */
+	private static final int REFERENCE_COUNT = 600;
+
+	/** Number of query fingerprints. */
+	private static final int QUERY_COUNT = 25;
+
+	/** Similarity thresholds to test. */
+	private static final double[] THRESHOLDS = { 0.0d, 0.2d, 0.45d, 0.7d, 1.0d };
+
+	/** Maximal numbers of hits to test. */
+	private static final int[] MAX_HITS = { 1, 2, 10, 100, REFERENCE_COUNT + 10 };
+
+	/** Tversky weights (alpha, beta) to test, which are not Tanimoto. */
+	private static final double[][] TVERSKY_WEIGHTS = { { 0.7d, 0.3d }, { 0.3d, 0.7d }, { 0.5d, 0.5d },
+			{ 1.0d, 0.0d }, { 0.0d, 1.0d }, { 2.0d, 0.5d } };
+
+	//
+	// Members
+	//
+
+	/** Words of the reference fingerprints. */
+	private final List<long[]> m_listReferences = new ArrayList<>();
+
+	/** Words of the query fingerprints. */
+	private final List<long[]> m_listQueries = new ArrayList<>();
+
+	/** Index of the reference fingerprints. */
+	private final FingerprintIndex m_index;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Creates random reference and query fingerprints of different densities. Some references
+	 * are duplicated to have hits with equal similarities, and queries include copies
+	 * of references as well as empty and full fingerprints.
+	 */
+	public TestFingerprintIndex() {
+		final Random random = new Random(25);
+		final List<String> listIds = new ArrayList<>();
+
+		for (int i = 0; i < REFERENCE_COUNT; i++) {
+			final long[] arrWords = (i % 10 == 9 ? m_listReferences.get(random.nextInt(i)).clone() :
+				createFingerprint(random, 0.02d + 0.5d * random.nextDouble()));
+			m_listReferences.add(arrWords);
+			listIds.add("ref" + i);
+		}
+		m_listReferences.set(REFERENCE_COUNT / 2, new long[(NUM_BITS + 63) / 64]);
+
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			m_listQueries.add(i % 5 == 0 ? m_listReferences.get(random.nextInt(REFERENCE_COUNT)).clone() :
+				createFingerprint(random, 0.02d + 0.5d * random.nextDouble()));
+		}
+		m_listQueries.add(createFingerprint(random, 0.0d));
+		m_listQueries.add(createFingerprint(random, 1.0d));
+
+		m_index = new FingerprintIndex(NUM_BITS, m_listReferences, listIds);
+	}
+
+	//
+	// Tests
+	//
+
+	@Test
+	public void testTanimotoThresholdSearch() {
+		for (final double dThreshold : THRESHOLDS) {
+			checkSearch(1.0d, 1.0d, dThreshold, 0);
+		}
+	}
+
+	@Test
+	public void testTanimotoTopKSearch() {
+		for (final int iMaxHits : MAX_HITS) {
+			checkSearch(1.0d, 1.0d, 0.0d, iMaxHits);
+			checkSearch(1.0d, 1.0d, 0.45d, iMaxHits);
+		}
+	}
+
+	@Test
+	public void testTverskyThresholdSearch() {
+		for (final double[] arrWeights : TVERSKY_WEIGHTS) {
+			for (final double dThreshold : THRESHOLDS) {
+				checkSearch(arrWeights[0], arrWeights[1], dThreshold, 0);
+			}
+		}
+	}
+
+	@Test
+	public void testTverskyTopKSearch() {
+		for (final double[] arrWeights : TVERSKY_WEIGHTS) {
+			for (final int iMaxHits : MAX_HITS) {
+				checkSearch(arrWeights[0], arrWeights[1], 0.0d, iMaxHits);
+				checkSearch(arrWeights[0], arrWeights[1], 0.45d, iMaxHits);
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidQuery() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> m_index.search(new long[(NUM_BITS + 63) / 64 + 1], 1.0d, 1.0d, 0.0d, 0));
+	}
+
+	//
+	// Private Methods
+	//
+
+	/**
+	 * Compares the results of the index search for all queries with a brute force search.
+	 * 
+	 * @param dAlpha Tversky weight of the query bits.
+	 * @param dBeta Tversky weight of the reference bits.
+	 * @param dThreshold Minimal similarity.
+	 * @param iMaxHits Maximal number of hits. 0 for unlimited.
+	 */
+	private void checkSearch(final double dAlpha, final double dBeta, final double dThreshold, final int iMaxHits) {
+		for (int iQuery = 0; iQuery < m_listQueries.size(); iQuery++) {
+			final long[] arrQuery = m_listQueries.get(iQuery);
+			final String strMessage = "Query " + iQuery + " (alpha=" + dAlpha + ", beta=" + dBeta +
+					", threshold=" + dThreshold + ", max hits=" + iMaxHits + ")";
+
+			final List<double[]> listExpected = searchBruteForce(arrQuery, dAlpha, dBeta, dThreshold, iMaxHits);
+			final List<FingerprintIndex.Hit> listHits = m_index.search(arrQuery, dAlpha, dBeta, dThreshold, iMaxHits);
+
+			Assertions.assertEquals(listExpected.size(), listHits.size(), "Number of hits of " + strMessage);
+			for (int i = 0; i < listHits.size(); i++) {
+				final FingerprintIndex.Hit hit = listHits.get(i);
+				Assertions.assertEquals((int)listExpected.get(i)[0], hit.getReferenceIndex(), "Hit " + i + " of " + strMessage);
+				Assertions.assertEquals(listExpected.get(i)[1], hit.getSimilarity(), "Similarity of hit " + i + " of " + strMessage);
+				Assertions.assertEquals("ref" + hit.getReferenceIndex(), hit.getId());
+			}
+		}
+	}
+
+	/**
+	 * Compares a query with every reference fingerprint.
+	 * 
+	 * @param arrQuery Words of the query fingerprint.
+	 * @param dAlpha Tversky weight of the query bits.
+	 * @param dBeta Tversky weight of the reference bits.
+	 * @param dThreshold Minimal similarity.
+	 * @param iMaxHits Maximal number of hits. 0 for unlimited.
+	 * 
+	 * @return Pairs of reference index and similarity ordered by descending similarity and
+	 * 		ascending reference index.
+	 */
+	private List<double[]> searchBruteForce(final long[] arrQuery, final double dAlpha, final double dBeta,
+			final double dThreshold, final int iMaxHits) {
+		final int iQueryPopCount = FingerprintIndex.getPopCount(arrQuery);
+		final List<double[]> listHits = new ArrayList<>();
+
+		for (int iRef = 0; iRef < m_listReferences.size(); iRef++) {
+			final long[] arrReference = m_listReferences.get(iRef);
+			int iCommon = 0;
+			for (int i = 0; i < arrQuery.length; i++) {
+				iCommon += Long.bitCount(arrQuery[i] & arrReference[i]);
+			}
+			final double dSimilarity = FingerprintIndex.getSimilarity(iCommon, iQueryPopCount,
+					FingerprintIndex.getPopCount(arrReference), dAlpha, dBeta);
+			if (dSimilarity >= dThreshold) {
+				listHits.add(new double[] { iRef, dSimilarity });
+			}
+		}
+
+		listHits.sort(Comparator.<double[]>comparingDouble(arr -> -arr[1]).thenComparingDouble(arr -> arr[0]));
+
+		return (iMaxHits > 0 && listHits.size() > iMaxHits ? listHits.subList(0, iMaxHits) : listHits);
+	}
+
+	/**
+	 * Creates a random fingerprint.
+	 * 
+	 * @param random Random number generator.
+	 * @param dDensity Probability of an on bit.
+	 * 
+	 * @return Words of the fingerprint.
+	 */
+	private long[] createFingerprint(final Random random, final double dDensity) {
+		final long[] arrWords = new long[(NUM_BITS + 63) / 64];
+		for (int iBit = 0; iBit < NUM_BITS; iBit++) {
+			if (random.nextDouble() < dDensity) {
+				arrWords[iBit >>> 6] |= 1L << (iBit & 63);
+			}
+		}
+		return arrWords;
+	}
+}
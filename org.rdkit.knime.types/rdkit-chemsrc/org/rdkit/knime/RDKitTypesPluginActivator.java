@@ -527,6 +527,20 @@ public class RDKitTypesPluginActivator extends AbstractUIPlugin {
 		}
 	}
 
+	/**
+	 * Returns the names of the native libraries, which are necessary to run the RDKit
+	 * on the current platform, in the order they need to be loaded. Other processes,
+	 * which use the RDKit, need to load the same libraries.
+	 *
+	 * @return Library names. Empty, if the current platform is not supported.
+	 */
+	public static String[] getNativeLibraries() {
+		final String[] arrLibraries = LIBRARIES.get(Platform.getOS() + "."
+				+ Platform.getOSArch());
+
+		return (arrLibraries == null ? new String[0] : arrLibraries.clone());
+	}
+
 	/**
 	 * Returns the shared instance.
 	 *
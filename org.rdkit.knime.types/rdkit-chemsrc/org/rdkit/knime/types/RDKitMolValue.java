@@ -116,10 +116,16 @@ public interface RDKitMolValue extends DataValue {
 	 */
 	public static boolean equals(RDKitMolValue mol1, RDKitMolValue mol2) {
 		boolean bSame = false;
+		final RDKitMolCell2 cell1 = RDKitMolCell2.getMolCell(mol1);
+		final RDKitMolCell2 cell2 = RDKitMolCell2.getMolCell(mol2);
 
 		if (mol1 == null && mol2 == null) {
 			bSame = true;
 		} 
+		else if (cell1 != null && cell2 != null && cell1.getContentHash() != cell2.getContentHash()) {
+			// Shortcut without touching native code: Different content hashes mean different molecules
+			bSame = false;
+		}
 		else if (mol1 != null && mol2 != null) {
 			ROMol molRDKit1 = null;
 			ROMol molRDKit2 = null;
@@ -127,10 +133,10 @@ public interface RDKitMolValue extends DataValue {
 
 			try {
 
-				if (mol1 instanceof RDKitMolCell2) {
+				if (cell1 != null) {
 					// Shortcut to get byte array representation (without
-					// conversion to ROMol before
-					byteContent1 = ((RDKitMolCell2) mol1).getBinaryValue();
+					// conversion to ROMol before and without copying it)
+					byteContent1 = cell1.getBinaryValueNoCopy();
 				} 
 				else {
 					// Do it the "official" way
@@ -138,10 +144,10 @@ public interface RDKitMolValue extends DataValue {
 					byteContent1 = RDKitMolCell2.toByteArray(molRDKit1);
 				}
 
-				if (mol2 instanceof RDKitMolCell2) {
+				if (cell2 != null) {
 					// Shortcut to get byte array representation (without
-					// conversion to ROMol before
-					byteContent2 = ((RDKitMolCell2) mol2).getBinaryValue();
+					// conversion to ROMol before and without copying it)
+					byteContent2 = cell2.getBinaryValueNoCopy();
 				} 
 				else {
 					// Do it the "official" way
@@ -176,23 +182,33 @@ public interface RDKitMolValue extends DataValue {
 		private static final DataValueComparator COMPARATOR = new DataValueComparator() {
 			@Override
 			protected int compareDataValues(final DataValue v1, final DataValue v2) {
-				int atomCount1;
-				int atomCount2;
-				final ROMol mol1 = ((RDKitMolValue) v1).readMoleculeValue();
-				try {
-					atomCount1 = (int) mol1.getNumAtoms();
-				} 
-				finally {
-					mol1.delete();
+				return getAtomCount(v1) - getAtomCount(v2);
+			}
+
+			/**
+			 * Determines the number of atoms of the passed in molecule value. For RDKit Mol Cells
+			 * the cached atom count is used, which does not require to touch native code.
+			 * 
+			 * @param value Molecule value. Must not be null.
+			 * 
+			 * @return Number of atoms.
+			 */
+			private int getAtomCount(final DataValue value) {
+				int atomCount;
+				final RDKitMolCell2 cell = RDKitMolCell2.getMolCell(value);
+				if (cell != null) {
+					atomCount = cell.getAtomCount();
 				}
-				final ROMol mol2 = ((RDKitMolValue) v2).readMoleculeValue();
-				try {
-					atomCount2 = (int) mol2.getNumAtoms();
-				} 
-				finally {
-					mol2.delete();
+				else {
+					final ROMol mol = ((RDKitMolValue) value).readMoleculeValue();
+					try {
+						atomCount = (int) mol.getNumAtoms();
+					} 
+					finally {
+						mol.delete();
+					}
 				}
-				return atomCount1 - atomCount2;
+				return atomCount;
 			}
 		};
 
@@ -22,6 +22,12 @@ public class RDKitTypeSerializationUtils {
 	// Constants
 	//
 	private static final NodeLogger LOGGER = NodeLogger.getLogger(RDKitTypeSerializationUtils.class);
+
+	/** Marker at the beginning of every RDKit molecule pickle (0xDEADBEEF in little endian order). */
+	private static final int MOL_PICKLE_ENDIAN_ID = 0xDEADBEEF;
+
+	/** Minimal length of an RDKit molecule pickle: Endian marker and version information. */
+	private static final int MOL_PICKLE_MIN_LENGTH = 16;
 	
 	
 	//
@@ -35,12 +41,23 @@ public class RDKitTypeSerializationUtils {
 			cell = DataType.getMissingCell();
 		}
 
-		// Generate an RDKit Mol Cell with canonicalized SMILES attached
+		// Generate an RDKit Mol Cell, which computes its canonicalized SMILES lazily 
+		// only when it is needed - the pickle gets validated here nevertheless
 		else {
+			if (bytes.length < MOL_PICKLE_MIN_LENGTH) {
+				throw new IOException("Unable to interpret RDKit Molecule: Pickle is truncated (" + 
+						bytes.length + " bytes)");
+			}
+			final int iEndianId = (bytes[0] & 0xff) | (bytes[1] & 0xff) << 8 | 
+					(bytes[2] & 0xff) << 16 | (bytes[3] & 0xff) << 24;
+			if (iEndianId != MOL_PICKLE_ENDIAN_ID) {
+				throw new IOException("Unable to interpret RDKit Molecule: Unknown pickle format");
+			}
+
 			ROMol mol = null;
 			try {
 				mol = RDKitMolCell2.toROMol(bytes);
-				cell = RDKitMolCellFactory.createRDKitAdapterCell(mol, null);
+				cell = new RDKitAdapterCell(RDKitMolCell2.createFromBinaryValue(bytes, mol));
 			}
 			catch (final Exception exc) {
 				LOGGER.debug(exc);
@@ -50,8 +67,7 @@ public class RDKitTypeSerializationUtils {
 				if (strMsg == null || strMsg.trim().isEmpty()) {
 					strMsg = "Unknown error";
 				}
-				throw new IOException("Unable to interpret RDKit Molecule: " + strMsg);
-
+				throw new IOException("Unable to interpret RDKit Molecule: " + strMsg, exc);
 			}
 			finally {
 				if (mol != null) {
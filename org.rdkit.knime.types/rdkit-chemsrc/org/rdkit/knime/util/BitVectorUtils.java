@@ -0,0 +1,417 @@
+/*
+ * ------------------------------------------------------------------
+ * This source code, its documentation and all appendant files
+ * are protected by copyright law. All rights reserved.
+ *
+ * Copyright (C)2022-2023
+ * Novartis Pharma AG, Switzerland
+ *
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.rdkit.knime.util;
+
+import java.util.function.LongUnaryOperator;
+
+import org.RDKit.ExplicitBitVect;
+import org.RDKit.RDKFuncs;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bitvector.DenseBitVector;
+
+/**
+ * This class contains utility methods to convert fingerprints between
+ * RDKit ExplicitBitVect objects and KNIME bit vectors. Instead of transferring
+ * a fingerprint bit by bit through the native interface (or going through a
+ * bit string), the conversion crosses the JNI boundary only once and sets the
+ * bits on the Java side word by word. Sparse vectors (e.g. Morgan fingerprints)
+ * are transferred in the binary pickle format of the RDKit bit vector, which
+ * stores only the on bits. Dense vectors (e.g. RDKit fingerprints) are transferred
+ * as FPS hex text, as RDKit reads and writes pickles on bit by on bit, which is
+ * slower than processing the hex text of the whole vector for more than about
+ * one on bit in eight bits.
+ * Bit i of a KNIME bit vector always corresponds to bit i of the RDKit bit vector.
+ */
+public class BitVectorUtils {
+
+	//
+	// Constants
+	//
+
+	/** Offset of the on-bit gap values in an ExplicitBitVect pickle (version, size, number of on bits). */
+	private static final int PICKLE_HEADER_LENGTH = 12;
+
+	/** Vectors with fewer on bits than one per this number of bits are transferred as pickle. */
+	private static final int SPARSE_BITS_PER_ON_BIT = 8;
+
+	/** Lower case hex digits as used in FPS text. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** Lazily determined pickle version (negative as stored in the pickle) of the RDKit bit vectors. */
+	private static volatile int g_iPickleVersion = 0;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * This constructor serves only the purpose to avoid instantiation of this class.
+	 */
+	private BitVectorUtils() {
+		// To avoid instantiation of this class.
+	}
+
+	//
+	// Static Public Methods
+	//
+
+	/**
+	 * Converts the passed in RDKit bit vector into a KNIME bit vector.
+	 * The RDKit object is not disposed.
+	 * 
+	 * @param ebv RDKit bit vector. Can be null.
+	 * 
+	 * @return KNIME bit vector. Null, if null was passed in.
+	 */
+	public static DenseBitVector toDenseBitVector(final ExplicitBitVect ebv) {
+		DenseBitVector dbv = null;
+
+		if (ebv != null) {
+			final long lNumBits = ebv.getNumBits();
+			final long[] arrWords = (isSparse(ebv.getNumOnBits(), lNumBits) ?
+					decodePickle(ebv.toByteArray()) : decodeFpsText(RDKFuncs.BitVectToFPSText(ebv), lNumBits));
+
+			if (arrWords != null) {
+				dbv = new DenseBitVector(arrWords, lNumBits);
+			}
+			else {
+				// Fallback for unknown formats
+				final int iCount = (int)lNumBits;
+				dbv = new DenseBitVector(iCount);
+				for (int i = 0; i < iCount; i++) {
+					if (ebv.getBit(i)) {
+						dbv.set(i);
+					}
+				}
+			}
+		}
+
+		return dbv;
+	}
+
+	/**
+	 * Converts the passed in KNIME bit vector into an RDKit bit vector.
+	 * The caller is responsible for disposing the returned RDKit object.
+	 * 
+	 * @param bitVector KNIME bit vector. Can be null.
+	 * 
+	 * @return RDKit bit vector. Null, if null was passed in.
+	 */
+	public static ExplicitBitVect toExplicitBitVect(final DenseBitVector bitVector) {
+		return (bitVector == null ? null : toExplicitBitVect(bitVector.length(),
+				bitVector.cardinality(), bitVector::nextSetBit));
+	}
+
+	/**
+	 * Converts the passed in KNIME bit vector value (dense or sparse) into an RDKit bit vector.
+	 * The caller is responsible for disposing the returned RDKit object.
+	 * 
+	 * @param bitVector KNIME bit vector value. Can be null.
+	 * 
+	 * @return RDKit bit vector. Null, if null was passed in.
+	 */
+	public static ExplicitBitVect toExplicitBitVect(final BitVectorValue bitVector) {
+		return (bitVector == null ? null : toExplicitBitVect(bitVector.length(),
+				bitVector.cardinality(), bitVector::nextSetBit));
+	}
+
+	//
+	// Static Private Methods
+	//
+
+	/**
+	 * Creates an RDKit bit vector from the specified on bits by building its
+	 * pickle (sparse vectors) or its FPS hex text (dense vectors) on the Java side. 
+	 * Dense vectors are also used, if the pickle format of the RDKit library 
+	 * is not the one known to this class.
+	 * 
+	 * @param lLength Number of bits of the vector.
+	 * @param lCardinality Number of on bits of the vector.
+	 * @param nextSetBit Function returning the index of the next on bit starting
+	 * 		at the passed in index, or -1, if there is none.
+	 * 
+	 * @return RDKit bit vector. Not null.
+	 */
+	private static ExplicitBitVect toExplicitBitVect(final long lLength, final long lCardinality,
+			final LongUnaryOperator nextSetBit) {
+		if (lLength > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bit vector is too long to be converted into an RDKit bit vector: " + lLength);
+		}
+
+		ExplicitBitVect ebv;
+
+		if (isSparse(lCardinality, lLength) && getPickleVersion() == -32) {
+			// Every gap value takes up to 4 bytes
+			final byte[] buffer = new byte[PICKLE_HEADER_LENGTH + 4 * ((int)lCardinality + 1)];
+			writeInt(buffer, 0, -32);
+			writeInt(buffer, 4, (int)lLength);
+			writeInt(buffer, 8, (int)lCardinality);
+
+			int iPos = PICKLE_HEADER_LENGTH;
+			long lPrevious = -1;
+			for (long l = nextSetBit.applyAsLong(0); l >= 0; l = nextSetBit.applyAsLong(l + 1)) {
+				iPos = writePackedInt(buffer, iPos, l - lPrevious - 1);
+				lPrevious = l;
+			}
+			iPos = writePackedInt(buffer, iPos, lLength - lPrevious - 1);
+
+			final byte[] pickle = new byte[iPos];
+			System.arraycopy(buffer, 0, pickle, 0, iPos);
+			ebv = ExplicitBitVect.fromByteArray(pickle);
+		}
+		else {
+			ebv = new ExplicitBitVect(lLength);
+			if (lCardinality > 0) {
+				RDKFuncs.UpdateBitVectFromFPSText(ebv, encodeFpsText(lLength, nextSetBit));
+			}
+		}
+
+		return ebv;
+	}
+
+	/**
+	 * Determines, if a bit vector is sparse enough to be transferred as pickle.
+	 * 
+	 * @param lOnBits Number of on bits.
+	 * @param lNumBits Number of bits.
+	 * 
+	 * @return True, if sparse. False otherwise.
+	 */
+	private static boolean isSparse(final long lOnBits, final long lNumBits) {
+		return lOnBits * SPARSE_BITS_PER_ON_BIT < lNumBits;
+	}
+
+	/**
+	 * Encodes the specified on bits as FPS hex text, which stores the bytes of the
+	 * vector in little-endian order with the least significant bit first.
+	 * 
+	 * @param lLength Number of bits of the vector.
+	 * @param nextSetBit Function returning the index of the next on bit starting
+	 * 		at the passed in index, or -1, if there is none.
+	 * 
+	 * @return FPS hex text. Not null.
+	 */
+	private static String encodeFpsText(final long lLength, final LongUnaryOperator nextSetBit) {
+		final byte[] arrBytes = new byte[(int)((lLength + 7) >>> 3)];
+		for (long l = nextSetBit.applyAsLong(0); l >= 0; l = nextSetBit.applyAsLong(l + 1)) {
+			arrBytes[(int)(l >>> 3)] |= 1 << (l & 7);
+		}
+
+		final char[] arrHex = new char[2 * arrBytes.length];
+		for (int i = 0; i < arrBytes.length; i++) {
+			arrHex[2 * i] = HEX_DIGITS[(arrBytes[i] >>> 4) & 0x0F];
+			arrHex[2 * i + 1] = HEX_DIGITS[arrBytes[i] & 0x0F];
+		}
+
+		return new String(arrHex);
+	}
+
+	/**
+	 * Decodes FPS hex text of an RDKit bit vector into 64 bit words
+	 * as used by a KNIME DenseBitVector.
+	 * 
+	 * @param strFps FPS hex text. Must not be null.
+	 * @param lNumBits Number of bits of the vector.
+	 * 
+	 * @return Bit words or null, if the text does not have the expected format.
+	 */
+	private static long[] decodeFpsText(final String strFps, final long lNumBits) {
+		final int iByteCount = (int)((lNumBits + 7) >>> 3);
+		if (strFps.length() != 2 * iByteCount) {
+			return null;
+		}
+
+		final long[] arrWords = new long[(int)((lNumBits + 63) >>> 6)];
+		for (int i = 0; i < iByteCount; i++) {
+			final int iHigh = Character.digit(strFps.charAt(2 * i), 16);
+			final int iLow = Character.digit(strFps.charAt(2 * i + 1), 16);
+			if (iHigh < 0 || iLow < 0) {
+				return null;
+			}
+			arrWords[i >>> 3] |= (long)((iHigh << 4) | iLow) << ((i & 7) << 3);
+		}
+
+		return arrWords;
+	}
+
+	/**
+	 * Decodes the on bits of an RDKit bit vector pickle into 64 bit words
+	 * as used by a KNIME DenseBitVector.
+	 * 
+	 * @param pickle Pickle of an RDKit bit vector. Must not be null.
+	 * 
+	 * @return Bit words or null, if the pickle format is not supported.
+	 */
+	private static long[] decodePickle(final byte[] pickle) {
+		if (pickle.length < PICKLE_HEADER_LENGTH || readInt(pickle, 0) != -32) {
+			return null;
+		}
+
+		final long lLength = readInt(pickle, 4) & 0xFFFFFFFFL;
+		final long lOnBits = readInt(pickle, 8) & 0xFFFFFFFFL;
+		final long[] arrWords = new long[(int)((lLength + 63) >>> 6)];
+
+		int iPos = PICKLE_HEADER_LENGTH;
+		long lBit = -1;
+		for (long i = 0; i < lOnBits; i++) {
+			// Packed integer, the low bits of the first byte tell its length
+			final int b0 = pickle[iPos] & 0xFF;
+			long lGap;
+			if ((b0 & 1) == 0) {
+				lGap = b0 >> 1;
+				iPos += 1;
+			}
+			else if ((b0 & 3) == 1) {
+				lGap = (((pickle[iPos + 1] & 0xFF) << 8 | b0) >> 2) + 128;
+				iPos += 2;
+			}
+			else if ((b0 & 7) == 3) {
+				lGap = (((pickle[iPos + 2] & 0xFF) << 16 | (pickle[iPos + 1] & 0xFF) << 8 | b0) >> 3)
+						+ 128 + 16384;
+				iPos += 3;
+			}
+			else {
+				lGap = ((readInt(pickle, iPos) & 0xFFFFFFFFL) >>> 3) + 128 + 16384 + 2097152;
+				iPos += 4;
+			}
+			lBit += lGap + 1;
+			arrWords[(int)(lBit >>> 6)] |= 1L << (lBit & 63);
+		}
+
+		return arrWords;
+	}
+
+	/**
+	 * Writes a packed integer in the format used by RDKit pickles, which
+	 * stores small values with fewer bytes.
+	 * 
+	 * @param buffer Target buffer. Must not be null.
+	 * @param iPos Position to write to.
+	 * @param lValue Non-negative value to write.
+	 * 
+	 * @return The position after the written value.
+	 */
+	private static int writePackedInt(final byte[] buffer, final int iPos, final long lValue) {
+		int iBytes;
+		long lPacked;
+
+		if (lValue < 128) {
+			lPacked = lValue << 1;
+			iBytes = 1;
+		}
+		else if (lValue < 128 + 16384) {
+			lPacked = ((lValue - 128) << 2) | 1;
+			iBytes = 2;
+		}
+		else if (lValue < 128 + 16384 + 2097152) {
+			lPacked = ((lValue - 128 - 16384) << 3) | 3;
+			iBytes = 3;
+		}
+		else {
+			lPacked = ((lValue - 128 - 16384 - 2097152) << 3) | 7;
+			iBytes = 4;
+		}
+
+		for (int i = 0; i < iBytes; i++) {
+			buffer[iPos + i] = (byte)(lPacked >>> (8 * i));
+		}
+
+		return iPos + iBytes;
+	}
+
+	/**
+	 * Determines the version of the bit vector pickles written by the RDKit library
+	 * as it is stored in the pickle itself.
+	 * 
+	 * @return Pickle version.
+	 */
+	private static int getPickleVersion() {
+		int iVersion = g_iPickleVersion;
+
+		if (iVersion == 0) {
+			final ExplicitBitVect ebv = new ExplicitBitVect(1);
+			try {
+				iVersion = readInt(ebv.toByteArray(), 0);
+			}
+			finally {
+				ebv.delete();
+			}
+			g_iPickleVersion = iVersion;
+		}
+
+		return iVersion;
+	}
+
+	/**
+	 * Reads a little-endian 32 bit integer.
+	 * 
+	 * @param buffer Buffer to read from. Must not be null.
+	 * @param iPos Position to read from.
+	 * 
+	 * @return The integer value.
+	 */
+	private static int readInt(final byte[] buffer, final int iPos) {
+		return (buffer[iPos] & 0xFF) | (buffer[iPos + 1] & 0xFF) << 8 |
+				(buffer[iPos + 2] & 0xFF) << 16 | (buffer[iPos + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Writes a little-endian 32 bit integer.
+	 * 
+	 * @param buffer Buffer to write to. Must not be null.
+	 * @param iPos Position to write to.
+	 * @param iValue The integer value.
+	 */
+	private static void writeInt(final byte[] buffer, final int iPos, final int iValue) {
+		buffer[iPos] = (byte)iValue;
+		buffer[iPos + 1] = (byte)(iValue >>> 8);
+		buffer[iPos + 2] = (byte)(iValue >>> 16);
+		buffer[iPos + 3] = (byte)(iValue >>> 24);
+	}
+}
@@ -58,7 +58,6 @@ import java.util.Map;
 import org.RDKit.ChemicalReaction;
 import org.RDKit.ExplicitBitVect;
 import org.RDKit.Int_Vect;
-import org.RDKit.RDKFuncs;
 import org.RDKit.ROMol;
 import org.RDKit.UInt_Vect;
 import org.knime.chem.types.RxnValue;
@@ -972,6 +971,7 @@ public class InputDataInfo {
 
 	/**
 	 * Convenience method that converts the result of {@link #getCell(DataRow)} into a DenseBitVector object.
+	 * Other bit vector cells than dense ones (e.g. sparse bit vectors) get converted.
 	 * 
 	 * @param row The data row with concrete data cells. This data row must
 	 * 		belong to the table, which spec was used in the constructor.
@@ -982,7 +982,7 @@ public class InputDataInfo {
 	 * 
 	 * @throws EmptyCellException See {@link #getCell(DataRow)}.
 	 * @throws IllegalArgumentException Thrown, if the cell is not compatible
-	 * 		with the DenseBitVectorCell. This is usually an implementation error.
+	 * 		with the BitVectorValue. This is usually an implementation error.
 	 * 
 	 * @see #getCell(DataRow)
 	 */
@@ -994,9 +994,16 @@ public class InputDataInfo {
 			if (cell instanceof DenseBitVectorCell) {
 				dbv = ((DenseBitVectorCell)cell).getBitVectorCopy();
 			}
+			else if (cell instanceof BitVectorValue) {
+				final BitVectorValue bitVector = (BitVectorValue)cell;
+				dbv = new DenseBitVector(bitVector.length());
+				for (long lBit = bitVector.nextSetBit(0); lBit >= 0; lBit = bitVector.nextSetBit(lBit + 1)) {
+					dbv.set(lBit);
+				}
+			}
 			else {
 				throw new IllegalArgumentException("The cell in column " + getColumnSpec().getName() +
-						" is not compatible with a DenseBitVectorCell. This is usually an implementation error.");
+						" is not compatible with a BitVectorValue. This is usually an implementation error.");
 			}
 		}
 
@@ -1025,12 +1032,8 @@ public class InputDataInfo {
 
 		if (cell != null) {
 			if (cell.getType().isCompatible(BitVectorValue.class)) {
-				final BitVectorValue bitVector = ((BitVectorValue)cell);
-
 				// Convert the bit vector to RDKit style explicit bit vector
-				final String binString = new StringBuilder(bitVector.toBinaryString()).reverse().toString();
-				expBitVector = new ExplicitBitVect(bitVector.length());
-				RDKFuncs.FromBitString(expBitVector, binString);
+				expBitVector = BitVectorUtils.toExplicitBitVect((BitVectorValue)cell);
 			}
 			else {
 				throw new IllegalArgumentException("The cell in column " + getColumnSpec().getName() +